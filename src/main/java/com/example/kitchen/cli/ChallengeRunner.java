@@ -10,6 +10,8 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Component;
 
+import java.util.UUID;
+
 @Slf4j
 @Component
 @RequiredArgsConstructor
@@ -61,7 +63,7 @@ public class ChallengeRunner implements CommandLineRunner {
                     opts.rate, opts.min, opts.max);
 
             // Run the full simulation and block until /solve responds.
-            simulator.runSimulation(opts.rate, opts.min, opts.max).block();
+            simulator.runSimulation(UUID.randomUUID().toString(), opts.rate, opts.min, opts.max).block();
 
             log.info("Simulation finished successfully");
         } catch (Throwable t) {
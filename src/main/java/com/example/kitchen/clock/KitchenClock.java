@@ -0,0 +1,30 @@
+package com.example.kitchen.clock;
+
+import java.time.Instant;
+
+/**
+ * Time source of the kitchen, in epoch microseconds.
+ * <p>
+ * Decay math, placement timestamps and ledger timestamps all read this clock, so the
+ * same code runs on real time ({@link SystemKitchenClock}) or on manually advanced
+ * virtual time ({@link VirtualKitchenClock}).
+ */
+public interface KitchenClock {
+
+    /**
+     * Current time in epoch microseconds; never goes backwards.
+     */
+    long nowMicros();
+
+    default Instant now() {
+        return ofMicros(nowMicros());
+    }
+
+    static long toMicros(Instant t) {
+        return Math.addExact(Math.multiplyExact(t.getEpochSecond(), 1_000_000L), t.getNano() / 1_000L);
+    }
+
+    static Instant ofMicros(long micros) {
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000L);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.kitchen.clock;
+
+import java.time.Instant;
+
+/**
+ * Real time: wall clock read once at construction, then advanced by System.nanoTime().
+ * Monotonic and microsecond-precise; NTP steps of the wall clock are not followed.
+ */
+public final class SystemKitchenClock implements KitchenClock {
+    private final long originMicros = KitchenClock.toMicros(Instant.now());
+    private final long originNanos = System.nanoTime();
+
+    @Override
+    public long nowMicros() {
+        return originMicros + (System.nanoTime() - originNanos) / 1_000L;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.kitchen.clock;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Virtual time: stands still until advanced, so minutes of kitchen time pass in one call.
+ * Thread-safe.
+ */
+public final class VirtualKitchenClock implements KitchenClock {
+    private final AtomicLong micros;
+
+    public VirtualKitchenClock(Instant start) {
+        this.micros = new AtomicLong(KitchenClock.toMicros(start));
+    }
+
+    @Override
+    public long nowMicros() {
+        return micros.get();
+    }
+
+    public void advance(Duration d) {
+        advanceMicros(d.toNanos() / 1_000L);
+    }
+
+    public void advanceMicros(long delta) {
+        if (delta < 0) throw new IllegalArgumentException("Virtual time cannot go backwards");
+        micros.addAndGet(delta);
+    }
+
+    /**
+     * Jump forward to "t"; earlier instants are ignored (time never goes backwards).
+     */
+    public void advanceTo(Instant t) {
+        micros.accumulateAndGet(KitchenClock.toMicros(t), Math::max);
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.kitchen.config;
+
+import com.example.kitchen.clock.KitchenClock;
+import com.example.kitchen.clock.SystemKitchenClock;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Real-time clock for the running application; tests and simulations build their own.
+ */
+@Configuration
+public class ClockConfig {
+
+    @Bean
+    public KitchenClock kitchenClock() {
+        return new SystemKitchenClock();
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.kitchen.config;
+
+import com.example.kitchen.repository.StatementCounter;
+import io.r2dbc.postgresql.PostgresqlConnectionFactoryProvider;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.boot.autoconfigure.r2dbc.ConnectionFactoryOptionsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.time.ZoneOffset;
+import java.util.TimeZone;
+
+/**
+ * The application's DatabaseClient (replaces Boot's default one, which repositories and
+ * R2dbcEntityTemplate then build on): same connection handling, plus a statement count.
+ * Sessions run in UTC: {@code timestamp} columns hold UTC wall time, whether written by a bound
+ * Instant (converted in the session TimeZone, the JVM's by default) or as COPY text.
+ */
+@Configuration
+public class DatabaseClientConfig {
+
+    @Bean
+    public DatabaseClient databaseClient(ConnectionFactory connectionFactory, StatementCounter counter) {
+        return DatabaseClient.builder()
+                .connectionFactory(connectionFactory)
+                .executeFunction(statement -> {
+                    counter.increment();
+                    return statement.execute();
+                })
+                .build();
+    }
+
+    @Bean
+    public ConnectionFactoryOptionsBuilderCustomizer utcSessionTimeZone() {
+        return options -> options.option(PostgresqlConnectionFactoryProvider.TIME_ZONE, TimeZone.getTimeZone(ZoneOffset.UTC));
+    }
+}
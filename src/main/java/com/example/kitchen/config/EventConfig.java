@@ -0,0 +1,20 @@
+package com.example.kitchen.config;
+
+import com.example.kitchen.events.KitchenEventBus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The live kitchen event bus behind {@code GET /api/events} and {@code /ws/events}.
+ */
+@Configuration
+public class EventConfig {
+
+    // destroy method "close" is inferred: queued events are dispatched, then subscriptions complete
+    @Bean
+    public KitchenEventBus kitchenEventBus(@Value("${kitchen.events.queue-capacity:65536}") int queueCapacity,
+                                           @Value("${kitchen.events.subscriber-buffer:256}") int subscriberBuffer) {
+        return new KitchenEventBus(queueCapacity, subscriberBuffer);
+    }
+}
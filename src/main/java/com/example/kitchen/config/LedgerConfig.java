@@ -0,0 +1,95 @@
+package com.example.kitchen.config;
+
+import com.example.kitchen.ledger.CommitCoordinator;
+import com.example.kitchen.ledger.DirectLedgerWriter;
+import com.example.kitchen.ledger.GroupCommitLedgerWriter;
+import com.example.kitchen.ledger.LedgerReader;
+import com.example.kitchen.ledger.LedgerWriter;
+import com.example.kitchen.ledger.MappedLedger;
+import com.example.kitchen.ledger.TransactionCommitCoordinator;
+import com.example.kitchen.ledger.WriteBehindLedgerWriter;
+import com.example.kitchen.repository.ActionBatchWriter;
+import com.example.kitchen.repository.LedgerQueryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Picks the action ledger writer and reader, and how persistence work is committed, from {@code kitchen.ledger.mode}.
+ * Only with the database-backed KitchenPersistence (see PersistenceConfig), except the {@code mapped}
+ * ledger: with {@code in-memory} it is the ledger of InMemoryKitchenPersistence.
+ */
+@Configuration
+public class LedgerConfig {
+
+    @Bean
+    @Profile(PersistenceConfig.DATABASE)
+    @ConditionalOnExpression("'${kitchen.ledger.mode:direct}' != 'group-commit'")
+    public CommitCoordinator transactionCommitCoordinator(TransactionalOperator tx) {
+        return new TransactionCommitCoordinator(tx);
+    }
+
+    @Bean
+    @Profile(PersistenceConfig.DATABASE)
+    @ConditionalOnProperty(prefix = "kitchen.ledger", name = "mode", havingValue = "direct", matchIfMissing = true)
+    public LedgerWriter directLedgerWriter(ActionBatchWriter batchWriter) {
+        return new DirectLedgerWriter(batchWriter);
+    }
+
+    // destroy method "close" is inferred: buffered actions are flushed on shutdown
+    @Bean
+    @Profile(PersistenceConfig.DATABASE)
+    @ConditionalOnProperty(prefix = "kitchen.ledger", name = "mode", havingValue = "write-behind")
+    public LedgerWriter writeBehindLedgerWriter(ActionBatchWriter batchWriter,
+                                                @Value("${kitchen.ledger.buffer-capacity:65536}") int capacity,
+                                                @Value("${kitchen.ledger.max-batch:1000}") int maxBatch,
+                                                @Value("${kitchen.ledger.linger:50ms}") Duration linger,
+                                                @Value("${kitchen.ledger.offer-timeout:1s}") Duration offerTimeout) {
+        return new WriteBehindLedgerWriter(batchWriter, capacity, maxBatch, linger, offerTimeout);
+    }
+
+    // one bean for both roles: the ledger writer buffers into the coordinator's current group;
+    // destroy method "close" is inferred: queued units are committed on shutdown
+    @Bean
+    @Profile(PersistenceConfig.DATABASE)
+    @ConditionalOnProperty(prefix = "kitchen.ledger", name = "mode", havingValue = "group-commit")
+    public GroupCommitLedgerWriter groupCommitLedgerWriter(ActionBatchWriter batchWriter,
+                                                            TransactionalOperator tx,
+                                                            DatabaseClient db,
+                                                            @Value("${kitchen.ledger.buffer-capacity:65536}") int capacity,
+                                                            @Value("${kitchen.ledger.max-group:500}") int maxGroup,
+                                                            @Value("${kitchen.ledger.group-window:2ms}") Duration window,
+                                                            @Value("${kitchen.ledger.stats-interval:10s}") Duration statsInterval) {
+        return new GroupCommitLedgerWriter(batchWriter, tx, db, capacity, maxGroup, window, statsInterval);
+    }
+
+    @Bean
+    @Profile(PersistenceConfig.DATABASE)
+    @ConditionalOnExpression("'${kitchen.ledger.mode:direct}' != 'mapped'")
+    public LedgerReader ledgerQueryRepository(DatabaseClient db) {
+        return new LedgerQueryRepository(db);
+    }
+
+    // one bean for both roles: the log is written and read in place; primary over InMemoryKitchenPersistence,
+    // which is also a LedgerReader but reads through this one;
+    // destroy method "close" is inferred: mapped segments are forced to disk on shutdown
+    @Bean
+    @Primary
+    @Profile("!no-persistence")
+    @ConditionalOnProperty(prefix = "kitchen.ledger", name = "mode", havingValue = "mapped")
+    public MappedLedger mappedLedger(@Value("${kitchen.ledger.mapped.dir:./data/ledger}") Path dir,
+                                     @Value("${kitchen.ledger.mapped.segment-size:64MB}") DataSize segmentSize) throws IOException {
+        return MappedLedger.open(dir, Math.toIntExact(segmentSize.toBytes()));
+    }
+}
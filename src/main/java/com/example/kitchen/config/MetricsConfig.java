@@ -0,0 +1,47 @@
+package com.example.kitchen.config;
+
+import com.example.kitchen.events.KitchenEventBus;
+import com.example.kitchen.metrics.KitchenMetrics;
+import com.example.kitchen.service.StorageService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Kitchen meters, scraped from {@code /actuator/prometheus}. MeterBinder beans are bound to the
+ * registry by Spring Boot once it is ready.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public KitchenMetrics kitchenMetrics(MeterRegistry registry) {
+        return new KitchenMetrics(registry);
+    }
+
+    @Bean
+    public MeterBinder storageMetrics(StorageService storageService) {
+        return storageService::bindTo;
+    }
+
+    @Bean
+    public MeterBinder eventBusMetrics(KitchenEventBus bus) {
+        return registry -> {
+            FunctionCounter.builder("kitchen.events.published", bus, KitchenEventBus::published)
+                    .description("Live events handed to the dispatcher")
+                    .register(registry);
+            FunctionCounter.builder("kitchen.events.dropped", bus, KitchenEventBus::dropped)
+                    .description("Live events dropped because the dispatcher queue was full")
+                    .register(registry);
+            FunctionCounter.builder("kitchen.events.subscriber.dropped", bus, KitchenEventBus::subscriberDrops)
+                    .description("Live events dropped by slow subscribers' overflow strategies")
+                    .register(registry);
+            Gauge.builder("kitchen.events.subscribers", bus, KitchenEventBus::subscriberCount)
+                    .description("Connected live event subscribers")
+                    .register(registry);
+        };
+    }
+}
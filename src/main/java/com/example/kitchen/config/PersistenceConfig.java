@@ -0,0 +1,54 @@
+package com.example.kitchen.config;
+
+import com.example.kitchen.ledger.CommitCoordinator;
+import com.example.kitchen.ledger.LedgerWriter;
+import com.example.kitchen.ledger.MappedLedger;
+import com.example.kitchen.persistence.InMemoryKitchenPersistence;
+import com.example.kitchen.persistence.KitchenPersistence;
+import com.example.kitchen.persistence.NoOpKitchenPersistence;
+import com.example.kitchen.persistence.R2dbcKitchenPersistence;
+import com.example.kitchen.repository.ChangeSetWriter;
+import com.example.kitchen.repository.OrderMoveWriter;
+import com.example.kitchen.repository.OrderRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+
+/**
+ * Picks the KitchenPersistence implementation from the active Spring profile.
+ * <p>
+ * {@code in-memory} and {@code no-persistence} beans are also the LedgerReader; with either
+ * profile LedgerConfig wires no Postgres ledger writer or query. With {@code in-memory} and
+ * {@code kitchen.ledger.mode=mapped}, actions go to the MappedLedger and are read from it.
+ */
+@Configuration
+public class PersistenceConfig {
+
+    static final String DATABASE = "!in-memory & !no-persistence";
+
+    @Bean
+    @Profile(DATABASE)
+    public KitchenPersistence r2dbcKitchenPersistence(R2dbcEntityTemplate template,
+                                                      OrderRepository orderRepository,
+                                                      ChangeSetWriter changeSetWriter,
+                                                      OrderMoveWriter orderMoveWriter,
+                                                      LedgerWriter ledgerWriter,
+                                                      CommitCoordinator tx) {
+        return new R2dbcKitchenPersistence(template, orderRepository, changeSetWriter, orderMoveWriter, ledgerWriter, tx);
+    }
+
+    @Bean
+    @Profile("in-memory")
+    public InMemoryKitchenPersistence inMemoryKitchenPersistence(ObjectProvider<MappedLedger> mappedLedger) {
+        MappedLedger ledger = mappedLedger.getIfAvailable();
+        return ledger == null ? new InMemoryKitchenPersistence() : new InMemoryKitchenPersistence(ledger, ledger);
+    }
+
+    @Bean
+    @Profile("no-persistence")
+    public NoOpKitchenPersistence noOpKitchenPersistence() {
+        return new NoOpKitchenPersistence();
+    }
+}
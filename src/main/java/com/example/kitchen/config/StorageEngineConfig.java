@@ -0,0 +1,29 @@
+package com.example.kitchen.config;
+
+import com.example.kitchen.engine.LockedStorageEngine;
+import com.example.kitchen.engine.SingleWriterStorageEngine;
+import com.example.kitchen.engine.StorageEngine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Picks the StorageService execution engine from {@code kitchen.engine.mode}.
+ */
+@Configuration
+public class StorageEngineConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "kitchen.engine", name = "mode", havingValue = "locked", matchIfMissing = true)
+    public StorageEngine lockedStorageEngine() {
+        return new LockedStorageEngine();
+    }
+
+    // destroy method "close" is inferred: queued commands are drained on shutdown
+    @Bean
+    @ConditionalOnProperty(prefix = "kitchen.engine", name = "mode", havingValue = "single-writer")
+    public StorageEngine singleWriterStorageEngine(@Value("${kitchen.engine.queue-capacity:4096}") int queueCapacity) {
+        return new SingleWriterStorageEngine(queueCapacity);
+    }
+}
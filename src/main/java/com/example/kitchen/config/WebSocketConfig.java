@@ -0,0 +1,24 @@
+package com.example.kitchen.config;
+
+import com.example.kitchen.controller.KitchenEventsWebSocketHandler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * WebSocket endpoints: {@code /ws/events} streams live kitchen events (same-origin clients only).
+ */
+@Configuration
+@EnableWebSocket
+@RequiredArgsConstructor
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final KitchenEventsWebSocketHandler kitchenEventsHandler;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(kitchenEventsHandler, "/ws/events");
+    }
+}
@@ -1,13 +1,27 @@
 package com.example.kitchen.controller;
 
 
+import com.example.kitchen.dto.ChallengeOrderDto;
+import com.example.kitchen.dto.KitchenEventDto;
+import com.example.kitchen.dto.LedgerCursor;
+import com.example.kitchen.dto.LedgerFilter;
+import com.example.kitchen.dto.LedgerPage;
+import com.example.kitchen.dto.OrderOutcomeDto;
+import com.example.kitchen.dto.SimulationReport;
+import com.example.kitchen.enums.ActionType;
+import com.example.kitchen.enums.StorageType;
+import com.example.kitchen.events.KitchenEventBus;
+import com.example.kitchen.ledger.LedgerReader;
+import com.example.kitchen.mapper.OrderMapper;
 import com.example.kitchen.model.ActionEntity;
 import com.example.kitchen.model.Order;
-import com.example.kitchen.repository.ActionRepository;
+import com.example.kitchen.service.DiscreteEventSimulator;
 import com.example.kitchen.service.KitchenService;
 import com.example.kitchen.service.KitchenSimulator;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -17,22 +31,55 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api")
 @Tag(name = "Kitchen API", description = "Operations for managing kitchen orders and simulations")
 public record KitchenController(
         KitchenService kitchenService,
-        ActionRepository actionRepository,
-        KitchenSimulator kitchenSimulator
+        LedgerReader ledgerReader,
+        KitchenSimulator kitchenSimulator,
+        DiscreteEventSimulator discreteEventSimulator,
+        OrderMapper orderMapper,
+        KitchenEventBus eventBus
 ) {
 
+    // comment frames keep idle connections open through proxies and let dead clients be noticed
+    static final Duration EVENTS_HEARTBEAT = Duration.ofSeconds(15);
+    // orders of one offline run (posted or synthetic): the run and its report are held in memory
+    static final int MAX_OFFLINE_ORDERS = 100_000;
+    // orders or ids of one batch call: folded into one change set and written in one transaction
+    static final int MAX_BATCH_ORDERS = 10_000;
+    // actions.run_id is VARCHAR(64)
+    static final int MAX_RUN_ID_LENGTH = 64;
+
     @PostMapping("/orders")
     @Operation(summary = "Place new order manually")
     public Mono<Void> placeOrder(@RequestBody Order order) {
         return kitchenService.placeOrder(order);
     }
 
+    @PostMapping("/orders/batch")
+    @Operation(summary = "Place many orders in one call",
+            description = "Storage decisions are applied in array order; rows and actions are written set-based in one transaction.")
+    public Mono<List<OrderOutcomeDto>> placeOrders(@RequestBody List<Order> orders) {
+        checkBatch(orders);
+        return kitchenService.placeOrders(orders);
+    }
+
+    @PostMapping("/orders/pickup/batch")
+    @Operation(summary = "Pickup many orders by ID in one call")
+    public Mono<List<OrderOutcomeDto>> pickupOrders(@RequestBody List<String> ids) {
+        checkBatch(ids);
+        return kitchenService.pickupOrders(ids);
+    }
+
     @PostMapping("/orders/{id}/pickup")
     @Operation(summary = "Pickup order by ID")
     public Mono<Void> pickupOrder(@PathVariable String id) {
@@ -40,20 +87,135 @@ public record KitchenController(
     }
 
     @GetMapping("/ledger")
-    @Operation(summary = "Get all actions from ledger")
-    public Flux<ActionEntity> getLedger() {
-        return actionRepository.findAll();
+    @Operation(summary = "Get one page of the ledger",
+            description = "Actions in (ts, id) order, at most `limit` of them. Pass the returned `next` as `after` "
+                    + "to get the following page. Filters are optional; the time range is `from <= ts < to`.")
+    public Mono<LedgerPage> getLedger(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(required = false) String runId,
+            @RequestParam(required = false) String orderId,
+            @RequestParam(required = false) ActionType action,
+            @RequestParam(required = false) StorageType target,
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to
+    ) {
+        return ledgerReader.page(new LedgerFilter(runId, orderId, action, target, from, to),
+                after != null ? LedgerCursor.parse(after) : null, limit);
+    }
+
+    @GetMapping(value = "/ledger/stream", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    @Operation(summary = "Stream the ledger as NDJSON or SSE",
+            description = "Same order and filters as `GET /ledger`, without a page size: pages are read from the "
+                    + "database only as fast as the client consumes them.")
+    public Flux<ActionEntity> streamLedger(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String runId,
+            @RequestParam(required = false) String orderId,
+            @RequestParam(required = false) ActionType action,
+            @RequestParam(required = false) StorageType target,
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to
+    ) {
+        return ledgerReader.stream(new LedgerFilter(runId, orderId, action, target, from, to),
+                after != null ? LedgerCursor.parse(after) : null);
+    }
+
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Live kitchen events over SSE",
+            description = "Every storage decision (PLACE, MOVE, PICKUP, DISCARD) as it happens, named after its "
+                    + "action. Optional filters `storage` and `action` take several values. No history: use "
+                    + "`GET /ledger` for that. A client that reads too slowly loses events per `overflow`: "
+                    + "DROP_OLDEST (default), DROP_NEWEST or LATEST. Also available as a WebSocket at `/ws/events`.")
+    public Flux<ServerSentEvent<KitchenEventDto>> streamEvents(
+            @RequestParam(required = false) List<StorageType> storage,
+            @RequestParam(required = false) List<ActionType> action,
+            @RequestParam(defaultValue = "DROP_OLDEST") KitchenEventBus.Overflow overflow
+    ) {
+        Flux<ServerSentEvent<KitchenEventDto>> events = eventBus
+                .subscribe(enumSet(storage, StorageType.class), enumSet(action, ActionType.class), overflow)
+                .map(e -> ServerSentEvent.builder(e).event(e.action().json()).build());
+        Flux<ServerSentEvent<KitchenEventDto>> heartbeats = Flux.interval(EVENTS_HEARTBEAT)
+                .map(i -> ServerSentEvent.<KitchenEventDto>builder().comment("heartbeat").build());
+        return Flux.merge(events, heartbeats);
+    }
+
+    private static <E extends Enum<E>> EnumSet<E> enumSet(List<E> values, Class<E> type) {
+        return values == null || values.isEmpty() ? EnumSet.noneOf(type) : EnumSet.copyOf(values);
     }
 
     @PostMapping("/simulation/run")
-    @Operation(summary = "Run kitchen simulation with Challenge API")
+    @Operation(summary = "Run kitchen simulation with Challenge API",
+            description = "Starts the run in the background and returns at once. Runs may overlap: each has its own "
+                    + "run id (see `GET /ledger?runId=`) and Challenge test id.")
     public Mono<String> runSimulation(
             @RequestParam(defaultValue = "2") int ratePerSecond,
             @RequestParam(defaultValue = "4") int minPickupSec,
             @RequestParam(defaultValue = "8") int maxPickupSec
     ) {
-        return Mono.fromRunnable(() -> kitchenSimulator.runSimulation(ratePerSecond, minPickupSec, maxPickupSec))
-                .thenReturn("Simulation started with rate=" + ratePerSecond + " orders/sec");
+        return Mono.fromCallable(() -> kitchenSimulator.start(ratePerSecond, minPickupSec, maxPickupSec))
+                .map(runId -> "Simulation " + runId + " started with rate=" + ratePerSecond + " orders/sec");
+    }
+
+    @PostMapping("/simulation/offline")
+    @Operation(summary = "Run kitchen simulation offline in virtual time (no Challenge API)",
+            description = "Uses the posted orders, or `count` synthetic ones when the body is empty. "
+                    + "Pass `seed` to reproduce a run. With `persist=true` the run's actions are appended "
+                    + "to the ledger in one batch (COPY on Postgres), tagged with the required `runId`; "
+                    + "storage state and orders are never touched.")
+    public Mono<SimulationReport> runOfflineSimulation(
+            @RequestBody(required = false) List<ChallengeOrderDto> orders,
+            @RequestParam(defaultValue = "100") int count,
+            @RequestParam(defaultValue = "2") int ratePerSecond,
+            @RequestParam(defaultValue = "4") int minPickupSec,
+            @RequestParam(defaultValue = "8") int maxPickupSec,
+            @RequestParam(required = false) Long seed,
+            @RequestParam(defaultValue = "false") boolean persist,
+            @RequestParam(required = false) String runId
+    ) {
+        checkOfflineRun(orders, count, ratePerSecond, persist, runId);
+        long s = seed != null ? seed : System.nanoTime();
+        // CPU-bound and blocking on the inline engine: keep it off request/event-loop threads
+        return Mono.fromCallable(() -> {
+                    List<Order> input = orders != null && !orders.isEmpty()
+                            ? orders.stream().map(orderMapper::toOrder).toList()
+                            : discreteEventSimulator.syntheticOrders(count, s);
+                    return discreteEventSimulator.run(input, ratePerSecond, minPickupSec, maxPickupSec, Instant.now(), s);
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(report -> persist ? kitchenService.persistRun(report, runId).thenReturn(report) : Mono.just(report));
+    }
+
+    /**
+     * An oversized batch, or one with a null entry, is rejected up front (400).
+     */
+    private static void checkBatch(List<?> items) {
+        if (items.size() > MAX_BATCH_ORDERS) {
+            throw new IllegalArgumentException("A batch takes at most " + MAX_BATCH_ORDERS + " orders");
+        }
+        if (items.contains(null)) {
+            throw new IllegalArgumentException("A batch cannot contain null entries");
+        }
     }
-}
 
+    /**
+     * Bad sizes or rates, or a persisted run without a run id, are rejected up front (400),
+     * before anything is allocated.
+     */
+    private static void checkOfflineRun(List<ChallengeOrderDto> orders, int count, int ratePerSecond,
+                                        boolean persist, String runId) {
+        int size = orders != null && !orders.isEmpty() ? orders.size() : count;
+        if (size < 1 || size > MAX_OFFLINE_ORDERS) {
+            throw new IllegalArgumentException("An offline run takes 1 to " + MAX_OFFLINE_ORDERS + " orders");
+        }
+        if (ratePerSecond < 1) {
+            throw new IllegalArgumentException("ratePerSecond must be >= 1");
+        }
+        if (persist && (runId == null || runId.isBlank())) {
+            throw new IllegalArgumentException("persist=true needs a runId");
+        }
+        if (runId != null && runId.length() > MAX_RUN_ID_LENGTH) {
+            throw new IllegalArgumentException("runId is longer than " + MAX_RUN_ID_LENGTH + " characters");
+        }
+    }
+}
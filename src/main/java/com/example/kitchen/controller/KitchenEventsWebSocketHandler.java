@@ -0,0 +1,117 @@
+package com.example.kitchen.controller;
+
+import com.example.kitchen.enums.ActionType;
+import com.example.kitchen.enums.StorageType;
+import com.example.kitchen.events.KitchenEventBus;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.Disposable;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * {@code /ws/events}: live kitchen events as JSON text frames, one event per frame.
+ * <p>
+ * Filters come from the handshake query, as on {@code GET /api/events}: {@code storage} and
+ * {@code action} (repeated or comma-separated, any case), {@code overflow} (DROP_OLDEST by default).
+ * An invalid filter closes the session with BAD_DATA. Incoming frames are ignored.
+ * Sends go through a {@link ConcurrentWebSocketSessionDecorator}: a client that stays blocked longer than
+ * {@link #SEND_TIME_LIMIT_MS} or falls {@link #SEND_BUFFER_LIMIT} bytes behind is disconnected.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class KitchenEventsWebSocketHandler extends TextWebSocketHandler {
+
+    static final int SEND_TIME_LIMIT_MS = 5_000;
+    static final int SEND_BUFFER_LIMIT = 512 * 1024;
+    private static final String SUBSCRIPTION = "kitchen.events.subscription";
+
+    private final KitchenEventBus bus;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws IOException {
+        MultiValueMap<String, String> query = UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams();
+        Set<StorageType> storages;
+        Set<ActionType> actions;
+        KitchenEventBus.Overflow overflow;
+        try {
+            storages = parse(query.get("storage"), StorageType.class);
+            actions = parse(query.get("action"), ActionType.class);
+            Set<KitchenEventBus.Overflow> o = parse(query.get("overflow"), KitchenEventBus.Overflow.class);
+            if (o.size() > 1) throw new IllegalArgumentException("overflow takes one value");
+            overflow = o.isEmpty() ? KitchenEventBus.Overflow.DROP_OLDEST : o.iterator().next();
+        } catch (IllegalArgumentException e) {
+            session.close(CloseStatus.BAD_DATA.withReason(e.getMessage()));
+            return;
+        }
+
+        WebSocketSession out = new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MS, SEND_BUFFER_LIMIT);
+        Disposable subscription = bus.subscribe(storages, actions, overflow)
+                .subscribe(event -> send(out, event), e -> log.warn("events ws {}: stream failed", session.getId(), e),
+                        () -> close(out, CloseStatus.GOING_AWAY));
+        session.getAttributes().put(SUBSCRIPTION, subscription);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        if (session.getAttributes().remove(SUBSCRIPTION) instanceof Disposable subscription) subscription.dispose();
+    }
+
+    private void send(WebSocketSession out, Object event) {
+        try {
+            out.sendMessage(new TextMessage(objectMapper.writeValueAsString(event)));
+        } catch (JsonProcessingException e) {
+            log.warn("events ws {}: cannot serialize {}", out.getId(), event, e);
+        } catch (IOException | RuntimeException e) {
+            // slow or gone client: the decorator has already closed it, or will on the next send
+            log.debug("events ws {}: send failed", out.getId(), e);
+            close(out, CloseStatus.SESSION_NOT_RELIABLE);
+        }
+    }
+
+    private static void close(WebSocketSession out, CloseStatus status) {
+        try {
+            if (out.isOpen()) out.close(status);
+        } catch (IOException ignored) {
+            // already closing
+        }
+    }
+
+    /**
+     * Enum constants from repeated and/or comma-separated values; "drop-oldest" and "DROP_OLDEST" both parse.
+     *
+     * @throws IllegalArgumentException on an unknown value
+     */
+    static <E extends Enum<E>> Set<E> parse(List<String> values, Class<E> type) {
+        Set<E> result = EnumSet.noneOf(type);
+        if (values == null) return result;
+        for (String value : values) {
+            for (String token : value.split(",")) {
+                if (token.isBlank()) continue;
+                String name = token.trim().toUpperCase(Locale.ROOT).replace('-', '_');
+                try {
+                    result.add(Enum.valueOf(type, name));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown " + type.getSimpleName() + ": " + token.trim());
+                }
+            }
+        }
+        return result;
+    }
+}
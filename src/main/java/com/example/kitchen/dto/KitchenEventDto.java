@@ -0,0 +1,24 @@
+package com.example.kitchen.dto;
+
+import com.example.kitchen.enums.ActionType;
+import com.example.kitchen.enums.StorageType;
+import com.example.kitchen.model.ActionEntity;
+
+import java.time.Instant;
+
+/**
+ * One live kitchen event, as pushed to {@code GET /api/events} and {@code /ws/events}.
+ * Same fields as the ledger action it is recorded as, minus the database id.
+ */
+public record KitchenEventDto(
+        Instant timestamp,   // when the storage decision was made
+        String orderId,
+        ActionType action,   // PLACE / MOVE / PICKUP / DISCARD
+        StorageType target,  // storage written to the ledger row
+        String runId         // simulation run that owns the order (null for manual API calls)
+) {
+    public static KitchenEventDto of(ActionEntity action) {
+        return new KitchenEventDto(action.getTimestamp(), action.getOrderId(), action.getAction(),
+                action.getTarget(), action.getRunId());
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.kitchen.dto;
+
+import com.example.kitchen.clock.KitchenClock;
+import com.example.kitchen.model.ActionEntity;
+
+import java.time.Instant;
+
+/**
+ * Keyset position in the ledger: the (ts, id) of the last action a client has seen.
+ * <p>
+ * On the wire it is the opaque string {@code <epochMicros>:<id>} ({@link #encode()} / {@link #parse}).
+ */
+public record LedgerCursor(Instant ts, long id) {
+
+    public static LedgerCursor of(ActionEntity action) {
+        return new LedgerCursor(action.getTimestamp(), Long.parseLong(action.getId()));
+    }
+
+    public String encode() {
+        return KitchenClock.toMicros(ts) + ":" + id;
+    }
+
+    /**
+     * @throws IllegalArgumentException when the string is not a cursor produced by {@link #encode()}
+     */
+    public static LedgerCursor parse(String cursor) {
+        int sep = cursor.indexOf(':');
+        try {
+            if (sep < 0) throw new NumberFormatException();
+            return new LedgerCursor(KitchenClock.ofMicros(Long.parseLong(cursor.substring(0, sep))),
+                    Long.parseLong(cursor.substring(sep + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid ledger cursor: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.kitchen.dto;
+
+import com.example.kitchen.enums.ActionType;
+import com.example.kitchen.enums.StorageType;
+
+import java.time.Instant;
+
+/**
+ * Ledger query filters; every field is optional (null = no filter).
+ * The time range is half-open: {@code from <= ts < to}.
+ */
+public record LedgerFilter(
+        String runId,
+        String orderId,
+        ActionType action,
+        StorageType target,
+        Instant from,
+        Instant to
+) {
+    public static final LedgerFilter NONE = new LedgerFilter(null, null, null, null, null, null);
+
+    /**
+     * A run's actions; {@code startedAt} bounds ts so the query only visits the run's daily partitions.
+     */
+    public static LedgerFilter forRun(String runId, Instant startedAt) {
+        return new LedgerFilter(runId, null, null, null, startedAt, null);
+    }
+}
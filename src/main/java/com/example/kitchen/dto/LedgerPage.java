@@ -0,0 +1,15 @@
+package com.example.kitchen.dto;
+
+import com.example.kitchen.model.ActionEntity;
+
+import java.util.List;
+
+/**
+ * One page of the ledger in (ts, id) order.
+ * `next` is the cursor to pass as `after` for the following page; null when this page is the last.
+ */
+public record LedgerPage(
+        List<ActionEntity> items,
+        String next
+) {
+}
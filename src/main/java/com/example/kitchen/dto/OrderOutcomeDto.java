@@ -0,0 +1,39 @@
+package com.example.kitchen.dto;
+
+import com.example.kitchen.enums.StorageType;
+
+/**
+ * Per-order result of a batch call.
+ * <p>
+ * Notes:
+ * - `storage` is where the order was placed, or where it was taken from on pickup;
+ * - `message` is only set for REJECTED.
+ */
+public record OrderOutcomeDto(
+        String id,          // order id
+        Status status,      // what happened to this order
+        StorageType storage,
+        String message      // rejection reason
+) {
+    public enum Status { PLACED, PICKED_UP, DISCARDED, NOT_FOUND, REJECTED }
+
+    public static OrderOutcomeDto placed(String id, StorageType storage) {
+        return new OrderOutcomeDto(id, Status.PLACED, storage, null);
+    }
+
+    public static OrderOutcomeDto pickedUp(String id, StorageType storage) {
+        return new OrderOutcomeDto(id, Status.PICKED_UP, storage, null);
+    }
+
+    public static OrderOutcomeDto discarded(String id, StorageType storage) {
+        return new OrderOutcomeDto(id, Status.DISCARDED, storage, null);
+    }
+
+    public static OrderOutcomeDto notFound(String id) {
+        return new OrderOutcomeDto(id, Status.NOT_FOUND, null, null);
+    }
+
+    public static OrderOutcomeDto rejected(String id, String message) {
+        return new OrderOutcomeDto(id, Status.REJECTED, null, message);
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.kitchen.dto;
+
+import java.util.List;
+
+/**
+ * Result of an offline (discrete-event) simulation run.
+ * <p>
+ * Notes:
+ * - every order ends as exactly one PICKUP or one DISCARD, so pickedUp + discarded = orders;
+ * - `simulatedMicros` is the virtual time the run covered, not wall time;
+ * - `actions` use the same shape as the Challenge `/solve` payload (epoch microseconds).
+ */
+public record SimulationReport(
+        int orders,                      // orders placed
+        int moved,                       // MOVE actions (shelf -> ideal storage)
+        int discarded,                   // DISCARD actions (shelf overflow or expired at pickup)
+        int pickedUp,                    // PICKUP actions
+        long simulatedMicros,            // virtual duration of the run
+        List<ChallengeActionDto> actions // chronological action list
+) {
+}
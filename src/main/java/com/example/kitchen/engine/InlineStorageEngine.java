@@ -0,0 +1,17 @@
+package com.example.kitchen.engine;
+
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Runs each command on the subscribing thread, with no scheduler hop.
+ * For single-threaded drivers such as the discrete-event simulator.
+ */
+public class InlineStorageEngine implements StorageEngine {
+
+    @Override
+    public <T> Mono<T> execute(Callable<T> command) {
+        return Mono.fromCallable(command);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.kitchen.engine;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Today's behaviour: run each command on boundedElastic, concurrently with others.
+ */
+public class LockedStorageEngine implements StorageEngine {
+
+    @Override
+    public <T> Mono<T> execute(Callable<T> command) {
+        return Mono.fromCallable(command).subscribeOn(Schedulers.boundedElastic());
+    }
+}
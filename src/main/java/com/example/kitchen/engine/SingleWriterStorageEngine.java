@@ -0,0 +1,105 @@
+package com.example.kitchen.engine;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Event-loop engine: a single dedicated thread drains a bounded MPSC queue and runs
+ * every storage command in arrival order, so storage state is only ever touched by
+ * that thread (locks/CAS inside StorageService stay uncontended).
+ * <p>
+ * - A full queue rejects the command with {@link RejectedExecutionException} (backpressure
+ * surfaces to the caller instead of blocking a reactive thread).
+ * - Results are published on {@code Schedulers.parallel()} so downstream work (DB writes)
+ * never runs on the writer thread.
+ */
+@Slf4j
+public class SingleWriterStorageEngine implements StorageEngine, AutoCloseable {
+
+    private record Command<T>(Callable<T> body, MonoSink<T> sink) {
+        void run() {
+            T result;
+            try {
+                result = body.call();
+            } catch (Throwable t) {
+                sink.error(t);
+                return;
+            }
+            if (result == null) sink.success();
+            else sink.success(result);
+        }
+    }
+
+    private final BlockingQueue<Command<?>> queue;
+    private final Thread writer;
+    private final Scheduler resultScheduler;
+    private volatile boolean running = true;
+
+    public SingleWriterStorageEngine(int queueCapacity) {
+        this(queueCapacity, Schedulers.parallel());
+    }
+
+    public SingleWriterStorageEngine(int queueCapacity, Scheduler resultScheduler) {
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.resultScheduler = resultScheduler;
+        this.writer = new Thread(this::loop, "storage-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public <T> Mono<T> execute(Callable<T> command) {
+        return Mono.<T>create(sink -> {
+                    if (!running) {
+                        sink.error(new RejectedExecutionException("Storage engine is stopped"));
+                        return;
+                    }
+                    Command<T> cmd = new Command<>(command, sink);
+                    if (!queue.offer(cmd)) {
+                        sink.error(new RejectedExecutionException("Storage engine queue is full"));
+                    } else if (!running && queue.remove(cmd)) {
+                        // lost the race with close(): the writer may already be gone
+                        sink.error(new RejectedExecutionException("Storage engine is stopped"));
+                    }
+                })
+                .publishOn(resultScheduler);
+    }
+
+    private void loop() {
+        while (running || !queue.isEmpty()) {
+            try {
+                Command<?> next = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (next != null) next.run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Throwable t) {
+                log.error("storage-writer: unexpected error", t);
+            }
+        }
+        // Anything still queued after an interrupt is failed, not silently dropped
+        Command<?> left;
+        while ((left = queue.poll()) != null) {
+            left.sink().error(new RejectedExecutionException("Storage engine is stopped"));
+        }
+    }
+
+    /**
+     * Stop accepting commands, drain what is queued, then stop the writer thread.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+        if (writer.isAlive()) writer.interrupt();
+    }
+}
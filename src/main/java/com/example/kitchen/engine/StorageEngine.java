@@ -0,0 +1,20 @@
+package com.example.kitchen.engine;
+
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Executes StorageService critical sections and hands results back as Monos.
+ * <p>
+ * Selected by {@code kitchen.engine.mode}:
+ * - {@code locked} (default) — every command hops to boundedElastic and relies on
+ * StorageService's own CAS counters / shelf lock;
+ * - {@code single-writer} — one dedicated thread owns all storage state and runs
+ * commands from a bounded MPSC queue.
+ * A command returning null completes the Mono empty.
+ */
+public interface StorageEngine {
+
+    <T> Mono<T> execute(Callable<T> command);
+}
@@ -1,5 +1,6 @@
 package com.example.kitchen.events;
 
+import com.example.kitchen.enums.ActionType;
 import com.example.kitchen.enums.StorageType;
 import com.example.kitchen.model.Order;
 
@@ -7,4 +8,14 @@ import com.example.kitchen.model.Order;
 public record DiscardEvent(
         Order order,          // the affected order
         StorageType from      // storage the order was removed from
-) {}
\ No newline at end of file
+) implements KitchenEvent {
+    @Override
+    public ActionType action() {
+        return ActionType.DISCARD;
+    }
+
+    @Override
+    public StorageType target() {
+        return from;
+    }
+}
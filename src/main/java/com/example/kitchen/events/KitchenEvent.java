@@ -0,0 +1,17 @@
+package com.example.kitchen.events;
+
+import com.example.kitchen.enums.ActionType;
+import com.example.kitchen.enums.StorageType;
+import com.example.kitchen.model.Order;
+
+/**
+ * Storage mutation produced by StorageService; maps 1:1 to a ledger action.
+ */
+public sealed interface KitchenEvent permits PlaceEvent, MoveEvent, DiscardEvent {
+
+    Order order();        // the affected order
+
+    ActionType action();  // ledger action this event is recorded as
+
+    StorageType target(); // storage written to the ledger row
+}
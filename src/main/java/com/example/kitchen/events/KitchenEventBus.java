@@ -0,0 +1,158 @@
+package com.example.kitchen.events;
+
+import com.example.kitchen.dto.KitchenEventDto;
+import com.example.kitchen.enums.ActionType;
+import com.example.kitchen.enums.StorageType;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Multicasts kitchen events to live subscribers (SSE, WebSocket) without ever making a publisher wait.
+ * <p>
+ * Notes:
+ * - {@link #publish} only offers to a bounded queue; when it is full the event is dropped and counted;
+ * - the {@code kitchen-events} thread drains the queue in batches (whatever is queued, up to
+ * {@link #MAX_BATCH}) into a best-effort multicast sink: emissions are serialized without a lock
+ * on the placement path, and per-subscriber work is paid per batch, not per event;
+ * - each subscriber filters a batch, then keeps up to {@code subscriberBuffer} batches in its own
+ * buffer with its own overflow strategy, and is served on {@code delivery}: a slow client loses
+ * its own events and delays nobody else. At low rates a batch is a single event;
+ * - subscriptions made after an event was dispatched do not see it (no replay).
+ */
+@Slf4j
+public class KitchenEventBus implements AutoCloseable {
+
+    static final int MAX_BATCH = 256;
+
+    /**
+     * What a subscriber loses when its buffer is full.
+     */
+    public enum Overflow {
+        DROP_OLDEST, // keep the newest batches, in order (default)
+        DROP_NEWEST, // keep the backlog, skip new batches until it drains
+        LATEST       // keep only the most recent event
+    }
+
+    private final BlockingQueue<KitchenEventDto> queue;
+    private final Sinks.Many<List<KitchenEventDto>> sink = Sinks.many().multicast().directBestEffort();
+    private final int subscriberBuffer;
+    private final Scheduler delivery;
+    private final Thread dispatcher;
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder subscriberDrops = new LongAdder();
+    private volatile boolean running = true;
+
+    public KitchenEventBus(int queueCapacity, int subscriberBuffer) {
+        this(queueCapacity, subscriberBuffer, Schedulers.boundedElastic());
+    }
+
+    public KitchenEventBus(int queueCapacity, int subscriberBuffer, Scheduler delivery) {
+        if (subscriberBuffer < 1) throw new IllegalArgumentException("subscriberBuffer must be positive");
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.subscriberBuffer = subscriberBuffer;
+        this.delivery = delivery;
+        this.dispatcher = new Thread(this::loop, "kitchen-events");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * Never blocks: a full queue (or a closed bus) drops the event.
+     */
+    public void publish(KitchenEventDto event) {
+        if (running && queue.offer(event)) published.increment();
+        else dropped.increment();
+    }
+
+    /**
+     * Live events matching the filters; an empty set matches everything.
+     */
+    public Flux<KitchenEventDto> subscribe(Set<StorageType> storages, Set<ActionType> actions, Overflow overflow) {
+        boolean all = storages.isEmpty() && actions.isEmpty();
+        Flux<List<KitchenEventDto>> batches = sink.asFlux()
+                .handle((batch, out) -> {
+                    List<KitchenEventDto> matching = all ? batch : batch.stream()
+                            .filter(e -> (storages.isEmpty() || storages.contains(e.target()))
+                                    && (actions.isEmpty() || actions.contains(e.action())))
+                            .toList();
+                    if (matching.isEmpty()) return;
+                    out.next(overflow == Overflow.LATEST ? List.of(matching.get(matching.size() - 1)) : matching);
+                });
+        Flux<List<KitchenEventDto>> bounded = switch (overflow) {
+            case DROP_OLDEST -> batches.onBackpressureBuffer(subscriberBuffer, b -> subscriberDrops.add(b.size()),
+                    BufferOverflowStrategy.DROP_OLDEST);
+            case DROP_NEWEST -> batches.onBackpressureBuffer(subscriberBuffer, b -> subscriberDrops.add(b.size()),
+                    BufferOverflowStrategy.DROP_LATEST);
+            case LATEST -> batches.onBackpressureLatest();
+        };
+        // prefetch 1 on both hops: at most two batches sit between the buffer and the client
+        return bounded.publishOn(delivery, 1).concatMapIterable(b -> b, 1);
+    }
+
+    public int subscriberCount() {
+        return sink.currentSubscriberCount();
+    }
+
+    /**
+     * Events accepted by {@link #publish}.
+     */
+    public long published() {
+        return published.sum();
+    }
+
+    /**
+     * Events refused by {@link #publish} because the queue was full.
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Events lost by individual subscribers whose buffer was full (DROP_OLDEST / DROP_NEWEST only).
+     */
+    public long subscriberDrops() {
+        return subscriberDrops.sum();
+    }
+
+    private void loop() {
+        while (running || !queue.isEmpty()) {
+            try {
+                KitchenEventDto first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                List<KitchenEventDto> batch = new ArrayList<>(Math.min(MAX_BATCH, queue.size() + 1));
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                sink.tryEmitNext(List.copyOf(batch));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Throwable t) {
+                log.error("kitchen-events: unexpected error", t);
+            }
+        }
+        sink.tryEmitComplete();
+    }
+
+    /**
+     * Stop accepting events, dispatch what is queued, then complete every subscription.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+        if (dispatcher.isAlive()) dispatcher.interrupt();
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.kitchen.events;
 
+import com.example.kitchen.enums.ActionType;
 import com.example.kitchen.enums.StorageType;
 import com.example.kitchen.model.Order;
 
@@ -8,5 +9,15 @@ public record MoveEvent(
         Order order,          // the affected order
         StorageType from,     // source storage
         StorageType to        // destination storage
-) {}
+) implements KitchenEvent {
+    @Override
+    public ActionType action() {
+        return ActionType.MOVE;
+    }
+
+    @Override
+    public StorageType target() {
+        return to;
+    }
+}
 
@@ -0,0 +1,16 @@
+package com.example.kitchen.events;
+
+import com.example.kitchen.enums.ActionType;
+import com.example.kitchen.enums.StorageType;
+import com.example.kitchen.model.Order;
+
+/** Emitted when an order is placed into a storage. */
+public record PlaceEvent(
+        Order order,          // the placed order
+        StorageType target    // storage the order was placed on
+) implements KitchenEvent {
+    @Override
+    public ActionType action() {
+        return ActionType.PLACE;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.kitchen.events;
+
+import com.example.kitchen.enums.StorageType;
+import com.example.kitchen.model.Order;
+
+import java.util.List;
+
+/**
+ * Result of one atomic placement decision.
+ * - order:  the placed order (with placedAt set)
+ * - target: storage the order ended up on
+ * - events: storage mutations in the order they happened — an optional MOVE or
+ * DISCARD that made room on the SHELF, always followed by the PLACE.
+ */
+public record PlacementOutcome(Order order, StorageType target, List<KitchenEvent> events) {
+}
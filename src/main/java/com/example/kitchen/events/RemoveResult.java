@@ -1,8 +1,24 @@
 package com.example.kitchen.events;
 
+import com.example.kitchen.enums.StorageType;
+
 /**
  * Result of a removal attempt by id.
  * - removed: whether the order was actually found and removed from the storage.
  * - expired: whether the order was expired at the moment of removal (for auditing).
+ * - storage: where the order was removed from (null when nothing was removed).
+ * - runId: run of the removed order (null for manual API orders or when nothing was removed).
+ * - freshnessLeft: share of the order's freshness budget left at removal, 0..1 (0 when expired or not removed).
  */
-public record RemoveResult(boolean removed, boolean expired){}
\ No newline at end of file
+public record RemoveResult(boolean removed, boolean expired, StorageType storage, String runId, double freshnessLeft) {
+
+    public static final RemoveResult NOT_FOUND = new RemoveResult(false, false, null, null, 0);
+
+    public RemoveResult(boolean removed, boolean expired, StorageType storage, String runId) {
+        this(removed, expired, storage, runId, 0);
+    }
+
+    public RemoveResult(boolean removed, boolean expired, StorageType storage) {
+        this(removed, expired, storage, null);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.kitchen.ledger;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Runs a unit of persistence work (order rows + ledger actions) transactionally.
+ * <p>
+ * - {@code direct}/{@code write-behind} ledger modes: one transaction per unit;
+ * - {@code group-commit} ledger mode: units arriving within a short window share one
+ * transaction, and each caller's Mono completes only after that shared commit.
+ */
+public interface CommitCoordinator {
+
+    <T> Mono<T> transactional(Mono<T> work);
+}
@@ -0,0 +1,32 @@
+package com.example.kitchen.ledger;
+
+import com.example.kitchen.model.ActionEntity;
+import com.example.kitchen.repository.ActionBatchWriter;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Today's behaviour: insert in the caller's transaction, before the call completes.
+ */
+@RequiredArgsConstructor
+public class DirectLedgerWriter implements LedgerWriter {
+
+    private final ActionBatchWriter batchWriter;
+
+    @Override
+    public Mono<Void> append(ActionEntity action) {
+        return batchWriter.insertAll(List.of(action));
+    }
+
+    @Override
+    public Mono<Void> appendAll(List<ActionEntity> actions) {
+        return batchWriter.insertAll(actions);
+    }
+
+    @Override
+    public boolean writesInline() {
+        return true;
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.kitchen.ledger;
+
+import com.example.kitchen.model.ActionEntity;
+import com.example.kitchen.repository.ActionBatchWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Group commit: durable like {@code direct}, but units of work that arrive within a short
+ * window share one transaction, and their ledger actions one multi-row INSERT.
+ * <p>
+ * - A dedicated "ledger-group-commit" thread takes the first waiting unit, collects more for
+ * up to {@code window} or until {@code maxGroup} units, runs them one after another in one
+ * transaction, inserts every action they appended, commits, and only then completes each
+ * caller's Mono (with its own result or error).
+ * - Each unit runs under a SAVEPOINT: its own error rolls back only its statements and drops its actions,
+ * the others still commit (two extra round trips per unit); a failed commit fails all of them.
+ * - If the shared INSERT fails (one unit's action breaks it), the group is rolled back to its own
+ * savepoint and run again in the same transaction, each unit inserting its actions under its own
+ * savepoint: only the unit whose actions fail gets the error. Units must be safe to run again,
+ * which holds for database statements whose first run was rolled back.
+ * - The unit queue is bounded; a full queue rejects with {@link RejectedExecutionException}.
+ * - Commits/sec vs. actions/sec are logged every {@code statsInterval} and available from {@link #stats()}.
+ * Callers must not open their own transaction around a unit: it would hold a pooled
+ * connection while waiting for the group's.
+ */
+@Slf4j
+public class GroupCommitLedgerWriter implements LedgerWriter, CommitCoordinator, AutoCloseable {
+
+    private static final Duration COMMIT_TIMEOUT = Duration.ofSeconds(30);
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    // actions appended by the units of the running group (Reactor context key)
+    private static final class GroupActions {
+        final List<ActionEntity> rows = new ArrayList<>();
+    }
+
+    private static final class Unit<T> {
+        final Mono<T> work;
+        final MonoSink<T> sink;
+        T result;
+        Throwable error;
+
+        Unit(Mono<T> work, MonoSink<T> sink) {
+            this.work = work;
+            this.sink = sink;
+        }
+
+        // a failed unit's statements are rolled back to its savepoint and its actions dropped from the group's INSERT;
+        // with "ownInsert", the unit's actions are inserted inside its savepoint instead
+        Mono<Void> run(GroupActions group, DatabaseClient db, ActionBatchWriter ownInsert) {
+            return Mono.defer(() -> {
+                result = null;
+                error = null;
+                int mark = group.rows.size();
+                return db.sql("SAVEPOINT unit").then()
+                        .then(work.doOnNext(v -> result = v).then())
+                        .then(Mono.defer(() -> ownInsert == null
+                                ? Mono.<Void>empty()
+                                : ownInsert.insertAll(List.copyOf(group.rows.subList(mark, group.rows.size())))))
+                        .then(db.sql("RELEASE SAVEPOINT unit").then())
+                        .onErrorResume(e -> {
+                            error = e;
+                            group.rows.subList(mark, group.rows.size()).clear();
+                            return db.sql("ROLLBACK TO SAVEPOINT unit").then();
+                        });
+            });
+        }
+
+        void complete() {
+            if (error != null) sink.error(error);
+            else if (result == null) sink.success();
+            else sink.success(result);
+        }
+    }
+
+    /**
+     * Totals since start and their rates; unitsPerCommit is the achieved group size.
+     */
+    public record Stats(long commits, long units, long actions, double commitsPerSec, double actionsPerSec,
+                        double unitsPerCommit) {
+    }
+
+    private final ActionBatchWriter batchWriter;
+    private final TransactionalOperator tx;
+    private final DatabaseClient db;
+    private final BlockingQueue<Unit<?>> queue;
+    private final int maxGroup;
+    private final long windowNanos;
+    private final long statsIntervalNanos;
+    private final Scheduler resultScheduler = Schedulers.parallel();
+    private final Thread committer;
+    private final long startNanos = System.nanoTime();
+    private volatile boolean running = true;
+
+    private final AtomicLong commits = new AtomicLong();
+    private final AtomicLong units = new AtomicLong();
+    private final AtomicLong actions = new AtomicLong();
+
+    public GroupCommitLedgerWriter(ActionBatchWriter batchWriter, TransactionalOperator tx, DatabaseClient db,
+                                   int queueCapacity, int maxGroup, Duration window, Duration statsInterval) {
+        if (maxGroup < 1) throw new IllegalArgumentException("maxGroup must be >= 1");
+        this.batchWriter = batchWriter;
+        this.tx = tx;
+        this.db = db;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxGroup = maxGroup;
+        this.windowNanos = window.toNanos();
+        this.statsIntervalNanos = statsInterval.toNanos();
+        this.committer = new Thread(this::loop, "ledger-group-commit");
+        this.committer.setDaemon(true);
+        this.committer.start();
+    }
+
+    @Override
+    public <T> Mono<T> transactional(Mono<T> work) {
+        return Mono.<T>create(sink -> {
+                    if (!running) {
+                        sink.error(new RejectedExecutionException("Ledger writer is stopped"));
+                        return;
+                    }
+                    Unit<T> unit = new Unit<>(work, sink);
+                    if (!queue.offer(unit)) {
+                        sink.error(new RejectedExecutionException("Ledger group-commit queue is full"));
+                    } else if (!running && queue.remove(unit)) {
+                        // lost the race with close(): the committer may already be gone
+                        sink.error(new RejectedExecutionException("Ledger writer is stopped"));
+                    }
+                })
+                // callers continue on parallel, never on the committer thread
+                .publishOn(resultScheduler);
+    }
+
+    @Override
+    public Mono<Void> append(ActionEntity action) {
+        return appendAll(List.of(action));
+    }
+
+    /**
+     * Inside a group: buffer for the group's INSERT. Outside: a unit of its own.
+     */
+    @Override
+    public Mono<Void> appendAll(List<ActionEntity> rows) {
+        if (rows.isEmpty()) return Mono.empty();
+        return Mono.deferContextual(ctx -> {
+            GroupActions group = ctx.getOrDefault(GroupActions.class, null);
+            if (group == null) return transactional(appendAll(rows));
+            group.rows.addAll(rows);
+            return Mono.empty();
+        });
+    }
+
+    private void loop() {
+        List<Unit<?>> group = new ArrayList<>();
+        long nextStatsLog = System.nanoTime() + statsIntervalNanos;
+        long loggedCommits = 0, loggedActions = 0;
+        while (running || !queue.isEmpty()) {
+            try {
+                if (System.nanoTime() - nextStatsLog >= 0) {
+                    long c = commits.get(), a = actions.get();
+                    if (c > loggedCommits) {
+                        double secs = statsIntervalNanos / 1e9;
+                        log.info("ledger group commit: {} commits/s, {} actions/s",
+                                String.format("%.1f", (c - loggedCommits) / secs),
+                                String.format("%.1f", (a - loggedActions) / secs));
+                    }
+                    loggedCommits = c;
+                    loggedActions = a;
+                    nextStatsLog = System.nanoTime() + statsIntervalNanos;
+                }
+                Unit<?> first = queue.poll(POLL_NANOS, TimeUnit.NANOSECONDS);
+                if (first == null) continue;
+                group.add(first);
+                long deadline = System.nanoTime() + windowNanos;
+                while (group.size() < maxGroup && running) {
+                    queue.drainTo(group, maxGroup - group.size());
+                    long left = deadline - System.nanoTime();
+                    if (group.size() >= maxGroup || left <= 0) break;
+                    Unit<?> next = queue.poll(Math.min(left, POLL_NANOS), TimeUnit.NANOSECONDS);
+                    if (next != null) group.add(next);
+                }
+                commit(group);
+                group.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Throwable t) {
+                log.error("ledger-group-commit: unexpected error", t);
+            }
+        }
+        // Anything still waiting after an interrupt is failed, not silently dropped
+        group.forEach(u -> u.sink.error(new RejectedExecutionException("Ledger writer is stopped")));
+        Unit<?> left;
+        while ((left = queue.poll()) != null) {
+            left.sink.error(new RejectedExecutionException("Ledger writer is stopped"));
+        }
+    }
+
+    /**
+     * Run the units in order in one transaction, insert their actions, commit, then answer every caller.
+     */
+    private void commit(List<Unit<?>> group) {
+        GroupActions buffer = new GroupActions();
+        try {
+            db.sql("SAVEPOINT grp").then()
+                    .then(Flux.fromIterable(group).concatMap(u -> u.run(buffer, db, null)).then())
+                    .then(Mono.defer(() -> batchWriter.insertAll(buffer.rows)))
+                    .onErrorResume(e -> {
+                        // one unit's actions broke the shared INSERT: run again, one INSERT per unit
+                        log.warn("ledger-group-commit: shared insert of {} units failed, inserting per unit", group.size(), e);
+                        buffer.rows.clear();
+                        return db.sql("ROLLBACK TO SAVEPOINT grp").then()
+                                .then(Flux.fromIterable(group).concatMap(u -> u.run(buffer, db, batchWriter)).then());
+                    })
+                    .contextWrite(ctx -> ctx.put(GroupActions.class, buffer))
+                    .as(tx::transactional)
+                    .block(COMMIT_TIMEOUT);
+        } catch (RuntimeException e) {
+            log.warn("ledger-group-commit: group of {} units failed", group.size(), e);
+            group.forEach(u -> u.sink.error(e));
+            return;
+        }
+        commits.incrementAndGet();
+        units.addAndGet(group.size());
+        actions.addAndGet(buffer.rows.size());
+        group.forEach(Unit::complete);
+    }
+
+    public Stats stats() {
+        long c = commits.get(), u = units.get(), a = actions.get();
+        double secs = Math.max(1e-9, (System.nanoTime() - startNanos) / 1e9);
+        return new Stats(c, u, a, c / secs, a / secs, c == 0 ? 0 : (double) u / c);
+    }
+
+    /**
+     * Stop accepting units, commit what is queued, then stop the committer thread.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        committer.join(TimeUnit.SECONDS.toMillis(30));
+        if (committer.isAlive()) committer.interrupt();
+        log.info("ledger group commit stopped: {}", stats());
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.kitchen.ledger;
+
+import com.example.kitchen.dto.LedgerCursor;
+import com.example.kitchen.dto.LedgerFilter;
+import com.example.kitchen.dto.LedgerPage;
+import com.example.kitchen.model.ActionEntity;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reads the action ledger in (ts, id) order, with optional filters and a keyset cursor.
+ * <p>
+ * Backs {@code GET /api/ledger}, its stream and the {@code /solve} payload. Postgres
+ * ({@code LedgerQueryRepository}) unless {@code kitchen.ledger.mode=mapped} ({@link MappedLedger});
+ * with the {@code in-memory} or {@code no-persistence} profile, the KitchenPersistence bean itself.
+ */
+public interface LedgerReader {
+
+    int MAX_PAGE_SIZE = 1_000;
+
+    /**
+     * At most "limit" actions after the cursor (null = from the start); {@code next} is null on the last page.
+     *
+     * @throws IllegalArgumentException when limit is not in [1; {@link #MAX_PAGE_SIZE}]
+     */
+    Mono<LedgerPage> page(LedgerFilter filter, LedgerCursor after, int limit);
+
+    /**
+     * Every matching action after the cursor, read page by page as the subscriber consumes them.
+     */
+    Flux<ActionEntity> stream(LedgerFilter filter, LedgerCursor after);
+
+    /**
+     * The page size check every implementation applies before reading.
+     *
+     * @throws IllegalArgumentException when limit is not in [1; {@link #MAX_PAGE_SIZE}]
+     */
+    static void checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be in [1; " + MAX_PAGE_SIZE + "]");
+        }
+    }
+}
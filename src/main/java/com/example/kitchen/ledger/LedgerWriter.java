@@ -0,0 +1,33 @@
+package com.example.kitchen.ledger;
+
+import com.example.kitchen.model.ActionEntity;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Appends PLACE/MOVE/PICKUP/DISCARD rows to the action ledger.
+ * <p>
+ * Selected by {@code kitchen.ledger.mode}:
+ * - {@code direct} (default) — the row is inserted in the caller's transaction;
+ * - {@code write-behind} — the row is buffered in memory and inserted later, in batches,
+ * by a background flusher; completion only means "accepted";
+ * - {@code group-commit} — appended to the shared transaction of the current commit group
+ * (see {@link CommitCoordinator}); completion of the unit means "committed";
+ * - {@code mapped} — appended to a memory-mapped log instead of Postgres ({@link MappedLedger}).
+ * Actions are stored in append order.
+ */
+public interface LedgerWriter {
+
+    Mono<Void> append(ActionEntity action);
+
+    Mono<Void> appendAll(List<ActionEntity> actions);
+
+    /**
+     * True when an append is a plain INSERT in the caller's transaction, so a caller may fold it
+     * into its own statement (e.g. the MOVE update + action CTE) instead of calling append.
+     */
+    default boolean writesInline() {
+        return false;
+    }
+}
@@ -0,0 +1,465 @@
+package com.example.kitchen.ledger;
+
+import com.example.kitchen.clock.KitchenClock;
+import com.example.kitchen.dto.LedgerCursor;
+import com.example.kitchen.dto.LedgerFilter;
+import com.example.kitchen.dto.LedgerPage;
+import com.example.kitchen.enums.ActionType;
+import com.example.kitchen.enums.StorageType;
+import com.example.kitchen.model.ActionEntity;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Action ledger without Postgres: an append-only log of fixed-size records in memory-mapped
+ * segment files ({@code ledger-<n>.seg}), selected by {@code kitchen.ledger.mode=mapped}.
+ * <p>
+ * Record layout ({@value #RECORD_BYTES} bytes, big-endian):
+ * {@code id:8 | ts micros:8 | action:1 | target:1 | orderId length:1 | runId length:1 (0xFF = null) |
+ * crc32c:4 | orderId:56 | runId:48}. Ids are 1, 2, 3... in append order, so record N lives at a
+ * computed offset, and a zero id marks the end of the log.
+ * <p>
+ * Notes:
+ * - an append is a copy into a mapped page under the instance monitor; a batch becomes visible to
+ * readers at once, when {@code lastId} is published. It survives a process crash, and
+ * {@link #force()} (called on close) makes it survive power loss;
+ * - reads skip the segments whose [min ts; max ts] misses the filter's range and the cursor, keep
+ * the first "limit" matches in (ts, id) order with a bounded heap, and decode only those;
+ * - each segment keeps a sparse index, one entry per {@value #INDEX_INTERVAL} records: the max ts of
+ * the records up to that block and the min ts of the records from it on. Both only grow along the
+ * segment even when appends are out of ts order, so a read binary-searches its start block and
+ * stops once no later record can enter the page: streaming a ledger is linear, not quadratic;
+ * - on open, every segment is scanned once to rebuild the ts bounds and the index; a torn record ends the log;
+ * - inside a reactive transaction (order rows on Postgres), actions are appended only once it commits,
+ * so a rolled-back unit of work leaves nothing in the log; an append that then fails reaches the caller
+ * with the rows already committed. Outside one (e.g. the {@code in-memory} profile) they are appended at once.
+ */
+@Slf4j
+public final class MappedLedger implements LedgerWriter, LedgerReader, AutoCloseable {
+
+    static final int RECORD_BYTES = 128;
+    static final int MAX_ORDER_ID_BYTES = 56;
+    static final int MAX_RUN_ID_BYTES = 48;
+    static final int STREAM_PAGE_SIZE = 500;
+    static final int INDEX_INTERVAL = 64;
+
+    private static final int OFF_ID = 0;
+    private static final int OFF_TS = 8;
+    private static final int OFF_ACTION = 16;
+    private static final int OFF_TARGET = 17;
+    private static final int OFF_ORDER_LEN = 18;
+    private static final int OFF_RUN_LEN = 19;
+    private static final int OFF_CRC = 20;
+    private static final int OFF_ORDER = 24;
+    private static final int OFF_RUN = OFF_ORDER + MAX_ORDER_ID_BYTES;
+    private static final int NULL_LENGTH = 0xFF;
+
+    private static final Pattern SEGMENT = Pattern.compile("ledger-(\\d{8})\\.seg");
+    private static final ActionType[] ACTIONS = ActionType.values();
+    private static final StorageType[] TARGETS = StorageType.values();
+    // ascending (ts, id); the heap keeps the largest on top
+    private static final Comparator<long[]> KEY_ORDER = Comparator.<long[]>comparingLong(k -> k[0]).thenComparingLong(k -> k[1]);
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final int recordsPerSegment;
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    // every record with id <= lastId is complete and readable
+    private volatile long lastId;
+    private boolean closed;
+
+    private static final class Segment {
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        final long firstId;
+        // ts bounds of the records written so far (epoch micros); single writer, read after lastId
+        volatile long minTs = Long.MAX_VALUE;
+        volatile long maxTs = Long.MIN_VALUE;
+        // sparse index per block of INDEX_INTERVAL slots: max ts of blocks 0..b, min ts of blocks b..end.
+        // A reader may see entries of records past its lastId: they only make it skip less
+        final long[] headMaxTs;
+        final long[] tailMinTs;
+
+        Segment(FileChannel channel, MappedByteBuffer buffer, long firstId, int records) {
+            this.channel = channel;
+            this.buffer = buffer;
+            this.firstId = firstId;
+            int blocks = (records + INDEX_INTERVAL - 1) / INDEX_INTERVAL;
+            this.headMaxTs = new long[blocks];
+            this.tailMinTs = new long[blocks];
+            Arrays.fill(headMaxTs, Long.MIN_VALUE);
+            Arrays.fill(tailMinTs, Long.MAX_VALUE);
+        }
+
+        // slots are filled in order, so block b - 1 is complete when block b starts
+        void include(int slot, long ts) {
+            if (ts < minTs) minTs = ts;
+            if (ts > maxTs) maxTs = ts;
+            int block = slot / INDEX_INTERVAL;
+            long head = block > 0 ? Math.max(headMaxTs[block - 1], headMaxTs[block]) : headMaxTs[block];
+            headMaxTs[block] = Math.max(head, ts);
+            // an out-of-order ts lowers the tail min of earlier blocks too; in order, this is one step
+            for (int b = block; b >= 0 && tailMinTs[b] > ts; b--) tailMinTs[b] = ts;
+        }
+
+        /**
+         * First block of the first "slots" that may hold a record after the cursor and at or after "lo":
+         * every record of the blocks before it has ts < lo, or (ts, id) <= (afterTs, afterId).
+         */
+        int startBlock(int slots, long lo, long afterTs, long afterId) {
+            int low = 0, high = (slots + INDEX_INTERVAL - 1) / INDEX_INTERVAL;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                long maxTs = headMaxTs[mid];
+                long lastIdOfBlock = firstId + (long) (mid + 1) * INDEX_INTERVAL - 1;
+                if (maxTs < lo || (maxTs <= afterTs && lastIdOfBlock <= afterId)) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+    }
+
+    private MappedLedger(Path dir, int segmentBytes) {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.recordsPerSegment = segmentBytes / RECORD_BYTES;
+    }
+
+    /**
+     * Map the existing segments of "dir" and find the end of the log.
+     */
+    public static MappedLedger open(Path dir, int segmentBytes) throws IOException {
+        if (segmentBytes < RECORD_BYTES || segmentBytes % RECORD_BYTES != 0) {
+            throw new IllegalArgumentException("segment size must be a multiple of " + RECORD_BYTES + " bytes");
+        }
+        Files.createDirectories(dir);
+        MappedLedger ledger = new MappedLedger(dir, segmentBytes);
+        synchronized (ledger) {
+            ledger.recover();
+        }
+        return ledger;
+    }
+
+    // ---- LedgerWriter ----
+
+    @Override
+    public Mono<Void> append(ActionEntity action) {
+        return appendAll(List.of(action));
+    }
+
+    @Override
+    public Mono<Void> appendAll(List<ActionEntity> actions) {
+        if (actions.isEmpty()) return Mono.empty();
+        // the caller may reuse its list before the commit
+        List<ActionEntity> rows = List.copyOf(actions);
+        Mono<Void> appendNow = Mono.fromRunnable(() -> write(rows));
+        return TransactionSynchronizationManager.forCurrentTransaction()
+                .flatMap(tx -> {
+                    if (!tx.isSynchronizationActive()) return appendNow;
+                    tx.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public Mono<Void> afterCommit() {
+                            return appendNow;
+                        }
+                    });
+                    return Mono.<Void>empty();
+                })
+                .onErrorResume(NoTransactionException.class, e -> appendNow);
+    }
+
+    // ---- LedgerReader ----
+
+    @Override
+    public Mono<LedgerPage> page(LedgerFilter filter, LedgerCursor after, int limit) {
+        LedgerReader.checkLimit(limit);
+        return fetch(filter, after, limit)
+                .map(items -> new LedgerPage(items,
+                        items.size() < limit ? null : LedgerCursor.of(items.get(items.size() - 1)).encode()));
+    }
+
+    @Override
+    public Flux<ActionEntity> stream(LedgerFilter filter, LedgerCursor after) {
+        return fetch(filter, after, STREAM_PAGE_SIZE)
+                .expand(items -> items.size() < STREAM_PAGE_SIZE
+                        ? Mono.empty()
+                        : fetch(filter, LedgerCursor.of(items.get(items.size() - 1)), STREAM_PAGE_SIZE))
+                .concatMapIterable(items -> items);
+    }
+
+    /**
+     * Number of records in the log.
+     */
+    public long size() {
+        return lastId;
+    }
+
+    public synchronized void force() {
+        if (closed) return;
+        for (Segment s : segments) s.buffer.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        force();
+        closed = true;
+        for (Segment s : segments) s.channel.close();
+    }
+
+    // ---- appends (under the monitor) ----
+
+    private synchronized void write(List<ActionEntity> actions) {
+        if (closed) throw new IllegalStateException("Ledger is closed");
+        // encode and map everything first: an invalid action or a failed mapping writes nothing
+        byte[][] records = new byte[actions.size()][];
+        for (int i = 0; i < records.length; i++) records[i] = encode(lastId + 1 + i, actions.get(i));
+        long last = lastId + records.length;
+        try {
+            mapUpTo(last);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map ledger segment", e);
+        }
+        for (int i = 0; i < records.length; i++) {
+            long id = lastId + 1 + i;
+            Segment s = segmentFor(id);
+            s.buffer.put(offset(id), records[i]);
+            s.include(slot(id), KitchenClock.toMicros(actions.get(i).getTimestamp()));
+        }
+        lastId = last;
+    }
+
+    private Segment segmentFor(long id) {
+        int index = segmentIndex(id);
+        return segments.get(index);
+    }
+
+    private void mapUpTo(long id) throws IOException {
+        int index = segmentIndex(id);
+        while (segments.size() <= index) segments.add(map(segments.size()));
+    }
+
+    private Segment map(int index) throws IOException {
+        FileChannel ch = FileChannel.open(dir.resolve(String.format("ledger-%08d.seg", index)),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (ch.size() > segmentBytes) {
+            ch.close();
+            throw new IOException("Segment " + index + " is larger than the configured segment size " + segmentBytes);
+        }
+        return new Segment(ch, ch.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes),
+                (long) index * recordsPerSegment + 1, recordsPerSegment);
+    }
+
+    private int segmentIndex(long id) {
+        return Math.toIntExact((id - 1) / recordsPerSegment);
+    }
+
+    private int slot(long id) {
+        return (int) ((id - 1) % recordsPerSegment);
+    }
+
+    private int offset(long id) {
+        return slot(id) * RECORD_BYTES;
+    }
+
+    // ---- recovery ----
+
+    private void recover() throws IOException {
+        List<Integer> indexes;
+        try (Stream<Path> files = Files.list(dir)) {
+            indexes = files.map(p -> SEGMENT.matcher(p.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(m -> Integer.parseInt(m.group(1)))
+                    .sorted()
+                    .toList();
+        }
+        long id = 0;
+        boolean end = false;
+        for (int index : indexes) {
+            Path file = dir.resolve(String.format("ledger-%08d.seg", index));
+            if (end || index != segments.size()) {
+                log.warn("ledger segment {} is past the end of the log, deleted", file);
+                Files.delete(file);
+                continue;
+            }
+            Segment s = map(index);
+            segments.add(s);
+            for (int slot = 0; slot < recordsPerSegment; slot++) {
+                long expected = id + 1;
+                int off = slot * RECORD_BYTES;
+                long stored = s.buffer.getLong(off + OFF_ID);
+                if (stored == 0) {
+                    end = true;
+                    break;
+                }
+                if (stored != expected || !crcMatches(s.buffer, off)) {
+                    log.warn("ledger {}: torn record {} at byte {}, the log ends before it", file, expected, off);
+                    // clear the rest, so a later append never sits in front of stale records
+                    byte[] zero = new byte[RECORD_BYTES];
+                    for (int o = off; o < segmentBytes; o += RECORD_BYTES) s.buffer.put(o, zero);
+                    end = true;
+                    break;
+                }
+                s.include(slot, s.buffer.getLong(off + OFF_TS));
+                id = expected;
+            }
+        }
+        lastId = id;
+        log.info("ledger opened: {} records in {} segments", id, segments.size());
+    }
+
+    // ---- reads ----
+
+    private Mono<List<ActionEntity>> fetch(LedgerFilter filter, LedgerCursor after, int limit) {
+        return Mono.fromCallable(() -> scan(filter, after, limit))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * The first "limit" matching records after the cursor, in (ts, id) order.
+     */
+    List<ActionEntity> scan(LedgerFilter filter, LedgerCursor after, int limit) {
+        // read lastId before the ts bounds: they then cover every record up to it
+        long last = lastId;
+        long lo = Long.MIN_VALUE;
+        long hi = Long.MAX_VALUE;
+        if (filter.from() != null) lo = KitchenClock.toMicros(filter.from());
+        if (filter.to() != null) hi = KitchenClock.toMicros(filter.to());
+        long afterTs = after != null ? KitchenClock.toMicros(after.ts()) : Long.MIN_VALUE;
+        long afterId = after != null ? after.id() : Long.MIN_VALUE;
+        lo = Math.max(lo, afterTs);
+        byte[] orderId = utf8(filter.orderId());
+        byte[] runId = utf8(filter.runId());
+
+        PriorityQueue<long[]> top = new PriorityQueue<>(limit + 1, KEY_ORDER.reversed());
+        for (Segment s : segments) {
+            if (s.firstId > last) break;
+            if (s.maxTs < lo || s.minTs >= hi) continue;
+            // a full page: records of a later segment, or block, sort after it once their ts is not smaller
+            if (top.size() == limit && s.minTs >= top.peek()[0]) continue;
+            long end = Math.min(last, s.firstId + recordsPerSegment - 1);
+            int slots = (int) (end - s.firstId + 1);
+            ByteBuffer b = s.buffer;
+            for (long id = s.firstId + (long) s.startBlock(slots, lo, afterTs, afterId) * INDEX_INTERVAL; id <= end; id++) {
+                int slot = slot(id);
+                if (slot % INDEX_INTERVAL == 0) {
+                    long tailMin = s.tailMinTs[slot / INDEX_INTERVAL];
+                    if (tailMin >= hi || (top.size() == limit && tailMin >= top.peek()[0])) break;
+                }
+                int off = slot * RECORD_BYTES;
+                long ts = b.getLong(off + OFF_TS);
+                if (ts < lo || ts >= hi || (ts == afterTs && id <= afterId)) continue;
+                if (filter.action() != null && b.get(off + OFF_ACTION) != filter.action().ordinal()) continue;
+                if (filter.target() != null && b.get(off + OFF_TARGET) != filter.target().ordinal()) continue;
+                if (orderId != null && !bytesEqual(b, off + OFF_ORDER, b.get(off + OFF_ORDER_LEN) & 0xFF, orderId)) continue;
+                if (runId != null && !bytesEqual(b, off + OFF_RUN, b.get(off + OFF_RUN_LEN) & 0xFF, runId)) continue;
+                long[] key = {ts, id};
+                if (top.size() < limit) {
+                    top.add(key);
+                } else if (KEY_ORDER.compare(key, top.peek()) < 0) {
+                    top.poll();
+                    top.add(key);
+                }
+            }
+        }
+        List<long[]> keys = new ArrayList<>(top);
+        keys.sort(KEY_ORDER);
+        List<ActionEntity> out = new ArrayList<>(keys.size());
+        for (long[] key : keys) out.add(decode(segments.get(segmentIndex(key[1])).buffer, offset(key[1])));
+        return out;
+    }
+
+    // ---- encoding ----
+
+    static byte[] encode(long id, ActionEntity a) {
+        byte[] orderId = utf8(a.getOrderId());
+        byte[] runId = utf8(a.getRunId());
+        if (orderId == null || orderId.length > MAX_ORDER_ID_BYTES) {
+            throw new IllegalArgumentException("order id must be 1.." + MAX_ORDER_ID_BYTES + " UTF-8 bytes: " + a.getOrderId());
+        }
+        if (runId != null && runId.length > MAX_RUN_ID_BYTES) {
+            throw new IllegalArgumentException("run id longer than " + MAX_RUN_ID_BYTES + " UTF-8 bytes: " + a.getRunId());
+        }
+        ByteBuffer b = ByteBuffer.allocate(RECORD_BYTES);
+        b.putLong(OFF_ID, id)
+                .putLong(OFF_TS, KitchenClock.toMicros(a.getTimestamp()))
+                .put(OFF_ACTION, (byte) a.getAction().ordinal())
+                .put(OFF_TARGET, (byte) a.getTarget().ordinal())
+                .put(OFF_ORDER_LEN, (byte) orderId.length)
+                .put(OFF_RUN_LEN, (byte) (runId == null ? NULL_LENGTH : runId.length))
+                .put(OFF_ORDER, orderId);
+        if (runId != null) b.put(OFF_RUN, runId);
+        b.putInt(OFF_CRC, crc(b.array()));
+        return b.array();
+    }
+
+    static ActionEntity decode(ByteBuffer b, int off) {
+        ActionEntity a = new ActionEntity();
+        a.setId(String.valueOf(b.getLong(off + OFF_ID)));
+        a.setTimestamp(KitchenClock.ofMicros(b.getLong(off + OFF_TS)));
+        a.setAction(ACTIONS[b.get(off + OFF_ACTION)]);
+        a.setTarget(TARGETS[b.get(off + OFF_TARGET)]);
+        a.setOrderId(string(b, off + OFF_ORDER, b.get(off + OFF_ORDER_LEN) & 0xFF));
+        int runLength = b.get(off + OFF_RUN_LEN) & 0xFF;
+        a.setRunId(runLength == NULL_LENGTH ? null : string(b, off + OFF_RUN, runLength));
+        return a;
+    }
+
+    private static boolean crcMatches(ByteBuffer b, int off) {
+        byte[] record = new byte[RECORD_BYTES];
+        b.get(off, record);
+        int stored = ByteBuffer.wrap(record).getInt(OFF_CRC);
+        return crc(record) == stored;
+    }
+
+    // checksum of the record with its crc field zeroed
+    private static int crc(byte[] record) {
+        CRC32C crc = new CRC32C();
+        crc.update(record, 0, OFF_CRC);
+        crc.update(new byte[4]);
+        crc.update(record, OFF_CRC + 4, RECORD_BYTES - OFF_CRC - 4);
+        return (int) crc.getValue();
+    }
+
+    private static byte[] utf8(String s) {
+        return s == null ? null : s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(ByteBuffer b, int off, int length) {
+        byte[] bytes = new byte[length];
+        b.get(off, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static boolean bytesEqual(ByteBuffer b, int off, int length, byte[] expected) {
+        if (length != expected.length) return false;
+        for (int i = 0; i < length; i++) {
+            if (b.get(off + i) != expected[i]) return false;
+        }
+        return true;
+    }
+}
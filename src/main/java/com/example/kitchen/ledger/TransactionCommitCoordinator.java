@@ -0,0 +1,19 @@
+package com.example.kitchen.ledger;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+/**
+ * One reactive transaction per unit of work.
+ */
+@RequiredArgsConstructor
+public class TransactionCommitCoordinator implements CommitCoordinator {
+
+    private final TransactionalOperator tx;
+
+    @Override
+    public <T> Mono<T> transactional(Mono<T> work) {
+        return work.as(tx::transactional);
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.kitchen.ledger;
+
+import com.example.kitchen.model.ActionEntity;
+import com.example.kitchen.repository.ActionBatchWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind ledger: appends go to a bounded in-memory buffer, and a dedicated
+ * "ledger-flusher" thread drains it into Postgres with multi-row inserts.
+ * <p>
+ * The buffer is a linked queue bounded by a semaphore of {@code capacity} permits, not a ring:
+ * room is reserved when a row is appended but the row may only arrive after its transaction
+ * commits, so reservation and hand-over are separate steps. A permit is taken per reserved row
+ * and given back when the flusher takes the row (or the transaction rolls back).
+ * <p>
+ * - A batch is flushed when it reaches {@code maxBatch} rows or {@code linger} after its
+ * first row, whichever comes first.
+ * - Backpressure: an append first reserves room for its rows; when the buffer is full it waits
+ * (off the caller's thread) up to {@code offerTimeout}, then fails with {@link RejectedExecutionException}.
+ * - Inside a transaction, room is reserved at append time and the rows are handed over only once
+ * it commits (released on rollback): a full or stopped buffer fails the unit of work, so the
+ * caller sees the error, and a rolled-back unit leaves nothing in the ledger. A batch larger than
+ * the whole buffer is inserted directly in the caller's transaction. Outside a transaction, rows
+ * are buffered at once, in chunks of at most the buffer capacity.
+ * - {@link #close()} stops accepting rows, waits for transactions holding a reservation to
+ * complete, and flushes everything buffered, so a clean stop loses no committed row; rows still
+ * buffered on a crash are lost — that is the trade-off of this mode.
+ * - A failed batch is retried; after the last attempt it is logged and dropped.
+ */
+@Slf4j
+public class WriteBehindLedgerWriter implements LedgerWriter, AutoCloseable {
+
+    private static final int FLUSH_ATTEMPTS = 3;
+    private static final Duration FLUSH_TIMEOUT = Duration.ofSeconds(30);
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(30);
+
+    private final ActionBatchWriter batchWriter;
+    // bounded by the permits: rows buffered + rows reserved never exceed the capacity
+    private final BlockingQueue<ActionEntity> buffer = new LinkedBlockingQueue<>();
+    private final Semaphore room;
+    private final int capacity;
+    private final int maxBatch;
+    private final long lingerNanos;
+    private final Duration offerTimeout;
+    private final Thread flusher;
+    // appends that have passed the "accepting" check and not yet handed over or given up
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile boolean accepting = true;
+    private volatile boolean running = true;
+
+    // stats
+    private final AtomicLong flushedBatches = new AtomicLong();
+    private final AtomicLong flushedActions = new AtomicLong();
+    private final AtomicLong droppedActions = new AtomicLong();
+
+    public WriteBehindLedgerWriter(ActionBatchWriter batchWriter, int capacity, int maxBatch,
+                                   Duration linger, Duration offerTimeout) {
+        if (maxBatch < 1) throw new IllegalArgumentException("maxBatch must be >= 1");
+        this.batchWriter = batchWriter;
+        this.room = new Semaphore(capacity);
+        this.capacity = capacity;
+        this.maxBatch = maxBatch;
+        this.lingerNanos = linger.toNanos();
+        this.offerTimeout = offerTimeout;
+        this.flusher = new Thread(this::loop, "ledger-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    @Override
+    public Mono<Void> append(ActionEntity action) {
+        return appendAll(List.of(action));
+    }
+
+    @Override
+    public Mono<Void> appendAll(List<ActionEntity> actions) {
+        if (actions.isEmpty()) return Mono.empty();
+        // the caller may reuse its list before the commit
+        List<ActionEntity> rows = List.copyOf(actions);
+        return TransactionSynchronizationManager.forCurrentTransaction()
+                .flatMap(tx -> tx.isSynchronizationActive() ? appendOnCommit(tx, rows) : appendNow(rows))
+                .onErrorResume(NoTransactionException.class, e -> appendNow(rows));
+    }
+
+    /**
+     * Reserve room now, hand the rows over after the commit, give the room back on rollback.
+     */
+    private Mono<Void> appendOnCommit(TransactionSynchronizationManager tx, List<ActionEntity> rows) {
+        if (rows.size() > capacity) return batchWriter.insertAll(rows);
+        return Mono.defer(() -> {
+            if (!enter()) return Mono.error(stopped());
+            return reserve(rows.size())
+                    .doOnError(e -> inFlight.decrementAndGet())
+                    .then(Mono.fromRunnable(() -> tx.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public Mono<Void> afterCommit() {
+                            return Mono.fromRunnable(() -> buffer.addAll(rows));
+                        }
+
+                        @Override
+                        public Mono<Void> afterCompletion(int status) {
+                            return Mono.fromRunnable(() -> {
+                                if (status != STATUS_COMMITTED) room.release(rows.size());
+                                inFlight.decrementAndGet();
+                            });
+                        }
+                    })));
+        });
+    }
+
+    private Mono<Void> appendNow(List<ActionEntity> rows) {
+        return Mono.defer(() -> {
+            if (!enter()) return Mono.error(stopped());
+            return Flux.fromIterable(rows)
+                    .buffer(capacity)
+                    .concatMap(chunk -> reserve(chunk.size()).then(Mono.fromRunnable(() -> buffer.addAll(chunk))))
+                    .doFinally(signal -> inFlight.decrementAndGet())
+                    .then();
+        });
+    }
+
+    // counted before the check, so close() either sees this append in flight or it is rejected
+    private boolean enter() {
+        inFlight.incrementAndGet();
+        if (accepting) return true;
+        inFlight.decrementAndGet();
+        return false;
+    }
+
+    private static RejectedExecutionException stopped() {
+        return new RejectedExecutionException("Ledger writer is stopped");
+    }
+
+    private Mono<Void> reserve(int rows) {
+        if (room.tryAcquire(rows)) return Mono.empty();
+        // buffer full: wait for the flusher on a thread that may block
+        return Mono.<Void>fromRunnable(() -> {
+                    try {
+                        if (!room.tryAcquire(rows, offerTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                            throw new RejectedExecutionException("Ledger buffer is full");
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException("Interrupted while waiting for ledger buffer", e);
+                    }
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private void loop() {
+        List<ActionEntity> batch = new ArrayList<>(maxBatch);
+        while (running || !buffer.isEmpty()) {
+            try {
+                ActionEntity first = buffer.poll(POLL_NANOS, TimeUnit.NANOSECONDS);
+                if (first == null) continue;
+                room.release();
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < maxBatch) {
+                    room.release(buffer.drainTo(batch, maxBatch - batch.size()));
+                    long left = deadline - System.nanoTime();
+                    // on shutdown, do not linger: flush what is there
+                    if (batch.size() >= maxBatch || left <= 0 || !running) break;
+                    // short waits so that close() is noticed while lingering
+                    ActionEntity next = buffer.poll(Math.min(left, POLL_NANOS), TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        room.release();
+                        batch.add(next);
+                    }
+                }
+                flush(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Throwable t) {
+                log.error("ledger-flusher: unexpected error", t);
+            }
+        }
+        int lost = batch.size() + buffer.size();
+        if (lost > 0) {
+            droppedActions.addAndGet(lost);
+            log.error("ledger-flusher: stopped with {} unflushed actions", lost);
+        }
+    }
+
+    private void flush(List<ActionEntity> batch) {
+        List<ActionEntity> rows = List.copyOf(batch);
+        for (int attempt = 1; attempt <= FLUSH_ATTEMPTS; attempt++) {
+            try {
+                batchWriter.insertAll(rows).block(FLUSH_TIMEOUT);
+                flushedBatches.incrementAndGet();
+                flushedActions.addAndGet(rows.size());
+                return;
+            } catch (RuntimeException e) {
+                log.warn("ledger-flusher: batch of {} failed (attempt {}/{})", rows.size(), attempt, FLUSH_ATTEMPTS, e);
+            }
+        }
+        droppedActions.addAndGet(rows.size());
+        log.error("ledger-flusher: dropped batch of {} actions", rows.size());
+    }
+
+    /**
+     * Rows accepted but not yet flushed.
+     */
+    public int pending() {
+        return buffer.size();
+    }
+
+    public long flushedBatches() {
+        return flushedBatches.get();
+    }
+
+    public long flushedActions() {
+        return flushedActions.get();
+    }
+
+    public long droppedActions() {
+        return droppedActions.get();
+    }
+
+    /**
+     * Stop accepting rows, wait for the appends in flight (transactions holding a reservation
+     * included) to hand over or give up, flush everything buffered, then stop the flusher thread.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        accepting = false;
+        long deadline = System.nanoTime() + CLOSE_TIMEOUT.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() - deadline < 0) Thread.sleep(1);
+        if (inFlight.get() > 0) log.warn("ledger-flusher: stopping with {} appends still in flight", inFlight.get());
+        running = false;
+        flusher.join(TimeUnit.SECONDS.toMillis(30));
+        if (flusher.isAlive()) flusher.interrupt();
+    }
+}
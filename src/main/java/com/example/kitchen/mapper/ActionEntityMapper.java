@@ -1,5 +1,7 @@
 package com.example.kitchen.mapper;
 
+import com.example.kitchen.clock.KitchenClock;
+import com.example.kitchen.dto.ChallengeActionDto;
 import com.example.kitchen.enums.ActionType;
 import com.example.kitchen.enums.StorageType;
 import com.example.kitchen.model.ActionEntity;
@@ -7,18 +9,25 @@ import org.mapstruct.Mapper;
 
 import java.time.Instant;
 
-@Mapper(componentModel = "spring", imports = Instant.class)
+@Mapper(componentModel = "spring")
 public interface ActionEntityMapper {
     /**
-     * Build ActionEntity for ledger with current timestamp.
+     * Build ActionEntity for ledger at the given time (read from the KitchenClock by the caller).
      * Timestamp is Instant (ISO), conversion to μs happens later in ActionMapper.
      */
-    default ActionEntity toEntity(String orderId, ActionType action, StorageType target) {
+    default ActionEntity toEntity(String orderId, ActionType action, StorageType target, Instant timestamp) {
         ActionEntity e = new ActionEntity();
         e.setOrderId(orderId);
         e.setAction(action);
         e.setTarget(target);
-        e.setTimestamp(Instant.now());
+        e.setTimestamp(timestamp);
         return e;
     }
+
+    /**
+     * Ledger row for a Challenge-shaped action (epoch microseconds), e.g. from an offline simulation.
+     */
+    default ActionEntity toEntity(ChallengeActionDto action) {
+        return toEntity(action.id(), action.action(), action.target(), KitchenClock.ofMicros(action.timestamp()));
+    }
 }
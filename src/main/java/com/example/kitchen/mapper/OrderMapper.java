@@ -11,10 +11,11 @@ public interface OrderMapper {
 
     /**
      * ChallengeOrderDto("temperature" as String) -> internal Order (enum).
-     * placedAt is set later in KitchenService.
+     * placedAt is set later in KitchenService, runId by the simulation run that owns the order.
      */
     @Mapping(target = "temp",     source = "temperature")
     @Mapping(target = "placedAt", ignore = true)
+    @Mapping(target = "runId",    ignore = true)
     Order toOrder(ChallengeOrderDto dto);
 
     /** Robust String -> Temperature converter. */
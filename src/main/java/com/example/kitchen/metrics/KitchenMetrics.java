@@ -0,0 +1,96 @@
+package com.example.kitchen.metrics;
+
+import com.example.kitchen.enums.ActionType;
+import com.example.kitchen.enums.StorageType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * KitchenService meters, created once so the hot path only increments/records:
+ * - {@code kitchen.actions} — PLACE/MOVE/PICKUP/DISCARD counters by action and storage;
+ * - {@code kitchen.order.duration} — placeOrder/pickupOrder end to end (storage decision + persistence);
+ * - {@code kitchen.pickup.freshness} — share of the freshness budget left at pickup, by storage
+ *   (0 for an order found expired at pickup).
+ * Storage gauges and per-operation timers are registered by {@code StorageService#bindTo}.
+ */
+public class KitchenMetrics {
+
+    // bucket bounds of the freshness histogram (Prometheus "le" labels); expired pickups land in the first
+    private static final double[] FRESHNESS_BUCKETS = {0.1, 0.25, 0.5, 0.75, 0.9, 1};
+
+    private final Map<ActionType, Map<StorageType, Counter>> actions = new EnumMap<>(ActionType.class);
+    private final Map<StorageType, DistributionSummary> freshness = new EnumMap<>(StorageType.class);
+    private final Timer placeTimer;
+    private final Timer pickupTimer;
+
+    public KitchenMetrics(MeterRegistry registry) {
+        for (ActionType action : ActionType.values()) {
+            Map<StorageType, Counter> byStorage = new EnumMap<>(StorageType.class);
+            for (StorageType storage : StorageType.values()) {
+                byStorage.put(storage, Counter.builder("kitchen.actions")
+                        .description("Ledger actions decided by the kitchen")
+                        .tag("action", action.json())
+                        .tag("storage", storage.json())
+                        .register(registry));
+            }
+            actions.put(action, byStorage);
+        }
+        for (StorageType storage : StorageType.values()) {
+            freshness.put(storage, DistributionSummary.builder("kitchen.pickup.freshness")
+                    .description("Share of the freshness budget left when the order was picked up")
+                    .tag("storage", storage.json())
+                    .serviceLevelObjectives(FRESHNESS_BUCKETS)
+                    .register(registry));
+        }
+        placeTimer = orderTimer(registry, "place");
+        pickupTimer = orderTimer(registry, "pickup");
+    }
+
+    /**
+     * Meters kept in a private registry: for tests and benchmarks that do not read them.
+     */
+    public static KitchenMetrics detached() {
+        return new KitchenMetrics(new SimpleMeterRegistry());
+    }
+
+    private static Timer orderTimer(MeterRegistry registry, String operation) {
+        return Timer.builder("kitchen.order.duration")
+                .description("KitchenService placeOrder/pickupOrder latency, persistence included")
+                .tag("operation", operation)
+                .register(registry);
+    }
+
+    public void action(ActionType action, StorageType storage) {
+        actions.get(action).get(storage).increment();
+    }
+
+    public void pickedUp(StorageType storage, double freshnessLeft) {
+        freshness.get(storage).record(freshnessLeft);
+    }
+
+    public <T> Mono<T> timePlace(Mono<T> call) {
+        return timed(placeTimer, call);
+    }
+
+    public <T> Mono<T> timePickup(Mono<T> call) {
+        return timed(pickupTimer, call);
+    }
+
+    /**
+     * Time each subscription of "call" until it terminates or is cancelled.
+     */
+    private static <T> Mono<T> timed(Timer timer, Mono<T> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call.doFinally(signal -> timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+}
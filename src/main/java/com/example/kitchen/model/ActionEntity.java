@@ -20,4 +20,5 @@ public class ActionEntity {
     private String orderId;     // business order id
     private ActionType action;  // PLACE / MOVE / PICKUP / DISCARD
     private StorageType target; // storage affected: HEATER / COOLER / SHELF
+    private String runId;       // simulation run that owns the order (null for manual API calls)
 }
@@ -0,0 +1,77 @@
+package com.example.kitchen.model;
+
+import com.example.kitchen.enums.StorageType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Net database effect of a batch of storage decisions: order rows are written by ChangeSetWriter,
+ * actions by the LedgerWriter, with a handful of multi-row statements instead of one round-trip per event.
+ * <p>
+ * Rows are folded per order into one net change:
+ * - a move of an order inserted in the same batch just changes the row to insert;
+ * - moves of older orders collapse to their last storage;
+ * - insert then delete of the same id cancels out (the row never existed before the batch);
+ * - delete then insert of the same id (an order discarded and its id placed again) becomes an
+ * upsert: the old row is replaced, whichever of the two is written first.
+ * Actions are kept in the order they happened. Not thread-safe: build it from one sequential pipeline.
+ */
+public class ChangeSet {
+    private final Map<String, OrderEntity> inserts = new LinkedHashMap<>(); // orders placed in this batch
+    private final Map<String, OrderEntity> upserts = new LinkedHashMap<>(); // ids deleted, then placed again
+    private final Map<String, StorageType> moves = new LinkedHashMap<>();   // older orders -> last storage
+    private final Set<String> deletes = new LinkedHashSet<>();              // orders that left the kitchen
+    private final List<ActionEntity> actions = new ArrayList<>();           // ledger rows, chronological
+
+    public void insert(OrderEntity order) {
+        if (deletes.remove(order.getId())) upserts.put(order.getId(), order);
+        else inserts.put(order.getId(), order);
+    }
+
+    public void move(String orderId, StorageType to) {
+        OrderEntity placed = inserts.getOrDefault(orderId, upserts.get(orderId));
+        if (placed != null) placed.setStorage(to);
+        else moves.put(orderId, to);
+    }
+
+    public void delete(String orderId) {
+        if (inserts.remove(orderId) != null) return;
+        upserts.remove(orderId);
+        moves.remove(orderId);
+        deletes.add(orderId);
+    }
+
+    public void action(ActionEntity action) {
+        actions.add(action);
+    }
+
+    public Collection<OrderEntity> inserts() {
+        return inserts.values();
+    }
+
+    public Collection<OrderEntity> upserts() {
+        return upserts.values();
+    }
+
+    public Map<String, StorageType> moves() {
+        return moves;
+    }
+
+    public Set<String> deletes() {
+        return deletes;
+    }
+
+    public List<ActionEntity> actions() {
+        return actions;
+    }
+
+    public boolean isEmpty() {
+        return inserts.isEmpty() && upserts.isEmpty() && moves.isEmpty() && deletes.isEmpty() && actions.isEmpty();
+    }
+}
@@ -12,6 +12,10 @@ public record Order(
         String name,         // display name
         Temperature temp,    // HOT / COLD / ROOM
         int freshness,       // freshness budget in seconds
-        Instant placedAt     // when the order was placed (set by KitchenService)
+        Instant placedAt,    // when the order was placed (set by KitchenService)
+        String runId         // simulation run that owns the order (null for manual API calls)
 ) {
+    public Order(String id, String name, Temperature temp, int freshness, Instant placedAt) {
+        this(id, name, temp, freshness, placedAt, null);
+    }
 }
@@ -0,0 +1,166 @@
+package com.example.kitchen.persistence;
+
+import com.example.kitchen.dto.LedgerCursor;
+import com.example.kitchen.dto.LedgerFilter;
+import com.example.kitchen.dto.LedgerPage;
+import com.example.kitchen.enums.StorageType;
+import com.example.kitchen.ledger.LedgerReader;
+import com.example.kitchen.ledger.LedgerWriter;
+import com.example.kitchen.model.ActionEntity;
+import com.example.kitchen.model.ChangeSet;
+import com.example.kitchen.model.OrderEntity;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Order rows and the action ledger kept in the heap, for load tests and simulations without Postgres.
+ * <p>
+ * Notes:
+ * - the ledger is a skip list keyed by (ts, id), so it is also the LedgerReader: pages and cursors
+ * behave as on Postgres, and {@code /solve} gets its run's actions;
+ * - given a ledger writer and reader (the {@code mapped} ledger), actions go to it instead of the skip list
+ * and reads are served from it: rows stay in the heap, the ledger survives restarts;
+ * - ids come from a counter; stored order rows and actions are copies, and a move replaces the
+ * row with a new copy: the caller's entities are never touched or kept;
+ * - {@link #transactional} adds nothing: writes are visible as soon as they are made, and a failed
+ * unit of work is not rolled back; with no transaction, a given ledger appends at once;
+ * - nothing is ever evicted: the ledger grows with the number of actions.
+ */
+public class InMemoryKitchenPersistence implements KitchenPersistence, LedgerReader {
+
+    private static final Comparator<LedgerCursor> KEY_ORDER =
+            Comparator.comparing(LedgerCursor::ts).thenComparingLong(LedgerCursor::id);
+
+    private final Map<String, OrderEntity> orders = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<LedgerCursor, ActionEntity> ledger = new ConcurrentSkipListMap<>(KEY_ORDER);
+    private final AtomicLong lastId = new AtomicLong();
+    // null: the skip list above is the ledger
+    private final LedgerWriter ledgerWriter;
+    private final LedgerReader ledgerReader;
+
+    public InMemoryKitchenPersistence() {
+        this(null, null);
+    }
+
+    public InMemoryKitchenPersistence(LedgerWriter ledgerWriter, LedgerReader ledgerReader) {
+        if ((ledgerWriter == null) != (ledgerReader == null)) {
+            throw new IllegalArgumentException("ledgerWriter and ledgerReader must be given together");
+        }
+        this.ledgerWriter = ledgerWriter;
+        this.ledgerReader = ledgerReader;
+    }
+
+    @Override
+    public Mono<Void> placed(OrderEntity order, ActionEntity place) {
+        return Mono.fromRunnable(() -> orders.put(order.getId(), copy(order, order.getStorage())))
+                .then(log(List.of(place)));
+    }
+
+    @Override
+    public Mono<Void> moved(ActionEntity move) {
+        return Mono.fromRunnable(() -> orders.computeIfPresent(move.getOrderId(), (id, row) -> copy(row, move.getTarget())))
+                .then(log(List.of(move)));
+    }
+
+    @Override
+    public Mono<Void> removed(ActionEntity action) {
+        return log(List.of(action))
+                .then(Mono.fromRunnable(() -> orders.remove(action.getOrderId())));
+    }
+
+    @Override
+    public Mono<Void> write(ChangeSet changes) {
+        return Mono.fromRunnable(() -> {
+            for (OrderEntity row : changes.inserts()) orders.put(row.getId(), copy(row, row.getStorage()));
+            for (OrderEntity row : changes.upserts()) orders.put(row.getId(), copy(row, row.getStorage()));
+            changes.moves().forEach((id, to) -> orders.computeIfPresent(id, (k, row) -> copy(row, to)));
+            for (String id : changes.deletes()) orders.remove(id);
+        }).then(log(changes.actions()));
+    }
+
+    @Override
+    public <T> Mono<T> transactional(Mono<T> work) {
+        return work;
+    }
+
+    /**
+     * Current order rows (read-only view).
+     */
+    public Map<String, OrderEntity> orders() {
+        return Collections.unmodifiableMap(orders);
+    }
+
+    /**
+     * Actions in the heap ledger; 0 when a ledger writer was given.
+     */
+    public int ledgerSize() {
+        return ledger.size();
+    }
+
+    private static OrderEntity copy(OrderEntity row, StorageType storage) {
+        return new OrderEntity(row.getId(), row.getName(), row.getTemp(), storage, row.getFreshness(), row.getPlacedAt());
+    }
+
+    private Mono<Void> log(List<ActionEntity> actions) {
+        if (ledgerWriter != null) return ledgerWriter.appendAll(actions);
+        return Mono.fromRunnable(() -> actions.forEach(this::append));
+    }
+
+    private void append(ActionEntity action) {
+        long id = lastId.incrementAndGet();
+        ActionEntity copy = new ActionEntity();
+        copy.setId(String.valueOf(id));
+        copy.setTimestamp(action.getTimestamp());
+        copy.setOrderId(action.getOrderId());
+        copy.setAction(action.getAction());
+        copy.setTarget(action.getTarget());
+        copy.setRunId(action.getRunId());
+        ledger.put(new LedgerCursor(action.getTimestamp(), id), copy);
+    }
+
+    @Override
+    public Mono<LedgerPage> page(LedgerFilter filter, LedgerCursor after, int limit) {
+        if (ledgerReader != null) return ledgerReader.page(filter, after, limit);
+        LedgerReader.checkLimit(limit);
+        return stream(filter, after)
+                .take(limit)
+                .collectList()
+                .map(items -> new LedgerPage(items,
+                        items.size() < limit ? null : LedgerCursor.of(items.get(items.size() - 1)).encode()));
+    }
+
+    /**
+     * Walks the skip list from the later of the cursor and {@code from}, and stops at {@code to}.
+     * Actions appended while the stream runs are seen if they sort after its position.
+     */
+    @Override
+    public Flux<ActionEntity> stream(LedgerFilter filter, LedgerCursor after) {
+        if (ledgerReader != null) return ledgerReader.stream(filter, after);
+        return Flux.defer(() -> Flux.fromIterable(tail(filter, after).values()))
+                .takeWhile(a -> filter.to() == null || a.getTimestamp().isBefore(filter.to()))
+                .filter(a -> matches(filter, a));
+    }
+
+    private NavigableMap<LedgerCursor, ActionEntity> tail(LedgerFilter filter, LedgerCursor after) {
+        if (filter.from() != null && (after == null || filter.from().isAfter(after.ts()))) {
+            return ledger.tailMap(new LedgerCursor(filter.from(), Long.MIN_VALUE), true);
+        }
+        return after != null ? ledger.tailMap(after, false) : ledger;
+    }
+
+    private static boolean matches(LedgerFilter filter, ActionEntity a) {
+        return (filter.runId() == null || filter.runId().equals(a.getRunId()))
+                && (filter.orderId() == null || filter.orderId().equals(a.getOrderId()))
+                && (filter.action() == null || filter.action() == a.getAction())
+                && (filter.target() == null || filter.target() == a.getTarget());
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.kitchen.persistence;
+
+import com.example.kitchen.model.ActionEntity;
+import com.example.kitchen.model.ChangeSet;
+import com.example.kitchen.model.OrderEntity;
+import reactor.core.publisher.Mono;
+
+/**
+ * Where KitchenService writes the effects of its storage decisions: order rows and ledger actions.
+ * <p>
+ * Selected by Spring profile:
+ * - default — {@link R2dbcKitchenPersistence}: Postgres, through the LedgerWriter of {@code kitchen.ledger.mode};
+ * - {@code in-memory} — {@link InMemoryKitchenPersistence}: maps in the heap, ledger readable as usual;
+ * - {@code no-persistence} — {@link NoOpKitchenPersistence}: everything is dropped.
+ * The last two need no database, so the order flow can be run and measured on its own.
+ */
+public interface KitchenPersistence {
+
+    /**
+     * A new order row and its PLACE action.
+     */
+    Mono<Void> placed(OrderEntity order, ActionEntity place);
+
+    /**
+     * The order row's storage becomes the action's target; the MOVE action is recorded.
+     */
+    Mono<Void> moved(ActionEntity move);
+
+    /**
+     * A PICKUP or DISCARD action, then the order row is deleted.
+     */
+    Mono<Void> removed(ActionEntity action);
+
+    /**
+     * The order rows and actions of a batch, set-based.
+     */
+    Mono<Void> write(ChangeSet changes);
+
+    /**
+     * Runs a unit of persistence work atomically where the backend supports it.
+     */
+    <T> Mono<T> transactional(Mono<T> work);
+}
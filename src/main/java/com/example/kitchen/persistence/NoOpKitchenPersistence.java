@@ -0,0 +1,56 @@
+package com.example.kitchen.persistence;
+
+import com.example.kitchen.dto.LedgerCursor;
+import com.example.kitchen.dto.LedgerFilter;
+import com.example.kitchen.dto.LedgerPage;
+import com.example.kitchen.ledger.LedgerReader;
+import com.example.kitchen.model.ActionEntity;
+import com.example.kitchen.model.ChangeSet;
+import com.example.kitchen.model.OrderEntity;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Drops every write; the ledger reads back empty. For measuring the order flow with no
+ * persistence cost at all.
+ */
+public class NoOpKitchenPersistence implements KitchenPersistence, LedgerReader {
+
+    @Override
+    public Mono<Void> placed(OrderEntity order, ActionEntity place) {
+        return Mono.empty();
+    }
+
+    @Override
+    public Mono<Void> moved(ActionEntity move) {
+        return Mono.empty();
+    }
+
+    @Override
+    public Mono<Void> removed(ActionEntity action) {
+        return Mono.empty();
+    }
+
+    @Override
+    public Mono<Void> write(ChangeSet changes) {
+        return Mono.empty();
+    }
+
+    @Override
+    public <T> Mono<T> transactional(Mono<T> work) {
+        return work;
+    }
+
+    @Override
+    public Mono<LedgerPage> page(LedgerFilter filter, LedgerCursor after, int limit) {
+        LedgerReader.checkLimit(limit);
+        return Mono.just(new LedgerPage(List.of(), null));
+    }
+
+    @Override
+    public Flux<ActionEntity> stream(LedgerFilter filter, LedgerCursor after) {
+        return Flux.empty();
+    }
+}
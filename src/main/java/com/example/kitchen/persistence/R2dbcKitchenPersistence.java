@@ -0,0 +1,65 @@
+package com.example.kitchen.persistence;
+
+import com.example.kitchen.ledger.CommitCoordinator;
+import com.example.kitchen.ledger.LedgerWriter;
+import com.example.kitchen.model.ActionEntity;
+import com.example.kitchen.model.ChangeSet;
+import com.example.kitchen.model.OrderEntity;
+import com.example.kitchen.repository.ChangeSetWriter;
+import com.example.kitchen.repository.OrderMoveWriter;
+import com.example.kitchen.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import reactor.core.publisher.Mono;
+
+/**
+ * Postgres over R2DBC: order rows via repositories/templates, actions via the LedgerWriter
+ * (direct, write-behind, group-commit or mapped), units of work via the CommitCoordinator.
+ */
+@RequiredArgsConstructor
+public class R2dbcKitchenPersistence implements KitchenPersistence {
+
+    private final R2dbcEntityTemplate template;
+    private final OrderRepository orderRepository;
+    private final ChangeSetWriter changeSetWriter;
+    private final OrderMoveWriter orderMoveWriter;
+    private final LedgerWriter ledgerWriter;
+    private final CommitCoordinator tx;
+
+    @Override
+    public Mono<Void> placed(OrderEntity order, ActionEntity place) {
+        return template.insert(OrderEntity.class)
+                .using(order)
+                .then(ledgerWriter.append(place));
+    }
+
+    /**
+     * No read of the row: one UPDATE + MOVE action statement when the ledger writes inline,
+     * otherwise one UPDATE and the action through the LedgerWriter.
+     */
+    @Override
+    public Mono<Void> moved(ActionEntity move) {
+        if (ledgerWriter.writesInline()) {
+            return orderMoveWriter.moveWithAction(move.getOrderId(), move.getTarget(), move.getTimestamp(), move.getRunId());
+        }
+        return orderMoveWriter.updateStorage(move.getOrderId(), move.getTarget())
+                .then(ledgerWriter.append(move));
+    }
+
+    @Override
+    public Mono<Void> removed(ActionEntity action) {
+        return ledgerWriter.append(action)
+                .then(orderRepository.deleteById(action.getOrderId()));
+    }
+
+    @Override
+    public Mono<Void> write(ChangeSet changes) {
+        return changeSetWriter.write(changes)
+                .then(Mono.defer(() -> ledgerWriter.appendAll(changes.actions())));
+    }
+
+    @Override
+    public <T> Mono<T> transactional(Mono<T> work) {
+        return tx.transactional(work);
+    }
+}
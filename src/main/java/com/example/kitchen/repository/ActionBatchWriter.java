@@ -0,0 +1,56 @@
+package com.example.kitchen.repository;
+
+import com.example.kitchen.model.ActionEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Multi-row INSERT of ledger actions, in list order (ids follow that order).
+ * Lists of at least {@code kitchen.ledger.copy-threshold} rows go through COPY instead (0 disables it).
+ */
+@Repository
+public class ActionBatchWriter {
+
+    private final DatabaseClient db;
+    private final ActionCopyWriter copyWriter;
+    private final int copyThreshold;
+
+    public ActionBatchWriter(DatabaseClient db, ActionCopyWriter copyWriter,
+                             @Value("${kitchen.ledger.copy-threshold:1000}") int copyThreshold) {
+        this.db = db;
+        this.copyWriter = copyWriter;
+        this.copyThreshold = copyThreshold;
+    }
+
+    public Mono<Void> insertAll(List<ActionEntity> rows) {
+        if (rows.isEmpty()) return Mono.empty();
+        if (copyThreshold > 0 && rows.size() >= copyThreshold) return copyWriter.copyAll(rows).then();
+        return MultiRowChunks.of(rows)
+                .concatMap(chunk -> {
+                    StringBuilder sql = new StringBuilder("INSERT INTO actions (ts, order_id, action, target, run_id) VALUES ");
+                    for (int i = 0; i < chunk.size(); i++) {
+                        if (i > 0) sql.append(", ");
+                        sql.append("(:ts").append(i).append(", :order").append(i)
+                                .append(", :action").append(i).append(", :target").append(i)
+                                .append(", :run").append(i).append(')');
+                    }
+                    DatabaseClient.GenericExecuteSpec spec = db.sql(sql.toString());
+                    for (int i = 0; i < chunk.size(); i++) {
+                        ActionEntity a = chunk.get(i);
+                        spec = spec.bind("ts" + i, a.getTimestamp())
+                                .bind("order" + i, a.getOrderId())
+                                .bind("action" + i, a.getAction().name())
+                                .bind("target" + i, a.getTarget().name());
+                        spec = a.getRunId() != null
+                                ? spec.bind("run" + i, a.getRunId())
+                                : spec.bindNull("run" + i, String.class);
+                    }
+                    return spec.fetch().rowsUpdated();
+                })
+                .then();
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.kitchen.repository;
+
+import com.example.kitchen.enums.StorageType;
+import com.example.kitchen.model.ChangeSet;
+import com.example.kitchen.model.OrderEntity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Set-based persistence of the order rows of a {@link ChangeSet}: one multi-row statement per
+ * kind of change (chunked to stay far below the bind-parameter limit). Its actions go through
+ * the LedgerWriter. Runs in the caller's transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ChangeSetWriter {
+
+    private final DatabaseClient db;
+
+    public Mono<Void> write(ChangeSet changes) {
+        return insertOrders(List.copyOf(changes.inserts()), false)
+                .then(insertOrders(List.copyOf(changes.upserts()), true))
+                .then(updateStorages(List.copyOf(changes.moves().entrySet())))
+                .then(deleteOrders(List.copyOf(changes.deletes())));
+    }
+
+    /**
+     * Multi-row INSERT; with "replace", a row that already has the id is overwritten (upserts).
+     */
+    private Mono<Void> insertOrders(List<OrderEntity> rows, boolean replace) {
+        return chunked(rows, (chunk, sql) -> {
+            sql.append("INSERT INTO orders (id, name, temp, freshness, storage, placed_at) VALUES ");
+            for (int i = 0; i < chunk.size(); i++) {
+                if (i > 0) sql.append(", ");
+                sql.append("(:id").append(i).append(", :name").append(i).append(", :temp").append(i)
+                        .append(", :fresh").append(i).append(", :storage").append(i).append(", :placed").append(i).append(')');
+            }
+            if (replace) {
+                sql.append(" ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name, temp = EXCLUDED.temp, ")
+                        .append("freshness = EXCLUDED.freshness, storage = EXCLUDED.storage, placed_at = EXCLUDED.placed_at");
+            }
+            DatabaseClient.GenericExecuteSpec spec = db.sql(sql.toString());
+            for (int i = 0; i < chunk.size(); i++) {
+                OrderEntity o = chunk.get(i);
+                spec = spec.bind("id" + i, o.getId())
+                        .bind("name" + i, o.getName())
+                        .bind("temp" + i, o.getTemp().name())
+                        .bind("fresh" + i, o.getFreshness())
+                        .bind("storage" + i, o.getStorage().name())
+                        .bind("placed" + i, o.getPlacedAt());
+            }
+            return spec;
+        });
+    }
+
+    private Mono<Void> updateStorages(List<Map.Entry<String, StorageType>> rows) {
+        return chunked(rows, (chunk, sql) -> {
+            sql.append("UPDATE orders o SET storage = v.storage FROM (VALUES ");
+            for (int i = 0; i < chunk.size(); i++) {
+                if (i > 0) sql.append(", ");
+                sql.append("(:id").append(i).append(", :storage").append(i).append(')');
+            }
+            sql.append(") AS v(id, storage) WHERE o.id = v.id");
+            DatabaseClient.GenericExecuteSpec spec = db.sql(sql.toString());
+            for (int i = 0; i < chunk.size(); i++) {
+                spec = spec.bind("id" + i, chunk.get(i).getKey())
+                        .bind("storage" + i, chunk.get(i).getValue().name());
+            }
+            return spec;
+        });
+    }
+
+    private Mono<Void> deleteOrders(List<String> ids) {
+        return chunked(ids, (chunk, sql) ->
+                db.sql("DELETE FROM orders WHERE id IN (:ids)").bind("ids", chunk));
+    }
+
+    /**
+     * Run one statement per chunk of rows, sequentially.
+     */
+    private <T> Mono<Void> chunked(List<T> rows, BiFunction<List<T>, StringBuilder, DatabaseClient.GenericExecuteSpec> statement) {
+        if (rows.isEmpty()) return Mono.empty();
+        return MultiRowChunks.of(rows)
+                .concatMap(chunk -> statement.apply(chunk, new StringBuilder()).fetch().rowsUpdated())
+                .then();
+    }
+}
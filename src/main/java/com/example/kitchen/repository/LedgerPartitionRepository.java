@@ -0,0 +1,106 @@
+package com.example.kitchen.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * DDL for the daily partitions of {@code actions} (migration V8): {@code actions_pYYYYMMDD}
+ * covers {@code [day; day + 1)} in UTC.
+ * <p>
+ * Notes:
+ * - every change runs in its own transaction under one advisory lock, so instances never race;
+ * - {@link #create} moves the day's rows out of {@code actions_default} before attaching, which
+ * a plain {@code CREATE TABLE ... PARTITION OF} would refuse;
+ * - {@link #retire} detaches and disposes in one transaction: a failure leaves the partition attached.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LedgerPartitionRepository {
+
+    public static final String ARCHIVE_SCHEMA = "ledger_archive";
+    static final String PREFIX = "actions_p";
+
+    private static final DateTimeFormatter DAY = DateTimeFormatter.BASIC_ISO_DATE;
+
+    static final String LOCK_SQL = "SELECT pg_advisory_xact_lock(hashtext('actions_partitions'))";
+
+    static final String PARTITIONS_SQL = """
+            SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = 'actions'::regclass""";
+
+    private final DatabaseClient db;
+    private final TransactionalOperator tx;
+
+    /**
+     * Days that have a partition attached; {@code actions_default} is not one of them.
+     */
+    public Flux<LocalDate> days() {
+        return db.sql(PARTITIONS_SQL)
+                .map(row -> row.get("relname", String.class))
+                .all()
+                .mapNotNull(LedgerPartitionRepository::dayOf);
+    }
+
+    /**
+     * @return false when the partition already existed
+     */
+    public Mono<Boolean> create(LocalDate day) {
+        String name = name(day);
+        return db.sql(LOCK_SQL).then()
+                .then(db.sql("SELECT to_regclass(:name) IS NOT NULL AS present")
+                        .bind("name", name)
+                        .map(row -> row.get("present", Boolean.class))
+                        .one())
+                .flatMap(present -> present ? Mono.just(false)
+                        : Flux.fromIterable(createSql(day)).concatMap(sql -> db.sql(sql).then()).then(Mono.just(true)))
+                .as(tx::transactional);
+    }
+
+    /**
+     * Detach the day's partition, then drop it or, with {@code archive}, move it to {@link #ARCHIVE_SCHEMA}.
+     */
+    public Mono<Void> retire(LocalDate day, boolean archive) {
+        String name = name(day);
+        String dispose = archive
+                ? "ALTER TABLE " + name + " SET SCHEMA " + ARCHIVE_SCHEMA
+                : "DROP TABLE " + name;
+        return db.sql(LOCK_SQL).then()
+                .then(db.sql("ALTER TABLE actions DETACH PARTITION " + name).then())
+                .then(db.sql(dispose).then())
+                .as(tx::transactional);
+    }
+
+    // DDL takes no bind parameters: names and bounds come from a LocalDate, never from input
+    static List<String> createSql(LocalDate day) {
+        String name = name(day);
+        String from = "'" + day + "'";
+        String to = "'" + day.plusDays(1) + "'";
+        return List.of(
+                "CREATE TABLE " + name + " (LIKE actions INCLUDING DEFAULTS INCLUDING CONSTRAINTS)",
+                "WITH moved AS (DELETE FROM actions_default WHERE ts >= " + from + " AND ts < " + to + " RETURNING *) "
+                        + "INSERT INTO " + name + " SELECT * FROM moved",
+                "ALTER TABLE actions ATTACH PARTITION " + name + " FOR VALUES FROM (" + from + ") TO (" + to + ")");
+    }
+
+    static String name(LocalDate day) {
+        return PREFIX + DAY.format(day);
+    }
+
+    static LocalDate dayOf(String name) {
+        if (!name.startsWith(PREFIX)) return null;
+        try {
+            return LocalDate.parse(name.substring(PREFIX.length()), DAY);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
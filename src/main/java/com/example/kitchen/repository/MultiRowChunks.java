@@ -0,0 +1,23 @@
+package com.example.kitchen.repository;
+
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * Splits rows for multi-row statements.
+ */
+final class MultiRowChunks {
+
+    // 1000 rows x 6 columns stays well under Postgres' 65535 bind parameters
+    static final int MAX_ROWS_PER_STATEMENT = 1_000;
+
+    private MultiRowChunks() {
+    }
+
+    static <T> Flux<List<T>> of(List<T> rows) {
+        return Flux.range(0, (rows.size() + MAX_ROWS_PER_STATEMENT - 1) / MAX_ROWS_PER_STATEMENT)
+                .map(i -> rows.subList(i * MAX_ROWS_PER_STATEMENT,
+                        Math.min(rows.size(), (i + 1) * MAX_ROWS_PER_STATEMENT)));
+    }
+}
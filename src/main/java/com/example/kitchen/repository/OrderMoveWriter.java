@@ -0,0 +1,52 @@
+package com.example.kitchen.repository;
+
+import com.example.kitchen.enums.ActionType;
+import com.example.kitchen.enums.StorageType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+/**
+ * MOVE persistence in one round-trip, in the caller's transaction.
+ * <p>
+ * Notes:
+ * - no read: the new storage is written by id, only the {@code storage} column changes;
+ * - {@link #moveWithAction} also inserts the MOVE action in the same statement (data-modifying CTE);
+ * the action is written even when the order row is missing, like before.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderMoveWriter {
+
+    static final String UPDATE_SQL = "UPDATE orders SET storage = :storage WHERE id = :id";
+
+    static final String MOVE_WITH_ACTION_SQL = """
+            WITH upd AS (UPDATE orders SET storage = :storage WHERE id = :id)
+            INSERT INTO actions (ts, order_id, action, target, run_id) VALUES (:ts, :id, :action, :storage, :runId)""";
+
+    private final DatabaseClient db;
+
+    /**
+     * @return rows updated (0 when the order row is gone)
+     */
+    public Mono<Long> updateStorage(String orderId, StorageType to) {
+        return db.sql(UPDATE_SQL)
+                .bind("storage", to.name())
+                .bind("id", orderId)
+                .fetch().rowsUpdated();
+    }
+
+    public Mono<Void> moveWithAction(String orderId, StorageType to, Instant timestamp, String runId) {
+        DatabaseClient.GenericExecuteSpec spec = db.sql(MOVE_WITH_ACTION_SQL)
+                .bind("storage", to.name())
+                .bind("id", orderId)
+                .bind("ts", timestamp)
+                .bind("action", ActionType.MOVE.name());
+        spec = runId != null ? spec.bind("runId", runId) : spec.bindNull("runId", String.class);
+        return spec.fetch().rowsUpdated()
+                .then();
+    }
+}
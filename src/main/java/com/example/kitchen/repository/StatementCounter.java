@@ -0,0 +1,27 @@
+package com.example.kitchen.repository;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts SQL statements sent through the application's DatabaseClient (repositories,
+ * R2dbcEntityTemplate and the batch writers alike); one statement is one DB round-trip.
+ * COPY streams are not counted.
+ */
+@Component
+public class StatementCounter {
+
+    private final LongAdder statements = new LongAdder();
+
+    public void increment() {
+        statements.increment();
+    }
+
+    /**
+     * Statements executed since start; take the difference of two reads to measure a workload.
+     */
+    public long statements() {
+        return statements.sum();
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.kitchen.service;
+
+import com.example.kitchen.clock.VirtualKitchenClock;
+import com.example.kitchen.dto.ChallengeActionDto;
+import com.example.kitchen.dto.SimulationReport;
+import com.example.kitchen.engine.InlineStorageEngine;
+import com.example.kitchen.enums.ActionType;
+import com.example.kitchen.enums.Temperature;
+import com.example.kitchen.events.DiscardEvent;
+import com.example.kitchen.events.KitchenEvent;
+import com.example.kitchen.events.MoveEvent;
+import com.example.kitchen.events.PlaceEvent;
+import com.example.kitchen.events.PlacementOutcome;
+import com.example.kitchen.events.RemoveResult;
+import com.example.kitchen.model.Order;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Offline simulation of a Challenge run in virtual time.
+ * <p>
+ * Same rules as KitchenSimulator (placement at a fixed rate, pickup after a random delay in
+ * [min; max]), and the same StorageService placement/pickup logic, but driven by a priority
+ * queue of future events on a {@link VirtualKitchenClock}: the clock jumps from one event to
+ * the next, so a run takes milliseconds whatever its simulated length.
+ * Nothing is persisted and the Challenge API is not called; the action list is built from the
+ * storage events. Each run uses a fresh StorageService, so runs are independent and, for a
+ * given seed, reproducible.
+ */
+@Slf4j
+@Component
+public class DiscreteEventSimulator {
+
+    private static final int MIN_FRESHNESS_SEC = 5;
+    private static final int MAX_FRESHNESS_SEC = 300;
+    private static final String[] NAMES = {"Soup", "Salad", "Ice Cream", "Pizza", "Sushi", "Cola", "Burger"};
+
+    private final int heaterCapacity;
+    private final int coolerCapacity;
+    private final int shelfCapacity;
+
+    public DiscreteEventSimulator(@Value("${kitchen.storage.heater-capacity:6}") int heaterCapacity,
+                                  @Value("${kitchen.storage.cooler-capacity:6}") int coolerCapacity,
+                                  @Value("${kitchen.storage.shelf-capacity:12}") int shelfCapacity) {
+        this.heaterCapacity = heaterCapacity;
+        this.coolerCapacity = coolerCapacity;
+        this.shelfCapacity = shelfCapacity;
+    }
+
+    private enum Kind { PLACE, PICKUP }
+
+    // seq breaks time ties in scheduling order, which keeps runs deterministic
+    private record SimEvent(long atMicros, long seq, Kind kind, Order order) {
+    }
+
+    /**
+     * Run one scenario. Blocking but CPU-only: call it off the event loop.
+     *
+     * @param start virtual start time (first placement)
+     * @param seed  seeds the pickup delays
+     */
+    public SimulationReport run(List<Order> orders, int ratePerSecond, int minPickupSec, int maxPickupSec,
+                                Instant start, long seed) {
+        if (minPickupSec < 0 || maxPickupSec < minPickupSec) {
+            throw new IllegalArgumentException("Pickup window must satisfy 0 <= min <= max");
+        }
+        if (ratePerSecond < 1) {
+            throw new IllegalArgumentException("ratePerSecond must be >= 1");
+        }
+        VirtualKitchenClock clock = new VirtualKitchenClock(start);
+        StorageService storage = new StorageService(new InlineStorageEngine(), clock,
+                heaterCapacity, coolerCapacity, shelfCapacity);
+        Random random = new Random(seed);
+
+        PriorityQueue<SimEvent> queue = new PriorityQueue<>(
+                Comparator.comparingLong(SimEvent::atMicros).thenComparingLong(SimEvent::seq));
+        long seq = 0;
+        long startMicros = clock.nowMicros();
+        long intervalMicros = 1_000_000L / ratePerSecond;
+        for (Order order : orders) {
+            queue.add(new SimEvent(startMicros + seq * intervalMicros, seq++, Kind.PLACE, order));
+        }
+
+        List<ChallengeActionDto> actions = new ArrayList<>(orders.size() * 2);
+        int moved = 0, discarded = 0, pickedUp = 0;
+
+        while (!queue.isEmpty()) {
+            SimEvent ev = queue.poll();
+            clock.advanceMicros(ev.atMicros() - clock.nowMicros());
+            long now = clock.nowMicros();
+            String id = ev.order().id();
+
+            if (ev.kind() == Kind.PLACE) {
+                PlacementOutcome outcome = storage.place(ev.order().withPlacedAt(clock.now())).block();
+                for (KitchenEvent ke : outcome.events()) {
+                    switch (ke) {
+                        case MoveEvent m -> moved++;
+                        case DiscardEvent d -> discarded++;
+                        case PlaceEvent p -> {
+                        }
+                    }
+                    actions.add(new ChallengeActionDto(now, ke.order().id(), ke.action(), ke.target()));
+                }
+                long delayMicros = (minPickupSec + random.nextInt(maxPickupSec - minPickupSec + 1)) * 1_000_000L;
+                queue.add(new SimEvent(now + delayMicros, seq++, Kind.PICKUP, ev.order()));
+            } else {
+                // not removed: discarded on overflow before its pickup
+                RemoveResult res = storage.removeByIdWithExpiry(id).block();
+                if (res == null || !res.removed()) continue;
+                ActionType act = res.expired() ? ActionType.DISCARD : ActionType.PICKUP;
+                if (res.expired()) discarded++;
+                else pickedUp++;
+                actions.add(new ChallengeActionDto(now, id, act, res.storage()));
+            }
+        }
+
+        log.debug("offline run: orders={} moved={} discarded={} pickedUp={}", orders.size(), moved, discarded, pickedUp);
+        return new SimulationReport(orders.size(), moved, discarded, pickedUp,
+                clock.nowMicros() - startMicros, actions);
+    }
+
+    /**
+     * Random Challenge-like orders: uniform temperature, freshness in [5; 300] seconds.
+     */
+    public List<Order> syntheticOrders(int count, long seed) {
+        Random random = new Random(seed);
+        Temperature[] temps = Temperature.values();
+        List<Order> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            orders.add(new Order(
+                    "sim-" + i,
+                    NAMES[random.nextInt(NAMES.length)],
+                    temps[random.nextInt(temps.length)],
+                    MIN_FRESHNESS_SEC + random.nextInt(MAX_FRESHNESS_SEC - MIN_FRESHNESS_SEC + 1),
+                    null));
+        }
+        return orders;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.kitchen.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Background expiry: every tick, discards the orders whose freshness ran out and writes
+ * their DISCARD actions, so dead orders stop holding capacity until pickup or overflow.
+ * Deadlines live in StorageService's timing wheel; a tick only visits the due ones.
+ * Enabled by {@code kitchen.expiry.sweeper.enabled=true}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "kitchen.expiry.sweeper", name = "enabled", havingValue = "true")
+public class ExpirySweeper {
+
+    private final StorageService storageService;
+    private final KitchenService kitchenService;
+    private final Duration tick;
+    private final int wheelSize;
+    private Disposable task;
+
+    public ExpirySweeper(StorageService storageService,
+                         KitchenService kitchenService,
+                         @Value("${kitchen.expiry.sweeper.tick:100ms}") Duration tick,
+                         @Value("${kitchen.expiry.sweeper.wheel-size:512}") int wheelSize) {
+        this.storageService = storageService;
+        this.kitchenService = kitchenService;
+        this.tick = tick;
+        this.wheelSize = wheelSize;
+    }
+
+    @PostConstruct
+    void start() {
+        storageService.enableExpiryTracking(tick.toNanos() / 1000, wheelSize);
+        // a slow sweep (DB) skips ticks instead of piling them up
+        task = Flux.interval(tick)
+                .onBackpressureDrop()
+                .concatMap(t -> sweepOnce()
+                        .onErrorResume(ex -> {
+                            log.error("expiry sweep failed", ex);
+                            return Mono.empty();
+                        }), 1)
+                .subscribe();
+        log.info("expiry sweeper started, tick={} wheel-size={}", tick, wheelSize);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (task != null) task.dispose();
+    }
+
+    /**
+     * Discard and persist everything due now; emits the number of discarded orders.
+     */
+    public Mono<Integer> sweepOnce() {
+        return storageService.expireDue()
+                .flatMap(events -> events.isEmpty()
+                        ? Mono.just(0)
+                        : kitchenService.recordDiscards(events).thenReturn(events.size()));
+    }
+}
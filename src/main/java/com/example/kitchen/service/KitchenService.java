@@ -1,154 +1,268 @@
 package com.example.kitchen.service;
 
+import com.example.kitchen.clock.KitchenClock;
+import com.example.kitchen.dto.KitchenEventDto;
+import com.example.kitchen.dto.OrderOutcomeDto;
+import com.example.kitchen.dto.SimulationReport;
 import com.example.kitchen.enums.ActionType;
 import com.example.kitchen.enums.StorageType;
 import com.example.kitchen.events.DiscardEvent;
+import com.example.kitchen.events.KitchenEventBus;
 import com.example.kitchen.events.MoveEvent;
+import com.example.kitchen.events.PlaceEvent;
+import com.example.kitchen.events.PlacementOutcome;
+import com.example.kitchen.events.RemoveResult;
 import com.example.kitchen.mapper.ActionEntityMapper;
 import com.example.kitchen.mapper.OrderEntityMapper;
+import com.example.kitchen.metrics.KitchenMetrics;
+import com.example.kitchen.model.ActionEntity;
+import com.example.kitchen.model.ChangeSet;
 import com.example.kitchen.model.Order;
-import com.example.kitchen.model.OrderEntity;
-import com.example.kitchen.repository.ActionRepository;
-import com.example.kitchen.repository.OrderRepository;
+import com.example.kitchen.persistence.KitchenPersistence;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.time.Instant;
+import java.util.List;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 /**
  * Orchestrates order placement/movement/pickup and writes a persistent action ledger.
- * Storage decisions are delegated to StorageService; DB writes go via R2DBC repositories/templates.
- * All public flows are wrapped in a reactive transaction (TransactionalOperator).
+ * Storage decisions are delegated to StorageService; order rows and actions go to the
+ * KitchenPersistence port (Postgres, in-memory or no-op, by profile).
+ * Each flow takes its storage decision first, then writes its rows and actions in one unit of work
+ * by {@link KitchenPersistence#transactional} (on Postgres: one transaction per flow, or shared by
+ * a commit group). The decision stays outside that scope: a queued commit group never holds the
+ * storage locks, and a failed write does not undo it (storage and live events stay ahead of the
+ * database; the error reaches the caller).
+ * Every action is counted in {@link KitchenMetrics}; placeOrder/pickupOrder are timed end to end.
  */
 public class KitchenService {
 
     private final StorageService storageService;
-    private final OrderRepository orderRepository;
-    private final ActionRepository actionRepository;
     private final OrderEntityMapper orderEntityMapper;
     private final ActionEntityMapper actionEntityMapper;
-    private final R2dbcEntityTemplate template;
-    private final TransactionalOperator tx;
+    private final KitchenPersistence persistence;
+    private final KitchenEventBus events;
+    private final KitchenMetrics metrics;
+    private final KitchenClock clock;
 
     /**
      * Place an order:
      * 1) try ideal storage; if full → try SHELF;
      * 2) if SHELF is full → try moving one from SHELF to its ideal place;
      * 3) if nothing moved → discard soonest-to-expire from SHELF, then place on SHELF.
-     * Always log and write a PLACE action on success.
+     * The whole decision is one atomic StorageService.place call (one scheduler hop);
+     * its MOVE/DISCARD/PLACE events are then persisted in order.
      */
-    @Transactional
     public Mono<Void> placeOrder(Order order) {
-        Order withTs = order.withPlacedAt(Instant.now());
+        Order withTs = order.withPlacedAt(clock.now());
 
-        StorageType ideal = storageService.idealFor(order.temp());
+        return storageService.place(withTs)
+                .flatMap(outcome -> persistOutcome(outcome).as(persistence::transactional))
+                .as(metrics::timePlace);
+    }
 
-        return storageService.tryAddOrder(ideal, withTs)
-                .flatMap(placedIdeal -> {
-                    if (placedIdeal) {
-                        return savePlace(withTs, ideal);
-                    }
-                    return storageService.tryAddOrder(StorageType.SHELF, withTs)
-                            .flatMap(placedShelf -> {
-                                if (placedShelf) return savePlace(withTs, StorageType.SHELF);
-                                return storageService.tryMoveOneFromShelf()
-                                        .flatMap(move -> {
-                                            return persistMove(move)
-                                                    .then(storageService.tryAddOrder(StorageType.SHELF, withTs)
-                                                            .flatMap(ok -> ok ? savePlace(withTs, StorageType.SHELF)
-                                                                    : Mono.error(new IllegalStateException("Shelf capacity race"))));
-                                        })
-                                        .switchIfEmpty(
-                                                storageService.discardMinFromShelf()
-                                                        .flatMap(discard -> persistDiscard(discard))
-                                                        .then(storageService.tryAddOrder(StorageType.SHELF, withTs)
-                                                                .flatMap(ok -> ok ? savePlace(withTs, StorageType.SHELF)
-                                                                        : Mono.error(new IllegalStateException("Shelf capacity race after discard"))))
-                                        );
-                            });
+    /**
+     * Persist every event of a placement in the order it happened.
+     */
+    private Mono<Void> persistOutcome(PlacementOutcome outcome) {
+        return Flux.fromIterable(outcome.events())
+                .concatMap(ev -> switch (ev) {
+                    case MoveEvent move -> persistMove(move);
+                    case DiscardEvent discard -> persistDiscard(discard);
+                    case PlaceEvent place -> savePlace(place.order(), place.target());
                 })
-                .as(tx::transactional);
+                .then();
     }
 
     /**
      * Insert OrderEntity + write PLACE action.
      */
     private Mono<Void> savePlace(Order order, StorageType target) {
-        var entity = orderEntityMapper.toEntity(order, target);
         log.info("place id={} -> {}", order.id(), target);
-        return template.insert(OrderEntity.class)
-                .using(entity)
-                .then(actionRepository.save(
-                        actionEntityMapper.toEntity(order.id(), ActionType.PLACE, target)))
-                .then();
+        return persistence.placed(orderEntityMapper.toEntity(order, target),
+                action(order.id(), ActionType.PLACE, target, order.runId()));
     }
 
     /**
-     * Persist a MOVE: update OrderEntity.storage, write MOVE action.
+     * Persist a MOVE: the row's new storage + MOVE action, without reading the row.
      */
     private Mono<Void> persistMove(MoveEvent move) {
         log.info("move id={} {} -> {}", move.order().id(), move.from(), move.to());
-        return orderRepository.findById(move.order().id())
-                .flatMap(e -> {
-                    e.setStorage(move.to());
-                    return orderRepository.save(e);
-                })
-                .then(actionRepository.save(actionEntityMapper.toEntity(move.order().id(), ActionType.MOVE, move.to())))
-                .then();
+        return persistence.moved(action(move.order().id(), ActionType.MOVE, move.to(), move.order().runId()));
     }
 
     /**
      * Persist a DISCARD: write DISCARD action then delete OrderEntity.
-     * Errors while deleting are swallowed to keep the stream moving.
+     * A failed write fails the unit of work (rolled back to its savepoint in a commit group).
      */
     private Mono<Void> persistDiscard(DiscardEvent ev) {
         log.info("discard id={} from {}", ev.order().id(), ev.from());
-        return actionRepository.save(actionEntityMapper.toEntity(ev.order().id(), ActionType.DISCARD, ev.from()))
-                .then(orderRepository.deleteById(ev.order().id()))
-                .onErrorResume(ex -> Mono.empty())
-                .then();
+        return persistence.removed(action(ev.order().id(), ActionType.DISCARD, ev.from(), ev.order().runId()));
+    }
+
+    /**
+     * Ledger row stamped now, attributed to the run that owns the order (not to the caller:
+     * a placement may move or discard another run's order).
+     * Also published to live subscribers right away: they see storage decisions as they are
+     * made, before (and regardless of) the database write. Counted the same way.
+     */
+    private ActionEntity action(String orderId, ActionType type, StorageType target, String runId) {
+        ActionEntity action = actionEntityMapper.toEntity(orderId, type, target, clock.now());
+        action.setRunId(runId);
+        events.publish(KitchenEventDto.of(action));
+        metrics.action(type, target);
+        return action;
+    }
+
+    /**
+     * Action of a successful removal at pickup: PICKUP, or DISCARD if the order had expired.
+     * Records how much freshness was left either way.
+     */
+    private ActionEntity pickupAction(String orderId, RemoveResult res) {
+        metrics.pickedUp(res.storage(), res.freshnessLeft());
+        ActionType act = res.expired() ? ActionType.DISCARD : ActionType.PICKUP;
+        return action(orderId, act, res.storage(), res.runId());
+    }
+
+    /**
+     * Place a batch of orders:
+     * - storage decisions are applied one by one, in request order (same rules as placeOrder);
+     * - an incomplete order, or one the storage refuses (e.g. duplicate id), is REJECTED, the others go on;
+     *   any failure of one order stays with it, so the orders already stored still get their rows written;
+     * - then all resulting rows and actions are written with multi-row statements in one transaction.
+     */
+    public Mono<List<OrderOutcomeDto>> placeOrders(List<Order> orders) {
+        return Mono.defer(() -> {
+            ChangeSet changes = new ChangeSet();
+            return Flux.fromIterable(orders)
+                    .concatMap(order -> {
+                        String invalid = invalidReason(order);
+                        if (invalid != null) return Mono.just(OrderOutcomeDto.rejected(order.id(), invalid));
+                        return storageService.place(order.withPlacedAt(clock.now()))
+                                .map(outcome -> {
+                                    collect(changes, outcome);
+                                    return OrderOutcomeDto.placed(order.id(), outcome.target());
+                                })
+                                .onErrorResume(ex -> {
+                                    if (!(ex instanceof IllegalArgumentException)) log.warn("batch place: order {} failed", order.id(), ex);
+                                    return Mono.just(OrderOutcomeDto.rejected(order.id(), ex.getMessage()));
+                                });
+                    })
+                    .collectList()
+                    .flatMap(outcomes -> persistence.write(changes).as(persistence::transactional).thenReturn(outcomes));
+        });
+    }
+
+    /**
+     * Why an order of a batch cannot be placed, or null: storage needs its id and temperature.
+     */
+    private static String invalidReason(Order order) {
+        if (order.id() == null || order.id().isBlank()) return "Order id is required";
+        if (order.temp() == null) return "Order " + order.id() + " has no temperature";
+        if (order.freshness() <= 0) return "Order " + order.id() + " needs a positive freshness";
+        return null;
+    }
+
+    /**
+     * Fold the events of one placement into the batch change set, in the order they happened.
+     */
+    private void collect(ChangeSet changes, PlacementOutcome outcome) {
+        for (var ev : outcome.events()) {
+            switch (ev) {
+                case MoveEvent move -> changes.move(move.order().id(), move.to());
+                case DiscardEvent discard -> changes.delete(discard.order().id());
+                case PlaceEvent place -> changes.insert(orderEntityMapper.toEntity(place.order(), place.target()));
+            }
+            changes.action(action(ev.order().id(), ev.action(), ev.target(), ev.order().runId()));
+        }
+    }
+
+    /**
+     * Pickup a batch of orders by id:
+     * - removals run one by one, in request order (same rules as pickupOrder);
+     * - then PICKUP/DISCARD actions and row deletes are written set-based in one transaction.
+     */
+    public Mono<List<OrderOutcomeDto>> pickupOrders(List<String> orderIds) {
+        return Mono.defer(() -> {
+            ChangeSet changes = new ChangeSet();
+            return Flux.fromIterable(orderIds)
+                    .concatMap(id -> pickupInto(changes, id))
+                    .collectList()
+                    .flatMap(outcomes -> persistence.write(changes).as(persistence::transactional).thenReturn(outcomes));
+        });
+    }
+
+    private Mono<OrderOutcomeDto> pickupInto(ChangeSet changes, String orderId) {
+        return storageService.removeByIdWithExpiry(orderId)
+                .map(res -> {
+                    // unknown, or a repeated id in the same batch that is no longer in storage
+                    if (!res.removed()) return OrderOutcomeDto.notFound(orderId);
+                    changes.action(pickupAction(orderId, res));
+                    changes.delete(orderId);
+                    return res.expired()
+                            ? OrderOutcomeDto.discarded(orderId, res.storage())
+                            : OrderOutcomeDto.pickedUp(orderId, res.storage());
+                });
+    }
+
+    /**
+     * Append the actions of an offline run to the ledger in one batch (COPY on Postgres when large
+     * enough), in one transaction. Storage and orders are not touched, and nothing is published
+     * or counted: the run happened in virtual time, not in this kitchen.
+     * Each action is tagged with "runId", so the run can be told apart from live actions and
+     * queried back with ?runId=.
+     */
+    public Mono<Void> persistRun(SimulationReport report, String runId) {
+        return Mono.defer(() -> {
+            ChangeSet changes = new ChangeSet();
+            report.actions().forEach(a -> {
+                ActionEntity action = actionEntityMapper.toEntity(a);
+                action.setRunId(runId);
+                changes.action(action);
+            });
+            return persistence.write(changes).as(persistence::transactional);
+        });
+    }
+
+    /**
+     * Persist discards found by the expiry sweeper, in one transaction.
+     * A failed write fails the whole sweep; the sweeper logs it and goes on with the next tick.
+     */
+    public Mono<Void> recordDiscards(List<DiscardEvent> events) {
+        return Flux.fromIterable(events)
+                .concatMap(this::persistDiscard)
+                .then()
+                .as(persistence::transactional);
     }
 
     /**
      * Pickup by id:
-     * - read OrderEntity to locate storage
-     * - remove from StorageService and get "expired at removal" flag
+     * - remove from StorageService, which locates the order in memory, and get "expired at removal" flag
      * - write PICKUP or DISCARD action accordingly, then delete OrderEntity
-     * Missing order (either in DB or in storage) is treated as a no-op with a log line.
+     * The orders table is only written, never read. An order unknown to storage is a no-op with a log line.
+     * A failed write (or commit) reaches the caller, as for placeOrder.
      */
     public Mono<Void> pickupOrder(String orderId) {
-        return orderRepository.findById(orderId)
-                .flatMap(entity -> {
-                    StorageType where = entity.getStorage();
-
-                    // Remove and get "expired at removal" from StorageService
-                    return storageService.removeByIdWithExpiry(where, orderId)
-                            .flatMap(res -> {
-                                if (!res.removed()) {
-                                    log.info("pickup: order {} not found, ignore", orderId);
-                                    return Mono.empty();
-                                }
-                                ActionType act = res.expired() ? ActionType.DISCARD : ActionType.PICKUP;
-                                return actionRepository
-                                        .save(actionEntityMapper.toEntity(orderId, act, where))
-                                        .then(orderRepository.deleteById(orderId));
-                            })
-                            .onErrorResume(ex -> {
-                                // If storage removal failed unexpectedly, do not write action
-                                log.error("pickup error for id={}", orderId, ex);
-                                return Mono.empty();
-                            });
+        return storageService.removeByIdWithExpiry(orderId)
+                .onErrorResume(ex -> {
+                    // If storage removal failed unexpectedly, do not write action
+                    log.error("pickup error for id={}", orderId, ex);
+                    return Mono.empty();
+                })
+                .flatMap(res -> {
+                    if (!res.removed()) {
+                        log.info("pickup: order {} not found, ignore", orderId);
+                        return Mono.empty();
+                    }
+                    return persistence.removed(pickupAction(orderId, res)).as(persistence::transactional);
                 })
-                .switchIfEmpty(Mono.fromRunnable(() -> log.info("pickup: order {} not found in DB, ignore", orderId)))
                 .then()
-                .as(tx::transactional);
+                .as(metrics::timePickup);
     }
 }
@@ -1,12 +1,13 @@
 package com.example.kitchen.service;
 
-import com.example.kitchen.dto.ChallengeActionDto;
+import com.example.kitchen.clock.KitchenClock;
 import com.example.kitchen.dto.ChallengeOrderDto;
 import com.example.kitchen.dto.ChallengeResultDto;
+import com.example.kitchen.dto.LedgerFilter;
+import com.example.kitchen.ledger.LedgerReader;
 import com.example.kitchen.mapper.ActionMapper;
 import com.example.kitchen.mapper.OrderMapper;
 import com.example.kitchen.model.Order;
-import com.example.kitchen.repository.ActionRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -16,9 +17,10 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
-import java.util.Comparator;
+import java.time.Instant;
 import java.util.List;
 import java.util.Random;
+import java.util.UUID;
 
 @Slf4j
 @Component
@@ -28,8 +30,8 @@ public class KitchenSimulator {
     // Orchestrates place/pickup operations against in-memory storages and DB-ledger
     private final KitchenService kitchenService;
 
-    // Read all recorded actions (PLACE/MOVE/PICKUP/DISCARD) for building the final payload
-    private final ActionRepository actionRepository;
+    // Reads the run's actions (PLACE/MOVE/PICKUP/DISCARD) by run id for building the final payload
+    private final LedgerReader ledgerReader;
 
     // Maps ActionEntity -> ChallengeActionDto (converts Instant to μs)
     private final ActionMapper actionMapper;
@@ -37,82 +39,102 @@ public class KitchenSimulator {
     // Maps ChallengeOrderDto -> internal Order model
     private final OrderMapper orderMapper;
 
+    // Same clock as the ledger timestamps: a run's actions are never older than its start
+    private final KitchenClock clock;
+
     @Value("${challenge.base-url}")
     private String baseUrl;
     @Value("${challenge.auth-token}")
     private String authToken;
 
-    private String lastTestId;
     private final Random random = new Random();
 
+    /**
+     * Everything one run needs, created per run: overlapping runs share no mutable state.
+     * Every order of the run carries `runId`, and so does every ledger action about it.
+     */
+    record SimulationRun(String runId, String testId, Instant startedAt, int ratePerSecond, int minPickupSec, int maxPickupSec) {
+    }
+
+    // Orders and `x-test-id` of one GET /new
+    private record Challenge(String testId, List<Order> orders) {
+    }
+
+    /**
+     * Start a run in the background and return its id at once.
+     */
+    public String start(int ratePerSecond, int minPickupSec, int maxPickupSec) {
+        String runId = UUID.randomUUID().toString();
+        runSimulation(runId, ratePerSecond, minPickupSec, maxPickupSec)
+                .subscribe(null, e -> log.error("Simulation {} failed", runId, e));
+        return runId;
+    }
+
     /**
      * Run a single simulation:
      * 1) GET /new → list of orders + `x-test-id`
      * 2) For each order (at ~ratePerSecond):
      * place → wait random delay in [minPickupSec; maxPickupSec] → pickup
      * 3) Wait `maxPickupSec + 3` seconds to ensure actions are persisted
-     * 4) POST /solve with actions filtered by this run window (μs)
+     * 4) POST /solve with this run's actions (selected by run id, not by time window)
      */
-    public Mono<Void> runSimulation(int ratePerSecond, int minPickupSec, int maxPickupSec) {
-        final long runStartMicros = System.currentTimeMillis() * 1000L;
-
+    public Mono<Void> runSimulation(String runId, int ratePerSecond, int minPickupSec, int maxPickupSec) {
         return fetchOrdersFromServer()
-                .flatMapMany(Flux::fromIterable)
-                // Throttle placements to desired rate (floor to 1ms to avoid division by zero)
-                .delayElements(Duration.ofMillis(Math.max(1, 1000L / Math.max(1, ratePerSecond))))
-                // Keep per-order sequence: place -> delay -> pickup
-                .concatMap(order -> {
-                    int pickupDelay = random.nextInt(maxPickupSec - minPickupSec + 1) + minPickupSec;
-                    return kitchenService.placeOrder(order)
-                            .then(Mono.delay(Duration.ofSeconds(pickupDelay)))
-                            .then(kitchenService.pickupOrder(order.id()));
+                .flatMap(challenge -> {
+                    if (challenge.testId() == null || challenge.testId().isBlank()) {
+                        return Mono.error(new IllegalStateException("Missing x-test-id from /new"));
+                    }
+                    var run = new SimulationRun(runId, challenge.testId(), clock.now(), ratePerSecond, minPickupSec, maxPickupSec);
+                    log.info("Simulation {} started: {} orders, test id {}", runId, challenge.orders().size(), run.testId());
+                    return Flux.fromIterable(challenge.orders())
+                            .map(order -> order.withRunId(runId))
+                            // Throttle placements to desired rate (floor to 1ms to avoid division by zero)
+                            .delayElements(Duration.ofMillis(Math.max(1, 1000L / Math.max(1, ratePerSecond))))
+                            // Keep per-order sequence: place -> delay -> pickup
+                            .concatMap(order -> {
+                                int pickupDelay = random.nextInt(maxPickupSec - minPickupSec + 1) + minPickupSec;
+                                return kitchenService.placeOrder(order)
+                                        .then(Mono.delay(Duration.ofSeconds(pickupDelay)))
+                                        .then(kitchenService.pickupOrder(order.id()));
+                            })
+                            // Grace period: let async writes land in the ledger
+                            .then(Mono.delay(Duration.ofSeconds(maxPickupSec + 3L)))
+                            .then(Mono.defer(() -> submitResultsToServer(run)));
                 })
-                // Grace period: let async writes land in the ledger
-                .then(Mono.delay(Duration.ofSeconds(maxPickupSec + 3L)))
-                // Gather & submit only actions produced during this run
-                .then(Mono.defer(() -> {
-                    long runEndMicros = System.currentTimeMillis() * 1000L;
-                    return submitResultsToServer(ratePerSecond, minPickupSec, maxPickupSec, runStartMicros, runEndMicros);
-                }))
-                .doOnSuccess(v -> log.info("Simulation completed"));
+                .doOnSuccess(v -> log.info("Simulation {} completed", runId));
     }
 
     /**
      * Build the challenge payload and POST it to `/solve`.
-     * - Filters actions by [runStartMicros; runEndMicros]
-     * - Sorts by timestamp ascending for stable output
+     * - Reads only the run's actions: `run_id` is a SQL predicate on idx_actions_run_id (run_id, ts, id),
+     * so the cost follows the run's action count, not the ledger size; the run's start bounds ts,
+     * so only the daily partitions since then are visited
+     * - Ledger order (ts, id) is timestamp ascending, no sort needed
      * - Converts rate/min/max to microseconds
-     * - Sends header `x-test-id` obtained from `/new`
+     * - Sends header `x-test-id` obtained from this run's `/new`
      */
-    private Mono<Void> submitResultsToServer(int ratePerSecond, int minPickupSec, int maxPickupSec,
-                                             long runStartMicros, long runEndMicros) {
-        return actionRepository.findAll()
+    private Mono<Void> submitResultsToServer(SimulationRun run) {
+        return ledgerReader.stream(LedgerFilter.forRun(run.runId(), run.startedAt()), null)
                 .map(actionMapper::toChallengeActionDto)
-                .filter(dto -> dto.timestamp() >= runStartMicros && dto.timestamp() <= runEndMicros)
-                .sort(Comparator.comparingLong(ChallengeActionDto::timestamp))
                 .collectList()
                 .flatMap(actions -> {
                     var payload = new ChallengeResultDto(
                             new ChallengeResultDto.SimulationOptions(
-                                    1_000_000L / Math.max(1, ratePerSecond),
-                                    minPickupSec * 1_000_000L,
-                                    maxPickupSec * 1_000_000L
+                                    1_000_000L / Math.max(1, run.ratePerSecond()),
+                                    run.minPickupSec() * 1_000_000L,
+                                    run.maxPickupSec() * 1_000_000L
                             ),
                             actions
                     );
 
-                    if (lastTestId == null || lastTestId.isBlank()) {
-                        return Mono.error(new IllegalStateException("Missing x-test-id from /new"));
-                    }
-
                     WebClient wc = WebClient.builder().baseUrl(baseUrl).build();
                     return wc.post()
                             .uri(uriBuilder -> uriBuilder.path("/solve").queryParam("auth", authToken).build())
-                            .header("x-test-id", lastTestId)
+                            .header("x-test-id", run.testId())
                             .bodyValue(payload)
                             .retrieve()
                             .bodyToMono(String.class)
-                            .doOnNext(r -> log.info("Challenge server response: {}", r))
+                            .doOnNext(r -> log.info("Challenge server response for {}: {}", run.runId(), r))
                             .then();
                 });
 
@@ -124,25 +146,23 @@ public class KitchenSimulator {
      * - Maps body to internal `Order` objects
      * - 10s timeout; on error logs and returns empty list
      */
-    private Mono<List<Order>> fetchOrdersFromServer() {
+    private Mono<Challenge> fetchOrdersFromServer() {
         WebClient webClient = WebClient.builder().baseUrl(baseUrl).build();
 
         return webClient.get()
                 .uri(uriBuilder -> uriBuilder.path("/new").queryParam("auth", authToken).build())
                 .retrieve()
                 .toEntityList(ChallengeOrderDto.class)
-                .doOnNext(response -> {
-                    // Header names are case-insensitive, but Spring returns canonicalized keys
-                    var h = response.getHeaders().getFirst("x-test-id");
-                    if (h != null && !h.isBlank()) lastTestId = h;
-                })
-                .map(entity -> entity.getBody() != null
-                        ? entity.getBody().stream().map(orderMapper::toOrder).toList()
-                        : List.<Order>of())
+                .map(entity -> new Challenge(
+                        // Header names are case-insensitive, but Spring returns canonicalized keys
+                        entity.getHeaders().getFirst("x-test-id"),
+                        entity.getBody() != null
+                                ? entity.getBody().stream().map(orderMapper::toOrder).toList()
+                                : List.<Order>of()))
                 .timeout(Duration.ofSeconds(10))
                 .onErrorResume(e -> {
                     log.error("Failed to fetch orders from challenge API", e);
-                    return Mono.just(List.of());
+                    return Mono.just(new Challenge(null, List.of()));
                 });
     }
 }
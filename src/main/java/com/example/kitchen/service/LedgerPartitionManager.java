@@ -0,0 +1,122 @@
+package com.example.kitchen.service;
+
+import com.example.kitchen.clock.KitchenClock;
+import com.example.kitchen.repository.LedgerPartitionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps the daily partitions of the ledger (migration V8) in shape, once at startup and then
+ * every {@code interval}:
+ * - creates the partitions of today and the next {@code ahead} days (UTC), so inserts never
+ * fall back to {@code actions_default};
+ * - retires the partitions older than {@code retention-days}: detached, then dropped, or moved
+ * to the {@code ledger_archive} schema with {@code archive=true}. 0 keeps everything.
+ * Disabled by {@code kitchen.ledger.partitions.enabled=false} (e.g. on an unpartitioned schema).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "kitchen.ledger.partitions", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class LedgerPartitionManager {
+
+    private final LedgerPartitionRepository partitionRepository;
+    private final KitchenClock clock;
+    private final int ahead;
+    private final int retentionDays;
+    private final boolean archive;
+    private final Duration interval;
+    private Disposable task;
+
+    /**
+     * Outcome of one maintenance pass.
+     */
+    public record Maintenance(List<LocalDate> created, List<LocalDate> retired) {
+    }
+
+    public LedgerPartitionManager(LedgerPartitionRepository partitionRepository,
+                                  KitchenClock clock,
+                                  @Value("${kitchen.ledger.partitions.ahead:7}") int ahead,
+                                  @Value("${kitchen.ledger.partitions.retention-days:0}") int retentionDays,
+                                  @Value("${kitchen.ledger.partitions.archive:false}") boolean archive,
+                                  @Value("${kitchen.ledger.partitions.interval:1h}") Duration interval) {
+        if (ahead < 0 || retentionDays < 0) {
+            throw new IllegalArgumentException("ahead and retention-days must be >= 0");
+        }
+        this.partitionRepository = partitionRepository;
+        this.clock = clock;
+        this.ahead = ahead;
+        this.retentionDays = retentionDays;
+        this.archive = archive;
+        this.interval = interval;
+    }
+
+    @PostConstruct
+    void start() {
+        task = Flux.interval(Duration.ZERO, interval)
+                .onBackpressureDrop()
+                .concatMap(t -> maintainOnce()
+                        .onErrorResume(ex -> {
+                            log.error("ledger partition maintenance failed", ex);
+                            return Mono.empty();
+                        }), 1)
+                .subscribe();
+        log.info("ledger partition manager started, ahead={}d retention={}d archive={} interval={}",
+                ahead, retentionDays, archive, interval);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (task != null) task.dispose();
+    }
+
+    /**
+     * Create the missing partitions, then retire the expired ones, one DDL transaction each.
+     */
+    public Mono<Maintenance> maintainOnce() {
+        LocalDate today = LocalDate.ofInstant(clock.now(), ZoneOffset.UTC);
+        return partitionRepository.days().collectList()
+                .flatMap(existing -> Flux.fromIterable(missing(today, ahead, existing))
+                        .concatMap(day -> partitionRepository.create(day).filter(created -> created).map(created -> day))
+                        .collectList()
+                        .zipWith(Flux.fromIterable(expired(today, retentionDays, existing))
+                                .concatMap(day -> partitionRepository.retire(day, archive).thenReturn(day))
+                                .collectList(), Maintenance::new))
+                .doOnNext(m -> {
+                    if (!m.created().isEmpty() || !m.retired().isEmpty()) {
+                        log.info("ledger partitions: created {}, {} {}", m.created(), archive ? "archived" : "dropped", m.retired());
+                    }
+                });
+    }
+
+    // today .. today + ahead, minus what already exists
+    static List<LocalDate> missing(LocalDate today, int ahead, Collection<LocalDate> existing) {
+        Set<LocalDate> present = Set.copyOf(existing);
+        return today.datesUntil(today.plusDays(ahead + 1L))
+                .filter(day -> !present.contains(day))
+                .toList();
+    }
+
+    // every partition whose whole day lies before the retention window, oldest first
+    static List<LocalDate> expired(LocalDate today, int retentionDays, Collection<LocalDate> existing) {
+        if (retentionDays == 0) return List.of();
+        LocalDate cutoff = today.minusDays(retentionDays);
+        return existing.stream()
+                .filter(day -> day.isBefore(cutoff))
+                .sorted()
+                .toList();
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.kitchen.service;
+
+import com.example.kitchen.storage.MappedStorageJournal;
+import com.example.kitchen.storage.StorageJournal;
+import com.example.kitchen.storage.StoredOrder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Crash recovery of StorageService: at startup, rebuilds storages and decay budgets from the
+ * journal directory (latest checkpoint + journal tail) and attaches the journal, which then
+ * records every storage mutation. Every {@code checkpoint-interval} the journal tail is merged
+ * into a new checkpoint, so recovery only ever replays a short tail.
+ * Enabled by {@code kitchen.storage.journal.enabled=true}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "kitchen.storage.journal", name = "enabled", havingValue = "true")
+public class StorageCheckpointer {
+
+    private final StorageService storageService;
+    private final Path dir;
+    private final DataSize segmentSize;
+    private final Duration checkpointInterval;
+    private MappedStorageJournal journal;
+    private Disposable task;
+
+    public StorageCheckpointer(StorageService storageService,
+                               @Value("${kitchen.storage.journal.dir:./data/storage-journal}") Path dir,
+                               @Value("${kitchen.storage.journal.segment-size:64MB}") DataSize segmentSize,
+                               @Value("${kitchen.storage.journal.checkpoint-interval:30s}") Duration checkpointInterval) {
+        this.storageService = storageService;
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        long t0 = System.nanoTime();
+        journal = MappedStorageJournal.open(dir, Math.toIntExact(segmentSize.toBytes()));
+        List<StoredOrder> recovered = journal.drainRecovered();
+        int restored = storageService.restore(recovered).block();
+        // an order dropped by restore (over capacity) is gone: record it, or the next replay brings it back
+        for (StoredOrder stored : recovered) {
+            if (storageService.locate(stored.order().id()).isEmpty()) journal.removed(stored.order().id());
+        }
+        storageService.journalTo(journal);
+        log.info("storage restored from {}: {} orders in {} ms", dir, restored, (System.nanoTime() - t0) / 1_000_000);
+
+        task = Flux.interval(checkpointInterval)
+                .onBackpressureDrop()
+                .concatMap(t -> Mono.fromCallable(journal::checkpoint)
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .onErrorResume(ex -> {
+                            log.error("storage checkpoint failed", ex);
+                            return Mono.empty();
+                        }), 1)
+                .subscribe();
+    }
+
+    /**
+     * Write a checkpoint now; false when nothing changed since the last one.
+     */
+    public boolean checkpoint() throws IOException {
+        return journal.checkpoint();
+    }
+
+    @PreDestroy
+    void stop() throws IOException {
+        if (task != null) task.dispose();
+        storageService.journalTo(StorageJournal.NONE);
+        // after a clean shutdown the next start reads the checkpoint alone
+        journal.checkpoint();
+        journal.close();
+    }
+}
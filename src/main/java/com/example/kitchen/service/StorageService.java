@@ -1,179 +1,592 @@
 package com.example.kitchen.service;
 
+import com.example.kitchen.clock.KitchenClock;
+import com.example.kitchen.clock.SystemKitchenClock;
+import com.example.kitchen.engine.LockedStorageEngine;
+import com.example.kitchen.engine.StorageEngine;
 import com.example.kitchen.enums.StorageType;
 import com.example.kitchen.enums.Temperature;
 import com.example.kitchen.events.DiscardEvent;
+import com.example.kitchen.events.KitchenEvent;
 import com.example.kitchen.events.MoveEvent;
+import com.example.kitchen.events.PlaceEvent;
+import com.example.kitchen.events.PlacementOutcome;
 import com.example.kitchen.events.RemoveResult;
 import com.example.kitchen.model.Order;
+import com.example.kitchen.storage.CapacityCounter;
+import com.example.kitchen.storage.DecayTable;
+import com.example.kitchen.storage.IndexedHeap;
+import com.example.kitchen.storage.Slot;
+import com.example.kitchen.storage.StorageJournal;
+import com.example.kitchen.storage.StoredOrder;
+import com.example.kitchen.storage.TimingWheel;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedDeque;
-import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * In-memory storages with capacities, shelf expiry heap and freshness tracking.
+ * <p>
+ * Concurrency model:
+ * - capacity is reserved lock-free through a CAS counter per storage, before insertion;
+ * - HEATER/COOLER membership is the id index alone, so their add/remove never lock;
+ * - SHELF keeps a lock, but only around its heap/table; a full shelf is rejected lock-free;
+ *   every change of the SHELF counter happens under that lock;
+ * - whoever removes a slot from the index owns it (and its decay row) from then on;
+ * - the optional expiry wheel has its own monitor and is only touched for O(1) schedule/cancel;
+ * - journal records of a slot are written under the slot's monitor, together with the change
+ *   that makes them visible, so a journal sees each order's place/move/remove in order; a REMOVE
+ *   is written inside the index removal itself, so a re-place of the same id always comes after it.
+ * Each public operation is one command on the configured {@link StorageEngine}
+ * (boundedElastic hop, or the single-writer thread).
+ */
 @Slf4j
 @Service
 public class StorageService {
-    private final Map<StorageType, ConcurrentLinkedDeque<Order>> storages = new ConcurrentHashMap<>();
-    private final Map<StorageType, ReentrantLock> locks = Map.of(
-            StorageType.HEATER, new ReentrantLock(),
-            StorageType.COOLER, new ReentrantLock(),
-            StorageType.SHELF, new ReentrantLock()
-    );
-
-    private static final class ShelfEntry {
-        final Order order;
-        final long expiryEpochMicros;
-
-        ShelfEntry(Order o, long expiry) {
-            this.order = o;
-            this.expiryEpochMicros = expiry;
-        }
+    // orderId -> slot handle (storage + heap entries + decay row), gives O(1) lookup for pickup/move/discard
+    private final ConcurrentHashMap<String, Slot> index = new ConcurrentHashMap<>();
+    // storage -> CAS capacity counter (source of truth for admission)
+    private final Map<StorageType, CapacityCounter> counters = new EnumMap<>(StorageType.class);
+
+    // SHELF structures below are guarded by shelfLock
+    private final ReentrantLock shelfLock = new ReentrantLock();
+    // SHELF min-heap by predicted expiry (epoch micros), for discard
+    private final IndexedHeap<Slot> shelfHeap = new IndexedHeap<>(16);
+    // SHELF orders that can move (HOT/COLD), per temperature, keyed by -expiry:
+    // the top is the order with the most shelf time left, i.e. the biggest gain from moving
+    private final Map<Temperature, IndexedHeap<Slot>> moveCandidates = new EnumMap<>(Map.of(
+            Temperature.HOT, new IndexedHeap<>(16),
+            Temperature.COLD, new IndexedHeap<>(16)
+    ));
+    // Freshness runtime tracking: one row per stored order (lifecycle = time spent in a storage)
+    private final DecayTable decays;
+    private final StorageEngine engine;
+    // Time source of all decay math (epoch micros)
+    private final KitchenClock clock;
+    // Expiry deadlines (epoch micros) of every stored order; null until expiry tracking is enabled
+    private volatile TimingWheel<Slot> expiryWheel;
+    // Receives every mutation with its decay row (crash recovery); NONE unless a journal is attached
+    private volatile StorageJournal journal = StorageJournal.NONE;
+    // operation name -> latency timer; empty (nothing timed) until bound to a meter registry
+    private volatile Map<String, Timer> timers = Map.of();
+
+    private static final List<String> OPERATIONS = List.of("place", "add", "move", "discard", "remove", "expire", "restore");
+
+    /**
+     * Default kitchen layout: HEATER/COOLER hold 6 orders, SHELF holds 12.
+     */
+    public StorageService() {
+        this(6, 6, 12);
+    }
+
+    public StorageService(int heaterCapacity, int coolerCapacity, int shelfCapacity) {
+        this(new SystemKitchenClock(), heaterCapacity, coolerCapacity, shelfCapacity);
     }
 
-    private final PriorityBlockingQueue<ShelfEntry> shelfHeap =
-            new PriorityBlockingQueue<>(16, Comparator.comparingLong(e -> e.expiryEpochMicros));
+    public StorageService(KitchenClock clock, int heaterCapacity, int coolerCapacity, int shelfCapacity) {
+        this(new LockedStorageEngine(), clock, heaterCapacity, coolerCapacity, shelfCapacity);
+    }
 
-    public StorageService() {
-        storages.put(StorageType.HEATER, new ConcurrentLinkedDeque<>());
-        storages.put(StorageType.COOLER, new ConcurrentLinkedDeque<>());
-        storages.put(StorageType.SHELF, new ConcurrentLinkedDeque<>());
+    @Autowired
+    public StorageService(StorageEngine engine,
+                          KitchenClock clock,
+                          @Value("${kitchen.storage.heater-capacity:6}") int heaterCapacity,
+                          @Value("${kitchen.storage.cooler-capacity:6}") int coolerCapacity,
+                          @Value("${kitchen.storage.shelf-capacity:12}") int shelfCapacity) {
+        this.engine = engine;
+        this.clock = clock;
+        counters.put(StorageType.HEATER, new CapacityCounter(heaterCapacity));
+        counters.put(StorageType.COOLER, new CapacityCounter(coolerCapacity));
+        counters.put(StorageType.SHELF, new CapacityCounter(shelfCapacity));
+        // every live order holds exactly one row, so total capacity bounds the table
+        this.decays = new DecayTable(heaterCapacity + coolerCapacity + shelfCapacity);
+    }
+
+    /**
+     * Register occupancy/capacity gauges per storage, the live order count and one latency
+     * timer per public operation (engine hop and queueing included) in "registry".
+     */
+    public void bindTo(MeterRegistry registry) {
+        for (StorageType type : StorageType.values()) {
+            Gauge.builder("kitchen.storage.occupancy", this, s -> s.occupancy(type))
+                    .description("Orders currently held by the storage")
+                    .tag("storage", type.json())
+                    .register(registry);
+            Gauge.builder("kitchen.storage.capacity", this, s -> s.getMaxCapacity(type))
+                    .description("Slots of the storage")
+                    .tag("storage", type.json())
+                    .register(registry);
+        }
+        Gauge.builder("kitchen.storage.live", this, StorageService::liveDecayEntries)
+                .description("Orders held in any storage (live decay rows)")
+                .register(registry);
+        Map<String, Timer> byOperation = new ConcurrentHashMap<>();
+        for (String op : OPERATIONS) {
+            byOperation.put(op, Timer.builder("kitchen.storage.duration")
+                    .description("StorageService operation latency, engine hop included")
+                    .tag("operation", op)
+                    .register(registry));
+        }
+        timers = Map.copyOf(byOperation);
+    }
+
+    /**
+     * Run a command on the engine, timed under "operation" once metrics are bound.
+     */
+    private <T> Mono<T> execute(String operation, Callable<T> command) {
+        Timer timer = timers.get(operation);
+        if (timer == null) return engine.execute(command);
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return engine.execute(command)
+                    .doFinally(signal -> timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
     }
 
     public int getMaxCapacity(StorageType type) {
-        return switch (type) {
-            case HEATER, COOLER -> 6;
-            case SHELF -> 12;
-        };
+        return counters.get(type).capacity();
+    }
+
+    /**
+     * Number of orders currently held by the storage.
+     */
+    public int occupancy(StorageType type) {
+        return counters.get(type).used();
+    }
+
+    /**
+     * Place an order in one atomic step:
+     * 1) ideal storage if it has room;
+     * 2) else SHELF if it has room;
+     * 3) else move one order from SHELF to its ideal storage, or discard the soonest-to-expire
+     * SHELF order, and take the freed shelf slot.
+     * The shelf slot freed in 3) is handed over to the new order under the SHELF lock,
+     * so no concurrent placement can steal it.
+     * A duplicate id is rejected before any room is made, so a rejection has no side effects
+     * (short of the same id being placed concurrently by two callers).
+     */
+    public Mono<PlacementOutcome> place(Order order) {
+        return execute("place", () -> {
+            StorageType ideal = idealFor(order.temp());
+            if (ideal != StorageType.SHELF && addUnlocked(ideal, order)) {
+                return new PlacementOutcome(order, ideal, List.of(new PlaceEvent(order, ideal)));
+            }
+
+            List<KitchenEvent> events = new ArrayList<>(2);
+            shelfLock.lock();
+            try {
+                if (index.containsKey(order.id())) {
+                    throw new IllegalArgumentException("Order " + order.id() + " is already stored");
+                }
+                if (!counters.get(StorageType.SHELF).tryReserve()) {
+                    // SHELF is full: make room but keep its slot reserved for the new order
+                    KitchenEvent freed = moveOneLocked(false);
+                    if (freed == null) freed = discardMinLocked(false);
+                    if (freed == null) throw new IllegalStateException("Shelf is full but holds no orders");
+                    events.add(freed);
+                }
+                addToShelfLocked(order);
+            } finally {
+                shelfLock.unlock();
+            }
+            events.add(new PlaceEvent(order, StorageType.SHELF));
+            return new PlacementOutcome(order, StorageType.SHELF, events);
+        });
     }
 
     public Mono<Boolean> tryAddOrder(StorageType type, Order order) {
-        return Mono.fromCallable(() -> {
-            ReentrantLock lock = locks.get(type);
-            lock.lock();
+        return execute("add", () -> {
+            if (type != StorageType.SHELF) return addUnlocked(type, order);
+
+            // A full shelf is rejected without taking the lock
+            CapacityCounter counter = counters.get(StorageType.SHELF);
+            if (!counter.hasRoom()) return false;
+            shelfLock.lock();
+            try {
+                if (!counter.tryReserve()) return false;
+                addToShelfLocked(order);
+                return true;
+            } finally {
+                shelfLock.unlock();
+            }
+        });
+    }
+
+    public Mono<MoveEvent> tryMoveOneFromShelf() {
+        return execute("move", () -> {
+            shelfLock.lock();
             try {
-                initDecayIfAbsent(order);
-                long now = nowMicros();
-                // apply elapsed on *current* (target) storage only after we actually add it
-                var dq = storages.get(type);
-                if (dq.size() >= getMaxCapacity(type)) return false;
+                return moveOneLocked(true);
+            } finally {
+                shelfLock.unlock();
+            }
+        });
+    }
 
-                dq.add(order);
+    public Mono<DiscardEvent> discardMinFromShelf() {
+        return execute("discard", () -> {
+            shelfLock.lock();
+            try {
+                return discardMinLocked(true);
+            } finally {
+                shelfLock.unlock();
+            }
+        });
+    }
 
-                // Now that order is on "type", apply elapsed since last touch with the rate of "type"
-                applyElapsed(order.id(), order.temp(), type, now);
+    /**
+     * Where the order sits right now, from the in-memory index (no engine hop, no DB read).
+     * A snapshot: a concurrent move or removal may change it right after.
+     */
+    public Optional<StorageType> locate(String orderId) {
+        Slot slot = index.get(orderId);
+        return slot == null ? Optional.empty() : Optional.of(slot.storage());
+    }
+
+    public Mono<RemoveResult> removeByIdWithExpiry(StorageType type, String orderId) {
+        return execute("remove", () -> removeNow(type, orderId));
+    }
 
-                // Maintain shelf heap index
-                if (type == StorageType.SHELF) {
-                    long expiry = predictShelfExpiryMicros(order.id(), order.temp(), now);
-                    shelfHeap.add(new ShelfEntry(order, expiry));
+    /**
+     * Remove an order wherever it currently is; the result says where it was.
+     * If a move wins the race between locating and removing, the removal follows the order
+     * to its new storage (an order moves at most once, so this retries at most once per move).
+     */
+    public Mono<RemoveResult> removeByIdWithExpiry(String orderId) {
+        return execute("remove", () -> {
+            Slot slot;
+            while ((slot = index.get(orderId)) != null) {
+                RemoveResult res = removeNow(slot.storage(), orderId);
+                if (res.removed()) return res;
+            }
+            return RemoveResult.NOT_FOUND;
+        });
+    }
+
+    private RemoveResult removeNow(StorageType type, String orderId) {
+        if (type == StorageType.SHELF) {
+            shelfLock.lock();
+            try {
+                Slot slot = index.get(orderId);
+                if (slot == null || slot.storage() != StorageType.SHELF || !unpublish(slot)) {
+                    return RemoveResult.NOT_FOUND;
                 }
-                return true;
+                detachFromShelfLocked(slot);
+                return release(slot, StorageType.SHELF);
             } finally {
-                lock.unlock();
+                shelfLock.unlock();
             }
-        }).subscribeOn(Schedulers.boundedElastic());
+        }
+        // HEATER/COOLER: winning the index removal makes us the owner, no lock needed
+        Slot slot = index.get(orderId);
+        if (slot == null || slot.storage() != type || !unpublish(slot)) {
+            return RemoveResult.NOT_FOUND;
+        }
+        return release(slot, type);
     }
 
-    public Mono<MoveEvent> tryMoveOneFromShelf() {
-        return Mono.fromCallable(() -> {
-                    var shelfLock = locks.get(StorageType.SHELF);
+    /**
+     * Start tracking expiry deadlines in a timing wheel so that {@link #expireDue()} can find
+     * expired orders without scanning. Orders already stored (e.g. restored from a checkpoint)
+     * are scheduled now; call it before traffic starts. Idempotent.
+     */
+    public synchronized void enableExpiryTracking(long tickMicros, int wheelSize) {
+        if (expiryWheel != null) return;
+        long now = nowMicros();
+        expiryWheel = new TimingWheel<>(tickMicros, wheelSize, now);
+        // a due deadline is fine: the first sweep discards it
+        for (Slot slot : index.values()) {
+            if (!rescheduleIfFresh(slot, slot.storage(), now)) scheduleExpiryAt(slot, now);
+        }
+    }
+
+    /**
+     * Record every storage mutation in "journal" from now on ({@link StorageJournal#NONE} stops it).
+     */
+    public void journalTo(StorageJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Rebuild storages from a checkpoint: each order goes back to its recorded storage with its
+     * recorded decay row; the time since then counts as spent on that storage. Call at startup,
+     * before any order arrives. Orders over a storage's capacity (or already stored) are dropped;
+     * nothing is journaled here, the caller records the drops.
+     *
+     * @return number of orders restored
+     */
+    public Mono<Integer> restore(Collection<StoredOrder> orders) {
+        return execute("restore", () -> {
+            long now = nowMicros();
+            int restored = 0;
+            for (StoredOrder stored : orders) {
+                CapacityCounter counter = counters.get(stored.storage());
+                if (index.containsKey(stored.order().id()) || !counter.tryReserve()) continue;
+                Slot slot = new Slot(stored.order(), stored.storage());
+                slot.decayHandle(decays.allocate(stored.remainingMicros(), stored.lastUpdateMicros()));
+                applyElapsed(slot, stored.storage(), now);
+                index.put(stored.order().id(), slot);
+                if (stored.storage() == StorageType.SHELF) {
                     shelfLock.lock();
                     try {
-                        for (Order o : storages.get(StorageType.SHELF)) {
-                            StorageType ideal = idealFor(o.temp());
-                            var toLock = locks.get(ideal);
-                            if (toLock.tryLock()) {
-                                try {
-                                    var toQ = storages.get(ideal);
-                                    if (toQ.size() >= getMaxCapacity(ideal)) continue;
-
-                                    // Remove from SHELF
-                                    boolean removed = storages.get(StorageType.SHELF).remove(o);
-                                    if (!removed) continue;
-
-                                    // Update decay as it *was on SHELF* until now
-                                    long now = nowMicros();
-                                    applyElapsed(o.id(), o.temp(), StorageType.SHELF, now);
-
-                                    // Remove heap index
-                                    shelfHeap.removeIf(e -> e.order.id().equals(o.id()));
-
-                                    // Add to ideal queue, then apply rate of ideal from now on
-                                    toQ.add(o);
-                                    applyElapsed(o.id(), o.temp(), ideal, now);
-
-                                    return new MoveEvent(o, StorageType.SHELF, ideal);
-                                } finally {
-                                    toLock.unlock();
-                                }
-                            }
-                        }
-                        return null;
+                        attachToShelfLocked(slot, now);
                     } finally {
                         shelfLock.unlock();
                     }
-                }).subscribeOn(Schedulers.boundedElastic())
-                .flatMap(ev -> ev == null ? Mono.empty() : Mono.just(ev));
+                }
+                scheduleExpiry(slot, stored.storage(), now);
+                restored++;
+            }
+            if (restored < orders.size()) {
+                log.warn("restored {} of {} orders, the rest exceeded storage capacity", restored, orders.size());
+            }
+            return restored;
+        });
     }
 
-    public Mono<DiscardEvent> discardMinFromShelf() {
-        return Mono.fromCallable(() -> {
-                    var lock = locks.get(StorageType.SHELF);
-                    lock.lock();
-                    try {
-                        ShelfEntry e = shelfHeap.poll();
-                        if (e == null) return null;
-                        boolean removed = storages.get(StorageType.SHELF).remove(e.order);
-                        if (!removed) return null;
-
-                        // Apply elapsed on shelf until now and mark as expired
-                        long now = nowMicros();
-                        applyElapsed(e.order.id(), e.order.temp(), StorageType.SHELF, now);
-
-                        return new DiscardEvent(e.order, StorageType.SHELF);
-                    } finally {
-                        lock.unlock();
-                    }
-                }).subscribeOn(Schedulers.boundedElastic())
-                .flatMap(ev -> ev == null ? Mono.empty() : Mono.just(ev));
+    /**
+     * Discard every stored order whose freshness budget has run out, on any storage.
+     * Only orders whose wheel deadline has passed are looked at; each one is re-checked
+     * against its decay row first, and rescheduled if it turns out to be still fresh.
+     * Completes with an empty list when expiry tracking is off.
+     */
+    public Mono<List<DiscardEvent>> expireDue() {
+        return execute("expire", () -> {
+            TimingWheel<Slot> wheel = expiryWheel;
+            if (wheel == null) return List.of();
+            long now = nowMicros();
+            List<Slot> due = new ArrayList<>();
+            synchronized (wheel) {
+                wheel.advance(now, due::add);
+            }
+            List<DiscardEvent> events = new ArrayList<>(due.size());
+            for (Slot slot : due) {
+                DiscardEvent ev = expireSlot(slot, now);
+                if (ev != null) events.add(ev);
+            }
+            return events;
+        });
     }
 
-    public Mono<RemoveResult> removeByIdWithExpiry(StorageType type, String orderId) {
-        return Mono.fromCallable(() -> {
-            var lock = locks.get(type);
-            lock.lock();
+    /**
+     * Take a due slot out of its storage, unless it already left or is still fresh.
+     */
+    private DiscardEvent expireSlot(Slot slot, long now) {
+        String id = slot.order().id();
+        if (slot.storage() == StorageType.SHELF) {
+            shelfLock.lock();
             try {
-                var it = storages.get(type).iterator();
-                while (it.hasNext()) {
-                    Order o = it.next();
-                    if (o.id().equals(orderId)) {
-                        // Update decay as it was on "type" until now
-                        long now = nowMicros();
-                        applyElapsed(orderId, o.temp(), type, now);
-
-                        it.remove();
-                        if (type == StorageType.SHELF) {
-                            shelfHeap.removeIf(e -> e.order.id().equals(orderId));
-                        }
-                        boolean expired = isExpiredNow(orderId);
-                        // Optionally, cleanup runtime state to avoid leaks
-                        decays.remove(orderId);
-                        return new RemoveResult(true, expired);
-                    }
+                // re-read under the lock: a move may have taken it off the shelf meanwhile
+                if (slot.storage() == StorageType.SHELF) {
+                    if (index.get(id) != slot) return null;
+                    if (rescheduleIfFresh(slot, StorageType.SHELF, now)) return null;
+                    unpublish(slot);
+                    detachFromShelfLocked(slot);
+                    release(slot, StorageType.SHELF);
+                    return new DiscardEvent(slot.order(), StorageType.SHELF);
                 }
-                return new RemoveResult(false, false);
             } finally {
-                lock.unlock();
+                shelfLock.unlock();
+            }
+        }
+        // HEATER/COOLER: same ownership rule as pickup, the index removal decides
+        StorageType where = slot.storage();
+        if (index.get(id) != slot) return null;
+        if (rescheduleIfFresh(slot, where, now)) return null;
+        if (!unpublish(slot)) return null;
+        release(slot, where);
+        return new DiscardEvent(slot.order(), where);
+    }
+
+    /**
+     * Finish removing an owned slot: settle decay on "type", free its row and capacity.
+     */
+    private RemoveResult release(Slot slot, StorageType type) {
+        cancelExpiry(slot);
+        // Update decay as it was on "type" until now
+        applyElapsed(slot, type, nowMicros());
+        boolean expired = isExpiredNow(slot);
+        double left = freshnessLeft(slot);
+        // Cleanup runtime state to avoid leaks
+        freeDecay(slot);
+        counters.get(type).release();
+        return new RemoveResult(true, expired, type, slot.order().runId(), left);
+    }
+
+    // ---- Storage mutations (callers hold the SHELF lock where the name says "Locked") ----
+
+    /**
+     * HEATER/COOLER insert: reserve capacity lock-free, then publish the slot.
+     */
+    private boolean addUnlocked(StorageType type, Order order) {
+        CapacityCounter counter = counters.get(type);
+        if (!counter.tryReserve()) return false;
+        Slot slot = new Slot(order, type);
+        initDecay(slot);
+        long now = nowMicros();
+        // Now that order is on "type", apply elapsed since placement with the rate of "type"
+        applyElapsed(slot, type, now);
+        publish(slot, counter);
+        scheduleExpiry(slot, type, now);
+        return true;
+    }
+
+    /**
+     * SHELF insert into an already reserved shelf slot.
+     */
+    private void addToShelfLocked(Order order) {
+        Slot slot = new Slot(order, StorageType.SHELF);
+        initDecay(slot);
+        long now = nowMicros();
+        applyElapsed(slot, StorageType.SHELF, now);
+        publish(slot, counters.get(StorageType.SHELF));
+        attachToShelfLocked(slot, now);
+        scheduleExpiry(slot, StorageType.SHELF, now);
+    }
+
+    /**
+     * Add a SHELF slot to the shelf heaps; its decay row must be up to date at "now".
+     */
+    private void attachToShelfLocked(Slot slot, long now) {
+        long expiry = predictShelfExpiryMicros(slot, now);
+        slot.expiryHandle(shelfHeap.add(slot, expiry));
+        IndexedHeap<Slot> candidates = moveCandidates.get(slot.order().temp());
+        if (candidates != null) slot.moveHandle(candidates.add(slot, -expiry));
+    }
+
+    /**
+     * Drop a SHELF slot from the shelf heaps (O(log n) by handle).
+     */
+    private void detachFromShelfLocked(Slot slot) {
+        shelfHeap.remove(slot.expiryHandle());
+        slot.expiryHandle(null);
+        if (slot.moveHandle() != null) {
+            moveCandidates.get(slot.order().temp()).remove(slot.moveHandle());
+            slot.moveHandle(null);
+        }
+    }
+
+    /**
+     * Make a fully initialised slot visible in the index; undo the reservation on duplicate id.
+     * A remover that finds the slot waits on its monitor until the PLACE record is journaled
+     * (see {@link #unpublish}).
+     */
+    private void publish(Slot slot, CapacityCounter counter) {
+        synchronized (slot) {
+            if (index.putIfAbsent(slot.order().id(), slot) != null) {
+                freeDecay(slot);
+                counter.release();
+                throw new IllegalArgumentException("Order " + slot.order().id() + " is already stored");
             }
-        }).subscribeOn(Schedulers.boundedElastic());
+            int h = slot.decayHandle();
+            journal.placed(slot.order(), slot.storage(), decays.remaining(h), decays.lastUpdate(h));
+        }
+    }
+
+    /**
+     * Take a slot out of the index; true if this caller removed it and so owns it.
+     * The REMOVE record is journaled while the index entry is still locked: a new slot for the
+     * same id cannot be published (and journal its PLACE) before it.
+     */
+    private boolean unpublish(Slot slot) {
+        boolean[] owned = new boolean[1];
+        index.computeIfPresent(slot.order().id(), (id, current) -> {
+            if (current != slot) return current;
+            // a remover that finds the slot waits on its monitor until the PLACE record is journaled
+            synchronized (slot) {
+                journal.removed(id);
+            }
+            owned[0] = true;
+            return null;
+        });
+        return owned[0];
+    }
+
+    /**
+     * Move one SHELF order to its ideal storage.
+     * HEATER/COOLER room is checked once each; the candidate is the top of the matching
+     * temperature heap. Moving from SHELF (2x) to ideal (1x) doubles the shelf time left,
+     * so the gain equals that time left: pick the order with the most of it.
+     * Orders that are already expired gain nothing and are not moved.
+     *
+     * @param releaseShelf false keeps the freed shelf slot reserved for the caller
+     */
+    private MoveEvent moveOneLocked(boolean releaseShelf) {
+        long now = nowMicros();
+        Slot best = null;
+        long bestGain = 0;
+        for (var e : moveCandidates.entrySet()) {
+            if (!counters.get(idealFor(e.getKey())).hasRoom()) continue;
+            IndexedHeap.Handle<Slot> top = e.getValue().peek();
+            if (top == null) continue;
+            long gain = -top.key() - now;
+            if (gain > bestGain) {
+                best = top.value();
+                bestGain = gain;
+            }
+        }
+        if (best == null) return null;
+
+        // Reserve the destination slot lock-free; a concurrent HEATER/COOLER add may have taken it
+        StorageType ideal = idealFor(best.order().temp());
+        if (!counters.get(ideal).tryReserve()) return null;
+
+        detachFromShelfLocked(best);
+
+        // Update decay as it *was on SHELF* until now; the rate of ideal applies from now on
+        applyElapsed(best, StorageType.SHELF, now);
+        applyElapsed(best, ideal, now);
+        // the decay rate halves on ideal storage, so the deadline moves out
+        scheduleExpiry(best, ideal, now);
+
+        // Publish the new location last, then free the shelf slot
+        synchronized (best) {
+            best.moveTo(ideal);
+            int h = best.decayHandle();
+            journal.moved(best.order().id(), ideal, decays.remaining(h), decays.lastUpdate(h));
+        }
+        if (releaseShelf) counters.get(StorageType.SHELF).release();
+        return new MoveEvent(best.order(), StorageType.SHELF, ideal);
+    }
+
+    /**
+     * Discard the SHELF order that expires first.
+     *
+     * @param releaseShelf false keeps the freed shelf slot reserved for the caller
+     */
+    private DiscardEvent discardMinLocked(boolean releaseShelf) {
+        IndexedHeap.Handle<Slot> min = shelfHeap.poll();
+        if (min == null) return null;
+        Slot slot = min.value();
+        slot.expiryHandle(null);
+        if (slot.moveHandle() != null) {
+            moveCandidates.get(slot.order().temp()).remove(slot.moveHandle());
+            slot.moveHandle(null);
+        }
+        unpublish(slot);
+        cancelExpiry(slot);
+
+        // Apply elapsed on shelf until now, then release the decay row
+        applyElapsed(slot, StorageType.SHELF, nowMicros());
+        freeDecay(slot);
+        if (releaseShelf) counters.get(StorageType.SHELF).release();
+        return new DiscardEvent(slot.order(), StorageType.SHELF);
     }
 
     public StorageType idealFor(Temperature temp) {
@@ -184,23 +597,16 @@ public class StorageService {
         };
     }
 
-    // ---- Freshness runtime tracking ----
-    private static final class Decay {
-        // Remaining freshness budget in microseconds
-        long remainingMicros;
-        // Last time we updated the budget (epoch micros)
-        long lastUpdateMicros;
-
-        Decay(long remainingMicros, long lastUpdateMicros) {
-            this.remainingMicros = remainingMicros;
-            this.lastUpdateMicros = lastUpdateMicros;
-        }
-    }// orderId -> decay state (lifecycle lives only during current process run)
-
-    private final ConcurrentHashMap<String, Decay> decays = new ConcurrentHashMap<>();
+    /**
+     * Number of live decay rows, i.e. orders currently held in any storage (gauge).
+     */
+    public int liveDecayEntries() {
+        return decays.live();
+    }
 
-    private static long nowMicros() {
-        return System.currentTimeMillis() * 1000L;
+    // ---- Freshness runtime tracking ----
+    private long nowMicros() {
+        return clock.nowMicros();
     }
 
     private int decayRateFor(Temperature temp, StorageType where) {
@@ -214,49 +620,91 @@ public class StorageService {
     /**
      * Initialize decay on first placement (at "placedAt").
      */
-    private void initDecayIfAbsent(Order o) {
-        decays.computeIfAbsent(o.id(), id -> {
-            long placedMicros = o.placedAt().toEpochMilli() * 1000L;
-            long remaining = o.freshness() * 1_000_000L; // seconds -> micros
-            return new Decay(remaining, placedMicros);
-        });
+    private void initDecay(Slot slot) {
+        Order o = slot.order();
+        long placedMicros = KitchenClock.toMicros(o.placedAt());
+        long remaining = o.freshness() * 1_000_000L; // seconds -> micros
+        slot.decayHandle(decays.allocate(remaining, placedMicros));
+    }
+
+    private void freeDecay(Slot slot) {
+        decays.free(slot.decayHandle());
+        slot.decayHandle(-1);
     }
 
     /**
      * Apply elapsed time since last update according to *current* location rate.
      */
-    private void applyElapsed(String orderId, Temperature temp, StorageType where, long now) {
-        Decay d = decays.get(orderId);
-        if (d == null) return;
-        long elapsed = Math.max(0, now - d.lastUpdateMicros);
-        if (elapsed == 0) {
-            d.lastUpdateMicros = now;
-            return;
-        }
-        int rate = decayRateFor(temp, where);
-        // Decrease remaining budget by elapsed * rate
-        d.remainingMicros -= elapsed * rate;
-        d.lastUpdateMicros = now;
+    private void applyElapsed(Slot slot, StorageType where, long now) {
+        decays.applyElapsed(slot.decayHandle(), decayRateFor(slot.order().temp(), where), now);
     }
 
     /**
      * Predict absolute expiry instant on SHELF if the order stays there.
      */
-    private long predictShelfExpiryMicros(String orderId, Temperature temp, long now) {
-        Decay d = decays.get(orderId);
-        if (d == null) return now; // failsafe
-        int shelfRate = decayRateFor(temp, StorageType.SHELF);
-        long remainingWhileOnShelf = d.remainingMicros;
+    private long predictShelfExpiryMicros(Slot slot, long now) {
+        int shelfRate = decayRateFor(slot.order().temp(), StorageType.SHELF);
+        long remainingWhileOnShelf = decays.remaining(slot.decayHandle());
         // If we moved to shelf right now, its rate applies for future time.
-        long dt = (shelfRate <= 0) ? Long.MAX_VALUE : Math.max(0, remainingWhileOnShelf) / shelfRate;
+        long dt = Math.max(0, remainingWhileOnShelf) / shelfRate;
         return now + dt;
     }
 
     /**
-     * Read-only check: has the order expired *now* on the given storage.
+     * Read-only check of a due slot: if budget is left at "now" on "where", schedule the new deadline.
+     * A concurrent pickup may free the row meanwhile; the values read are then meaningless, but
+     * that pickup also wins the index removal, and a stray timeout is ignored when it fires.
+     */
+    private boolean rescheduleIfFresh(Slot slot, StorageType where, long now) {
+        int h = slot.decayHandle();
+        if (h < 0) return true;
+        int rate = decayRateFor(slot.order().temp(), where);
+        long left = decays.remaining(h) - Math.max(0, now - decays.lastUpdate(h)) * rate;
+        if (left <= 0) return false;
+        scheduleExpiryAt(slot, now + left / rate);
+        return true;
+    }
+
+    /**
+     * (Re)schedule the expiry deadline of a slot on "where"; its decay row must be up to date at "now".
+     */
+    private void scheduleExpiry(Slot slot, StorageType where, long now) {
+        if (expiryWheel == null) return;
+        scheduleExpiryAt(slot, now + Math.max(0, decays.remaining(slot.decayHandle()))
+                / decayRateFor(slot.order().temp(), where));
+    }
+
+    private void scheduleExpiryAt(Slot slot, long deadline) {
+        TimingWheel<Slot> wheel = expiryWheel;
+        if (wheel == null) return;
+        synchronized (wheel) {
+            wheel.cancel(slot.expiryTimeout());
+            slot.expiryTimeout(wheel.schedule(slot, deadline));
+        }
+    }
+
+    private void cancelExpiry(Slot slot) {
+        TimingWheel<Slot> wheel = expiryWheel;
+        if (wheel == null || slot.expiryTimeout() == null) return;
+        synchronized (wheel) {
+            wheel.cancel(slot.expiryTimeout());
+            slot.expiryTimeout(null);
+        }
+    }
+
+    /**
+     * Share of the freshness budget the slot still has, 0..1; its decay row must be up to date.
+     */
+    private double freshnessLeft(Slot slot) {
+        long budget = slot.order().freshness() * 1_000_000L;
+        if (budget <= 0) return 0;
+        return Math.min(1, Math.max(0, decays.remaining(slot.decayHandle())) / (double) budget);
+    }
+
+    /**
+     * Read-only check: has the order expired *now* on its storage.
      */
-    private boolean isExpiredNow(String orderId) {
-        Decay d = decays.get(orderId);
-        return d != null && d.remainingMicros <= 0;
+    private boolean isExpiredNow(Slot slot) {
+        return decays.remaining(slot.decayHandle()) <= 0;
     }
 }
@@ -0,0 +1,52 @@
+package com.example.kitchen.storage;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free slot accounting for one storage.
+ * <p>
+ * A slot is reserved with a CAS before the order is inserted and released after it
+ * leaves, so admission never blocks and a full storage is rejected without a lock.
+ */
+public final class CapacityCounter {
+    private final int capacity;
+    private final AtomicInteger used = new AtomicInteger();
+
+    public CapacityCounter(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be >= 1");
+        this.capacity = capacity;
+    }
+
+    /**
+     * Reserve one slot; false when the storage is full.
+     */
+    public boolean tryReserve() {
+        while (true) {
+            int current = used.get();
+            if (current >= capacity) return false;
+            if (used.compareAndSet(current, current + 1)) return true;
+        }
+    }
+
+    /**
+     * Give back a slot taken by {@link #tryReserve()}.
+     */
+    public void release() {
+        if (used.getAndDecrement() <= 0) {
+            used.incrementAndGet();
+            throw new IllegalStateException("Released more slots than reserved");
+        }
+    }
+
+    public boolean hasRoom() {
+        return used.get() < capacity;
+    }
+
+    public int used() {
+        return used.get();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
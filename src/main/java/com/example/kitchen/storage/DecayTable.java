@@ -0,0 +1,88 @@
+package com.example.kitchen.storage;
+
+/**
+ * Freshness budgets of live orders as primitive columns (struct-of-arrays).
+ * <p>
+ * Each stored order owns an int handle into two {@code long[]} columns:
+ * remaining budget and last update time (both in microseconds). Freed handles go
+ * onto a free list and are reused, so the table never grows past its capacity
+ * and produces no per-order garbage.
+ * <p>
+ * Threading: allocate/free are synchronized. Per-handle reads and writes are made by
+ * whoever owns the order in StorageService: the placing thread until the slot is published
+ * (under the slot's monitor), the SHELF lock while the order is on the shelf, and on
+ * HEATER/COOLER (lock-free admission) the thread that wins the slot's index removal.
+ * The columns are allocated once, so they are never swapped under a reader.
+ */
+public final class DecayTable {
+    private final long[] remainingMicros;   // remaining freshness budget
+    private final long[] lastUpdateMicros;  // last time the budget was updated (epoch micros)
+    private final boolean[] inUse;
+    private final int[] freeList;           // stack of free handles
+    private int freeTop;
+    private volatile int live;
+
+    public DecayTable(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be >= 1");
+        this.remainingMicros = new long[capacity];
+        this.lastUpdateMicros = new long[capacity];
+        this.inUse = new boolean[capacity];
+        this.freeList = new int[capacity];
+        // hand out low handles first
+        for (int i = 0; i < capacity; i++) freeList[i] = capacity - 1 - i;
+        this.freeTop = capacity;
+    }
+
+    /**
+     * Take a free handle and initialise its budget.
+     *
+     * @throws IllegalStateException when every handle is in use
+     */
+    public synchronized int allocate(long remaining, long lastUpdate) {
+        if (freeTop == 0) throw new IllegalStateException("Decay table is full (" + capacity() + " entries)");
+        int h = freeList[--freeTop];
+        inUse[h] = true;
+        remainingMicros[h] = remaining;
+        lastUpdateMicros[h] = lastUpdate;
+        live++;
+        return h;
+    }
+
+    /**
+     * Return a handle to the free list; freeing a free handle is a no-op.
+     */
+    public synchronized void free(int handle) {
+        if (handle < 0 || handle >= inUse.length || !inUse[handle]) return;
+        inUse[handle] = false;
+        freeList[freeTop++] = handle;
+        live--;
+    }
+
+    /**
+     * Decrease the budget by the time elapsed since the last update, at the given rate.
+     */
+    public void applyElapsed(int handle, int rate, long nowMicros) {
+        long elapsed = Math.max(0, nowMicros - lastUpdateMicros[handle]);
+        remainingMicros[handle] -= elapsed * rate;
+        lastUpdateMicros[handle] = nowMicros;
+    }
+
+    public long remaining(int handle) {
+        return remainingMicros[handle];
+    }
+
+    public long lastUpdate(int handle) {
+        return lastUpdateMicros[handle];
+    }
+
+    /**
+     * Number of handles currently in use (gauge).
+     */
+    public int live() {
+        return live;
+    }
+
+    public int capacity() {
+        return inUse.length;
+    }
+}
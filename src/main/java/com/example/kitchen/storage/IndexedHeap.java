@@ -0,0 +1,157 @@
+package com.example.kitchen.storage;
+
+import java.util.Arrays;
+
+/**
+ * Indexed d-ary min-heap keyed by a primitive {@code long}.
+ * <p>
+ * Every entry is wrapped in a {@link Handle} that stores its own position in the
+ * backing array, so remove-by-handle and update-key are O(log n) instead of a scan.
+ * A 4-ary layout keeps the tree shallow and sift-down cache friendly.
+ * Not thread-safe — the caller guards it (StorageService uses the SHELF lock).
+ */
+public final class IndexedHeap<T> {
+    private static final int ARITY = 4;
+
+    /**
+     * Position-aware heap entry. Keep it to remove or re-key the value later.
+     */
+    public static final class Handle<T> {
+        private final T value;
+        private long key;
+        private int pos = -1; // -1 = not in a heap
+
+        private Handle(T value, long key) {
+            this.value = value;
+            this.key = key;
+        }
+
+        public T value() {
+            return value;
+        }
+
+        public long key() {
+            return key;
+        }
+
+        public boolean queued() {
+            return pos >= 0;
+        }
+    }
+
+    private Handle<T>[] heap;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public IndexedHeap(int initialCapacity) {
+        this.heap = (Handle<T>[]) new Handle[Math.max(ARITY, initialCapacity)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Insert a value with the given key; O(log n).
+     */
+    public Handle<T> add(T value, long key) {
+        if (size == heap.length) heap = Arrays.copyOf(heap, size * 2);
+        Handle<T> h = new Handle<>(value, key);
+        h.pos = size;
+        heap[size++] = h;
+        siftUp(h.pos);
+        return h;
+    }
+
+    /**
+     * Smallest-key entry without removing it, or null when empty.
+     */
+    public Handle<T> peek() {
+        return size == 0 ? null : heap[0];
+    }
+
+    /**
+     * Remove and return the smallest-key entry, or null when empty; O(log n).
+     */
+    public Handle<T> poll() {
+        if (size == 0) return null;
+        Handle<T> top = heap[0];
+        removeAt(0);
+        return top;
+    }
+
+    /**
+     * Remove an arbitrary entry by its handle; O(log n).
+     * Returns false if the handle is not queued in this heap.
+     */
+    public boolean remove(Handle<T> h) {
+        if (!contains(h)) return false;
+        removeAt(h.pos);
+        return true;
+    }
+
+    /**
+     * Change the key of a queued entry and restore heap order; O(log n).
+     */
+    public void updateKey(Handle<T> h, long newKey) {
+        if (!contains(h)) throw new IllegalArgumentException("Handle is not queued in this heap");
+        long old = h.key;
+        h.key = newKey;
+        if (newKey < old) siftUp(h.pos);
+        else if (newKey > old) siftDown(h.pos);
+    }
+
+    private boolean contains(Handle<T> h) {
+        return h != null && h.pos >= 0 && h.pos < size && heap[h.pos] == h;
+    }
+
+    private void removeAt(int i) {
+        Handle<T> removed = heap[i];
+        Handle<T> last = heap[--size];
+        heap[size] = null;
+        removed.pos = -1;
+        if (i == size) return;
+        heap[i] = last;
+        last.pos = i;
+        // the moved entry may need to travel either way
+        siftDown(i);
+        if (heap[i] == last) siftUp(i);
+    }
+
+    private void siftUp(int i) {
+        Handle<T> h = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) / ARITY;
+            Handle<T> p = heap[parent];
+            if (p.key <= h.key) break;
+            heap[i] = p;
+            p.pos = i;
+            i = parent;
+        }
+        heap[i] = h;
+        h.pos = i;
+    }
+
+    private void siftDown(int i) {
+        Handle<T> h = heap[i];
+        while (true) {
+            int first = i * ARITY + 1;
+            if (first >= size) break;
+            int min = first;
+            int end = Math.min(first + ARITY, size);
+            for (int c = first + 1; c < end; c++) {
+                if (heap[c].key < heap[min].key) min = c;
+            }
+            if (heap[min].key >= h.key) break;
+            heap[i] = heap[min];
+            heap[i].pos = i;
+            i = min;
+        }
+        heap[i] = h;
+        h.pos = i;
+    }
+}
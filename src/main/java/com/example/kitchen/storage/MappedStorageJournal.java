@@ -0,0 +1,420 @@
+package com.example.kitchen.storage;
+
+import com.example.kitchen.clock.KitchenClock;
+import com.example.kitchen.enums.StorageType;
+import com.example.kitchen.enums.Temperature;
+import com.example.kitchen.model.Order;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * {@link StorageJournal} on memory-mapped files: a checkpoint of every live order, plus journal
+ * segments with the mutations since.
+ * <p>
+ * Directory layout:
+ * - {@code checkpoint.bin}: the live orders as of the end of segment N (header: magic, version, N, count);
+ * - {@code journal-<seq>.seg}: fixed-size mapped segments, filled record by record; a full segment
+ * is sealed and the next one mapped.
+ * Records are framed as {@code [int length][int crc32c][body]}. A zero length ends a segment; a bad
+ * checksum is a torn tail, and replay of that segment stops there.
+ * <p>
+ * Durability: an append is a copy into a mapped page, no system call. It survives a process crash
+ * (the pages belong to the OS); {@link #force()}, called by every checkpoint and on close, makes it
+ * survive power loss too. {@link #checkpoint()} writes the new checkpoint to a temp file, forces it,
+ * renames it into place and only then deletes the segments it covers, so a crash at any point leaves
+ * one complete checkpoint and every segment after it.
+ * <p>
+ * Threading: appends are serialized by the instance monitor. A checkpoint holds it only to seal the
+ * active segment; merging the sealed segments into the new checkpoint runs without blocking appends.
+ * A failing journal (disk full, I/O error) logs once and stops recording: storage keeps working, and
+ * the next restart falls back to what was recorded until then.
+ */
+@Slf4j
+public final class MappedStorageJournal implements StorageJournal, AutoCloseable {
+
+    static final String CHECKPOINT = "checkpoint.bin";
+    private static final String CHECKPOINT_TMP = "checkpoint.bin.tmp";
+    private static final Pattern SEGMENT = Pattern.compile("journal-(\\d{16})\\.seg");
+
+    private static final int MAGIC = 0x4B434B50; // "KCKP"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4;
+    private static final int FRAME_BYTES = 4 + 4;
+
+    private static final byte PLACE = 1;
+    private static final byte MOVE = 2;
+    private static final byte REMOVE = 3;
+    private static final StorageType[] STORAGES = StorageType.values();
+    private static final Temperature[] TEMPERATURES = Temperature.values();
+
+    private final Path dir;
+    private final int segmentBytes;
+    // serializes checkpoints; never taken by appends
+    private final Object checkpointLock = new Object();
+
+    // guarded by "this"
+    private long activeSeq;
+    private FileChannel activeChannel;
+    private MappedByteBuffer active;
+    private long checkpointedSeq;
+    private boolean closed;
+
+    private volatile boolean failed;
+    private List<StoredOrder> recovered;
+
+    private MappedStorageJournal(Path dir, int segmentBytes, long checkpointedSeq, List<StoredOrder> recovered) {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.checkpointedSeq = checkpointedSeq;
+        this.recovered = recovered;
+    }
+
+    /**
+     * Recover the state left in "dir" (checkpoint + journal tail), then start a new segment for appends.
+     */
+    public static MappedStorageJournal open(Path dir, int segmentBytes) throws IOException {
+        if (segmentBytes < 4_096) throw new IllegalArgumentException("segment size must be >= 4096 bytes");
+        Files.createDirectories(dir);
+        Map<String, StoredOrder> state = new HashMap<>();
+        long covered = readCheckpoint(dir, state);
+        long last = replaySegments(dir, covered, Long.MAX_VALUE, state);
+        MappedStorageJournal journal = new MappedStorageJournal(dir, segmentBytes, covered, new ArrayList<>(state.values()));
+        synchronized (journal) {
+            journal.map(last + 1);
+        }
+        return journal;
+    }
+
+    /**
+     * The live orders found by {@link #open}; handed out once, then released.
+     */
+    public synchronized List<StoredOrder> drainRecovered() {
+        List<StoredOrder> out = recovered != null ? recovered : List.of();
+        recovered = null;
+        return out;
+    }
+
+    @Override
+    public void placed(Order order, StorageType storage, long remainingMicros, long lastUpdateMicros) {
+        if (failed) return;
+        append(encodePlace(order, storage, remainingMicros, lastUpdateMicros));
+    }
+
+    @Override
+    public void moved(String orderId, StorageType to, long remainingMicros, long lastUpdateMicros) {
+        if (failed) return;
+        byte[] id = utf8(orderId);
+        ByteBuffer b = ByteBuffer.allocate(1 + sizeOf(id) + 1 + 8 + 8);
+        b.put(MOVE);
+        putString(b, id);
+        b.put((byte) to.ordinal()).putLong(remainingMicros).putLong(lastUpdateMicros);
+        append(b.array());
+    }
+
+    @Override
+    public void removed(String orderId) {
+        if (failed) return;
+        byte[] id = utf8(orderId);
+        ByteBuffer b = ByteBuffer.allocate(1 + sizeOf(id));
+        b.put(REMOVE);
+        putString(b, id);
+        append(b.array());
+    }
+
+    /**
+     * Merge the current checkpoint and every segment written so far into a new checkpoint, then
+     * delete those segments. Recovery afterwards reads the checkpoint and only the segments after it.
+     *
+     * @return false when nothing was recorded since the last checkpoint
+     */
+    public boolean checkpoint() throws IOException {
+        synchronized (checkpointLock) {
+            long upTo;
+            synchronized (this) {
+                if (closed || failed) return false;
+                if (active.position() == 0 && activeSeq == checkpointedSeq + 1) return false;
+                upTo = activeSeq;
+                rotate();
+            }
+            Map<String, StoredOrder> state = new HashMap<>();
+            long covered = readCheckpoint(dir, state);
+            replaySegments(dir, covered, upTo, state);
+            writeCheckpoint(dir, upTo, state.values());
+            for (long seq : segments(dir)) {
+                if (seq <= upTo) Files.deleteIfExists(segment(dir, seq));
+            }
+            synchronized (this) {
+                checkpointedSeq = upTo;
+            }
+            log.debug("storage checkpoint: {} orders up to segment {}", state.size(), upTo);
+            return true;
+        }
+    }
+
+    /**
+     * Flush the active segment to disk.
+     */
+    public synchronized void force() {
+        if (!closed && !failed) active.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        force();
+        closed = true;
+        activeChannel.close();
+    }
+
+    // ---- appends (under the monitor) ----
+
+    private void append(byte[] body) {
+        int crc = crc(body, 0, body.length);
+        synchronized (this) {
+            if (closed || failed) return;
+            try {
+                if (active.remaining() < FRAME_BYTES + body.length) {
+                    rotate();
+                    if (active.remaining() < FRAME_BYTES + body.length) {
+                        throw new IllegalArgumentException("Record of " + body.length + " bytes exceeds the segment size");
+                    }
+                }
+                active.putInt(body.length).putInt(crc).put(body);
+            } catch (IOException | RuntimeException e) {
+                failed = true;
+                log.error("storage journal failed, storage mutations are no longer recorded", e);
+            }
+        }
+    }
+
+    // seal the active segment and map the next one
+    private void rotate() throws IOException {
+        activeChannel.close();
+        map(activeSeq + 1);
+    }
+
+    private void map(long seq) throws IOException {
+        activeChannel = FileChannel.open(segment(dir, seq),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        active = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        activeSeq = seq;
+    }
+
+    // ---- recovery ----
+
+    /**
+     * Load the checkpoint into "state".
+     *
+     * @return the last segment it covers (0 without a checkpoint)
+     */
+    private static long readCheckpoint(Path dir, Map<String, StoredOrder> state) throws IOException {
+        Path file = dir.resolve(CHECKPOINT);
+        if (!Files.exists(file)) return 0;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer b = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (b.remaining() < HEADER_BYTES || b.getInt() != MAGIC || b.getInt() != VERSION) {
+                throw new IOException("Not a storage checkpoint: " + file);
+            }
+            long covered = b.getLong();
+            int count = b.getInt();
+            for (int i = 0; i < count; i++) {
+                if (!apply(b, state)) throw new IOException("Corrupt storage checkpoint: " + file + " at entry " + i);
+            }
+            return covered;
+        }
+    }
+
+    /**
+     * Replay the segments in (after; upTo] into "state"; segments up to "after" are leftovers of an
+     * interrupted checkpoint and are deleted.
+     *
+     * @return the last segment number seen (at least "after")
+     */
+    private static long replaySegments(Path dir, long after, long upTo, Map<String, StoredOrder> state) throws IOException {
+        long last = after;
+        for (long seq : segments(dir)) {
+            if (seq > upTo) break;
+            Path file = segment(dir, seq);
+            if (seq <= after) {
+                Files.deleteIfExists(file);
+                continue;
+            }
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer b = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+                while (b.remaining() >= FRAME_BYTES && b.getInt(b.position()) != 0) {
+                    if (!apply(b, state)) {
+                        log.warn("storage journal {}: torn record at byte {}, rest of the segment ignored", file, b.position());
+                        break;
+                    }
+                }
+            }
+            last = seq;
+        }
+        return last;
+    }
+
+    /**
+     * Read one framed record at the buffer's position and apply it.
+     *
+     * @return false on a torn or corrupt record (the position is then undefined)
+     */
+    private static boolean apply(ByteBuffer b, Map<String, StoredOrder> state) {
+        if (b.remaining() < FRAME_BYTES) return false;
+        int length = b.getInt();
+        int crc = b.getInt();
+        if (length <= 0 || length > b.remaining()) return false;
+        ByteBuffer body = b.slice(b.position(), length);
+        b.position(b.position() + length);
+        byte[] bytes = new byte[length];
+        body.get(bytes);
+        if (crc(bytes, 0, length) != crc) return false;
+
+        ByteBuffer r = ByteBuffer.wrap(bytes);
+        byte type = r.get();
+        String id = getString(r);
+        switch (type) {
+            case PLACE -> {
+                StorageType storage = STORAGES[r.get()];
+                Temperature temp = TEMPERATURES[r.get()];
+                int freshness = r.getInt();
+                long placedAt = r.getLong();
+                String name = getString(r);
+                String runId = getString(r);
+                long remaining = r.getLong();
+                long lastUpdate = r.getLong();
+                // first placement wins, like the storage index
+                state.putIfAbsent(id, new StoredOrder(
+                        new Order(id, name, temp, freshness, KitchenClock.ofMicros(placedAt), runId),
+                        storage, remaining, lastUpdate));
+            }
+            case MOVE -> {
+                StorageType to = STORAGES[r.get()];
+                long remaining = r.getLong();
+                long lastUpdate = r.getLong();
+                state.computeIfPresent(id, (k, o) -> new StoredOrder(o.order(), to, remaining, lastUpdate));
+            }
+            case REMOVE -> state.remove(id);
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ---- checkpoint file ----
+
+    private static void writeCheckpoint(Path dir, long covered, Collection<StoredOrder> orders) throws IOException {
+        List<byte[]> bodies = new ArrayList<>(orders.size());
+        long size = HEADER_BYTES;
+        for (StoredOrder o : orders) {
+            byte[] body = encodePlace(o.order(), o.storage(), o.remainingMicros(), o.lastUpdateMicros());
+            bodies.add(body);
+            size += FRAME_BYTES + body.length;
+        }
+        Path tmp = dir.resolve(CHECKPOINT_TMP);
+        Files.deleteIfExists(tmp);
+        try (FileChannel ch = FileChannel.open(tmp,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer b = ch.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            b.putInt(MAGIC).putInt(VERSION).putLong(covered).putInt(bodies.size());
+            for (byte[] body : bodies) {
+                b.putInt(body.length).putInt(crc(body, 0, body.length)).put(body);
+            }
+            b.force();
+        }
+        Files.move(tmp, dir.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        // persist the rename itself; not every platform can sync a directory
+        try (FileChannel d = FileChannel.open(dir, StandardOpenOption.READ)) {
+            d.force(true);
+        } catch (IOException e) {
+            log.debug("cannot sync directory {}", dir, e);
+        }
+    }
+
+    // ---- encoding ----
+
+    private static byte[] encodePlace(Order order, StorageType storage, long remainingMicros, long lastUpdateMicros) {
+        byte[] id = utf8(order.id());
+        byte[] name = utf8(order.name());
+        byte[] runId = utf8(order.runId());
+        ByteBuffer b = ByteBuffer.allocate(1 + sizeOf(id) + 1 + 1 + 4 + 8 + sizeOf(name) + sizeOf(runId) + 8 + 8);
+        b.put(PLACE);
+        putString(b, id);
+        b.put((byte) storage.ordinal())
+                .put((byte) order.temp().ordinal())
+                .putInt(order.freshness())
+                .putLong(KitchenClock.toMicros(order.placedAt()));
+        putString(b, name);
+        putString(b, runId);
+        b.putLong(remainingMicros).putLong(lastUpdateMicros);
+        return b.array();
+    }
+
+    private static byte[] utf8(String s) {
+        if (s == null) return null;
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) throw new IllegalArgumentException("String too long for the journal");
+        return bytes;
+    }
+
+    // short length prefix, -1 = null
+    private static int sizeOf(byte[] s) {
+        return 2 + (s == null ? 0 : s.length);
+    }
+
+    private static void putString(ByteBuffer b, byte[] s) {
+        if (s == null) {
+            b.putShort((short) -1);
+        } else {
+            b.putShort((short) s.length).put(s);
+        }
+    }
+
+    private static String getString(ByteBuffer b) {
+        short length = b.getShort();
+        if (length < 0) return null;
+        String s = new String(b.array(), b.arrayOffset() + b.position(), length, StandardCharsets.UTF_8);
+        b.position(b.position() + length);
+        return s;
+    }
+
+    private static int crc(byte[] bytes, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    // ---- files ----
+
+    private static Path segment(Path dir, long seq) {
+        return dir.resolve(String.format("journal-%016d.seg", seq));
+    }
+
+    private static List<Long> segments(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(p -> SEGMENT.matcher(p.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(m -> Long.parseLong(m.group(1)))
+                    .sorted()
+                    .toList();
+        }
+    }
+}
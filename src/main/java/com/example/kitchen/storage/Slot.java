@@ -0,0 +1,69 @@
+package com.example.kitchen.storage;
+
+import com.example.kitchen.enums.StorageType;
+import com.example.kitchen.model.Order;
+
+/**
+ * Handle of an order that currently sits in one of the storages.
+ * <p>
+ * Lives in the id-keyed index of StorageService and carries everything needed to
+ * take the order out again without a scan: its storage, its shelf heap entries and
+ * its decay row. Whoever removes the slot from the index owns it from then on.
+ */
+public final class Slot {
+    private final Order order;     // the stored order
+    private volatile StorageType storage; // storage currently holding the order (published on move)
+    private IndexedHeap.Handle<Slot> expiryHandle; // entry in the shelf expiry heap (SHELF only)
+    private IndexedHeap.Handle<Slot> moveHandle;   // entry in its temperature's move-candidate heap (SHELF, HOT/COLD only)
+    private int decayHandle = -1;  // row in the DecayTable
+    private TimingWheel.Timeout<Slot> expiryTimeout; // pending expiry deadline (when expiry tracking is on)
+
+    public Slot(Order order, StorageType storage) {
+        this.order = order;
+        this.storage = storage;
+    }
+
+    public Order order() {
+        return order;
+    }
+
+    public StorageType storage() {
+        return storage;
+    }
+
+    public void moveTo(StorageType storage) {
+        this.storage = storage;
+    }
+
+    public IndexedHeap.Handle<Slot> expiryHandle() {
+        return expiryHandle;
+    }
+
+    public void expiryHandle(IndexedHeap.Handle<Slot> handle) {
+        this.expiryHandle = handle;
+    }
+
+    public IndexedHeap.Handle<Slot> moveHandle() {
+        return moveHandle;
+    }
+
+    public void moveHandle(IndexedHeap.Handle<Slot> handle) {
+        this.moveHandle = handle;
+    }
+
+    public int decayHandle() {
+        return decayHandle;
+    }
+
+    public void decayHandle(int handle) {
+        this.decayHandle = handle;
+    }
+
+    public TimingWheel.Timeout<Slot> expiryTimeout() {
+        return expiryTimeout;
+    }
+
+    public void expiryTimeout(TimingWheel.Timeout<Slot> timeout) {
+        this.expiryTimeout = timeout;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.kitchen.storage;
+
+import com.example.kitchen.enums.StorageType;
+import com.example.kitchen.model.Order;
+
+/**
+ * Receives every storage mutation of StorageService, with the decay row as it stands after it.
+ * <p>
+ * The decay row only changes together with a mutation (placement, move, removal), so these
+ * three records are enough to rebuild storages and freshness budgets.
+ * Calls for one order arrive in the order they became visible; calls for different orders
+ * may come from different threads at once.
+ */
+public interface StorageJournal {
+
+    StorageJournal NONE = new StorageJournal() {
+        @Override
+        public void placed(Order order, StorageType storage, long remainingMicros, long lastUpdateMicros) {
+        }
+
+        @Override
+        public void moved(String orderId, StorageType to, long remainingMicros, long lastUpdateMicros) {
+        }
+
+        @Override
+        public void removed(String orderId) {
+        }
+    };
+
+    void placed(Order order, StorageType storage, long remainingMicros, long lastUpdateMicros);
+
+    void moved(String orderId, StorageType to, long remainingMicros, long lastUpdateMicros);
+
+    /**
+     * Picked up, discarded or expired.
+     */
+    void removed(String orderId);
+}
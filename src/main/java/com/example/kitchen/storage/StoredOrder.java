@@ -0,0 +1,10 @@
+package com.example.kitchen.storage;
+
+import com.example.kitchen.enums.StorageType;
+import com.example.kitchen.model.Order;
+
+/**
+ * One live order as a checkpoint sees it: where it is and its decay row (epoch micros).
+ */
+public record StoredOrder(Order order, StorageType storage, long remainingMicros, long lastUpdateMicros) {
+}
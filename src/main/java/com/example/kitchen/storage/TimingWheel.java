@@ -0,0 +1,179 @@
+package com.example.kitchen.storage;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel for deadlines in epoch microseconds.
+ * <p>
+ * Level 0 has {@code wheelSize} buckets of {@code tickMicros} each; every next level has as
+ * many buckets, each spanning a whole revolution of the level below. A deadline goes to the
+ * lowest level whose range covers it and cascades one level down whenever its bucket comes
+ * around, so each timeout is touched O(levels) times in total, however far away it is.
+ * schedule/cancel are O(1) (doubly linked bucket lists), advance is O(elapsed ticks + fired).
+ * A timeout never fires before its deadline; it fires at most one tick late.
+ * Not thread-safe — the caller guards it.
+ */
+public final class TimingWheel<T> {
+
+    /**
+     * Pending deadline; keep it to cancel.
+     */
+    public static final class Timeout<T> {
+        private final T value;
+        private final long deadlineMicros;
+        private long tick;        // absolute tick the timeout fires on
+        private Bucket<T> bucket; // null once fired or cancelled
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(T value, long deadlineMicros) {
+            this.value = value;
+            this.deadlineMicros = deadlineMicros;
+        }
+
+        public T value() {
+            return value;
+        }
+
+        public long deadlineMicros() {
+            return deadlineMicros;
+        }
+
+        public boolean pending() {
+            return bucket != null;
+        }
+    }
+
+    private static final class Bucket<T> {
+        Timeout<T> head;
+        Timeout<T> tail;
+
+        void add(Timeout<T> t) {
+            t.bucket = this;
+            t.prev = tail;
+            t.next = null;
+            if (tail == null) head = t;
+            else tail.next = t;
+            tail = t;
+        }
+
+        void remove(Timeout<T> t) {
+            if (t.prev == null) head = t.next;
+            else t.prev.next = t.next;
+            if (t.next == null) tail = t.prev;
+            else t.next.prev = t.prev;
+            t.prev = t.next = null;
+            t.bucket = null;
+        }
+    }
+
+    private final long tickMicros;
+    private final long startMicros;
+    private final Bucket<T>[][] levels; // levels[k][i]: bucket i of level k
+    private final int bits;             // log2(wheelSize)
+    private final int mask;
+    private long nextTick; // next tick to be processed by advance
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMicros, int wheelSize, long startMicros) {
+        if (tickMicros < 1) throw new IllegalArgumentException("tickMicros must be >= 1");
+        if (wheelSize < 2) throw new IllegalArgumentException("wheelSize must be >= 2");
+        int n = Integer.highestOneBit(wheelSize - 1) << 1; // round up to a power of two
+        this.bits = Integer.numberOfTrailingZeros(n);
+        this.mask = n - 1;
+        // enough levels to cover any tick distance that fits in a long
+        int depth = (62 + bits - 1) / bits;
+        this.levels = (Bucket<T>[][]) new Bucket[depth][n];
+        for (Bucket<T>[] level : levels) {
+            for (int i = 0; i < n; i++) level[i] = new Bucket<>();
+        }
+        this.tickMicros = tickMicros;
+        this.startMicros = startMicros;
+    }
+
+    /**
+     * Schedule a value to fire once its deadline has passed; O(1).
+     * Deadlines in the past go to the next unprocessed tick.
+     */
+    public Timeout<T> schedule(T value, long deadlineMicros) {
+        Timeout<T> t = new Timeout<>(value, deadlineMicros);
+        // ceil: the tick only starts after the deadline, so nothing fires early
+        t.tick = Math.max(nextTick, Math.ceilDiv(deadlineMicros - startMicros, tickMicros));
+        place(t);
+        size++;
+        return t;
+    }
+
+    /**
+     * Cancel a pending timeout; O(1). Returns false if it already fired or was cancelled.
+     */
+    public boolean cancel(Timeout<T> t) {
+        if (t == null || t.bucket == null) return false;
+        t.bucket.remove(t);
+        size--;
+        return true;
+    }
+
+    /**
+     * Process every tick that has fully elapsed at {@code nowMicros} and hand each due value
+     * to {@code onExpired}. The callback must not schedule or cancel on this wheel.
+     *
+     * @return number of fired timeouts
+     */
+    public int advance(long nowMicros, Consumer<T> onExpired) {
+        long lastTick = Math.floorDiv(nowMicros - startMicros, tickMicros);
+        int fired = 0;
+        while (nextTick <= lastTick) {
+            if (size == 0) {
+                // an idle wheel has nothing to cascade or fire: jump straight to the end
+                nextTick = lastTick + 1;
+                break;
+            }
+            cascade(nextTick);
+            Bucket<T> bucket = levels[0][(int) (nextTick & mask)];
+            // level 0 only holds timeouts of the current revolution: all of them are due
+            for (Timeout<T> t = bucket.head; t != null; t = bucket.head) {
+                bucket.remove(t);
+                size--;
+                fired++;
+                onExpired.accept(t.value);
+            }
+            nextTick++;
+        }
+        return fired;
+    }
+
+    /**
+     * Number of pending timeouts.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Put a timeout in the lowest level whose range, counted from nextTick, covers it.
+     */
+    private void place(Timeout<T> t) {
+        long delta = t.tick - nextTick;
+        int level = 0;
+        while (level < levels.length - 1 && delta >>> (bits * (level + 1)) != 0) level++;
+        levels[level][(int) ((t.tick >>> (bits * level)) & mask)].add(t);
+    }
+
+    /**
+     * At a level boundary, redistribute the upper-level bucket that starts at "tick",
+     * highest level first so entries can fall through several levels at once.
+     */
+    private void cascade(long tick) {
+        int top = 0;
+        while (top < levels.length - 1 && (tick & ((1L << (bits * (top + 1))) - 1)) == 0) top++;
+        for (int level = top; level >= 1; level--) {
+            Bucket<T> bucket = levels[level][(int) ((tick >>> (bits * level)) & mask)];
+            for (Timeout<T> t = bucket.head; t != null; t = bucket.head) {
+                bucket.remove(t);
+                place(t);
+            }
+        }
+    }
+}
@@ -0,0 +1,9 @@
+-- drop the foreign key from actions to orders
+-- Why:
+--  * the ledger is append-only history: "on delete cascade" wiped an order's PLACE/MOVE rows
+--    as soon as it was picked up or discarded;
+--  * with the write-behind ledger an action can be inserted after its order row was deleted
+--    (pickup), which the foreign key would reject.
+-- idx_actions_order_id still serves lookups by order.
+alter table actions
+    drop constraint if exists fk_actions_orders;
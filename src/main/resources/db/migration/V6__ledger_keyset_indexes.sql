@@ -0,0 +1,10 @@
+-- extend the ledger indexes with the keyset (ts, id)
+-- Why:
+--  * the ledger API pages by "(ts, id) > cursor ORDER BY ts, id LIMIT n";
+--  * with (ts, id) the page is a plain index range scan, no sort and no table scan;
+--  * (order_id, ts, id) serves the same query filtered by order.
+drop index if exists idx_actions_ts;
+create index idx_actions_ts on actions (ts, id);
+
+drop index if exists idx_actions_order_id;
+create index idx_actions_order_id on actions (order_id, ts, id);
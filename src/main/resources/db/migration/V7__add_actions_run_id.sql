@@ -0,0 +1,11 @@
+-- run id on the ledger: which simulation run owns the action's order
+-- Why:
+--  * concurrent simulation runs share one ledger; a wall-clock window cannot tell them apart;
+--  * null for orders placed through the manual API;
+--  * (run_id, ts, id) serves "the run's actions in ledger order" for /solve and the ledger API.
+alter table actions
+    add column run_id varchar(64);
+
+comment on column actions.run_id is 'Simulation run that owns the order (null for manual API calls)';
+
+create index idx_actions_run_id on actions (run_id, ts, id);
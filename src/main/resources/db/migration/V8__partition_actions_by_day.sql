@@ -0,0 +1,76 @@
+-- partition the ledger by day: declarative range partitioning on ts
+-- Why:
+--  * the ledger only grows: one heap table means ever larger indexes and slower inserts;
+--  * a daily partition keeps the hot indexes small, and old days leave with a cheap
+--    DETACH + DROP (or a move to the ledger_archive schema) instead of a bulk DELETE;
+--  * queries bounded on ts only touch the partitions of their days.
+-- Partitions are named actions_pYYYYMMDD and cover [day; day + 1) in UTC;
+-- LedgerPartitionManager keeps the next days created and applies retention.
+-- Rows for a day without a partition land in actions_default and move out when it is created.
+-- The primary key must contain the partition key: (ts, id), which is also the keyset
+-- of the ledger API, so it replaces idx_actions_ts.
+
+alter table actions rename to actions_unpartitioned;
+alter index actions_pkey rename to actions_unpartitioned_pkey;
+alter index idx_actions_ts rename to idx_actions_unpartitioned_ts;
+alter index idx_actions_order_id rename to idx_actions_unpartitioned_order_id;
+alter index idx_actions_run_id rename to idx_actions_unpartitioned_run_id;
+alter index uq_actions_order_action_ts rename to uq_actions_unpartitioned_order_action_ts;
+-- the id sequence outlives the old table
+alter sequence actions_id_seq owned by none;
+
+create table actions
+(
+    id       bigint      not null default nextval('actions_id_seq'),
+    ts       timestamp   not null,
+    order_id varchar(50) not null,
+    action   text        not null,
+    target   varchar(10) not null,
+    run_id   varchar(64),
+    constraint actions_pkey primary key (ts, id),
+    constraint chk_actions_action check (action in ('PLACE', 'MOVE', 'PICKUP', 'DISCARD')),
+    constraint chk_actions_target check (target in ('HEATER', 'COOLER', 'SHELF'))
+) partition by range (ts);
+
+alter sequence actions_id_seq owned by actions.id;
+
+comment on table actions is 'Action ledger, partitioned by day on ts (actions_pYYYYMMDD)';
+comment on column actions.id is 'Unique action identifier';
+comment on column actions.ts is 'Timestamp when the action occurred';
+comment on column actions.order_id is 'Order identifier related to this action';
+comment on column actions.action is 'Type of action: PLACE, MOVE, PICKUP, DISCARD';
+comment on column actions.target is 'Target storage location for the action';
+comment on column actions.run_id is 'Simulation run that owns the order (null for manual API calls)';
+
+-- partitioned indexes: every partition gets its own copy
+create index idx_actions_order_id on actions (order_id, ts, id);
+create index idx_actions_run_id on actions (run_id, ts, id);
+create unique index uq_actions_order_action_ts on actions (order_id, action, ts);
+
+create table actions_default partition of actions default;
+
+-- one partition per day present in the old table, plus yesterday .. a week ahead
+do
+$$
+    declare
+        d date;
+    begin
+        for d in
+            select distinct ts::date from actions_unpartitioned
+            union
+            select generate_series(current_date - 1, current_date + 7, interval '1 day')::date
+            loop
+                execute format('create table %I partition of actions for values from (%L) to (%L)',
+                               'actions_p' || to_char(d, 'YYYYMMDD'), d, d + 1);
+            end loop;
+    end
+$$;
+
+insert into actions (id, ts, order_id, action, target, run_id)
+select id, ts, order_id, action, target, run_id
+from actions_unpartitioned;
+
+drop table actions_unpartitioned;
+
+-- retired partitions kept for archival (kitchen.ledger.partitions.archive=true)
+create schema if not exists ledger_archive;
@@ -0,0 +1,124 @@
+package com.example.kitchen.bench;
+
+import com.example.kitchen.storage.CapacityCounter;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Admission under contention: CAS capacity counter vs. the previous per-storage ReentrantLock.
+ * <p>
+ * Every thread hammers one storage (the SHELF hot spot) with reserve/release pairs
+ * ("room") or with admissions against a full storage ("full", the overflow case).
+ * <p>
+ * Run with: {@code ./gradlew benchmark --tests '*AdmissionContentionBenchmark'}
+ */
+@Tag("benchmark")
+class AdmissionContentionBenchmark {
+
+    private static final int OPS_PER_THREAD = 500_000;
+
+    interface Admission {
+        boolean tryReserve();
+
+        void release();
+    }
+
+    /**
+     * The old scheme: lock, check size against capacity, bump size, unlock.
+     */
+    static final class LockedAdmission implements Admission {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final int capacity;
+        private int size;
+
+        LockedAdmission(int capacity) {
+            this.capacity = capacity;
+        }
+
+        @Override
+        public boolean tryReserve() {
+            lock.lock();
+            try {
+                if (size >= capacity) return false;
+                size++;
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void release() {
+            lock.lock();
+            try {
+                size--;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    static Admission cas(int capacity) {
+        CapacityCounter c = new CapacityCounter(capacity);
+        return new Admission() {
+            @Override
+            public boolean tryReserve() {
+                return c.tryReserve();
+            }
+
+            @Override
+            public void release() {
+                c.release();
+            }
+        };
+    }
+
+    @ParameterizedTest(name = "threads = {0}")
+    @ValueSource(ints = {1, 4, 16, 64})
+    void compareCasWithLock(int threads) throws Exception {
+        // "room": capacity above thread count, every reserve succeeds and is released
+        report("room", "lock", threads, run(new LockedAdmission(1_000), threads, true));
+        report("room", "cas ", threads, run(cas(1_000), threads, true));
+
+        // "full": storage already at capacity, every admission is rejected
+        Admission lockedFull = new LockedAdmission(1);
+        Admission casFull = cas(1);
+        assertTrue(lockedFull.tryReserve());
+        assertTrue(casFull.tryReserve());
+        report("full", "lock", threads, run(lockedFull, threads, false));
+        report("full", "cas ", threads, run(casFull, threads, false));
+    }
+
+    private static long run(Admission admission, int threads, boolean releaseAfter) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < OPS_PER_THREAD; i++) {
+                    if (admission.tryReserve() && releaseAfter) admission.release();
+                }
+                return null;
+            });
+        }
+        long t0 = System.nanoTime();
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.MINUTES));
+        return System.nanoTime() - t0;
+    }
+
+    private static void report(String scenario, String impl, int threads, long nanos) {
+        double opsPerSec = (double) threads * OPS_PER_THREAD / (nanos / 1e9);
+        System.out.printf("admission %s %s threads=%-3d %,14.0f ops/s%n", scenario, impl, threads, opsPerSec);
+    }
+}
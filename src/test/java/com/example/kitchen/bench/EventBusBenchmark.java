@@ -0,0 +1,70 @@
+package com.example.kitchen.bench;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.example.kitchen.dto.KitchenEventDto;
+import com.example.kitchen.events.KitchenEventBus;
+import com.example.kitchen.persistence.NoOpKitchenPersistence;
+import com.example.kitchen.service.KitchenService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.reactivestreams.Subscription;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Placement throughput with 0 to 1000 live event subscribers, half of them stalled.
+ * <p>
+ * Place → pickup cycles through KitchenService (no-op persistence, 16 in flight) while every
+ * action is published to the bus. Fast subscribers read everything; stalled ones never request
+ * more than one event and only lose their own. Cycles/s should stay close to the 0-subscriber run,
+ * since the placement path only offers to the bus queue.
+ * <p>
+ * Run with: {@code ./gradlew benchmark --tests '*EventBusBenchmark'}
+ */
+@Tag("benchmark")
+class EventBusBenchmark {
+
+    @BeforeAll
+    static void quiet() {
+        ((Logger) LoggerFactory.getLogger(KitchenService.class)).setLevel(Level.WARN);
+    }
+
+    @ParameterizedTest(name = "subscribers = {0}")
+    @ValueSource(ints = {0, 100, 1_000})
+    void placementWithSubscribers(int subscribers) throws InterruptedException {
+        try (KitchenEventBus bus = new KitchenEventBus(65_536, 256)) {
+            LongAdder delivered = new LongAdder();
+            List<Disposable> subscriptions = new ArrayList<>();
+            for (int i = 0; i < subscribers; i++) {
+                var events = bus.subscribe(Set.of(), Set.of(), KitchenEventBus.Overflow.DROP_OLDEST);
+                if (i % 2 == 0) {
+                    subscriptions.add(events.subscribe(e -> delivered.increment()));
+                } else {
+                    BaseSubscriber<KitchenEventDto> stalled = new BaseSubscriber<>() {
+                        @Override
+                        protected void hookOnSubscribe(Subscription s) {
+                            request(1);
+                        }
+                    };
+                    events.subscribe(stalled);
+                    subscriptions.add(stalled);
+                }
+            }
+
+            KitchenThroughputBenchmark.run("subscribers=" + String.format("%-5d", subscribers),
+                    new NoOpKitchenPersistence(), bus, 16);
+            System.out.printf("    published %,d  dropped at the bus %,d  delivered %,d  lost by subscribers %,d%n",
+                    bus.published(), bus.dropped(), delivered.sum(), bus.subscriberDrops());
+            subscriptions.forEach(Disposable::dispose);
+        }
+    }
+}
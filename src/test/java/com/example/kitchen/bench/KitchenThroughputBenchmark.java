@@ -0,0 +1,88 @@
+package com.example.kitchen.bench;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.example.kitchen.clock.SystemKitchenClock;
+import com.example.kitchen.engine.LockedStorageEngine;
+import com.example.kitchen.enums.Temperature;
+import com.example.kitchen.events.KitchenEventBus;
+import com.example.kitchen.mapper.ActionEntityMapperImpl;
+import com.example.kitchen.mapper.OrderEntityMapperImpl;
+import com.example.kitchen.metrics.KitchenMetrics;
+import com.example.kitchen.model.Order;
+import com.example.kitchen.persistence.InMemoryKitchenPersistence;
+import com.example.kitchen.persistence.KitchenPersistence;
+import com.example.kitchen.persistence.NoOpKitchenPersistence;
+import com.example.kitchen.service.KitchenService;
+import com.example.kitchen.service.StorageService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * KitchenService throughput with no database: place → pickup cycles through the full order flow
+ * (storage decision, mapping, ledger actions) over the no-op and the in-memory KitchenPersistence.
+ * <p>
+ * No-op is the engine alone; in-memory adds keeping rows and the ledger. A Postgres run of the
+ * same flow (default profile) minus these numbers is the database's share.
+ * <p>
+ * Run with: {@code ./gradlew benchmark --tests '*KitchenThroughputBenchmark'}
+ */
+@Tag("benchmark")
+class KitchenThroughputBenchmark {
+
+    private static final int CYCLES = 100_000;
+
+    @BeforeAll
+    static void quiet() {
+        // one INFO line per placement would measure the console, not the kitchen
+        ((Logger) LoggerFactory.getLogger(KitchenService.class)).setLevel(Level.WARN);
+    }
+
+    @ParameterizedTest(name = "concurrency = {0}")
+    @ValueSource(ints = {1, 16, 64})
+    void comparePersistence(int concurrency) throws InterruptedException {
+        run("persistence no-op    ", new NoOpKitchenPersistence(), concurrency);
+        InMemoryKitchenPersistence inMemory = new InMemoryKitchenPersistence();
+        run("persistence in-memory", inMemory, concurrency);
+        if (inMemory.ledgerSize() != 2 * CYCLES) throw new AssertionError("ledger size " + inMemory.ledgerSize());
+    }
+
+    private static void run(String name, KitchenPersistence persistence, int concurrency) throws InterruptedException {
+        try (KitchenEventBus events = new KitchenEventBus(65_536, 256)) {
+            run(name, persistence, events, concurrency);
+        }
+    }
+
+    static void run(String name, KitchenPersistence persistence, KitchenEventBus events, int concurrency) {
+        SystemKitchenClock clock = new SystemKitchenClock();
+        StorageService storage = new StorageService(new LockedStorageEngine(), clock, 6, 6, 1_024);
+        KitchenService kitchen = new KitchenService(storage, new OrderEntityMapperImpl(), new ActionEntityMapperImpl(), persistence, events, KitchenMetrics.detached(), clock);
+        AtomicInteger ids = new AtomicInteger();
+        long[] samples = new long[CYCLES];
+        AtomicInteger n = new AtomicInteger();
+
+        long t0 = System.nanoTime();
+        Flux.range(0, CYCLES)
+                .flatMap(i -> Mono.defer(() -> {
+                    long start = System.nanoTime();
+                    String id = "k-" + ids.incrementAndGet();
+                    return kitchen.placeOrder(new Order(id, "Bench", Temperature.ROOM, 600, null))
+                            .then(kitchen.pickupOrder(id))
+                            .doOnSuccess(v -> samples[n.getAndIncrement()] = System.nanoTime() - start);
+                }), concurrency)
+                .blockLast();
+        long elapsed = System.nanoTime() - t0;
+
+        Arrays.sort(samples);
+        System.out.printf("%s concurrency=%-3d %,10.0f cycles/s  p50=%7d ns  p99=%8d ns%n",
+                name, concurrency, CYCLES / (elapsed / 1e9), samples[CYCLES / 2], samples[CYCLES * 99 / 100]);
+    }
+}
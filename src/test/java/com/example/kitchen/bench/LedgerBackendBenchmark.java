@@ -0,0 +1,128 @@
+package com.example.kitchen.bench;
+
+import com.example.kitchen.dto.LedgerFilter;
+import com.example.kitchen.enums.ActionType;
+import com.example.kitchen.enums.StorageType;
+import com.example.kitchen.it.AbstractR2dbcIT;
+import com.example.kitchen.ledger.DirectLedgerWriter;
+import com.example.kitchen.ledger.LedgerReader;
+import com.example.kitchen.ledger.LedgerWriter;
+import com.example.kitchen.ledger.MappedLedger;
+import com.example.kitchen.model.ActionEntity;
+import com.example.kitchen.repository.ActionBatchWriter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ledger backends side by side: Postgres over R2DBC ({@code direct}) vs. the memory-mapped log ({@code mapped}).
+ * <p>
+ * Per backend: single appends (one call per action, as KitchenService issues them), one batch
+ * append, 100-row pages over a time window, and the stream of one run's actions.
+ * Needs Docker (Testcontainers Postgres) for the R2DBC side. The mapped log should append
+ * orders of magnitude faster; reads narrow the gap, since both prune by time.
+ * <p>
+ * Run with: {@code ./gradlew benchmark --tests '*LedgerBackendBenchmark'}
+ */
+@Tag("benchmark")
+class LedgerBackendBenchmark extends AbstractR2dbcIT {
+
+    private static final int ROWS = 20_000;
+    private static final int SINGLE_ROWS = 2_000; // single appends to Postgres are slow; extrapolated from fewer rows
+    private static final int PAGES = 200;
+    private static final int SEGMENT = 64 * 1024 * 1024;
+    private static final Instant START = Instant.parse("2025-01-01T12:00:00Z");
+
+    @Autowired DatabaseClient db;
+    @Autowired ActionBatchWriter batchWriter;
+    @Autowired LedgerReader ledgerQueryRepository;
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void clean() {
+        db.sql("DELETE FROM actions").fetch().rowsUpdated().block();
+    }
+
+    private static List<ActionEntity> rows(int count) {
+        List<ActionEntity> rows = new ArrayList<>(count);
+        ActionType[] actions = ActionType.values();
+        StorageType[] targets = StorageType.values();
+        for (int i = 0; i < count; i++) {
+            ActionEntity a = new ActionEntity();
+            a.setOrderId("bench-" + i);
+            a.setAction(actions[i % actions.length]);
+            a.setTarget(targets[i % targets.length]);
+            a.setTimestamp(START.plusMillis(i));
+            a.setRunId(i % 10 == 0 ? "run" : "other");
+            rows.add(a);
+        }
+        return rows;
+    }
+
+    private static long nanos(Runnable r) {
+        long t0 = System.nanoTime();
+        r.run();
+        return System.nanoTime() - t0;
+    }
+
+    private static double singleAppendsPerSec(LedgerWriter writer) {
+        List<ActionEntity> rows = rows(SINGLE_ROWS);
+        long ns = nanos(() -> Flux.fromIterable(rows).concatMap(writer::append).then().block());
+        return SINGLE_ROWS * 1e9 / ns;
+    }
+
+    private static void batchAndRead(String backend, double singlePerSec, LedgerWriter writer, LedgerReader reader) {
+        long batchNs = nanos(() -> writer.appendAll(rows(ROWS)).block());
+
+        // the middle tenth of the time range
+        Instant from = START.plusMillis(ROWS * 45L / 100);
+        LedgerFilter window = new LedgerFilter(null, null, null, null, from, from.plusMillis(ROWS / 10));
+        long pageNs = nanos(() -> {
+            for (int i = 0; i < PAGES; i++) assertThat(reader.page(window, null, 100).block().items()).hasSize(100);
+        });
+        long[] streamed = new long[1];
+        long streamNs = nanos(() -> streamed[0] = reader.stream(LedgerFilter.forRun("run", START), null).count().block());
+        assertThat(streamed[0]).isEqualTo(ROWS / 10);
+
+        System.out.printf("%-8s single %9.0f rows/s  batch %10.0f rows/s  page(100) %7.3f ms  run stream (%d) %6.1f ms%n",
+                backend, singlePerSec, ROWS * 1e9 / batchNs, pageNs / 1e6 / PAGES, streamed[0], streamNs / 1e6);
+    }
+
+    @Test
+    void mappedLogVersusPostgres() throws IOException {
+        LedgerWriter direct = new DirectLedgerWriter(batchWriter);
+        // warm-up: connections, prepared statements, JIT
+        direct.appendAll(rows(1_000)).block();
+        try (MappedLedger warm = MappedLedger.open(dir.resolve("warm"), SEGMENT)) {
+            warm.appendAll(rows(1_000)).block();
+            warm.page(LedgerFilter.NONE, null, 100).block();
+        }
+
+        clean();
+        double directSingle = singleAppendsPerSec(direct);
+        clean();
+        batchAndRead("postgres", directSingle, direct, ledgerQueryRepository);
+
+        double mappedSingle;
+        try (MappedLedger single = MappedLedger.open(dir.resolve("single"), SEGMENT)) {
+            mappedSingle = singleAppendsPerSec(single);
+        }
+        try (MappedLedger mapped = MappedLedger.open(dir.resolve("batch"), SEGMENT)) {
+            batchAndRead("mapped", mappedSingle, mapped, mapped);
+        }
+    }
+}
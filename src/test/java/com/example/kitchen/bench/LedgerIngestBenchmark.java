@@ -0,0 +1,90 @@
+package com.example.kitchen.bench;
+
+import com.example.kitchen.enums.ActionType;
+import com.example.kitchen.enums.StorageType;
+import com.example.kitchen.it.AbstractR2dbcIT;
+import com.example.kitchen.model.ActionEntity;
+import com.example.kitchen.repository.ActionBatchWriter;
+import com.example.kitchen.repository.ActionCopyWriter;
+import com.example.kitchen.repository.ActionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.TestPropertySource;
+import reactor.core.publisher.Flux;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ledger ingestion rows/sec: per-row {@code save} vs. multi-row INSERT vs. COPY.
+ * <p>
+ * Needs Docker (Testcontainers Postgres). The multi-row path is measured with
+ * {@code kitchen.ledger.copy-threshold=0}, so {@code insertAll} never switches to COPY on its own.
+ * COPY should come out well ahead of the multi-row INSERT, and both far ahead of per-row save.
+ * <p>
+ * Run with: {@code ./gradlew benchmark --tests '*LedgerIngestBenchmark'}
+ */
+@Tag("benchmark")
+@TestPropertySource(properties = "kitchen.ledger.copy-threshold=0")
+class LedgerIngestBenchmark extends AbstractR2dbcIT {
+
+    private static final int ROWS = 20_000;
+    private static final int SAVE_ROWS = 2_000; // per-row save is slow; extrapolated from fewer rows
+
+    @Autowired DatabaseClient db;
+    @Autowired ActionRepository actionRepository;
+    @Autowired ActionBatchWriter batchWriter;
+    @Autowired ActionCopyWriter copyWriter;
+
+    @BeforeEach
+    void clean() {
+        db.sql("DELETE FROM actions").fetch().rowsUpdated().block();
+    }
+
+    private static List<ActionEntity> rows(int count) {
+        Instant start = Instant.parse("2025-01-01T12:00:00Z");
+        List<ActionEntity> rows = new ArrayList<>(count);
+        ActionType[] actions = ActionType.values();
+        StorageType[] targets = StorageType.values();
+        for (int i = 0; i < count; i++) {
+            ActionEntity a = new ActionEntity();
+            a.setOrderId("bench-" + i);
+            a.setAction(actions[i % actions.length]);
+            a.setTarget(targets[i % targets.length]);
+            a.setTimestamp(start.plusNanos(i * 1_000L));
+            rows.add(a);
+        }
+        return rows;
+    }
+
+    private double measure(String label, List<ActionEntity> rows, Consumer<List<ActionEntity>> ingest) {
+        ingest.accept(rows(500)); // warm-up: connections, prepared statements, JIT
+        clean();
+        long t0 = System.nanoTime();
+        ingest.accept(rows);
+        double secs = (System.nanoTime() - t0) / 1e9;
+        Long count = db.sql("SELECT COUNT(*) FROM actions").map((row, md) -> row.get(0, Long.class)).one().block();
+        assertThat(count).isEqualTo(rows.size());
+        double rate = rows.size() / secs;
+        System.out.printf("%-20s rows=%6d  %8.1f ms  %10.0f rows/s%n", label, rows.size(), secs * 1e3, rate);
+        return rate;
+    }
+
+    @Test
+    void copyOutpacesRowByRowInserts() {
+        double save = measure("per-row save", rows(SAVE_ROWS),
+                r -> Flux.fromIterable(r).concatMap(actionRepository::save).then().block());
+        double multiRow = measure("multi-row INSERT", rows(ROWS), r -> batchWriter.insertAll(r).block());
+        double copy = measure("COPY (csv)", rows(ROWS), r -> copyWriter.copyAll(r).block());
+
+        System.out.printf("speed-up vs save: multi-row x%.1f, COPY x%.1f%n", multiRow / save, copy / save);
+        assertThat(copy).isGreaterThan(save);
+    }
+}
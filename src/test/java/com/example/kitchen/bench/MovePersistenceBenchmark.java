@@ -0,0 +1,81 @@
+package com.example.kitchen.bench;
+
+import com.example.kitchen.enums.StorageType;
+import com.example.kitchen.enums.Temperature;
+import com.example.kitchen.it.AbstractR2dbcIT;
+import com.example.kitchen.model.Order;
+import com.example.kitchen.repository.StatementCounter;
+import com.example.kitchen.service.KitchenService;
+import com.example.kitchen.service.StorageService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * DB round-trips of a shelf-overflow-heavy workload where every cycle forces one MOVE.
+ * <p>
+ * Needs Docker (Testcontainers Postgres). COOLER and SHELF are kept full of COLD orders; each cycle
+ * picks up one COOLER order, then places a ROOM order on the full shelf, which moves a COLD order
+ * to the COOLER. Statements are counted by {@link StatementCounter}. The read-modify-write MOVE
+ * used to cost three statements (SELECT, full-row UPDATE, action INSERT); the CTE costs one.
+ * <p>
+ * Run with: {@code ./gradlew benchmark --tests '*MovePersistenceBenchmark'}
+ */
+@Tag("benchmark")
+class MovePersistenceBenchmark extends AbstractR2dbcIT {
+
+    private static final int CYCLES = 2_000;
+
+    @Autowired KitchenService kitchenService;
+    @Autowired StorageService storageService;
+    @Autowired StatementCounter statementCounter;
+    @Autowired DatabaseClient db;
+
+    private long count(String action) {
+        return db.sql("SELECT COUNT(*) FROM actions WHERE action = :a").bind("a", action)
+                .map((row, md) -> row.get(0, Long.class)).one().block();
+    }
+
+    private void place(String id, Temperature temp) {
+        kitchenService.placeOrder(new Order(id, "Bench", temp, 3_600, null)).block();
+    }
+
+    @Test
+    void moveCostsOneRoundTrip() {
+        Set<String> cold = new LinkedHashSet<>();
+        int capacity = storageService.getMaxCapacity(StorageType.COOLER) + storageService.getMaxCapacity(StorageType.SHELF);
+        for (int i = 0; i < capacity; i++) {
+            place("cold-" + i, Temperature.COLD);
+            cold.add("cold-" + i);
+        }
+
+        long movesBefore = count("MOVE");
+        long statementsBefore = statementCounter.statements();
+        long t0 = System.nanoTime();
+        for (int i = 0; i < CYCLES; i++) {
+            String inCooler = cold.stream()
+                    .filter(id -> storageService.locate(id).orElse(null) == StorageType.COOLER)
+                    .findFirst().orElseThrow();
+            kitchenService.pickupOrder(inCooler).block();
+            cold.remove(inCooler);
+            place("room-" + i, Temperature.ROOM);   // full shelf: a COLD order moves to the COOLER
+            kitchenService.pickupOrder("room-" + i).block();
+            place("cold-x" + i, Temperature.COLD);  // full COOLER: back onto the shelf
+            cold.add("cold-x" + i);
+        }
+        double ms = (System.nanoTime() - t0) / 1e6;
+        long statements = statementCounter.statements() - statementsBefore;
+        long moves = count("MOVE") - movesBefore;
+
+        System.out.printf("cycles=%d moves=%d statements=%d (%.2f per cycle) in %.0f ms%n",
+                CYCLES, moves, statements, (double) statements / CYCLES, ms);
+        System.out.printf("round-trips saved vs read-modify-write MOVE: %d (2 per move)%n", 2 * moves);
+        assertThat(moves).isEqualTo(CYCLES);
+    }
+}
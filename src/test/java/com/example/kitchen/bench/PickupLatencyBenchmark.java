@@ -0,0 +1,69 @@
+package com.example.kitchen.bench;
+
+import com.example.kitchen.enums.StorageType;
+import com.example.kitchen.enums.Temperature;
+import com.example.kitchen.events.RemoveResult;
+import com.example.kitchen.model.Order;
+import com.example.kitchen.service.StorageService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pickup latency vs. storage capacity.
+ * <p>
+ * Fills a storage to capacity, then repeatedly picks up a random order and puts it back,
+ * so the storage stays full while we time {@code removeByIdWithExpiry}.
+ * With the id-keyed slot index the median should stay flat from 12 to 100k slots.
+ * <p>
+ * Run with: {@code ./gradlew benchmark --tests '*PickupLatencyBenchmark'}
+ */
+@Tag("benchmark")
+class PickupLatencyBenchmark {
+
+    private static final int WARMUP = 2_000;
+    private static final int MEASURED = 10_000;
+
+    static Stream<Arguments> layouts() {
+        return Stream.of(StorageType.HEATER, StorageType.SHELF)
+                .flatMap(type -> Stream.of(12, 1_000, 10_000, 100_000)
+                        .map(capacity -> Arguments.of(type, capacity)));
+    }
+
+    @ParameterizedTest(name = "{0} capacity = {1}")
+    @MethodSource("layouts")
+    void pickupLatencyStaysFlat(StorageType type, int capacity) {
+        StorageService svc = new StorageService(capacity, capacity, capacity);
+        Temperature temp = type == StorageType.HEATER ? Temperature.HOT : Temperature.ROOM;
+        Instant now = Instant.now();
+        Order[] orders = new Order[capacity];
+        for (int i = 0; i < capacity; i++) {
+            orders[i] = new Order("o-" + i, "Bench", temp, 3_600, now);
+            assertTrue(svc.tryAddOrder(type, orders[i]).block());
+        }
+
+        Random rnd = new Random(42);
+        long[] samples = new long[MEASURED];
+        for (int i = 0; i < WARMUP + MEASURED; i++) {
+            Order o = orders[rnd.nextInt(capacity)];
+            long t0 = System.nanoTime();
+            RemoveResult rr = svc.removeByIdWithExpiry(type, o.id()).block();
+            long t1 = System.nanoTime();
+            assertTrue(rr != null && rr.removed());
+            if (i >= WARMUP) samples[i - WARMUP] = t1 - t0;
+            svc.tryAddOrder(type, o).block();
+        }
+
+        Arrays.sort(samples);
+        System.out.printf("pickup %-6s capacity=%-7d p50=%6d ns  p99=%7d ns%n",
+                type, capacity, samples[MEASURED / 2], samples[MEASURED * 99 / 100]);
+    }
+}
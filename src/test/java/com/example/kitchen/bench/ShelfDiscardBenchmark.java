@@ -0,0 +1,59 @@
+package com.example.kitchen.bench;
+
+import com.example.kitchen.enums.StorageType;
+import com.example.kitchen.enums.Temperature;
+import com.example.kitchen.events.DiscardEvent;
+import com.example.kitchen.model.Order;
+import com.example.kitchen.service.StorageService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Shelf overflow cost vs. shelf size.
+ * <p>
+ * Keeps the shelf full and times {@code discardMinFromShelf} followed by a re-add,
+ * i.e. the path an overflowing placement takes. With the indexed heap both stay O(log n).
+ * <p>
+ * Run with: {@code ./gradlew benchmark --tests '*ShelfDiscardBenchmark'}
+ */
+@Tag("benchmark")
+class ShelfDiscardBenchmark {
+
+    private static final int WARMUP = 2_000;
+    private static final int MEASURED = 10_000;
+
+    @ParameterizedTest(name = "shelf capacity = {0}")
+    @ValueSource(ints = {12, 1_000, 10_000, 100_000})
+    void discardMinStaysLogarithmic(int capacity) {
+        StorageService svc = new StorageService(6, 6, capacity);
+        Instant now = Instant.now();
+        Random rnd = new Random(42);
+        for (int i = 0; i < capacity; i++) {
+            Order o = new Order("o-" + i, "Bench", Temperature.ROOM, 600 + rnd.nextInt(3_000), now);
+            assertTrue(svc.tryAddOrder(StorageType.SHELF, o).block());
+        }
+
+        long[] samples = new long[MEASURED];
+        for (int i = 0; i < WARMUP + MEASURED; i++) {
+            long t0 = System.nanoTime();
+            DiscardEvent ev = svc.discardMinFromShelf().block();
+            long t1 = System.nanoTime();
+            assertNotNull(ev);
+            if (i >= WARMUP) samples[i - WARMUP] = t1 - t0;
+            Order next = new Order("n-" + i, "Bench", Temperature.ROOM, 600 + rnd.nextInt(3_000), now);
+            svc.tryAddOrder(StorageType.SHELF, next).block();
+        }
+
+        Arrays.sort(samples);
+        System.out.printf("discardMin capacity=%-7d p50=%6d ns  p99=%7d ns%n",
+                capacity, samples[MEASURED / 2], samples[MEASURED * 99 / 100]);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.kitchen.bench;
+
+import com.example.kitchen.clock.SystemKitchenClock;
+import com.example.kitchen.engine.LockedStorageEngine;
+import com.example.kitchen.engine.SingleWriterStorageEngine;
+import com.example.kitchen.engine.StorageEngine;
+import com.example.kitchen.enums.StorageType;
+import com.example.kitchen.enums.Temperature;
+import com.example.kitchen.model.Order;
+import com.example.kitchen.service.StorageService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Throughput and p99 of the locked (boundedElastic) engine vs. the single-writer engine.
+ * <p>
+ * {@code concurrency} in-flight callers each run place-on-shelf → pickup cycles
+ * through StorageService; latency is measured per cycle (two storage commands).
+ * <p>
+ * Run with: {@code ./gradlew benchmark --tests '*StorageEngineBenchmark'}
+ */
+@Tag("benchmark")
+class StorageEngineBenchmark {
+
+    private static final int CYCLES = 50_000;
+
+    @ParameterizedTest(name = "concurrency = {0}")
+    @ValueSource(ints = {1, 16, 64})
+    void compareEngines(int concurrency) throws Exception {
+        run("locked       ", new LockedStorageEngine(), concurrency);
+        try (SingleWriterStorageEngine single = new SingleWriterStorageEngine(8_192)) {
+            run("single-writer", single, concurrency);
+        }
+    }
+
+    private static void run(String name, StorageEngine engine, int concurrency) {
+        StorageService svc = new StorageService(engine, new SystemKitchenClock(), 6, 6, 1_024);
+        Instant now = Instant.now();
+        AtomicInteger ids = new AtomicInteger();
+        long[] samples = new long[CYCLES];
+        AtomicInteger n = new AtomicInteger();
+
+        long t0 = System.nanoTime();
+        Flux.range(0, CYCLES)
+                .flatMap(i -> Mono.defer(() -> {
+                    long start = System.nanoTime();
+                    Order o = new Order("e-" + ids.incrementAndGet(), "Bench", Temperature.ROOM, 600, now);
+                    return svc.tryAddOrder(StorageType.SHELF, o)
+                            .then(svc.removeByIdWithExpiry(StorageType.SHELF, o.id()))
+                            .doOnSuccess(r -> samples[n.getAndIncrement()] = System.nanoTime() - start);
+                }), concurrency)
+                .blockLast();
+        long elapsed = System.nanoTime() - t0;
+
+        Arrays.sort(samples);
+        System.out.printf("engine %s concurrency=%-3d %,10.0f cycles/s  p50=%7d ns  p99=%8d ns%n",
+                name, concurrency, CYCLES / (elapsed / 1e9), samples[CYCLES / 2], samples[CYCLES * 99 / 100]);
+    }
+}
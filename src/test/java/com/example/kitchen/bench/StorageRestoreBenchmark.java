@@ -0,0 +1,81 @@
+package com.example.kitchen.bench;
+
+import com.example.kitchen.enums.StorageType;
+import com.example.kitchen.enums.Temperature;
+import com.example.kitchen.model.Order;
+import com.example.kitchen.service.StorageService;
+import com.example.kitchen.storage.MappedStorageJournal;
+import com.example.kitchen.storage.StoredOrder;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Restart time of StorageService with the storage journal.
+ * <p>
+ * Journals {@code live} placements (a third each on HEATER, COOLER, SHELF) plus a churn of
+ * place/pickup pairs, then times recovery: read checkpoint + journal tail, rebuild storages.
+ * Measured once from the raw journal tail and once after a checkpoint; 100k live orders should
+ * come back well under a second either way.
+ * <p>
+ * Run with: {@code ./gradlew benchmark --tests '*StorageRestoreBenchmark'}
+ */
+@Tag("benchmark")
+class StorageRestoreBenchmark {
+
+    private static final int SEGMENT = 64 * 1024 * 1024;
+
+    @TempDir
+    Path dir;
+
+    @ParameterizedTest(name = "live orders = {0}")
+    @ValueSource(ints = {10_000, 100_000})
+    void restoreStaysUnderOneSecond(int live) throws IOException {
+        int perStorage = live / 3 + 1;
+        Instant now = Instant.now();
+        StorageService before = new StorageService(perStorage, perStorage, perStorage);
+        long t0 = System.nanoTime();
+        try (MappedStorageJournal journal = MappedStorageJournal.open(dir, SEGMENT)) {
+            before.journalTo(journal);
+            Temperature[] temps = Temperature.values();
+            for (int i = 0; i < live; i++) {
+                Temperature t = temps[i % 3];
+                assertTrue(before.tryAddOrder(before.idealFor(t), new Order("o-" + i, "Bench", t, 3_600, now)).block());
+            }
+            // churn: orders that come and go leave records but no state
+            for (int i = 0; i < live; i++) {
+                Order o = new Order("x-" + i, "Churn", Temperature.ROOM, 3_600, now);
+                if (before.tryAddOrder(StorageType.SHELF, o).block()) before.removeByIdWithExpiry(StorageType.SHELF, o.id()).block();
+            }
+        }
+        long journalNanos = System.nanoTime() - t0;
+
+        long tailNanos = restore(live, perStorage);
+        try (MappedStorageJournal journal = MappedStorageJournal.open(dir, SEGMENT)) {
+            journal.checkpoint();
+        }
+        long checkpointNanos = restore(live, perStorage);
+
+        System.out.printf("live=%-7d journaled workload %6d ms  restore from tail %5d ms  from checkpoint %5d ms%n",
+                live, journalNanos / 1_000_000, tailNanos / 1_000_000, checkpointNanos / 1_000_000);
+    }
+
+    private long restore(int live, int perStorage) throws IOException {
+        long t0 = System.nanoTime();
+        StorageService after = new StorageService(perStorage, perStorage, perStorage);
+        try (MappedStorageJournal journal = MappedStorageJournal.open(dir, SEGMENT)) {
+            List<StoredOrder> recovered = journal.drainRecovered();
+            assertEquals(live, after.restore(recovered).block());
+        }
+        return System.nanoTime() - t0;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.kitchen.bench;
+
+import com.example.kitchen.storage.TimingWheel;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Expiry wheel cost vs. number of pending deadlines.
+ * <p>
+ * Fills the wheel with deadlines spread over an hour (100 ms ticks), then times
+ * schedule + cancel pairs (a move's reschedule). Both should stay flat in n; finally
+ * advances to the end and checks every deadline fired.
+ * <p>
+ * Run with: {@code ./gradlew benchmark --tests '*TimingWheelBenchmark'}
+ */
+@Tag("benchmark")
+class TimingWheelBenchmark {
+
+    private static final long TICK_MICROS = 100_000;
+    private static final long HORIZON_MICROS = 3_600_000_000L;
+    private static final int WARMUP = 20_000;
+    private static final int MEASURED = 100_000;
+
+    @ParameterizedTest(name = "pending = {0}")
+    @ValueSource(ints = {1_000, 100_000, 1_000_000})
+    void scheduleAndCancelStayConstant(int pending) {
+        TimingWheel<Integer> wheel = new TimingWheel<>(TICK_MICROS, 512, 0);
+        Random rnd = new Random(42);
+        for (int i = 0; i < pending; i++) wheel.schedule(i, rnd.nextLong(HORIZON_MICROS));
+
+        long[] samples = new long[MEASURED];
+        for (int i = 0; i < WARMUP + MEASURED; i++) {
+            long deadline = rnd.nextLong(HORIZON_MICROS);
+            long t0 = System.nanoTime();
+            TimingWheel.Timeout<Integer> t = wheel.schedule(-1, deadline);
+            wheel.cancel(t);
+            long t1 = System.nanoTime();
+            if (i >= WARMUP) samples[i - WARMUP] = t1 - t0;
+        }
+
+        long a0 = System.nanoTime();
+        int fired = wheel.advance(HORIZON_MICROS, v -> { });
+        long a1 = System.nanoTime();
+        assertEquals(pending, fired);
+
+        Arrays.sort(samples);
+        System.out.printf("schedule+cancel pending=%-8d p50=%5d ns  p99=%6d ns  drain=%5d ms%n",
+                pending, samples[MEASURED / 2], samples[MEASURED * 99 / 100], (a1 - a0) / 1_000_000);
+    }
+}
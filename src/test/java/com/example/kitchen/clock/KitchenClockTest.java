@@ -0,0 +1,51 @@
+package com.example.kitchen.clock;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KitchenClockTest {
+
+    // --- micros <-> Instant keeps microsecond precision, also before the epoch
+    @Test
+    void shouldConvertBetweenInstantAndMicros() {
+        Instant t = Instant.parse("2025-01-01T12:00:00.123456Z");
+        assertEquals(t, KitchenClock.ofMicros(KitchenClock.toMicros(t)));
+        assertEquals(-1, KitchenClock.toMicros(Instant.EPOCH.minusNanos(1_000)));
+        assertEquals(Instant.EPOCH.minusNanos(1_000), KitchenClock.ofMicros(-1));
+    }
+
+    // --- virtual time only moves when advanced, and never backwards
+    @Test
+    void shouldAdvanceVirtualTimeManually() {
+        Instant start = Instant.parse("2025-01-01T12:00:00Z");
+        VirtualKitchenClock clock = new VirtualKitchenClock(start);
+        assertEquals(start, clock.now());
+
+        clock.advance(Duration.ofMinutes(10));
+        assertEquals(start.plusSeconds(600), clock.now());
+        clock.advanceMicros(1);
+        assertEquals(KitchenClock.toMicros(start) + 600_000_001L, clock.nowMicros());
+
+        clock.advanceTo(start); // in the past: ignored
+        assertEquals(start.plusSeconds(600).plusNanos(1_000), clock.now());
+        assertThrows(IllegalArgumentException.class, () -> clock.advanceMicros(-1));
+    }
+
+    // --- real time is close to the wall clock and monotonic
+    @Test
+    void shouldTrackWallClockMonotonically() {
+        SystemKitchenClock clock = new SystemKitchenClock();
+        long wall = KitchenClock.toMicros(Instant.now());
+        long prev = clock.nowMicros();
+        assertTrue(Math.abs(prev - wall) < 1_000_000L, "within 1s of the wall clock");
+        for (int i = 0; i < 10_000; i++) {
+            long now = clock.nowMicros();
+            assertTrue(now >= prev);
+            prev = now;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.kitchen.engine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleWriterStorageEngineTest {
+
+    private SingleWriterStorageEngine engine;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (engine != null) engine.close();
+    }
+
+    // --- all commands run on the single writer thread, results come back as Monos
+    @Test
+    void shouldRunEveryCommandOnTheWriterThread() {
+        engine = new SingleWriterStorageEngine(1_024);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        Long sum = Flux.range(1, 100)
+                .flatMap(i -> engine.execute(() -> {
+                    threads.add(Thread.currentThread().getName());
+                    return (long) i;
+                }), 32)
+                .reduce(0L, Long::sum)
+                .block();
+
+        assertEquals(5_050L, sum);
+        assertEquals(Set.of("storage-writer"), threads);
+    }
+
+    // --- null result completes empty, exceptions are propagated to the caller
+    @Test
+    void shouldCompleteEmptyOnNull_andPropagateErrors() {
+        engine = new SingleWriterStorageEngine(16);
+
+        StepVerifier.create(engine.execute(() -> null)).verifyComplete();
+        StepVerifier.create(engine.execute(() -> {
+                    throw new IllegalStateException("boom");
+                }))
+                .expectErrorMessage("boom")
+                .verify();
+    }
+
+    // --- a full queue rejects instead of blocking the caller
+    @Test
+    void shouldReject_whenQueueIsFull() throws Exception {
+        engine = new SingleWriterStorageEngine(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+
+        engine.execute(() -> {
+            running.countDown();
+            release.await();
+            return 1;
+        }).subscribe();
+        running.await();
+        engine.execute(() -> 2).subscribe(); // occupies the only queue slot
+
+        StepVerifier.create(engine.execute(() -> 3))
+                .expectError(RejectedExecutionException.class)
+                .verify();
+        release.countDown();
+    }
+
+    // --- close drains queued work, later submissions are rejected
+    @Test
+    void shouldDrainOnClose_andRejectAfterwards() throws Exception {
+        engine = new SingleWriterStorageEngine(16);
+        Mono<Integer> queued = engine.execute(() -> 42).cache();
+        queued.subscribe();
+        engine.close();
+
+        assertEquals(42, queued.block());
+        StepVerifier.create(engine.execute(() -> 1))
+                .expectError(RejectedExecutionException.class)
+                .verify();
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.kitchen.events;
+
+import com.example.kitchen.dto.KitchenEventDto;
+import com.example.kitchen.enums.ActionType;
+import com.example.kitchen.enums.StorageType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KitchenEventBusTest {
+
+    private static final Instant T0 = Instant.parse("2025-01-01T12:00:00Z");
+
+    private KitchenEventBus bus = new KitchenEventBus(1_024, 4, Schedulers.immediate());
+
+    @AfterEach
+    void close() throws InterruptedException {
+        bus.close();
+    }
+
+    private static KitchenEventDto event(String orderId, ActionType action, StorageType target) {
+        return new KitchenEventDto(T0, orderId, action, target, null);
+    }
+
+    private static <T> Set<T> none() {
+        return Set.of();
+    }
+
+    private void awaitSubscribers(int count) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (bus.subscriberCount() < count) {
+            if (System.nanoTime() > deadline) fail("subscribers: " + bus.subscriberCount());
+            Thread.onSpinWait();
+        }
+    }
+
+    // --- storage and action filters; empty sets match everything
+    @Test
+    void shouldDeliverMatchingEvents() {
+        StepVerifier.create(bus.subscribe(EnumSet.of(StorageType.SHELF), EnumSet.of(ActionType.DISCARD, ActionType.MOVE),
+                        KitchenEventBus.Overflow.DROP_OLDEST).take(2))
+                .then(() -> {
+                    bus.publish(event("a", ActionType.PLACE, StorageType.SHELF));
+                    bus.publish(event("b", ActionType.DISCARD, StorageType.HEATER));
+                    bus.publish(event("c", ActionType.DISCARD, StorageType.SHELF));
+                    bus.publish(event("d", ActionType.MOVE, StorageType.SHELF));
+                })
+                .expectNextMatches(e -> e.orderId().equals("c"))
+                .expectNextMatches(e -> e.orderId().equals("d"))
+                .verifyComplete();
+
+        StepVerifier.create(bus.subscribe(none(), none(), KitchenEventBus.Overflow.DROP_OLDEST).take(1))
+                .then(() -> bus.publish(event("e", ActionType.PICKUP, StorageType.COOLER)))
+                .expectNextMatches(e -> e.orderId().equals("e"))
+                .verifyComplete();
+        assertEquals(5, bus.published());
+    }
+
+    private static List<String> ids(int from, int to) {
+        List<String> ids = new java.util.ArrayList<>();
+        for (int i = from; i < to; i++) ids.add("o" + i);
+        return ids;
+    }
+
+    private static void await(java.util.function.BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) fail("timed out");
+            Thread.onSpinWait();
+        }
+    }
+
+    // --- a subscriber that stops reading loses its own events (oldest first); the others get all of them
+    @Test
+    void shouldIsolateSlowSubscriber() {
+        List<String> fast = new CopyOnWriteArrayList<>();
+        List<String> slow = new CopyOnWriteArrayList<>();
+        bus.subscribe(none(), none(), KitchenEventBus.Overflow.DROP_OLDEST).subscribe(e -> fast.add(e.orderId()));
+        BaseSubscriber<KitchenEventDto> stalled = new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(org.reactivestreams.Subscription s) {
+                request(1);
+            }
+
+            @Override
+            protected void hookOnNext(KitchenEventDto e) {
+                slow.add(e.orderId());
+            }
+        };
+        bus.subscribe(none(), none(), KitchenEventBus.Overflow.DROP_OLDEST).subscribe(stalled);
+        awaitSubscribers(2);
+
+        // one at a time: every event is its own batch
+        for (int i = 0; i < 100; i++) {
+            bus.publish(event("o" + i, ActionType.PLACE, StorageType.SHELF));
+            int seen = i + 1;
+            await(() -> fast.size() == seen);
+        }
+
+        assertEquals(ids(0, 100), fast);
+        assertEquals(List.of("o0"), slow);
+        // two batches in the hand-off, then the buffer of 4 keeps the newest
+        stalled.request(100);
+        assertEquals(List.of("o0", "o1", "o2", "o96", "o97", "o98", "o99"), slow);
+        assertEquals(93, bus.subscriberDrops());
+        stalled.dispose();
+    }
+
+    // --- under a burst events are batched, but every subscriber still sees them in order
+    @Test
+    void shouldKeepOrderAcrossBatches() throws InterruptedException {
+        List<String> got = new CopyOnWriteArrayList<>();
+        bus.close();
+        bus = new KitchenEventBus(10_000, 1_000, Schedulers.immediate());
+        bus.subscribe(none(), EnumSet.of(ActionType.PLACE), KitchenEventBus.Overflow.DROP_NEWEST)
+                .subscribe(e -> got.add(e.orderId()));
+        awaitSubscribers(1);
+
+        for (int i = 0; i < 5_000; i++) {
+            bus.publish(event("o" + i, i % 2 == 0 ? ActionType.PLACE : ActionType.PICKUP, StorageType.SHELF));
+        }
+        await(() -> got.size() == 2_500);
+        for (int i = 0; i < 2_500; i++) assertEquals("o" + 2 * i, got.get(i));
+        assertEquals(0, bus.subscriberDrops());
+    }
+
+    // --- LATEST keeps only the most recent event for a stalled subscriber
+    @Test
+    void shouldKeepLatestOnly() {
+        List<String> got = new CopyOnWriteArrayList<>();
+        BaseSubscriber<KitchenEventDto> stalled = new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(org.reactivestreams.Subscription s) {
+            }
+
+            @Override
+            protected void hookOnNext(KitchenEventDto e) {
+                got.add(e.orderId());
+            }
+        };
+        bus.subscribe(none(), none(), KitchenEventBus.Overflow.LATEST).subscribe(stalled);
+        awaitSubscribers(1);
+        for (int i = 0; i < 10; i++) bus.publish(event("o" + i, ActionType.PLACE, StorageType.SHELF));
+        awaitDispatched();
+
+        stalled.request(5);
+        // at most two batches were already in the hand-off; after them, only the latest event
+        assertTrue(got.size() <= 3, got.toString());
+        assertEquals("o9", got.get(got.size() - 1));
+        stalled.dispose();
+    }
+
+    // --- close completes subscribers; afterwards publish drops and counts instead of blocking
+    @Test
+    void shouldCompleteOnCloseAndDropAfterwards() {
+        StepVerifier.create(bus.subscribe(none(), none(), KitchenEventBus.Overflow.DROP_NEWEST))
+                .then(() -> {
+                    try {
+                        bus.close();
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .verifyComplete();
+        bus.publish(event("late", ActionType.PLACE, StorageType.SHELF));
+        assertEquals(1, bus.dropped());
+        assertEquals(0, bus.published());
+    }
+
+    private void awaitDispatched() {
+        // the dispatcher drains the queue into the sink; give it a moment after the last publish
+        try {
+            Thread.sleep(200);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -29,7 +29,9 @@ import static org.assertj.core.api.Assertions.assertThat;
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 @TestPropertySource(properties = {
         "spring.sql.init.mode=always",
-        "spring.codec.max-in-memory-size=10MB"
+        "spring.codec.max-in-memory-size=10MB",
+        // schema.sql keeps actions unpartitioned
+        "kitchen.ledger.partitions.enabled=false"
 })
 public abstract class AbstractR2dbcIT {
 
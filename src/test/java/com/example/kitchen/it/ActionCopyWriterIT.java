@@ -0,0 +1,55 @@
+package com.example.kitchen.it;
+
+import com.example.kitchen.enums.ActionType;
+import com.example.kitchen.enums.StorageType;
+import com.example.kitchen.model.ActionEntity;
+import com.example.kitchen.repository.ActionBatchWriter;
+import com.example.kitchen.repository.ActionCopyWriter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ActionCopyWriterIT extends AbstractR2dbcIT {
+
+    private static final Instant TS = Instant.parse("2025-01-01T23:30:00.123456Z");
+
+    @Autowired ActionBatchWriter batchWriter;
+    @Autowired ActionCopyWriter copyWriter;
+    @Autowired DatabaseClient db;
+
+    @BeforeEach
+    void setUp() {
+        db.sql("DELETE FROM actions").fetch().rowsUpdated().block();
+    }
+
+    private static ActionEntity action(String orderId) {
+        ActionEntity a = new ActionEntity();
+        a.setOrderId(orderId);
+        a.setAction(ActionType.PLACE);
+        a.setTarget(StorageType.SHELF);
+        a.setTimestamp(TS);
+        return a;
+    }
+
+    // --- a COPY row and an INSERT row of the same instant store the same UTC wall time and read back equal
+    @Test
+    void shouldStoreSameTimestamp_forCopyAndInsert() {
+        batchWriter.insertAll(List.of(action("inserted"))).block();
+        copyWriter.copyAll(List.of(action("copied"))).block();
+
+        assertThat(db.sql("SHOW TimeZone").map((row, md) -> row.get(0, String.class)).one().block())
+                .isEqualTo("UTC");
+        assertThat(db.sql("SELECT ts::text FROM actions ORDER BY order_id")
+                .map((row, md) -> row.get(0, String.class)).all().collectList().block())
+                .containsExactly("2025-01-01 23:30:00.123456", "2025-01-01 23:30:00.123456");
+        assertThat(db.sql("SELECT ts FROM actions ORDER BY order_id")
+                .map((row, md) -> row.get(0, Instant.class)).all().collectList().block())
+                .containsExactly(TS, TS);
+    }
+}
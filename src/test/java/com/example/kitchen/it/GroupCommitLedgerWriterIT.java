@@ -0,0 +1,99 @@
+package com.example.kitchen.it;
+
+import com.example.kitchen.enums.ActionType;
+import com.example.kitchen.enums.StorageType;
+import com.example.kitchen.ledger.GroupCommitLedgerWriter;
+import com.example.kitchen.model.ActionEntity;
+import com.example.kitchen.repository.ActionBatchWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class GroupCommitLedgerWriterIT extends AbstractR2dbcIT {
+
+    @Autowired ActionBatchWriter batchWriter;
+    @Autowired TransactionalOperator tx;
+    @Autowired DatabaseClient db;
+
+    private GroupCommitLedgerWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        db.sql("DELETE FROM actions").fetch().rowsUpdated().block();
+        db.sql("DELETE FROM orders").fetch().rowsUpdated().block();
+        db.sql("INSERT INTO orders (id, name, temp) VALUES ('taken', 'Soup', 'HOT')").fetch().rowsUpdated().block();
+        // a long window: the three units below share one transaction
+        writer = new GroupCommitLedgerWriter(batchWriter, tx, db, 1_024, 100, Duration.ofMillis(300), Duration.ofSeconds(10));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        writer.close();
+    }
+
+    // a unit of work: insert an order row, append its PLACE action
+    private CompletableFuture<Long> unit(String id) {
+        return unit(id, null);
+    }
+
+    private CompletableFuture<Long> unit(String id, String runId) {
+        ActionEntity action = new ActionEntity();
+        action.setOrderId(id);
+        action.setAction(ActionType.PLACE);
+        action.setTarget(StorageType.SHELF);
+        action.setTimestamp(Instant.now());
+        action.setRunId(runId);
+        return writer.transactional(db.sql("INSERT INTO orders (id, name, temp) VALUES (:id, 'Pizza', 'HOT')")
+                        .bind("id", id)
+                        .fetch().rowsUpdated()
+                        .flatMap(n -> writer.append(action).thenReturn(n)))
+                .toFuture();
+    }
+
+    private List<String> column(String sql) {
+        return db.sql(sql).map((row, md) -> row.get(0, String.class)).all().collectList().block();
+    }
+
+    @Test
+    void shouldCommitOtherUnits_whenOneViolatesAConstraint() {
+        CompletableFuture<Long> first = unit("a");
+        CompletableFuture<Long> duplicate = unit("taken");
+        CompletableFuture<Long> last = unit("b");
+
+        assertThat(first.join()).isEqualTo(1L);
+        assertThat(last.join()).isEqualTo(1L);
+        assertThatThrownBy(duplicate::join).hasCauseInstanceOf(DataIntegrityViolationException.class);
+        assertThat(writer.stats().commits()).isEqualTo(1);
+        assertThat(column("SELECT id FROM orders ORDER BY id")).containsExactly("a", "b", "taken");
+        assertThat(column("SELECT order_id FROM actions ORDER BY id")).containsExactly("a", "b");
+    }
+
+    @Test
+    void shouldCommitOtherUnits_whenOneUnitsActionFails() {
+        CompletableFuture<Long> first = unit("a");
+        // run_id is VARCHAR(64): this action breaks the shared INSERT
+        CompletableFuture<Long> tooLong = unit("bad", "r".repeat(65));
+        CompletableFuture<Long> last = unit("b");
+
+        assertThat(first.join()).isEqualTo(1L);
+        assertThat(last.join()).isEqualTo(1L);
+        assertThatThrownBy(tooLong::join).hasCauseInstanceOf(DataAccessException.class);
+        assertThat(writer.stats().commits()).isEqualTo(1);
+        assertThat(column("SELECT id FROM orders ORDER BY id")).containsExactly("a", "b", "taken");
+        assertThat(column("SELECT order_id FROM actions ORDER BY id")).containsExactly("a", "b");
+    }
+}
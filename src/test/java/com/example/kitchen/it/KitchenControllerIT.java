@@ -1,5 +1,6 @@
 package com.example.kitchen.it;
 
+import com.example.kitchen.dto.LedgerPage;
 import com.example.kitchen.enums.Temperature;
 import com.example.kitchen.model.ActionEntity;
 import org.junit.jupiter.api.Test;
@@ -8,6 +9,7 @@ import org.springframework.http.MediaType;
 import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
+import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -37,16 +39,22 @@ public class KitchenControllerIT extends AbstractR2dbcIT {
                 .expectStatus().is2xxSuccessful();
     }
 
-    @Test
-    void shouldReturnOkAndWritePlace_whenPostOrder() {
-        postOrder("ord-1", "Cheese Pizza", Temperature.HOT, 120);
-
-        var actions = web.get().uri("/api/ledger")
+    private List<ActionEntity> ledger() {
+        LedgerPage page = web.get().uri("/api/ledger?limit=1000")
                 .exchange()
                 .expectStatus().is2xxSuccessful()
-                .expectBodyList(ActionEntity.class)
+                .expectBody(LedgerPage.class)
                 .returnResult()
                 .getResponseBody();
+        assertThat(page).isNotNull();
+        return page.items();
+    }
+
+    @Test
+    void shouldReturnOkAndWritePlace_whenPostOrder() {
+        postOrder("ord-1", "Cheese Pizza", Temperature.HOT, 120);
+
+        var actions = ledger();
 
         assertThat(actions).isNotNull();
         assertThat(actions).anySatisfy(a -> {
@@ -60,12 +68,7 @@ public class KitchenControllerIT extends AbstractR2dbcIT {
         postOrder("ord-2", "Soup", Temperature.HOT, 60); // goes to HEATER (ideal)
         pickup("ord-2");
 
-        var actions = web.get().uri("/api/ledger")
-                .exchange()
-                .expectStatus().is2xxSuccessful()
-                .expectBodyList(ActionEntity.class)
-                .returnResult()
-                .getResponseBody();
+        var actions = ledger();
 
         assertThat(actions).isNotNull();
         // expect PLACE then PICKUP for ord-2
@@ -88,16 +91,88 @@ public class KitchenControllerIT extends AbstractR2dbcIT {
 
         pickup("cold-exp");
 
-        var actions = web.get().uri("/api/ledger")
-                .exchange()
-                .expectStatus().is2xxSuccessful()
-                .expectBodyList(ActionEntity.class)
-                .returnResult()
-                .getResponseBody();
+        var actions = ledger();
 
         assertThat(actions).isNotNull();
         assertThat(actions).filteredOn(a -> "cold-exp".equals(a.getOrderId()))
                 .extracting(a -> a.getAction().name())
                 .contains("PLACE", "DISCARD");
     }
+
+    @Test
+    void shouldPlaceAndPickupBatch_withSetBasedWrites() {
+        web.post().uri("/api/orders/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of(
+                        Map.of("id", "bat-1", "name", "Soup", "temp", "HOT", "freshness", 60),
+                        Map.of("id", "bat-2", "name", "Cola", "temp", "COLD", "freshness", 60),
+                        Map.of("id", "bat-1", "name", "Soup", "temp", "HOT", "freshness", 60)))
+                .exchange()
+                .expectStatus().is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$[0].status").isEqualTo("PLACED")
+                .jsonPath("$[1].storage").isEqualTo("COOLER")
+                .jsonPath("$[2].status").isEqualTo("REJECTED");
+
+        Integer rows = db.sql("SELECT COUNT(*) FROM orders WHERE id IN ('bat-1', 'bat-2')")
+                .map((row, md) -> row.get(0, Integer.class)).one().block();
+        assertThat(rows).isEqualTo(2);
+
+        web.post().uri("/api/orders/pickup/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of("bat-1", "bat-2", "missing"))
+                .exchange()
+                .expectStatus().is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$[0].status").isEqualTo("PICKED_UP")
+                .jsonPath("$[1].status").isEqualTo("PICKED_UP")
+                .jsonPath("$[2].status").isEqualTo("NOT_FOUND");
+
+        Integer pickups = db.sql("SELECT COUNT(*) FROM actions WHERE action = 'PICKUP' AND order_id IN ('bat-1', 'bat-2')")
+                .map((row, md) -> row.get(0, Integer.class)).one().block();
+        assertThat(pickups).isEqualTo(2);
+    }
+
+    @Test
+    void shouldPageLedgerWithKeysetCursor_andFilterByOrder() {
+        for (int i = 0; i < 5; i++) postOrder("page-" + i, "Soup", Temperature.HOT, 120);
+
+        LedgerPage first = web.get().uri("/api/ledger?limit=2&action=PLACE")
+                .exchange().expectStatus().is2xxSuccessful()
+                .expectBody(LedgerPage.class).returnResult().getResponseBody();
+        assertThat(first).isNotNull();
+        assertThat(first.items()).hasSize(2);
+        assertThat(first.next()).isNotNull();
+
+        LedgerPage second = web.get().uri(b -> b.path("/api/ledger").queryParam("limit", 2)
+                        .queryParam("action", "PLACE").queryParam("after", first.next()).build())
+                .exchange().expectStatus().is2xxSuccessful()
+                .expectBody(LedgerPage.class).returnResult().getResponseBody();
+        assertThat(second).isNotNull();
+        assertThat(second.items()).extracting(ActionEntity::getOrderId)
+                .doesNotContainAnyElementsOf(first.items().stream().map(ActionEntity::getOrderId).toList());
+
+        LedgerPage one = web.get().uri("/api/ledger?orderId=page-3")
+                .exchange().expectStatus().is2xxSuccessful()
+                .expectBody(LedgerPage.class).returnResult().getResponseBody();
+        assertThat(one).isNotNull();
+        assertThat(one.items()).extracting(ActionEntity::getOrderId).containsOnly("page-3");
+        assertThat(one.next()).isNull();
+    }
+
+    @Test
+    void shouldStreamLedgerAsNdjson() {
+        for (int i = 0; i < 3; i++) postOrder("stream-" + i, "Soup", Temperature.HOT, 120);
+
+        var streamed = web.get().uri("/api/ledger/stream?action=PLACE")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().is2xxSuccessful()
+                .returnResult(ActionEntity.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertThat(streamed).extracting(ActionEntity::getOrderId).contains("stream-0", "stream-1", "stream-2");
+    }
 }
@@ -0,0 +1,205 @@
+package com.example.kitchen.ledger;
+
+import com.example.kitchen.enums.ActionType;
+import com.example.kitchen.enums.StorageType;
+import com.example.kitchen.model.ActionEntity;
+import com.example.kitchen.repository.ActionBatchWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GroupCommitLedgerWriterTest {
+
+    private final ActionBatchWriter batchWriter = mock(ActionBatchWriter.class);
+    private final TransactionalOperator tx = mock(TransactionalOperator.class);
+    // savepoint statements
+    private final DatabaseClient db = mock(DatabaseClient.class);
+    private final DatabaseClient.GenericExecuteSpec statement = mock(DatabaseClient.GenericExecuteSpec.class);
+    // every committed INSERT, in commit order
+    private final List<List<ActionEntity>> inserts = Collections.synchronizedList(new ArrayList<>());
+    private GroupCommitLedgerWriter writer;
+
+    private static ActionEntity action(int i) {
+        ActionEntity a = new ActionEntity();
+        a.setOrderId("o" + i);
+        a.setAction(ActionType.PLACE);
+        a.setTarget(StorageType.SHELF);
+        a.setTimestamp(Instant.EPOCH.plusSeconds(i));
+        return a;
+    }
+
+    @SuppressWarnings("unchecked")
+    @BeforeEach
+    void setUp() {
+        when(tx.transactional(any(Mono.class))).thenAnswer(returnsFirstArg());
+        when(db.sql(anyString())).thenReturn(statement);
+        when(statement.then()).thenReturn(Mono.empty());
+    }
+
+    private void recordInserts() {
+        when(batchWriter.insertAll(anyList())).thenAnswer(inv -> {
+            inserts.add(List.copyOf(inv.<List<ActionEntity>>getArgument(0)));
+            return Mono.empty();
+        });
+    }
+
+    private GroupCommitLedgerWriter writer(int capacity, int maxGroup, Duration window) {
+        return new GroupCommitLedgerWriter(batchWriter, tx, db, capacity, maxGroup, window, Duration.ofSeconds(10));
+    }
+
+    // a unit of work: append one action, answer with its number
+    private Mono<Integer> unit(int i) {
+        return writer.transactional(writer.append(action(i)).thenReturn(i));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (writer != null) writer.close();
+    }
+
+    // --- units arriving within the window share one commit and one INSERT; each caller gets its own result
+    @Test
+    void shouldShareOneCommitAcrossConcurrentUnits() {
+        recordInserts();
+        writer = writer(1_024, 100, Duration.ofMillis(300));
+
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 20; i++) results.add(unit(i).toFuture());
+
+        for (int i = 0; i < 20; i++) assertEquals(i, results.get(i).join());
+        assertEquals(1, inserts.size());
+        assertEquals(20, inserts.get(0).size());
+        assertEquals(action(0).getOrderId(), inserts.get(0).get(0).getOrderId());
+        GroupCommitLedgerWriter.Stats stats = writer.stats();
+        assertEquals(1, stats.commits());
+        assertEquals(20, stats.units());
+        assertEquals(20, stats.actions());
+        assertEquals(20.0, stats.unitsPerCommit());
+    }
+
+    // --- a caller is not acknowledged before the shared transaction has committed
+    @Test
+    void shouldAcknowledgeOnlyAfterCommit() throws Exception {
+        CountDownLatch commitMayFinish = new CountDownLatch(1);
+        when(batchWriter.insertAll(anyList())).thenReturn(Mono.fromRunnable(() -> {
+            try {
+                commitMayFinish.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        writer = writer(1_024, 100, Duration.ZERO);
+
+        CompletableFuture<Integer> result = unit(1).toFuture();
+
+        Thread.sleep(100);
+        assertFalse(result.isDone());
+        commitMayFinish.countDown();
+        assertEquals(1, result.get(5, TimeUnit.SECONDS));
+    }
+
+    // --- a failed commit fails every unit of the group
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldFailEveryUnitWhenCommitFails() {
+        recordInserts();
+        when(tx.transactional(any(Mono.class)))
+                .thenAnswer(inv -> inv.<Mono<?>>getArgument(0).then(Mono.error(new IllegalStateException("db down"))));
+        writer = writer(1_024, 100, Duration.ofMillis(300));
+
+        CompletableFuture<Integer> first = unit(1).toFuture();
+        CompletableFuture<Integer> second = unit(2).toFuture();
+
+        for (CompletableFuture<Integer> f : List.of(first, second)) {
+            Throwable error = assertThrows(Exception.class, f::join).getCause();
+            assertInstanceOf(IllegalStateException.class, error);
+        }
+        assertEquals(0, writer.stats().commits());
+    }
+
+    // --- an action that breaks the shared INSERT fails only its own unit: the group is run again, one INSERT per unit
+    @Test
+    void shouldFailOnlyTheUnitWhoseActionsFail() {
+        when(batchWriter.insertAll(anyList())).thenAnswer(inv -> {
+            List<ActionEntity> rows = List.copyOf(inv.getArgument(0));
+            if (rows.stream().anyMatch(a -> a.getOrderId().equals("o2"))) {
+                return Mono.error(new IllegalStateException("value too long"));
+            }
+            inserts.add(rows);
+            return Mono.empty();
+        });
+        writer = writer(1_024, 100, Duration.ofMillis(300));
+
+        CompletableFuture<Integer> first = unit(1).toFuture();
+        CompletableFuture<Integer> bad = unit(2).toFuture();
+        CompletableFuture<Integer> last = unit(3).toFuture();
+
+        assertEquals(1, first.join());
+        assertEquals(3, last.join());
+        assertInstanceOf(IllegalStateException.class, assertThrows(Exception.class, bad::join).getCause());
+        assertEquals(List.of("o1", "o3"), inserts.stream().flatMap(List::stream).map(ActionEntity::getOrderId).toList());
+        assertEquals(1, writer.stats().commits());
+        assertEquals(2, writer.stats().actions());
+    }
+
+    // --- a full queue rejects instead of blocking the caller
+    @Test
+    void shouldRejectWhenQueueIsFull() {
+        CountDownLatch commitMayFinish = new CountDownLatch(1);
+        CountDownLatch committing = new CountDownLatch(1);
+        when(batchWriter.insertAll(anyList())).thenReturn(Mono.fromRunnable(() -> {
+            committing.countDown();
+            try {
+                commitMayFinish.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        writer = writer(1, 1, Duration.ZERO);
+
+        CompletableFuture<Integer> first = unit(1).toFuture();
+        assertDoesNotThrow(() -> committing.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Integer> queued = unit(2).toFuture();
+
+        StepVerifier.create(unit(3)).expectError(RejectedExecutionException.class).verify();
+        commitMayFinish.countDown();
+        assertEquals(1, first.join());
+        assertEquals(2, queued.join());
+    }
+
+    // --- an append outside any unit is committed on its own; close() commits what is still queued
+    @Test
+    void shouldCommitQueuedUnitsOnClose() throws Exception {
+        recordInserts();
+        writer = writer(1_024, 100, Duration.ofMillis(200));
+
+        CompletableFuture<Void> result = writer.appendAll(List.of(action(1), action(2))).toFuture();
+        writer.close();
+
+        result.get(5, TimeUnit.SECONDS);
+        assertEquals(2, inserts.stream().mapToInt(List::size).sum());
+        StepVerifier.create(unit(3)).expectError(RejectedExecutionException.class).verify();
+    }
+}
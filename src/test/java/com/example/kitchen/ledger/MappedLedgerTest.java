@@ -0,0 +1,263 @@
+package com.example.kitchen.ledger;
+
+import com.example.kitchen.dto.LedgerCursor;
+import com.example.kitchen.dto.LedgerFilter;
+import com.example.kitchen.dto.LedgerPage;
+import com.example.kitchen.enums.ActionType;
+import com.example.kitchen.enums.StorageType;
+import com.example.kitchen.model.ActionEntity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.AbstractReactiveTransactionManager;
+import org.springframework.transaction.reactive.GenericReactiveTransaction;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedLedgerTest {
+
+    // 4 records per segment: every test crosses segment boundaries
+    private static final int SEGMENT = 4 * MappedLedger.RECORD_BYTES;
+    private static final Instant T0 = Instant.parse("2025-01-01T12:00:00.000001Z");
+
+    @TempDir
+    Path dir;
+
+    private static ActionEntity action(String orderId, ActionType type, StorageType target, long secs, String runId) {
+        ActionEntity a = new ActionEntity();
+        a.setOrderId(orderId);
+        a.setAction(type);
+        a.setTarget(target);
+        a.setTimestamp(T0.plusSeconds(secs));
+        a.setRunId(runId);
+        return a;
+    }
+
+    private static List<String> orderIds(List<ActionEntity> actions) {
+        return actions.stream().map(ActionEntity::getOrderId).toList();
+    }
+
+    // transactions without a resource: only begin/commit/rollback and their synchronizations
+    private static final class NoResourceTransactionManager extends AbstractReactiveTransactionManager {
+        @Override
+        protected Object doGetTransaction(TransactionSynchronizationManager sync) {
+            return new Object();
+        }
+
+        @Override
+        protected Mono<Void> doBegin(TransactionSynchronizationManager sync, Object tx, TransactionDefinition def) {
+            return Mono.empty();
+        }
+
+        @Override
+        protected Mono<Void> doCommit(TransactionSynchronizationManager sync, GenericReactiveTransaction status) {
+            return Mono.empty();
+        }
+
+        @Override
+        protected Mono<Void> doRollback(TransactionSynchronizationManager sync, GenericReactiveTransaction status) {
+            return Mono.empty();
+        }
+    }
+
+    // --- pages come in (ts, id) order even when appends are not, and chain through the cursor
+    @Test
+    void shouldPageInTimestampOrder() throws IOException {
+        try (MappedLedger ledger = MappedLedger.open(dir, SEGMENT)) {
+            ledger.appendAll(List.of(
+                    action("c", ActionType.PLACE, StorageType.SHELF, 3, null),
+                    action("a", ActionType.PLACE, StorageType.SHELF, 1, null),
+                    action("b", ActionType.PLACE, StorageType.SHELF, 2, null),
+                    action("b2", ActionType.PLACE, StorageType.SHELF, 2, null),
+                    action("d", ActionType.PLACE, StorageType.SHELF, 4, null))).block();
+
+            LedgerPage first = ledger.page(LedgerFilter.NONE, null, 3).block();
+            assertEquals(List.of("a", "b", "b2"), orderIds(first.items()));
+            assertEquals(T0.plusSeconds(1), first.items().get(0).getTimestamp());
+            assertEquals("2", first.items().get(0).getId());
+
+            LedgerPage second = ledger.page(LedgerFilter.NONE, LedgerCursor.parse(first.next()), 3).block();
+            assertEquals(List.of("c", "d"), orderIds(second.items()));
+            assertNull(second.next());
+        }
+    }
+
+    // --- every filter applies; the time range is half-open
+    @Test
+    void shouldApplyFilters() throws IOException {
+        try (MappedLedger ledger = MappedLedger.open(dir, SEGMENT)) {
+            ledger.appendAll(List.of(
+                    action("o1", ActionType.PLACE, StorageType.SHELF, 0, "run-a"),
+                    action("o1", ActionType.MOVE, StorageType.HEATER, 1, "run-a"),
+                    action("o2", ActionType.PLACE, StorageType.COOLER, 2, "run-b"),
+                    action("o1", ActionType.PICKUP, StorageType.HEATER, 3, "run-a"),
+                    action("o3", ActionType.PLACE, StorageType.SHELF, 4, null),
+                    action("o2", ActionType.DISCARD, StorageType.COOLER, 5, "run-b"))).block();
+
+            assertEquals(List.of("o2", "o2"), orderIds(ledger.page(LedgerFilter.forRun("run-b", null), null, 10).block().items()));
+            assertEquals(3, ledger.page(new LedgerFilter(null, "o1", null, null, null, null), null, 10).block().items().size());
+            assertEquals(List.of("o1"), orderIds(ledger.page(
+                    new LedgerFilter(null, null, ActionType.MOVE, null, null, null), null, 10).block().items()));
+            assertEquals(List.of("o1", "o1"), orderIds(ledger.page(
+                    new LedgerFilter(null, null, null, StorageType.HEATER, null, null), null, 10).block().items()));
+            assertEquals(List.of("o1", "o3"), orderIds(ledger.page(
+                    new LedgerFilter(null, null, null, null, T0.plusSeconds(3), T0.plusSeconds(5)), null, 10).block().items()));
+            assertNull(ledger.page(new LedgerFilter(null, "o3", null, null, null, null), null, 10).block().items().get(0).getRunId());
+        }
+    }
+
+    // --- the stream reads page after page until the log is exhausted
+    @Test
+    void shouldStreamAcrossPages() throws IOException {
+        int count = MappedLedger.STREAM_PAGE_SIZE * 2 + 7;
+        try (MappedLedger ledger = MappedLedger.open(dir, 64 * MappedLedger.RECORD_BYTES)) {
+            List<ActionEntity> actions = new ArrayList<>();
+            for (int i = 0; i < count; i++) actions.add(action("o" + i, ActionType.PLACE, StorageType.SHELF, i, null));
+            ledger.appendAll(actions).block();
+
+            StepVerifier.create(ledger.stream(LedgerFilter.NONE, null).map(ActionEntity::getOrderId).collectList())
+                    .assertNext(ids -> {
+                        assertEquals(count, ids.size());
+                        assertEquals("o0", ids.get(0));
+                        assertEquals("o" + (count - 1), ids.get(count - 1));
+                    })
+                    .verifyComplete();
+        }
+    }
+
+    // --- out-of-order appends over many index blocks and segments: chained pages, with or without
+    // a time range and after a reopen, return exactly the records a full sort would
+    @Test
+    void shouldSeekThroughIndexWithOutOfOrderTimestamps() throws IOException {
+        int segment = 4 * MappedLedger.INDEX_INTERVAL * MappedLedger.RECORD_BYTES;
+        int count = 3 * 4 * MappedLedger.INDEX_INTERVAL + 5;
+        Random random = new Random(7);
+        List<ActionEntity> actions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            actions.add(action("o" + i, ActionType.PLACE, StorageType.SHELF, i / 4 + random.nextInt(-20, 21), null));
+        }
+        // ids are 1.. in append order; ties on ts sort by id
+        List<String> sorted = IntStream.range(0, count).boxed()
+                .sorted(Comparator.<Integer, Instant>comparing(i -> actions.get(i).getTimestamp()).thenComparing(i -> i))
+                .map(i -> "o" + i)
+                .toList();
+        Instant from = T0.plusSeconds(count / 8);
+        Instant to = T0.plusSeconds(count / 5);
+        List<String> inRange = sorted.stream()
+                .filter(id -> {
+                    Instant ts = actions.get(Integer.parseInt(id.substring(1))).getTimestamp();
+                    return !ts.isBefore(from) && ts.isBefore(to);
+                })
+                .toList();
+        LedgerFilter range = new LedgerFilter(null, null, null, null, from, to);
+
+        try (MappedLedger ledger = MappedLedger.open(dir, segment)) {
+            ledger.appendAll(actions).block();
+            assertEquals(sorted, orderIds(pageThrough(ledger, LedgerFilter.NONE, 37)));
+            assertEquals(inRange, orderIds(pageThrough(ledger, range, 11)));
+        }
+        try (MappedLedger ledger = MappedLedger.open(dir, segment)) {
+            assertEquals(sorted, orderIds(pageThrough(ledger, LedgerFilter.NONE, 50)));
+            assertEquals(inRange, orderIds(ledger.stream(range, null).collectList().block()));
+        }
+    }
+
+    private static List<ActionEntity> pageThrough(MappedLedger ledger, LedgerFilter filter, int limit) {
+        List<ActionEntity> all = new ArrayList<>();
+        LedgerCursor after = null;
+        do {
+            LedgerPage page = ledger.page(filter, after, limit).block();
+            all.addAll(page.items());
+            after = page.next() != null ? LedgerCursor.parse(page.next()) : null;
+        } while (after != null);
+        return all;
+    }
+
+    // --- reopening finds the end of the log; ids continue after it
+    @Test
+    void shouldRecoverAfterReopen() throws IOException {
+        try (MappedLedger ledger = MappedLedger.open(dir, SEGMENT)) {
+            for (int i = 0; i < 6; i++) ledger.append(action("o" + i, ActionType.PLACE, StorageType.SHELF, i, "run")).block();
+        }
+        try (MappedLedger ledger = MappedLedger.open(dir, SEGMENT)) {
+            assertEquals(6, ledger.size());
+            ledger.append(action("o6", ActionType.PICKUP, StorageType.SHELF, 6, null)).block();
+
+            List<ActionEntity> all = ledger.page(LedgerFilter.NONE, null, 100).block().items();
+            assertEquals(7, all.size());
+            assertEquals("7", all.get(6).getId());
+            assertEquals("run", all.get(0).getRunId());
+            assertNull(all.get(6).getRunId());
+        }
+    }
+
+    // --- a torn record ends the log: it and anything after it are gone
+    @Test
+    void shouldEndLogAtTornRecord() throws IOException {
+        try (MappedLedger ledger = MappedLedger.open(dir, SEGMENT)) {
+            for (int i = 0; i < 6; i++) ledger.append(action("o" + i, ActionType.PLACE, StorageType.SHELF, i, null)).block();
+        }
+        // record 3 is the third slot of the first segment; flip a byte of its order id
+        Path first = dir.resolve("ledger-00000000.seg");
+        byte[] bytes = Files.readAllBytes(first);
+        bytes[2 * MappedLedger.RECORD_BYTES + 30] ^= 0x5A;
+        Files.write(first, bytes);
+
+        try (MappedLedger ledger = MappedLedger.open(dir, SEGMENT)) {
+            assertEquals(2, ledger.size());
+            assertFalse(Files.exists(dir.resolve("ledger-00000001.seg")));
+            ledger.append(action("x", ActionType.PLACE, StorageType.SHELF, 9, null)).block();
+        }
+        // record 4 behind the torn one is not resurrected
+        try (MappedLedger ledger = MappedLedger.open(dir, SEGMENT)) {
+            assertEquals(List.of("o0", "o1", "x"), orderIds(ledger.page(LedgerFilter.NONE, null, 10).block().items()));
+        }
+    }
+
+    // --- inside a transaction, actions are appended on commit only; a rollback leaves nothing
+    @Test
+    void shouldAppendOnlyCommittedActions() throws IOException {
+        TransactionalOperator tx = TransactionalOperator.create(new NoResourceTransactionManager());
+        try (MappedLedger ledger = MappedLedger.open(dir, SEGMENT)) {
+            StepVerifier.create(ledger.append(action("rolled", ActionType.PLACE, StorageType.SHELF, 1, null))
+                            .then(Mono.error(new IllegalStateException("rolled back")))
+                            .as(tx::transactional))
+                    .verifyError(IllegalStateException.class);
+            StepVerifier.create(ledger.append(action("kept", ActionType.PLACE, StorageType.SHELF, 2, null))
+                            .then(Mono.fromCallable(ledger::size))
+                            .as(tx::transactional))
+                    .expectNext(0L) // not before the commit
+                    .verifyComplete();
+
+            assertEquals(List.of("kept"), orderIds(ledger.page(LedgerFilter.NONE, null, 10).block().items()));
+        }
+    }
+
+    // --- an action that does not fit a record rejects its whole batch
+    @Test
+    void shouldRejectOversizedIds() throws IOException {
+        try (MappedLedger ledger = MappedLedger.open(dir, SEGMENT)) {
+            List<ActionEntity> batch = List.of(
+                    action("ok", ActionType.PLACE, StorageType.SHELF, 0, null),
+                    action("x".repeat(MappedLedger.MAX_ORDER_ID_BYTES + 1), ActionType.PLACE, StorageType.SHELF, 1, null));
+
+            StepVerifier.create(ledger.appendAll(batch)).verifyError(IllegalArgumentException.class);
+            assertEquals(0, ledger.size());
+            assertThrows(IllegalArgumentException.class, () -> ledger.page(LedgerFilter.NONE, null, 0));
+        }
+    }
+}
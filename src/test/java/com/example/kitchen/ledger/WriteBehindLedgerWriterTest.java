@@ -0,0 +1,262 @@
+package com.example.kitchen.ledger;
+
+import com.example.kitchen.enums.ActionType;
+import com.example.kitchen.enums.StorageType;
+import com.example.kitchen.model.ActionEntity;
+import com.example.kitchen.repository.ActionBatchWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.AbstractReactiveTransactionManager;
+import org.springframework.transaction.reactive.GenericReactiveTransaction;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WriteBehindLedgerWriterTest {
+
+    private final ActionBatchWriter batchWriter = mock(ActionBatchWriter.class);
+    // every flushed batch, in flush order
+    private final List<List<ActionEntity>> batches = Collections.synchronizedList(new ArrayList<>());
+    private WriteBehindLedgerWriter writer;
+
+    private static ActionEntity action(int i) {
+        ActionEntity a = new ActionEntity();
+        a.setOrderId("o" + i);
+        a.setAction(ActionType.PLACE);
+        a.setTarget(StorageType.SHELF);
+        a.setTimestamp(Instant.EPOCH.plusSeconds(i));
+        return a;
+    }
+
+    private void recordBatches() {
+        when(batchWriter.insertAll(anyList())).thenAnswer(inv -> {
+            batches.add(inv.getArgument(0));
+            return Mono.empty();
+        });
+    }
+
+    // transactions without a resource: only begin/commit/rollback and their synchronizations
+    private static final class NoResourceTransactionManager extends AbstractReactiveTransactionManager {
+        @Override
+        protected Object doGetTransaction(TransactionSynchronizationManager sync) {
+            return new Object();
+        }
+
+        @Override
+        protected Mono<Void> doBegin(TransactionSynchronizationManager sync, Object tx, TransactionDefinition def) {
+            return Mono.empty();
+        }
+
+        @Override
+        protected Mono<Void> doCommit(TransactionSynchronizationManager sync, GenericReactiveTransaction status) {
+            return Mono.empty();
+        }
+
+        @Override
+        protected Mono<Void> doRollback(TransactionSynchronizationManager sync, GenericReactiveTransaction status) {
+            return Mono.empty();
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (writer != null) writer.close();
+    }
+
+    // --- appends complete at once and reach the DB in append order, in batches of at most maxBatch
+    @Test
+    void shouldFlushInOrderInBoundedBatches() throws Exception {
+        recordBatches();
+        writer = new WriteBehindLedgerWriter(batchWriter, 1_024, 10, Duration.ofMillis(20), Duration.ofSeconds(1));
+        List<ActionEntity> rows = new ArrayList<>();
+        for (int i = 0; i < 95; i++) rows.add(action(i));
+
+        StepVerifier.create(writer.appendAll(rows)).verifyComplete();
+        writer.close();
+
+        List<ActionEntity> flushed = batches.stream().flatMap(List::stream).toList();
+        assertEquals(rows, flushed);
+        assertTrue(batches.stream().allMatch(b -> b.size() <= 10));
+        assertEquals(95, writer.flushedActions());
+        assertEquals(0, writer.pending());
+    }
+
+    // --- inside a transaction, actions are buffered on commit only; a rollback drops them
+    @Test
+    void shouldBufferOnlyCommittedActions() throws Exception {
+        recordBatches();
+        writer = new WriteBehindLedgerWriter(batchWriter, 1_024, 10, Duration.ofMillis(20), Duration.ofSeconds(1));
+        TransactionalOperator tx = TransactionalOperator.create(new NoResourceTransactionManager());
+
+        StepVerifier.create(writer.append(action(1))
+                        .then(Mono.error(new IllegalStateException("rolled back")))
+                        .as(tx::transactional))
+                .verifyError(IllegalStateException.class);
+        StepVerifier.create(writer.append(action(2))
+                        .then(Mono.fromCallable(writer::pending))
+                        .as(tx::transactional))
+                .expectNext(0) // not before the commit
+                .verifyComplete();
+        writer.close();
+
+        assertEquals(List.of("o2"), batches.stream().flatMap(List::stream).map(ActionEntity::getOrderId).toList());
+    }
+
+    // --- inside a transaction, a full buffer fails the unit of work; a rollback gives its room back
+    @Test
+    void shouldFailTransaction_whenNoRoomCanBeReserved() throws Exception {
+        recordBatches();
+        writer = new WriteBehindLedgerWriter(batchWriter, 2, 10, Duration.ofSeconds(10), Duration.ofMillis(50));
+        TransactionalOperator tx = TransactionalOperator.create(new NoResourceTransactionManager());
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch rolledBack = new CountDownLatch(1);
+
+        // holds the whole buffer until released, then rolls back
+        writer.appendAll(List.of(action(1), action(2)))
+                .then(Mono.fromRunnable(() -> {
+                    holding.countDown();
+                    await(release);
+                }).subscribeOn(Schedulers.boundedElastic()))
+                .then(Mono.error(new IllegalStateException("rolled back")))
+                .as(tx::transactional)
+                .subscribe(v -> { }, e -> rolledBack.countDown());
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+        StepVerifier.create(writer.append(action(3)).as(tx::transactional))
+                .expectError(RejectedExecutionException.class)
+                .verify(Duration.ofSeconds(5));
+        release.countDown();
+        assertTrue(rolledBack.await(5, TimeUnit.SECONDS));
+        StepVerifier.create(writer.appendAll(List.of(action(4), action(5))).as(tx::transactional))
+                .verifyComplete();
+        writer.close();
+
+        assertEquals(List.of("o4", "o5"), batches.stream().flatMap(List::stream).map(ActionEntity::getOrderId).toList());
+    }
+
+    // --- close waits for a transaction holding a reservation, then flushes its committed rows
+    @Test
+    void shouldWaitForInFlightTransactionOnClose() throws Exception {
+        recordBatches();
+        writer = new WriteBehindLedgerWriter(batchWriter, 16, 10, Duration.ofSeconds(10), Duration.ofSeconds(1));
+        TransactionalOperator tx = TransactionalOperator.create(new NoResourceTransactionManager());
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        writer.append(action(1))
+                .then(Mono.fromRunnable(() -> {
+                    holding.countDown();
+                    await(release);
+                }).subscribeOn(Schedulers.boundedElastic()))
+                .as(tx::transactional)
+                .subscribe();
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Void> closed = CompletableFuture.runAsync(() -> {
+            try {
+                writer.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Thread.sleep(100);
+        assertFalse(closed.isDone());
+        release.countDown();
+        closed.get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, writer.flushedActions());
+        assertEquals(0, writer.droppedActions());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // --- a lone action is flushed after the linger time, without waiting for a full batch
+    @Test
+    void shouldFlushPartialBatchAfterLinger() {
+        recordBatches();
+        writer = new WriteBehindLedgerWriter(batchWriter, 1_024, 1_000, Duration.ofMillis(10), Duration.ofSeconds(1));
+
+        writer.append(action(1)).block();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (writer.flushedActions() < 1 && System.nanoTime() < deadline) Thread.onSpinWait();
+        assertEquals(1, writer.flushedActions());
+        assertEquals(List.of(List.of(action(1))), batches);
+    }
+
+    // --- a full buffer pushes back: the append waits, then fails after offer-timeout
+    @Test
+    void shouldRejectAfterOfferTimeout_whenBufferStaysFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(batchWriter.insertAll(anyList())).thenAnswer(inv -> {
+            release.await(5, TimeUnit.SECONDS); // stall the flusher
+            return Mono.empty();
+        });
+        writer = new WriteBehindLedgerWriter(batchWriter, 2, 1, Duration.ZERO, Duration.ofMillis(50));
+
+        writer.append(action(0)).block(); // taken by the stalled flusher
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (writer.pending() > 0 && System.nanoTime() < deadline) Thread.onSpinWait();
+        writer.append(action(1)).block();
+        writer.append(action(2)).block(); // buffer now full
+
+        StepVerifier.create(writer.append(action(3)))
+                .expectError(RejectedExecutionException.class)
+                .verify(Duration.ofSeconds(5));
+        release.countDown();
+    }
+
+    // --- close flushes everything accepted, then rejects new appends
+    @Test
+    void shouldFlushOnCloseAndRejectAfterwards() throws Exception {
+        recordBatches();
+        writer = new WriteBehindLedgerWriter(batchWriter, 1_024, 1_000, Duration.ofSeconds(10), Duration.ofSeconds(1));
+        for (int i = 0; i < 50; i++) writer.append(action(i)).block();
+
+        writer.close();
+
+        assertEquals(50, writer.flushedActions());
+        StepVerifier.create(writer.append(action(99)))
+                .expectError(RejectedExecutionException.class)
+                .verify();
+    }
+
+    // --- a failing batch is retried before giving up
+    @Test
+    void shouldRetryFailedBatch() throws Exception {
+        when(batchWriter.insertAll(anyList()))
+                .thenReturn(Mono.error(new IllegalStateException("db down")))
+                .thenReturn(Mono.empty());
+        writer = new WriteBehindLedgerWriter(batchWriter, 16, 16, Duration.ZERO, Duration.ofSeconds(1));
+
+        writer.append(action(1)).block();
+        writer.close();
+
+        assertEquals(1, writer.flushedActions());
+        assertEquals(0, writer.droppedActions());
+    }
+}
@@ -1,4 +1,5 @@
 package com.example.kitchen.mapper;
+import com.example.kitchen.dto.ChallengeActionDto;
 import com.example.kitchen.enums.ActionType;
 import com.example.kitchen.enums.StorageType;
 import com.example.kitchen.model.ActionEntity;
@@ -13,20 +14,29 @@ class ActionEntityMapperTest {
     private final ActionEntityMapper mapper = new ActionEntityMapper() {}; // default method only
 
     @Test
-    void shouldBuildActionEntity_withNowTimestampAndGivenFields() {
+    void shouldBuildActionEntity_withGivenTimestampAndFields() {
+        // given: a microsecond-precise instant, as produced by KitchenClock
+        Instant ts = Instant.parse("2025-01-01T12:00:00.123456Z");
+
         // when
-        Instant before = Instant.now().minusSeconds(5);
-        ActionEntity e = mapper.toEntity("o-5", ActionType.MOVE, StorageType.COOLER);
-        Instant after = Instant.now().plusSeconds(5);
+        ActionEntity e = mapper.toEntity("o-5", ActionType.MOVE, StorageType.COOLER, ts);
 
         // then
         assertEquals("o-5", e.getOrderId());
         assertEquals(ActionType.MOVE, e.getAction());
         assertEquals(StorageType.COOLER, e.getTarget());
-        assertNotNull(e.getTimestamp());
+        assertEquals(ts, e.getTimestamp(), "timestamp must come from the caller's clock, not Instant.now()");
+    }
+
+    @Test
+    void shouldBuildActionEntity_fromChallengeActionMicros() {
+        Instant ts = Instant.parse("2025-01-01T12:00:00.123456Z");
+
+        ActionEntity e = mapper.toEntity(new ChallengeActionDto(ts, "o-6", ActionType.DISCARD, StorageType.SHELF));
 
-        // timestamp is "around now" (±5s window)
-        assertTrue(!e.getTimestamp().isBefore(before) && !e.getTimestamp().isAfter(after),
-                "timestamp should be near 'now'");
+        assertEquals("o-6", e.getOrderId());
+        assertEquals(ActionType.DISCARD, e.getAction());
+        assertEquals(StorageType.SHELF, e.getTarget());
+        assertEquals(ts, e.getTimestamp());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,91 @@
+package com.example.kitchen.model;
+
+import com.example.kitchen.enums.StorageType;
+import com.example.kitchen.enums.Temperature;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeSetTest {
+
+    private static OrderEntity row(String id, StorageType storage) {
+        return new OrderEntity(id, "Dish", Temperature.COLD, storage, 60, Instant.now());
+    }
+
+    // --- a move of an order inserted in the same batch rewrites the row to insert
+    @Test
+    void shouldFoldMoveIntoInsert_whenPlacedInSameBatch() {
+        ChangeSet cs = new ChangeSet();
+        cs.insert(row("a", StorageType.SHELF));
+        cs.move("a", StorageType.COOLER);
+
+        assertEquals(StorageType.COOLER, cs.inserts().iterator().next().getStorage());
+        assertTrue(cs.moves().isEmpty());
+    }
+
+    // --- moves of older orders collapse to the last storage; a delete drops the pending update
+    @Test
+    void shouldKeepLastMoveAndDropItOnDelete() {
+        ChangeSet cs = new ChangeSet();
+        cs.move("a", StorageType.HEATER);
+        cs.move("b", StorageType.COOLER);
+        cs.move("a", StorageType.COOLER);
+        cs.delete("b");
+
+        assertEquals(Map.of("a", StorageType.COOLER), cs.moves());
+        assertEquals(Set.of("b"), cs.deletes());
+    }
+
+    // --- an order discarded and its id placed again in one batch becomes one upsert
+    @Test
+    void shouldUpsert_whenDeletedThenInsertedInSameBatch() {
+        ChangeSet cs = new ChangeSet();
+        cs.delete("a");
+        cs.insert(row("a", StorageType.SHELF));
+        cs.move("a", StorageType.COOLER);
+
+        assertTrue(cs.inserts().isEmpty());
+        assertTrue(cs.deletes().isEmpty());
+        assertTrue(cs.moves().isEmpty());
+        assertEquals(List.of("a"), cs.upserts().stream().map(OrderEntity::getId).toList());
+        assertEquals(StorageType.COOLER, cs.upserts().iterator().next().getStorage());
+
+        // deleted once more: the old row must still go
+        cs.delete("a");
+        assertTrue(cs.upserts().isEmpty());
+        assertEquals(Set.of("a"), cs.deletes());
+    }
+
+    // --- an order placed and discarded in the same batch leaves no row change at all
+    @Test
+    void shouldCancelOut_whenInsertedThenDeletedInSameBatch() {
+        ChangeSet cs = new ChangeSet();
+        cs.insert(row("a", StorageType.SHELF));
+        cs.delete("a");
+
+        assertTrue(cs.inserts().isEmpty());
+        assertTrue(cs.deletes().isEmpty());
+        assertTrue(cs.isEmpty());
+    }
+
+    // --- actions keep their order; an empty change set writes nothing
+    @Test
+    void shouldKeepActionsInOrder() {
+        ChangeSet cs = new ChangeSet();
+        assertTrue(cs.isEmpty());
+        ActionEntity first = new ActionEntity();
+        first.setOrderId("1");
+        ActionEntity second = new ActionEntity();
+        second.setOrderId("2");
+        cs.action(first);
+        cs.action(second);
+
+        assertFalse(cs.isEmpty());
+        assertEquals(List.of(first, second), cs.actions());
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.kitchen.persistence;
+
+import com.example.kitchen.dto.LedgerCursor;
+import com.example.kitchen.dto.LedgerFilter;
+import com.example.kitchen.dto.LedgerPage;
+import com.example.kitchen.enums.ActionType;
+import com.example.kitchen.enums.StorageType;
+import com.example.kitchen.ledger.MappedLedger;
+import com.example.kitchen.model.ActionEntity;
+import com.example.kitchen.model.ChangeSet;
+import com.example.kitchen.model.OrderEntity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryKitchenPersistenceTest {
+
+    private static final Instant T0 = Instant.parse("2025-01-01T12:00:00Z");
+    // 64 records of 128 bytes
+    private static final int SEGMENT = 8_192;
+
+    private final InMemoryKitchenPersistence persistence = new InMemoryKitchenPersistence();
+
+    private static OrderEntity row(String id, StorageType storage) {
+        OrderEntity o = new OrderEntity();
+        o.setId(id);
+        o.setStorage(storage);
+        return o;
+    }
+
+    private static ActionEntity action(String orderId, ActionType type, StorageType target, long secs, String runId) {
+        ActionEntity a = new ActionEntity();
+        a.setOrderId(orderId);
+        a.setAction(type);
+        a.setTarget(target);
+        a.setTimestamp(T0.plusSeconds(secs));
+        a.setRunId(runId);
+        return a;
+    }
+
+    private static List<String> orderIds(List<ActionEntity> actions) {
+        return actions.stream().map(a -> a.getOrderId() + ":" + a.getAction()).toList();
+    }
+
+    // --- rows follow place/move/remove; actions are copied with ids, the caller's entity is untouched
+    @Test
+    void shouldTrackRowsAndRecordActions() {
+        ActionEntity place = action("o1", ActionType.PLACE, StorageType.SHELF, 0, "run");
+        persistence.placed(row("o1", StorageType.SHELF), place).block();
+        persistence.placed(row("o2", StorageType.HEATER), action("o2", ActionType.PLACE, StorageType.HEATER, 1, "run")).block();
+        persistence.moved(action("o1", ActionType.MOVE, StorageType.COOLER, 2, "run")).block();
+        persistence.removed(action("o2", ActionType.PICKUP, StorageType.HEATER, 3, "run")).block();
+
+        assertEquals(List.of("o1"), List.copyOf(persistence.orders().keySet()));
+        assertEquals(StorageType.COOLER, persistence.orders().get("o1").getStorage());
+        assertEquals(4, persistence.ledgerSize());
+        assertNull(place.getId());
+
+        List<ActionEntity> all = persistence.page(LedgerFilter.NONE, null, 10).block().items();
+        assertEquals(List.of("o1:PLACE", "o2:PLACE", "o1:MOVE", "o2:PICKUP"), orderIds(all));
+        assertEquals("1", all.get(0).getId());
+    }
+
+    // --- stored rows are copies: a move never reaches the caller's entity, a later change to it is not stored
+    @Test
+    void shouldKeepCallerOrderEntitiesUntouched() {
+        OrderEntity placed = row("o1", StorageType.SHELF);
+        OrderEntity inserted = row("o2", StorageType.SHELF);
+        persistence.placed(placed, action("o1", ActionType.PLACE, StorageType.SHELF, 0, null)).block();
+        ChangeSet changes = new ChangeSet();
+        changes.insert(inserted);
+        persistence.write(changes).block();
+
+        persistence.moved(action("o1", ActionType.MOVE, StorageType.COOLER, 1, null)).block();
+        ChangeSet move = new ChangeSet();
+        move.move("o2", StorageType.HEATER);
+        persistence.write(move).block();
+        placed.setName("changed later");
+
+        assertEquals(StorageType.SHELF, placed.getStorage());
+        assertEquals(StorageType.SHELF, inserted.getStorage());
+        assertEquals(StorageType.COOLER, persistence.orders().get("o1").getStorage());
+        assertEquals(StorageType.HEATER, persistence.orders().get("o2").getStorage());
+        assertNull(persistence.orders().get("o1").getName());
+    }
+
+    // --- a change set applies inserts, moves, deletes and its actions
+    @Test
+    void shouldApplyChangeSet() {
+        persistence.placed(row("old", StorageType.SHELF), action("old", ActionType.PLACE, StorageType.SHELF, 0, null)).block();
+        persistence.placed(row("gone", StorageType.SHELF), action("gone", ActionType.PLACE, StorageType.SHELF, 0, null)).block();
+        ChangeSet changes = new ChangeSet();
+        changes.insert(row("new", StorageType.HEATER));
+        changes.move("old", StorageType.COOLER);
+        changes.delete("gone");
+        changes.action(action("new", ActionType.PLACE, StorageType.HEATER, 1, null));
+        changes.action(action("old", ActionType.MOVE, StorageType.COOLER, 1, null));
+        changes.action(action("gone", ActionType.DISCARD, StorageType.SHELF, 1, null));
+
+        StepVerifier.create(persistence.write(changes).as(persistence::transactional)).verifyComplete();
+
+        assertEquals(StorageType.HEATER, persistence.orders().get("new").getStorage());
+        assertEquals(StorageType.COOLER, persistence.orders().get("old").getStorage());
+        assertFalse(persistence.orders().containsKey("gone"));
+        assertEquals(5, persistence.ledgerSize());
+    }
+
+    // --- pages come in (ts, id) order, chain through the cursor, and honour every filter
+    @Test
+    void shouldPageAndFilterLikeTheDatabase() {
+        ChangeSet changes = new ChangeSet();
+        changes.action(action("c", ActionType.PLACE, StorageType.SHELF, 3, "run-a"));
+        changes.action(action("a", ActionType.PLACE, StorageType.COOLER, 1, "run-a"));
+        changes.action(action("b", ActionType.PLACE, StorageType.HEATER, 2, "run-b"));
+        changes.action(action("a", ActionType.PICKUP, StorageType.COOLER, 2, "run-a"));
+        changes.action(action("d", ActionType.DISCARD, StorageType.SHELF, 5, null));
+        persistence.write(changes).block();
+
+        LedgerPage first = persistence.page(LedgerFilter.NONE, null, 3).block();
+        assertEquals(List.of("a:PLACE", "b:PLACE", "a:PICKUP"), orderIds(first.items()));
+        LedgerPage second = persistence.page(LedgerFilter.NONE, LedgerCursor.parse(first.next()), 3).block();
+        assertEquals(List.of("c:PLACE", "d:DISCARD"), orderIds(second.items()));
+        assertNull(second.next());
+
+        assertEquals(List.of("a:PLACE", "a:PICKUP", "c:PLACE"),
+                orderIds(persistence.stream(LedgerFilter.forRun("run-a", T0), null).collectList().block()));
+        assertEquals(List.of("a:PICKUP"), orderIds(persistence.page(
+                new LedgerFilter(null, "a", ActionType.PICKUP, StorageType.COOLER, null, null), null, 10).block().items()));
+        // half-open range, later than the cursor
+        assertEquals(List.of("a:PICKUP", "c:PLACE"), orderIds(persistence.page(
+                new LedgerFilter(null, null, null, null, T0.plusSeconds(2), T0.plusSeconds(5)),
+                LedgerCursor.of(first.items().get(1)), 10).block().items()));
+        assertThrows(IllegalArgumentException.class, () -> persistence.page(LedgerFilter.NONE, null, 0));
+    }
+
+    // --- with the mapped ledger, rows stay in the heap while actions go to the log and outlive the instance
+    @Test
+    void shouldKeepLedgerInMappedLog(@TempDir Path dir) throws IOException {
+        try (MappedLedger ledger = MappedLedger.open(dir, SEGMENT)) {
+            InMemoryKitchenPersistence mapped = new InMemoryKitchenPersistence(ledger, ledger);
+            mapped.placed(row("o1", StorageType.SHELF), action("o1", ActionType.PLACE, StorageType.SHELF, 0, "run")).block();
+            ChangeSet changes = new ChangeSet();
+            changes.move("o1", StorageType.COOLER);
+            changes.action(action("o1", ActionType.MOVE, StorageType.COOLER, 1, "run"));
+            mapped.write(changes).block();
+            mapped.removed(action("o1", ActionType.PICKUP, StorageType.COOLER, 2, "run")).block();
+
+            assertTrue(mapped.orders().isEmpty());
+            assertEquals(0, mapped.ledgerSize());
+            assertEquals(3, ledger.size());
+        }
+        try (MappedLedger reopened = MappedLedger.open(dir, SEGMENT)) {
+            InMemoryKitchenPersistence restarted = new InMemoryKitchenPersistence(reopened, reopened);
+            assertEquals(List.of("o1:PLACE", "o1:MOVE", "o1:PICKUP"),
+                    orderIds(restarted.stream(LedgerFilter.forRun("run", T0), null).collectList().block()));
+        }
+        assertThrows(IllegalArgumentException.class, () -> new InMemoryKitchenPersistence(null, persistence));
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.kitchen.persistence;
+
+import com.example.kitchen.enums.ActionType;
+import com.example.kitchen.enums.StorageType;
+import com.example.kitchen.ledger.CommitCoordinator;
+import com.example.kitchen.ledger.LedgerWriter;
+import com.example.kitchen.model.ActionEntity;
+import com.example.kitchen.model.ChangeSet;
+import com.example.kitchen.model.OrderEntity;
+import com.example.kitchen.repository.ChangeSetWriter;
+import com.example.kitchen.repository.OrderMoveWriter;
+import com.example.kitchen.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class R2dbcKitchenPersistenceTest {
+
+    // Deep stubs to mock: template.insert(OrderEntity.class).using(entity)
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    R2dbcEntityTemplate template;
+    @Mock
+    OrderRepository orderRepository;
+    @Mock
+    ChangeSetWriter changeSetWriter;
+    @Mock
+    OrderMoveWriter orderMoveWriter;
+    @Mock
+    LedgerWriter ledgerWriter;
+    @Mock
+    CommitCoordinator tx;
+
+    static final Instant NOW = Instant.parse("2025-01-01T12:00:00.123456Z");
+
+    R2dbcKitchenPersistence persistence;
+
+    @BeforeEach
+    void setUp() {
+        persistence = new R2dbcKitchenPersistence(template, orderRepository, changeSetWriter, orderMoveWriter, ledgerWriter, tx);
+    }
+
+    private static ActionEntity action(String orderId, ActionType type, StorageType target, String runId) {
+        ActionEntity a = new ActionEntity();
+        a.setOrderId(orderId);
+        a.setAction(type);
+        a.setTarget(target);
+        a.setTimestamp(NOW);
+        a.setRunId(runId);
+        return a;
+    }
+
+    // --- PLACE: row insert, then the action
+    @Test
+    void shouldInsertRowThenAppendPlace() {
+        OrderEntity row = new OrderEntity();
+        ActionEntity place = action("o1", ActionType.PLACE, StorageType.HEATER, null);
+        when(template.insert(eq(OrderEntity.class)).using(eq(row))).thenReturn(Mono.just(row));
+        when(ledgerWriter.append(place)).thenReturn(Mono.empty());
+
+        StepVerifier.create(persistence.placed(row, place)).verifyComplete();
+
+        verify(ledgerWriter).append(place);
+    }
+
+    // --- MOVE, buffered ledger: one UPDATE, the action through the LedgerWriter, no read
+    @Test
+    void shouldUpdateStorageThenAppendMove() {
+        ActionEntity move = action("m1", ActionType.MOVE, StorageType.COOLER, "run-b");
+        when(orderMoveWriter.updateStorage("m1", StorageType.COOLER)).thenReturn(Mono.just(1L));
+        when(ledgerWriter.append(move)).thenReturn(Mono.empty());
+
+        StepVerifier.create(persistence.moved(move)).verifyComplete();
+
+        var order = inOrder(orderMoveWriter, ledgerWriter);
+        order.verify(orderMoveWriter).updateStorage("m1", StorageType.COOLER);
+        order.verify(ledgerWriter).append(move);
+        verify(orderRepository, never()).findById(anyString());
+    }
+
+    // --- MOVE, inline ledger: the row update and the MOVE action are one statement
+    @Test
+    void shouldWriteMoveAsOneStatement_whenLedgerWritesInline() {
+        ActionEntity move = action("m2", ActionType.MOVE, StorageType.COOLER, "run-b");
+        when(ledgerWriter.writesInline()).thenReturn(true);
+        when(orderMoveWriter.moveWithAction("m2", StorageType.COOLER, NOW, "run-b")).thenReturn(Mono.empty());
+
+        StepVerifier.create(persistence.moved(move)).verifyComplete();
+
+        verify(orderMoveWriter).moveWithAction("m2", StorageType.COOLER, NOW, "run-b");
+        verify(orderMoveWriter, never()).updateStorage(anyString(), any());
+        verify(ledgerWriter, never()).append(any());
+    }
+
+    // --- PICKUP/DISCARD: the action, then the row delete
+    @Test
+    void shouldAppendActionThenDeleteRow() {
+        ActionEntity discard = action("v1", ActionType.DISCARD, StorageType.SHELF, null);
+        when(ledgerWriter.append(discard)).thenReturn(Mono.empty());
+        when(orderRepository.deleteById("v1")).thenReturn(Mono.empty());
+
+        StepVerifier.create(persistence.removed(discard)).verifyComplete();
+
+        var order = inOrder(ledgerWriter, orderRepository);
+        order.verify(ledgerWriter).append(discard);
+        order.verify(orderRepository).deleteById("v1");
+    }
+
+    // --- batch: rows set-based, then all actions in one append
+    @Test
+    void shouldWriteRowsThenAppendAllActions() {
+        ChangeSet changes = new ChangeSet();
+        changes.delete("p1");
+        changes.action(action("p1", ActionType.PICKUP, StorageType.HEATER, null));
+        when(changeSetWriter.write(changes)).thenReturn(Mono.empty());
+        when(ledgerWriter.appendAll(changes.actions())).thenReturn(Mono.empty());
+
+        StepVerifier.create(persistence.write(changes)).verifyComplete();
+
+        var order = inOrder(changeSetWriter, ledgerWriter);
+        order.verify(changeSetWriter).write(changes);
+        order.verify(ledgerWriter).appendAll(changes.actions());
+        verify(ledgerWriter, never()).append(any());
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.kitchen.repository;
+
+import com.example.kitchen.enums.ActionType;
+import com.example.kitchen.enums.StorageType;
+import com.example.kitchen.model.ActionEntity;
+import io.netty.buffer.ByteBuf;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActionCopyWriterTest {
+
+    private static ActionEntity action(String orderId, String ts) {
+        ActionEntity a = new ActionEntity();
+        a.setOrderId(orderId);
+        a.setAction(ActionType.MOVE);
+        a.setTarget(StorageType.COOLER);
+        a.setTimestamp(Instant.parse(ts));
+        return a;
+    }
+
+    private static ActionEntity withRun(ActionEntity a, String runId) {
+        a.setRunId(runId);
+        return a;
+    }
+
+    // --- one CSV line per action, UTC wall time with microseconds, enums by name, no run id = NULL
+    @Test
+    void shouldEncodeOneCsvLinePerAction() {
+        ByteBuf buf = ActionCopyWriter.encode(List.of(
+                action("o-1", "2025-01-01T12:00:00.123456Z"),
+                withRun(action("o-2", "2025-01-01T23:59:59Z"), "run-7")));
+
+        assertEquals("""
+                2025-01-01T12:00:00.123456,"o-1",MOVE,COOLER,
+                2025-01-01T23:59:59,"o-2",MOVE,COOLER,"run-7"
+                """, buf.toString(StandardCharsets.UTF_8));
+    }
+
+    // --- free-text ids are quoted, so commas, quotes and newlines survive COPY
+    @Test
+    void shouldQuoteOrderIds() {
+        StringBuilder sb = new StringBuilder();
+
+        ActionCopyWriter.appendCsvLine(sb, action("a,\"b\"\nc", "2025-01-01T00:00:00Z"));
+
+        assertEquals("2025-01-01T00:00:00,\"a,\"\"b\"\"\nc\",MOVE,COOLER,\n", sb.toString());
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.kitchen.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerPartitionRepositoryTest {
+
+    private static final LocalDate DAY = LocalDate.parse("2025-12-31");
+
+    // --- partition names round-trip; other children of actions are not days
+    @Test
+    void shouldNameAndParseDailyPartitions() {
+        assertEquals("actions_p20251231", LedgerPartitionRepository.name(DAY));
+        assertEquals(DAY, LedgerPartitionRepository.dayOf("actions_p20251231"));
+        assertNull(LedgerPartitionRepository.dayOf("actions_default"));
+        assertNull(LedgerPartitionRepository.dayOf("actions_p2025"));
+    }
+
+    // --- create: empty table, rows moved out of the default partition, then attached for [day; day + 1)
+    @Test
+    void shouldMoveDefaultRowsBeforeAttaching() {
+        assertEquals(List.of(
+                "CREATE TABLE actions_p20251231 (LIKE actions INCLUDING DEFAULTS INCLUDING CONSTRAINTS)",
+                "WITH moved AS (DELETE FROM actions_default WHERE ts >= '2025-12-31' AND ts < '2026-01-01' RETURNING *) "
+                        + "INSERT INTO actions_p20251231 SELECT * FROM moved",
+                "ALTER TABLE actions ATTACH PARTITION actions_p20251231 FOR VALUES FROM ('2025-12-31') TO ('2026-01-01')"),
+                LedgerPartitionRepository.createSql(DAY));
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.kitchen.repository;
+
+import com.example.kitchen.dto.LedgerCursor;
+import com.example.kitchen.dto.LedgerFilter;
+import com.example.kitchen.enums.ActionType;
+import com.example.kitchen.enums.StorageType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class LedgerQueryRepositoryTest {
+
+    private static final Instant TS = Instant.parse("2025-01-01T12:00:00.123456Z");
+
+    // --- no filter, first page: index order, no WHERE
+    @Test
+    void shouldPageInKeysetOrder_withoutFilters() {
+        Map<String, Object> binds = new LinkedHashMap<>();
+
+        String sql = LedgerQueryRepository.sql(LedgerFilter.NONE, null, binds);
+
+        assertEquals("SELECT id, ts, order_id, action, target, run_id FROM actions ORDER BY ts, id LIMIT :limit", sql);
+        assertTrue(binds.isEmpty());
+    }
+
+    // --- every filter and the cursor become SQL predicates with bound values
+    @Test
+    void shouldPushFiltersAndCursorDownToSql() {
+        Map<String, Object> binds = new LinkedHashMap<>();
+        Instant to = TS.plusSeconds(60);
+        LedgerFilter filter = new LedgerFilter("run-1", "o-1", ActionType.MOVE, StorageType.COOLER, TS, to);
+
+        String sql = LedgerQueryRepository.sql(filter, new LedgerCursor(TS, 42), binds);
+
+        assertEquals("SELECT id, ts, order_id, action, target, run_id FROM actions WHERE run_id = :runId AND order_id = :orderId "
+                + "AND action = :action AND target = :target AND ts >= :from AND ts < :to "
+                + "AND ts >= :afterTs AND (ts, id) > (:afterTs, :afterId) ORDER BY ts, id LIMIT :limit", sql);
+        assertEquals(List.of("run-1", "o-1", "MOVE", "COOLER", TS, to, TS, 42L), List.copyOf(binds.values()));
+    }
+
+    // --- the cursor survives its wire format with microsecond precision
+    @Test
+    void shouldRoundTripCursor() {
+        LedgerCursor cursor = new LedgerCursor(TS, 9_000_000_001L);
+
+        assertEquals("1735732800123456:9000000001", cursor.encode());
+        assertEquals(cursor, LedgerCursor.parse(cursor.encode()));
+    }
+
+    @Test
+    void shouldRejectMalformedCursor() {
+        assertThrows(IllegalArgumentException.class, () -> LedgerCursor.parse("nope"));
+        assertThrows(IllegalArgumentException.class, () -> LedgerCursor.parse("12:x"));
+    }
+
+    @Test
+    void shouldRejectPageSizeOutOfRange() {
+        LedgerQueryRepository repo = new LedgerQueryRepository(mock(org.springframework.r2dbc.core.DatabaseClient.class));
+
+        assertThrows(IllegalArgumentException.class, () -> repo.page(LedgerFilter.NONE, null, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> repo.page(LedgerFilter.NONE, null, LedgerQueryRepository.MAX_PAGE_SIZE + 1));
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.kitchen.service;
+
+import com.example.kitchen.dto.ChallengeActionDto;
+import com.example.kitchen.dto.SimulationReport;
+import com.example.kitchen.enums.ActionType;
+import com.example.kitchen.enums.Temperature;
+import com.example.kitchen.model.Order;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Offline simulation: virtual time, real StorageService rules, no DB and no Challenge API.
+ */
+class DiscreteEventSimulatorTest {
+
+    private static final Instant START = Instant.parse("2025-01-01T12:00:00Z");
+
+    private final DiscreteEventSimulator sim = new DiscreteEventSimulator(6, 6, 12);
+
+    // --- every order is placed once and ends as exactly one PICKUP or DISCARD
+    @Test
+    void shouldAccountForEveryOrder() {
+        List<Order> orders = sim.syntheticOrders(200, 7);
+
+        SimulationReport r = sim.run(orders, 2, 4, 8, START, 7);
+
+        assertEquals(200, r.orders());
+        assertEquals(200, r.actions().stream().filter(a -> a.action() == ActionType.PLACE).count());
+        assertEquals(200, r.pickedUp() + r.discarded());
+        assertEquals(r.moved(), r.actions().stream().filter(a -> a.action() == ActionType.MOVE).count());
+        assertEquals(r.discarded(), r.actions().stream().filter(a -> a.action() == ActionType.DISCARD).count());
+        // 200 orders at 2/s plus the last pickup: ~100s of kitchen time
+        assertTrue(r.simulatedMicros() >= 99_500_000L && r.simulatedMicros() <= 108_000_000L);
+    }
+
+    // --- actions are chronological and stamped with virtual time
+    @Test
+    void shouldEmitChronologicalActionsOnVirtualTime() {
+        SimulationReport r = sim.run(sim.syntheticOrders(50, 1), 5, 1, 3, START, 1);
+
+        long startMicros = START.getEpochSecond() * 1_000_000L;
+        assertEquals(startMicros, r.actions().get(0).timestamp());
+        for (int i = 1; i < r.actions().size(); i++) {
+            assertTrue(r.actions().get(i - 1).timestamp() <= r.actions().get(i).timestamp());
+        }
+    }
+
+    // --- same seed, same run
+    @Test
+    void shouldBeReproducibleForSameSeed() {
+        List<Order> orders = sim.syntheticOrders(100, 42);
+
+        List<ChallengeActionDto> a = sim.run(orders, 10, 2, 9, START, 42).actions();
+        List<ChallengeActionDto> b = sim.run(orders, 10, 2, 9, START, 42).actions();
+
+        assertEquals(a, b);
+    }
+
+    // --- overflow: a fast rate and slow pickups force moves and discards; expired pickups are discards
+    @Test
+    void shouldMoveAndDiscard_whenKitchenOverflows() {
+        DiscreteEventSimulator tiny = new DiscreteEventSimulator(1, 1, 2);
+        List<Order> orders = IntStream.range(0, 20)
+                .mapToObj(i -> new Order("o" + i, "Dish", i % 2 == 0 ? Temperature.HOT : Temperature.COLD, 3, null))
+                .toList();
+
+        SimulationReport r = tiny.run(orders, 10, 5, 5, START, 3);
+
+        assertTrue(r.discarded() > 0);
+        assertEquals(20, r.pickedUp() + r.discarded());
+    }
+
+    // --- a 10-minute scenario runs in a fraction of a second
+    @Test
+    void shouldRunLongScenarioFast() {
+        List<Order> orders = sim.syntheticOrders(1_200, 5);
+
+        long t0 = System.nanoTime();
+        SimulationReport r = sim.run(orders, 2, 4, 8, START, 5);
+        long wallMillis = (System.nanoTime() - t0) / 1_000_000;
+
+        assertTrue(r.simulatedMicros() >= 600_000_000L);
+        assertTrue(wallMillis < 2_000, "took " + wallMillis + " ms");
+    }
+
+    @Test
+    void shouldRejectInvalidPickupWindow() {
+        assertThrows(IllegalArgumentException.class, () -> sim.run(List.of(), 2, 8, 4, START, 0));
+    }
+
+    @Test
+    void shouldRejectNonPositiveRate() {
+        assertThrows(IllegalArgumentException.class, () -> sim.run(List.of(), 0, 4, 8, START, 0));
+    }
+}
@@ -1,35 +1,50 @@
 package com.example.kitchen.service;
 
+import com.example.kitchen.clock.VirtualKitchenClock;
 import com.example.kitchen.enums.ActionType;
 import com.example.kitchen.enums.StorageType;
 import com.example.kitchen.enums.Temperature;
+import com.example.kitchen.dto.KitchenEventDto;
+import com.example.kitchen.events.DiscardEvent;
+import com.example.kitchen.events.KitchenEventBus;
+import com.example.kitchen.events.MoveEvent;
+import com.example.kitchen.events.PlaceEvent;
+import com.example.kitchen.events.PlacementOutcome;
 import com.example.kitchen.events.RemoveResult;
 import com.example.kitchen.mapper.ActionEntityMapper;
 import com.example.kitchen.mapper.OrderEntityMapper;
+import com.example.kitchen.metrics.KitchenMetrics;
+import com.example.kitchen.dto.OrderOutcomeDto;
+import com.example.kitchen.dto.ChallengeActionDto;
+import com.example.kitchen.dto.SimulationReport;
 import com.example.kitchen.model.ActionEntity;
+import com.example.kitchen.model.ChangeSet;
 import com.example.kitchen.model.Order;
 import com.example.kitchen.model.OrderEntity;
-import com.example.kitchen.repository.ActionRepository;
-import com.example.kitchen.repository.OrderRepository;
+import com.example.kitchen.persistence.KitchenPersistence;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.Answers;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
-import org.springframework.transaction.reactive.TransactionalOperator;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.mockito.AdditionalAnswers.returnsFirstArg;
 import static org.mockito.ArgumentMatchers.any;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -40,19 +55,19 @@ class KitchenServiceTest {
     @Mock
     StorageService storageService;
     @Mock
-    OrderRepository orderRepository;
-    @Mock
-    ActionRepository actionRepository;
-    @Mock
     OrderEntityMapper orderEntityMapper;
     @Mock
     ActionEntityMapper actionEntityMapper;
-
-    // Deep stubs to mock: template.insert(OrderEntity.class).using(entity)
-    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
-    R2dbcEntityTemplate template;
     @Mock
-    TransactionalOperator tx;
+    KitchenPersistence persistence;
+    @Mock
+    KitchenEventBus events;
+
+    // Virtual time: every timestamp the service writes is NOW
+    static final Instant NOW = Instant.parse("2025-01-01T12:00:00.123456Z");
+    final VirtualKitchenClock clock = new VirtualKitchenClock(NOW);
+
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
 
     KitchenService service;
 
@@ -61,15 +76,11 @@ class KitchenServiceTest {
 
     @BeforeEach
     void setUp() {
-        lenient().when(tx.transactional(any(Mono.class)))
-                .thenAnswer(returnsFirstArg());
-        lenient().when(tx.transactional(any(Flux.class)))
+        lenient().when(persistence.transactional(any(Mono.class)))
                 .thenAnswer(returnsFirstArg());
 
-        service = new KitchenService(
-                storageService, orderRepository, actionRepository,
-                orderEntityMapper, actionEntityMapper, template, tx
-        );
+        service = new KitchenService(storageService, orderEntityMapper, actionEntityMapper, persistence, events,
+                new KitchenMetrics(registry), clock);
     }
 
     @Test
@@ -77,115 +88,427 @@ class KitchenServiceTest {
         Order in = new Order("o1", "Hot Dish", Temperature.HOT, 120, null);
         StorageType ideal = StorageType.HEATER;
 
-        when(storageService.idealFor(Temperature.HOT)).thenReturn(ideal);
-        when(storageService.tryAddOrder(eq(ideal), any(Order.class))).thenReturn(Mono.just(true));
+        when(storageService.place(any(Order.class))).thenAnswer(inv -> {
+            Order o = inv.getArgument(0);
+            return Mono.just(new PlacementOutcome(o, ideal, List.of(new PlaceEvent(o, ideal))));
+        });
 
         OrderEntity mapped = new OrderEntity();
         when(orderEntityMapper.toEntity(any(Order.class), eq(ideal))).thenReturn(mapped);
-        when(template.insert(eq(OrderEntity.class)).using(eq(mapped))).thenReturn(Mono.just(mapped));
 
         ActionEntity placeAction = new ActionEntity();
-        when(actionEntityMapper.toEntity("o1", ActionType.PLACE, ideal)).thenReturn(placeAction);
-        when(actionRepository.save(placeAction)).thenReturn(Mono.just(placeAction));
+        when(actionEntityMapper.toEntity("o1", ActionType.PLACE, ideal, NOW)).thenReturn(placeAction);
+        when(persistence.placed(mapped, placeAction)).thenReturn(Mono.empty());
 
         StepVerifier.create(service.placeOrder(in)).verifyComplete();
 
-        verify(storageService).tryAddOrder(eq(ideal), any(Order.class));
-        verify(storageService, never()).tryAddOrder(eq(StorageType.SHELF), any(Order.class));
-        verify(actionRepository).save(placeAction);
+        verify(storageService).place(argThat(o -> o.id().equals("o1") && NOW.equals(o.placedAt())));
+        verify(persistence).placed(mapped, placeAction);
+        verify(persistence).transactional(any(Mono.class));
+    }
+
+    // --- the storage decision is taken before the unit of work starts, not inside it
+    @Test
+    void shouldDecideStorageBeforeUnitOfWork() {
+        Order in = new Order("o1", "Hot Dish", Temperature.HOT, 120, null);
+        AtomicBoolean decided = new AtomicBoolean();
+        when(storageService.place(any(Order.class))).thenAnswer(inv -> Mono.fromCallable(() -> {
+            decided.set(true);
+            Order o = inv.getArgument(0);
+            return new PlacementOutcome(o, StorageType.HEATER, List.of(new PlaceEvent(o, StorageType.HEATER)));
+        }));
+        when(actionEntityMapper.toEntity("o1", ActionType.PLACE, StorageType.HEATER, NOW)).thenReturn(new ActionEntity());
+        when(persistence.placed(any(), any())).thenReturn(Mono.empty());
+        List<Boolean> decidedAtUnitStart = new ArrayList<>();
+        when(persistence.transactional(any(Mono.class))).thenAnswer(inv -> Mono.defer(() -> {
+            decidedAtUnitStart.add(decided.get());
+            return inv.<Mono<?>>getArgument(0);
+        }));
+
+        StepVerifier.create(service.placeOrder(in)).verifyComplete();
+
+        assertEquals(List.of(true), decidedAtUnitStart);
     }
 
     @Test
     void shouldReturnCompleted_whenIdealIsFull_thenPlaceOnShelfAndWritePlace() {
         Order in = new Order("o2", "Cold Dish", Temperature.COLD, 60, null);
 
-        when(storageService.idealFor(Temperature.COLD)).thenReturn(StorageType.COOLER);
-        when(storageService.tryAddOrder(eq(StorageType.COOLER), any(Order.class))).thenReturn(Mono.just(false));
-        when(storageService.tryAddOrder(eq(StorageType.SHELF), any(Order.class))).thenReturn(Mono.just(true));
+        when(storageService.place(any(Order.class))).thenAnswer(inv -> {
+            Order o = inv.getArgument(0);
+            return Mono.just(new PlacementOutcome(o, StorageType.SHELF, List.of(new PlaceEvent(o, StorageType.SHELF))));
+        });
 
         OrderEntity mapped = new OrderEntity();
         when(orderEntityMapper.toEntity(any(Order.class), eq(StorageType.SHELF))).thenReturn(mapped);
-        when(template.insert(eq(OrderEntity.class)).using(eq(mapped))).thenReturn(Mono.just(mapped));
 
         ActionEntity placeAction = new ActionEntity();
-        when(actionEntityMapper.toEntity("o2", ActionType.PLACE, StorageType.SHELF)).thenReturn(placeAction);
-        when(actionRepository.save(placeAction)).thenReturn(Mono.just(placeAction));
+        when(actionEntityMapper.toEntity("o2", ActionType.PLACE, StorageType.SHELF, NOW)).thenReturn(placeAction);
+        when(persistence.placed(mapped, placeAction)).thenReturn(Mono.empty());
+
+        StepVerifier.create(service.placeOrder(in)).verifyComplete();
+
+        verify(persistence).placed(mapped, placeAction);
+    }
+
+    // --- the MOVE action belongs to the moved order's run, not to the order being placed
+    @Test
+    void shouldWriteMoveThenPlace_whenShelfWasFullAndOneOrderMoved() {
+        Order in = new Order("o3", "Salad", Temperature.ROOM, 60, null).withRunId("run-a");
+        Order moved = new Order("m1", "Ice", Temperature.COLD, 60, Instant.now()).withRunId("run-b");
+
+        when(storageService.place(any(Order.class))).thenAnswer(inv -> {
+            Order o = inv.getArgument(0);
+            return Mono.just(new PlacementOutcome(o, StorageType.SHELF, List.of(
+                    new MoveEvent(moved, StorageType.SHELF, StorageType.COOLER),
+                    new PlaceEvent(o, StorageType.SHELF))));
+        });
+
+        ActionEntity moveAction = new ActionEntity();
+        moveAction.setOrderId("m1");
+        when(actionEntityMapper.toEntity("m1", ActionType.MOVE, StorageType.COOLER, NOW)).thenReturn(moveAction);
+        when(persistence.moved(moveAction)).thenReturn(Mono.empty());
+
+        OrderEntity mapped = new OrderEntity();
+        when(orderEntityMapper.toEntity(any(Order.class), eq(StorageType.SHELF))).thenReturn(mapped);
+        ActionEntity placeAction = new ActionEntity();
+        placeAction.setOrderId("o3");
+        when(actionEntityMapper.toEntity("o3", ActionType.PLACE, StorageType.SHELF, NOW)).thenReturn(placeAction);
+        when(persistence.placed(mapped, placeAction)).thenReturn(Mono.empty());
+
+        StepVerifier.create(service.placeOrder(in)).verifyComplete();
+
+        var order = inOrder(persistence);
+        order.verify(persistence).moved(moveAction);
+        order.verify(persistence).placed(mapped, placeAction);
+        assertEquals("run-b", moveAction.getRunId());
+        assertEquals("run-a", placeAction.getRunId());
+    }
+
+    // --- every action is published live as it is decided, in the same order
+    @Test
+    void shouldPublishEveryActionToLiveSubscribers() {
+        Order in = new Order("o7", "Salad", Temperature.ROOM, 60, null);
+        Order victim = new Order("v3", "Ice", Temperature.COLD, 1, Instant.now()).withRunId("run-b");
+
+        when(storageService.place(any(Order.class))).thenAnswer(inv -> {
+            Order o = inv.getArgument(0);
+            return Mono.just(new PlacementOutcome(o, StorageType.SHELF, List.of(
+                    new DiscardEvent(victim, StorageType.SHELF),
+                    new PlaceEvent(o, StorageType.SHELF))));
+        });
+        when(actionEntityMapper.toEntity(anyString(), any(ActionType.class), any(StorageType.class), eq(NOW)))
+                .thenAnswer(inv -> {
+                    ActionEntity e = new ActionEntity();
+                    e.setOrderId(inv.getArgument(0));
+                    e.setAction(inv.getArgument(1));
+                    e.setTarget(inv.getArgument(2));
+                    e.setTimestamp(inv.getArgument(3));
+                    return e;
+                });
+        when(persistence.removed(any())).thenReturn(Mono.empty());
+        when(persistence.placed(any(), any())).thenReturn(Mono.empty());
+
+        StepVerifier.create(service.placeOrder(in)).verifyComplete();
+
+        var order = inOrder(events);
+        order.verify(events).publish(new KitchenEventDto(NOW, "v3", ActionType.DISCARD, StorageType.SHELF, "run-b"));
+        order.verify(events).publish(new KitchenEventDto(NOW, "o7", ActionType.PLACE, StorageType.SHELF, null));
+    }
+
+    @Test
+    void shouldWriteDiscardThenPlace_whenShelfWasFullAndNothingMoved() {
+        Order in = new Order("o4", "Salad", Temperature.ROOM, 60, null);
+        Order victim = new Order("v1", "Ice", Temperature.COLD, 1, Instant.now());
+
+        when(storageService.place(any(Order.class))).thenAnswer(inv -> {
+            Order o = inv.getArgument(0);
+            return Mono.just(new PlacementOutcome(o, StorageType.SHELF, List.of(
+                    new DiscardEvent(victim, StorageType.SHELF),
+                    new PlaceEvent(o, StorageType.SHELF))));
+        });
+
+        ActionEntity discardAction = new ActionEntity();
+        discardAction.setOrderId("v1");
+        when(actionEntityMapper.toEntity("v1", ActionType.DISCARD, StorageType.SHELF, NOW)).thenReturn(discardAction);
+        when(persistence.removed(discardAction)).thenReturn(Mono.empty());
+
+        OrderEntity mapped = new OrderEntity();
+        when(orderEntityMapper.toEntity(any(Order.class), eq(StorageType.SHELF))).thenReturn(mapped);
+        ActionEntity placeAction = new ActionEntity();
+        placeAction.setOrderId("o4");
+        when(actionEntityMapper.toEntity("o4", ActionType.PLACE, StorageType.SHELF, NOW)).thenReturn(placeAction);
+        when(persistence.placed(mapped, placeAction)).thenReturn(Mono.empty());
 
         StepVerifier.create(service.placeOrder(in)).verifyComplete();
 
-        verify(storageService).tryAddOrder(eq(StorageType.COOLER), any(Order.class));
-        verify(storageService).tryAddOrder(eq(StorageType.SHELF), any(Order.class));
-        verify(actionRepository).save(placeAction);
+        var order = inOrder(persistence);
+        order.verify(persistence).removed(discardAction);
+        order.verify(persistence).placed(mapped, placeAction);
+    }
+
+    // --- a failed discard write fails the placement's unit of work instead of being swallowed
+    @Test
+    void shouldFailPlace_whenDiscardWriteFails() {
+        Order in = new Order("o6", "Salad", Temperature.ROOM, 60, null);
+        Order victim = new Order("v2", "Ice", Temperature.COLD, 1, Instant.now());
+
+        when(storageService.place(any(Order.class))).thenAnswer(inv -> {
+            Order o = inv.getArgument(0);
+            return Mono.just(new PlacementOutcome(o, StorageType.SHELF, List.of(
+                    new DiscardEvent(victim, StorageType.SHELF),
+                    new PlaceEvent(o, StorageType.SHELF))));
+        });
+        when(actionEntityMapper.toEntity(anyString(), any(ActionType.class), any(StorageType.class), eq(NOW)))
+                .thenAnswer(inv -> new ActionEntity());
+        when(persistence.removed(any())).thenReturn(Mono.error(new IllegalStateException("row lock timeout")));
+
+        StepVerifier.create(service.placeOrder(in)).verifyError(IllegalStateException.class);
+
+        verify(persistence, never()).placed(any(), any());
+    }
+
+    // --- batch place: decisions in order, refused orders rejected, one set-based write;
+    // every action belongs to the run of its own order, not of the order that caused it
+    @Test
+    void shouldPlaceBatchInOrderAndWriteOneChangeSet() {
+        Order a = new Order("b1", "Ice", Temperature.COLD, 60, null).withRunId("run-a");
+        Order dup = new Order("b2", "Soup", Temperature.HOT, 60, null).withRunId("run-a");
+        Order c = new Order("b3", "Salad", Temperature.ROOM, 60, null).withRunId("run-a");
+        Order victim = new Order("old", "Ice", Temperature.COLD, 1, NOW).withRunId("run-b");
+
+        when(storageService.place(argThat(o -> o != null && o.id().equals("b1")))).thenAnswer(inv -> {
+            Order o = inv.getArgument(0);
+            return Mono.just(new PlacementOutcome(o, StorageType.SHELF, List.of(new PlaceEvent(o, StorageType.SHELF))));
+        });
+        when(storageService.place(argThat(o -> o != null && o.id().equals("b2"))))
+                .thenReturn(Mono.error(new IllegalArgumentException("Order b2 is already stored")));
+        when(storageService.place(argThat(o -> o != null && o.id().equals("b3")))).thenAnswer(inv -> {
+            Order o = inv.getArgument(0);
+            return Mono.just(new PlacementOutcome(o, StorageType.SHELF, List.of(
+                    new MoveEvent(a.withPlacedAt(NOW), StorageType.SHELF, StorageType.COOLER),
+                    new DiscardEvent(victim, StorageType.SHELF),
+                    new PlaceEvent(o, StorageType.SHELF))));
+        });
+        when(orderEntityMapper.toEntity(any(Order.class), any(StorageType.class))).thenAnswer(inv -> {
+            Order o = inv.getArgument(0);
+            OrderEntity e = new OrderEntity();
+            e.setId(o.id());
+            e.setStorage(inv.getArgument(1));
+            return e;
+        });
+        when(actionEntityMapper.toEntity(anyString(), any(ActionType.class), any(StorageType.class), eq(NOW)))
+                .thenAnswer(inv -> {
+                    ActionEntity e = new ActionEntity();
+                    e.setOrderId(inv.getArgument(0));
+                    e.setAction(inv.getArgument(1));
+                    return e;
+                });
+        var changes = org.mockito.ArgumentCaptor.forClass(ChangeSet.class);
+        when(persistence.write(changes.capture())).thenReturn(Mono.empty());
+
+        StepVerifier.create(service.placeOrders(List.of(a, dup, c)))
+                .expectNext(List.of(
+                        OrderOutcomeDto.placed("b1", StorageType.SHELF),
+                        OrderOutcomeDto.rejected("b2", "Order b2 is already stored"),
+                        OrderOutcomeDto.placed("b3", StorageType.SHELF)))
+                .verifyComplete();
+
+        ChangeSet cs = changes.getValue();
+        // b1 was moved within the batch: inserted straight into COOLER
+        assertEquals(List.of("b1:COOLER", "b3:SHELF"),
+                cs.inserts().stream().map(e -> e.getId() + ":" + e.getStorage()).toList());
+        assertEquals(java.util.Set.of("old"), cs.deletes());
+        assertEquals(List.of("b1:PLACE", "b1:MOVE", "old:DISCARD", "b3:PLACE"),
+                cs.actions().stream().map(e -> e.getOrderId() + ":" + e.getAction()).toList());
+        assertEquals(List.of("run-a", "run-a", "run-b", "run-a"),
+                cs.actions().stream().map(ActionEntity::getRunId).toList());
+        verify(persistence, never()).placed(any(), any());
+        verify(persistence, never()).moved(any());
+        verify(persistence, never()).removed(any());
+    }
+
+    // --- batch place: an incomplete order or any storage failure stays with its order, the stored ones are still written
+    @Test
+    void shouldRejectInvalidOrFailingOrderInBatch_andWriteTheOthers() {
+        Order ok = new Order("k1", "Salad", Temperature.ROOM, 60, null);
+        Order noTemp = new Order("k2", "Mystery", null, 60, null);
+        Order failing = new Order("k3", "Salad", Temperature.ROOM, 60, null);
+        when(storageService.place(argThat(o -> o != null && "k1".equals(o.id())))).thenAnswer(inv -> {
+            Order o = inv.getArgument(0);
+            return Mono.just(new PlacementOutcome(o, StorageType.SHELF, List.of(new PlaceEvent(o, StorageType.SHELF))));
+        });
+        when(storageService.place(argThat(o -> o != null && "k3".equals(o.id()))))
+                .thenReturn(Mono.error(new IllegalStateException("Shelf is full but holds no orders")));
+        when(orderEntityMapper.toEntity(any(Order.class), any(StorageType.class))).thenAnswer(inv -> new OrderEntity());
+        when(actionEntityMapper.toEntity(anyString(), any(ActionType.class), any(StorageType.class), eq(NOW)))
+                .thenAnswer(inv -> new ActionEntity());
+        var changes = org.mockito.ArgumentCaptor.forClass(ChangeSet.class);
+        when(persistence.write(changes.capture())).thenReturn(Mono.empty());
+
+        StepVerifier.create(service.placeOrders(List.of(ok, noTemp, failing)))
+                .expectNext(List.of(
+                        OrderOutcomeDto.placed("k1", StorageType.SHELF),
+                        OrderOutcomeDto.rejected("k2", "Order k2 has no temperature"),
+                        OrderOutcomeDto.rejected("k3", "Shelf is full but holds no orders")))
+                .verifyComplete();
+
+        verify(storageService, never()).place(argThat(o -> o != null && "k2".equals(o.id())));
+        assertEquals(1, changes.getValue().inserts().size());
+        assertEquals(1, changes.getValue().actions().size());
+    }
+
+    // --- batch pickup: no DB reads, per-id outcome, unknown and repeated ids are NOT_FOUND
+    @Test
+    void shouldPickupBatchAndReportPerOrderOutcome() {
+        when(storageService.removeByIdWithExpiry("p1"))
+                .thenReturn(Mono.just(new RemoveResult(true, false, StorageType.HEATER)), Mono.just(RemoveResult.NOT_FOUND));
+        when(storageService.removeByIdWithExpiry("p2"))
+                .thenReturn(Mono.just(new RemoveResult(true, true, StorageType.SHELF)));
+        when(storageService.removeByIdWithExpiry("nope")).thenReturn(Mono.just(RemoveResult.NOT_FOUND));
+        when(actionEntityMapper.toEntity(anyString(), any(ActionType.class), any(StorageType.class), eq(NOW)))
+                .thenAnswer(inv -> {
+                    ActionEntity e = new ActionEntity();
+                    e.setOrderId(inv.getArgument(0));
+                    e.setAction(inv.getArgument(1));
+                    return e;
+                });
+        var changes = org.mockito.ArgumentCaptor.forClass(ChangeSet.class);
+        when(persistence.write(changes.capture())).thenReturn(Mono.empty());
+
+        StepVerifier.create(service.pickupOrders(List.of("p1", "p2", "nope", "p1")))
+                .expectNext(List.of(
+                        OrderOutcomeDto.pickedUp("p1", StorageType.HEATER),
+                        OrderOutcomeDto.discarded("p2", StorageType.SHELF),
+                        OrderOutcomeDto.notFound("nope"),
+                        OrderOutcomeDto.notFound("p1")))
+                .verifyComplete();
+
+        assertEquals(java.util.Set.of("p1", "p2"), changes.getValue().deletes());
+        assertEquals(List.of("p1:PICKUP", "p2:DISCARD"),
+                changes.getValue().actions().stream().map(e -> e.getOrderId() + ":" + e.getAction()).toList());
+        verify(persistence, never()).removed(any());
+    }
+
+    // --- expiry sweep: each swept order gets a DISCARD action and its row deleted
+    @Test
+    void shouldRecordSweptDiscards() {
+        Order dead = new Order("x1", "Soup", Temperature.HOT, 1, Instant.now());
+        ActionEntity discardAction = new ActionEntity();
+        discardAction.setOrderId("x1");
+        when(actionEntityMapper.toEntity("x1", ActionType.DISCARD, StorageType.HEATER, NOW)).thenReturn(discardAction);
+        when(persistence.removed(discardAction)).thenReturn(Mono.empty());
+
+        StepVerifier.create(service.recordDiscards(List.of(new DiscardEvent(dead, StorageType.HEATER))))
+                .verifyComplete();
+
+        verify(persistence).removed(discardAction);
+        verify(persistence).transactional(any(Mono.class));
+    }
+
+    // --- offline run: its actions are written as one change set, tagged with the run id, storage untouched
+    @Test
+    void shouldPersistOfflineRunTaggedWithRunId() {
+        SimulationReport report = new SimulationReport(1, 0, 0, 1, 10L, List.of(
+                new ChallengeActionDto(1L, "s1", ActionType.PLACE, StorageType.SHELF),
+                new ChallengeActionDto(2L, "s1", ActionType.PICKUP, StorageType.SHELF)));
+        when(actionEntityMapper.toEntity(any(ChallengeActionDto.class))).thenAnswer(inv -> new ActionEntity());
+        org.mockito.ArgumentCaptor<ChangeSet> changes = org.mockito.ArgumentCaptor.forClass(ChangeSet.class);
+        when(persistence.write(changes.capture())).thenReturn(Mono.empty());
+
+        StepVerifier.create(service.persistRun(report, "offline-1")).verifyComplete();
+
+        assertEquals(List.of("offline-1", "offline-1"), changes.getValue().actions().stream().map(ActionEntity::getRunId).toList());
+        verify(persistence).transactional(any(Mono.class));
+        verify(events, never()).publish(any());
+        verify(storageService, never()).place(any());
     }
 
     @Test
     void shouldReturnCompletedAndWritePickup_whenRemovedAndNotExpired() {
         String id = "p1";
-        OrderEntity e = new OrderEntity();
-        e.setId(id);
-        e.setStorage(StorageType.COOLER);
-
-        when(orderRepository.findById(id)).thenReturn(Mono.just(e));
-        when(storageService.removeByIdWithExpiry(StorageType.COOLER, id))
-                .thenReturn(Mono.just(new RemoveResult(true, false)));
+        when(storageService.removeByIdWithExpiry(id))
+                .thenReturn(Mono.just(new RemoveResult(true, false, StorageType.COOLER, "run-a")));
 
         ActionEntity pickupAction = new ActionEntity();
-        when(actionEntityMapper.toEntity(id, ActionType.PICKUP, StorageType.COOLER)).thenReturn(pickupAction);
-        when(actionRepository.save(pickupAction)).thenReturn(Mono.just(pickupAction));
-        when(orderRepository.deleteById(id)).thenReturn(Mono.empty());
+        when(actionEntityMapper.toEntity(id, ActionType.PICKUP, StorageType.COOLER, NOW)).thenReturn(pickupAction);
+        when(persistence.removed(pickupAction)).thenReturn(Mono.empty());
 
         StepVerifier.create(service.pickupOrder(id)).verifyComplete();
 
-        verify(actionRepository).save(pickupAction);
-        verify(orderRepository).deleteById(id);
+        verify(persistence).removed(pickupAction);
+        assertEquals("run-a", pickupAction.getRunId());
     }
 
     @Test
     void shouldReturnCompletedAndWriteDiscard_whenRemovedAndExpired() {
         String id = "p2";
-        OrderEntity e = new OrderEntity();
-        e.setId(id);
-        e.setStorage(StorageType.SHELF);
-
-        when(orderRepository.findById(id)).thenReturn(Mono.just(e));
-        when(storageService.removeByIdWithExpiry(StorageType.SHELF, id))
-                .thenReturn(Mono.just(new RemoveResult(true, true)));
+        when(storageService.removeByIdWithExpiry(id))
+                .thenReturn(Mono.just(new RemoveResult(true, true, StorageType.SHELF)));
 
         ActionEntity discardAction = new ActionEntity();
-        when(actionEntityMapper.toEntity(id, ActionType.DISCARD, StorageType.SHELF)).thenReturn(discardAction);
-        when(actionRepository.save(discardAction)).thenReturn(Mono.just(discardAction));
-        when(orderRepository.deleteById(id)).thenReturn(Mono.empty());
+        when(actionEntityMapper.toEntity(id, ActionType.DISCARD, StorageType.SHELF, NOW)).thenReturn(discardAction);
+        when(persistence.removed(discardAction)).thenReturn(Mono.empty());
 
         StepVerifier.create(service.pickupOrder(id)).verifyComplete();
 
-        verify(actionRepository).save(discardAction);
-        verify(orderRepository).deleteById(id);
+        verify(persistence).removed(discardAction);
     }
 
+    // --- a failed commit of the pickup's unit of work reaches the caller
     @Test
-    void shouldReturnCompletedAndWriteNothing_whenNotRemovedFromStorageOnPickup() {
+    void shouldFailPickup_whenCommitFails() {
         String id = "p3";
-        OrderEntity e = new OrderEntity();
-        e.setId(id);
-        e.setStorage(StorageType.HEATER);
+        when(storageService.removeByIdWithExpiry(id))
+                .thenReturn(Mono.just(new RemoveResult(true, false, StorageType.HEATER)));
+        ActionEntity pickupAction = new ActionEntity();
+        when(actionEntityMapper.toEntity(id, ActionType.PICKUP, StorageType.HEATER, NOW)).thenReturn(pickupAction);
+        when(persistence.removed(pickupAction)).thenReturn(Mono.empty());
+        when(persistence.transactional(any(Mono.class)))
+                .thenAnswer(inv -> inv.<Mono<?>>getArgument(0).then(Mono.error(new IllegalStateException("commit failed"))));
 
-        when(orderRepository.findById(id)).thenReturn(Mono.just(e));
-        when(storageService.removeByIdWithExpiry(StorageType.HEATER, id))
-                .thenReturn(Mono.just(new RemoveResult(false, false)));
+        StepVerifier.create(service.pickupOrder(id)).verifyError(IllegalStateException.class);
+    }
 
-        StepVerifier.create(service.pickupOrder(id)).verifyComplete();
+    // --- a storage failure is still logged and ignored: nothing is written
+    @Test
+    void shouldWriteNothing_whenStorageRemovalFails() {
+        when(storageService.removeByIdWithExpiry("p4")).thenReturn(Mono.error(new IllegalStateException("engine stopped")));
 
-        verify(actionRepository, never()).save(any());
-        verify(orderRepository, never()).deleteById(anyString());
+        StepVerifier.create(service.pickupOrder("p4")).verifyComplete();
+
+        verify(persistence, never()).removed(any());
+    }
+
+    @Test
+    void shouldCountActionsAndRecordFreshnessLeftAtPickup() {
+        when(storageService.removeByIdWithExpiry("p1"))
+                .thenReturn(Mono.just(new RemoveResult(true, false, StorageType.COOLER, null, 0.75)));
+        when(storageService.removeByIdWithExpiry("p2"))
+                .thenReturn(Mono.just(new RemoveResult(true, true, StorageType.COOLER, null, 0)));
+        when(storageService.removeByIdWithExpiry("nope")).thenReturn(Mono.just(RemoveResult.NOT_FOUND));
+        when(actionEntityMapper.toEntity(anyString(), any(ActionType.class), any(StorageType.class), eq(NOW)))
+                .thenAnswer(inv -> new ActionEntity());
+        when(persistence.removed(any())).thenReturn(Mono.empty());
+
+        for (String id : List.of("p1", "p2", "nope")) StepVerifier.create(service.pickupOrder(id)).verifyComplete();
+
+        assertEquals(1, registry.get("kitchen.actions").tags("action", "pickup", "storage", "cooler").counter().count());
+        assertEquals(1, registry.get("kitchen.actions").tags("action", "discard", "storage", "cooler").counter().count());
+        DistributionSummary freshness = registry.get("kitchen.pickup.freshness").tag("storage", "cooler").summary();
+        assertEquals(2, freshness.count());
+        assertEquals(0.75, freshness.totalAmount(), 1e-9);
+        // unknown ids are timed too, but write and count nothing
+        assertEquals(3, registry.get("kitchen.order.duration").tag("operation", "pickup").timer().count());
     }
 
     @Test
-    void shouldReturnCompletedAndDoNothing_whenOrderMissingInDbOnPickup() {
-        when(orderRepository.findById("missing")).thenReturn(Mono.empty());
+    void shouldReturnCompletedAndWriteNothing_whenOrderUnknownToStorageOnPickup() {
+        when(storageService.removeByIdWithExpiry("missing")).thenReturn(Mono.just(RemoveResult.NOT_FOUND));
 
         StepVerifier.create(service.pickupOrder("missing")).verifyComplete();
 
-        verify(actionRepository, never()).save(any());
-        verify(storageService, never()).removeByIdWithExpiry(any(), anyString());
+        verify(persistence, never()).removed(any());
+        verify(persistence, never()).write(any());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,90 @@
+package com.example.kitchen.service;
+
+import com.example.kitchen.clock.VirtualKitchenClock;
+import com.example.kitchen.repository.LedgerPartitionRepository;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.*;
+
+class LedgerPartitionManagerTest {
+
+    private static final LocalDate TODAY = LocalDate.parse("2025-03-10");
+
+    private final LedgerPartitionRepository repo = mock(LedgerPartitionRepository.class);
+    // 23:30 UTC: "today" is the UTC day, whatever the JVM's zone
+    private final VirtualKitchenClock clock = new VirtualKitchenClock(Instant.parse("2025-03-10T23:30:00Z"));
+
+    private LedgerPartitionManager manager(int ahead, int retentionDays, boolean archive) {
+        return new LedgerPartitionManager(repo, clock, ahead, retentionDays, archive, Duration.ofHours(1));
+    }
+
+    // --- pre-creation: today .. today + ahead, only the missing days
+    @Test
+    void shouldListMissingDaysAhead() {
+        List<LocalDate> existing = List.of(TODAY, TODAY.plusDays(2));
+
+        assertEquals(List.of(TODAY.plusDays(1), TODAY.plusDays(3)),
+                LedgerPartitionManager.missing(TODAY, 3, existing));
+        assertEquals(List.of(), LedgerPartitionManager.missing(TODAY, 0, existing));
+    }
+
+    // --- retention: whole days before today - retention, oldest first; 0 keeps everything
+    @Test
+    void shouldListExpiredDaysOldestFirst() {
+        List<LocalDate> existing = List.of(TODAY.minusDays(2), TODAY.minusDays(31), TODAY.minusDays(30), TODAY.minusDays(40));
+
+        assertEquals(List.of(TODAY.minusDays(40), TODAY.minusDays(31)),
+                LedgerPartitionManager.expired(TODAY, 30, existing));
+        assertEquals(List.of(), LedgerPartitionManager.expired(TODAY, 0, existing));
+    }
+
+    // --- one pass: creates what is missing, retires what expired, reports both
+    @Test
+    void shouldCreateAndRetireInOnePass() {
+        when(repo.days()).thenReturn(Flux.just(TODAY.minusDays(10), TODAY));
+        when(repo.create(any())).thenReturn(Mono.just(true));
+        when(repo.retire(any(), anyBoolean())).thenReturn(Mono.empty());
+
+        StepVerifier.create(manager(1, 7, true).maintainOnce())
+                .assertNext(m -> {
+                    assertEquals(List.of(TODAY.plusDays(1)), m.created());
+                    assertEquals(List.of(TODAY.minusDays(10)), m.retired());
+                })
+                .verifyComplete();
+
+        verify(repo).create(TODAY.plusDays(1));
+        verify(repo).retire(TODAY.minusDays(10), true);
+        verifyNoMoreInteractions(ignoreStubs(repo));
+    }
+
+    // --- a partition created concurrently by another instance is not reported
+    @Test
+    void shouldNotReportPartitionCreatedElsewhere() {
+        when(repo.days()).thenReturn(Flux.empty());
+        when(repo.create(any())).thenReturn(Mono.just(false));
+
+        StepVerifier.create(manager(0, 0, false).maintainOnce())
+                .assertNext(m -> assertEquals(new LedgerPartitionManager.Maintenance(List.of(), List.of()), m))
+                .verifyComplete();
+
+        verify(repo).create(TODAY);
+        verify(repo, never()).retire(any(), anyBoolean());
+    }
+
+    @Test
+    void shouldRejectNegativeSettings() {
+        assertThrows(IllegalArgumentException.class, () -> manager(-1, 0, false));
+        assertThrows(IllegalArgumentException.class, () -> manager(0, -1, false));
+    }
+}
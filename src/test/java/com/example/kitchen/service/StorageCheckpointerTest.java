@@ -0,0 +1,53 @@
+package com.example.kitchen.service;
+
+import com.example.kitchen.clock.VirtualKitchenClock;
+import com.example.kitchen.enums.StorageType;
+import com.example.kitchen.enums.Temperature;
+import com.example.kitchen.model.Order;
+import com.example.kitchen.storage.MappedStorageJournal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StorageCheckpointerTest {
+
+    private static final Instant START = Instant.parse("2025-01-01T12:00:00Z");
+
+    @TempDir
+    Path dir;
+
+    private static Order order(String id) {
+        return new Order(id, "Soup " + id, Temperature.HOT, 600, START);
+    }
+
+    // --- orders that no longer fit at restore are journaled as removed: they stay gone on the next start
+    @Test
+    void shouldJournalOrdersDroppedAtRestore() throws IOException {
+        try (MappedStorageJournal journal = MappedStorageJournal.open(dir, 4_096)) {
+            journal.placed(order("h1"), StorageType.HEATER, 600_000_000L, 0L);
+            journal.placed(order("h2"), StorageType.HEATER, 600_000_000L, 0L);
+        }
+
+        VirtualKitchenClock clock = new VirtualKitchenClock(START);
+        // the heater shrank to one slot: one of the two orders is dropped
+        StorageService smaller = new StorageService(clock, 1, 1, 1);
+        StorageCheckpointer first = new StorageCheckpointer(smaller, dir, DataSize.ofKilobytes(4), Duration.ofHours(1));
+        first.start();
+        first.stop();
+
+        // back to the original capacity: the dropped order does not come back
+        StorageService larger = new StorageService(clock, 2, 1, 1);
+        StorageCheckpointer second = new StorageCheckpointer(larger, dir, DataSize.ofKilobytes(4), Duration.ofHours(1));
+        second.start();
+        second.stop();
+
+        assertEquals(1, larger.occupancy(StorageType.HEATER));
+    }
+}
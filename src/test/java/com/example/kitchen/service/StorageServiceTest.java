@@ -1,12 +1,28 @@
 package com.example.kitchen.service;
+import com.example.kitchen.clock.VirtualKitchenClock;
 import com.example.kitchen.enums.StorageType;
 import com.example.kitchen.enums.Temperature;
+import com.example.kitchen.events.DiscardEvent;
+import com.example.kitchen.events.MoveEvent;
+import com.example.kitchen.events.PlaceEvent;
+import com.example.kitchen.events.PlacementOutcome;
 import com.example.kitchen.events.RemoveResult;
 import com.example.kitchen.model.Order;
+import com.example.kitchen.storage.MappedStorageJournal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Flux;
 import reactor.test.StepVerifier;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -151,4 +167,380 @@ class StorageServiceTest {
         assertFalse(rr.removed());
         assertFalse(rr.expired());
     }
-}
\ No newline at end of file
+
+    // --- locate + remove without a location: the in-memory index follows the order through a move
+    @Test
+    void shouldLocateAndRemoveOrder_whereverItSits() {
+        Order o = order("loc1", "Cola", Temperature.COLD, 30, Instant.now()).withRunId("run-1");
+        assertTrue(svc.tryAddOrder(StorageType.SHELF, o).block());
+        assertEquals(Optional.of(StorageType.SHELF), svc.locate("loc1"));
+
+        assertNotNull(svc.tryMoveOneFromShelf().block());
+        assertEquals(Optional.of(StorageType.COOLER), svc.locate("loc1"));
+
+        RemoveResult rr = svc.removeByIdWithExpiry("loc1").block();
+        assertNotNull(rr);
+        assertTrue(rr.removed());
+        assertEquals(StorageType.COOLER, rr.storage());
+        assertEquals("run-1", rr.runId());
+        assertTrue(svc.locate("loc1").isEmpty());
+        assertEquals(RemoveResult.NOT_FOUND, svc.removeByIdWithExpiry("loc1").block());
+    }
+
+    // --- index: the same order id cannot be stored twice
+    @Test
+    void shouldRejectDuplicateOrderId() {
+        Instant now = Instant.now();
+        assertTrue(svc.tryAddOrder(StorageType.HEATER, order("dup", "Soup", Temperature.HOT, 60, now)).block());
+
+        StepVerifier.create(svc.tryAddOrder(StorageType.SHELF, order("dup", "Soup", Temperature.HOT, 60, now)))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+    }
+
+    // --- a duplicate id on a full shelf is rejected before a victim is moved or discarded
+    @Test
+    void shouldRejectDuplicateOnFullShelf_withoutMakingRoom() {
+        StorageService small = new StorageService(1, 1, 2);
+        Instant now = Instant.now();
+        assertTrue(small.tryAddOrder(StorageType.SHELF, order("r1", "Salad", Temperature.ROOM, 10, now)).block());
+        assertTrue(small.tryAddOrder(StorageType.SHELF, order("r2", "Salad", Temperature.ROOM, 300, now)).block());
+
+        StepVerifier.create(small.place(order("r2", "Salad", Temperature.ROOM, 300, now)))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+
+        // r1 expires first and would have been discarded to make room
+        assertEquals(Optional.of(StorageType.SHELF), small.locate("r1"));
+        assertEquals(Optional.of(StorageType.SHELF), small.locate("r2"));
+        assertEquals(2, small.occupancy(StorageType.SHELF));
+    }
+
+    // --- configurable capacity: a custom shelf size is honoured
+    @Test
+    void shouldHonourConfiguredCapacity() {
+        StorageService big = new StorageService(1, 1, 100);
+        Instant now = Instant.now();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(big.tryAddOrder(StorageType.SHELF, order("s" + i, "S", Temperature.ROOM, 60, now)).block());
+        }
+        assertFalse(big.tryAddOrder(StorageType.SHELF, order("s-extra", "S", Temperature.ROOM, 60, now)).block());
+        assertEquals(100, big.getMaxCapacity(StorageType.SHELF));
+    }
+
+    // --- decay lifecycle: discard, move and pickup all release or keep the decay row correctly
+    @Test
+    void shouldReleaseDecayEntries_whenOrdersLeaveStorage() {
+        Instant now = Instant.now();
+        assertTrue(svc.tryAddOrder(StorageType.SHELF, order("d1", "Ice", Temperature.COLD, 2, now.minusSeconds(2))).block());
+        assertTrue(svc.tryAddOrder(StorageType.SHELF, order("d2", "Ice", Temperature.COLD, 60, now)).block());
+        assertEquals(2, svc.liveDecayEntries());
+
+        assertNotNull(svc.discardMinFromShelf().block());
+        assertEquals(1, svc.liveDecayEntries());
+
+        assertNotNull(svc.tryMoveOneFromShelf().block());
+        assertEquals(1, svc.liveDecayEntries());
+
+        assertTrue(svc.removeByIdWithExpiry(StorageType.COOLER, "d2").block().removed());
+        assertEquals(0, svc.liveDecayEntries());
+    }
+
+    // --- lock-free admission: concurrent adds never overbook a storage
+    @Test
+    void shouldNeverExceedCapacity_underConcurrentAdds() {
+        Instant now = Instant.now();
+        long accepted = Flux.range(0, 200)
+                .flatMap(i -> svc.tryAddOrder(StorageType.HEATER, order("cc-" + i, "H", Temperature.HOT, 60, now)), 64)
+                .filter(Boolean::booleanValue)
+                .count()
+                .block();
+
+        assertEquals(6, accepted);
+        assertEquals(6, svc.occupancy(StorageType.HEATER));
+    }
+
+    // --- place: ideal storage first, PLACE is the only event
+    @Test
+    void shouldPlaceOnIdeal_whenIdealHasRoom() {
+        PlacementOutcome out = svc.place(order("p1", "Soup", Temperature.HOT, 60, Instant.now())).block();
+
+        assertNotNull(out);
+        assertEquals(StorageType.HEATER, out.target());
+        assertEquals(List.of(new PlaceEvent(out.order(), StorageType.HEATER)), out.events());
+    }
+
+    // --- place: full shelf with a movable order → MOVE then PLACE on the freed shelf slot
+    @Test
+    void shouldMoveThenPlace_whenShelfFullAndCoolerHasRoom() {
+        StorageService small = new StorageService(1, 1, 1);
+        Instant now = Instant.now();
+        assertEquals(StorageType.COOLER, small.place(order("c1", "Ice", Temperature.COLD, 60, now)).block().target());
+        assertEquals(StorageType.SHELF, small.place(order("c2", "Ice", Temperature.COLD, 60, now)).block().target());
+        assertTrue(small.removeByIdWithExpiry(StorageType.COOLER, "c1").block().removed());
+
+        PlacementOutcome out = small.place(order("r1", "Bread", Temperature.ROOM, 60, now)).block();
+
+        assertNotNull(out);
+        assertEquals(StorageType.SHELF, out.target());
+        assertEquals(2, out.events().size());
+        assertInstanceOf(MoveEvent.class, out.events().get(0));
+        assertEquals("c2", out.events().get(0).order().id());
+        assertInstanceOf(PlaceEvent.class, out.events().get(1));
+        assertEquals(1, small.occupancy(StorageType.SHELF));
+        assertEquals(1, small.occupancy(StorageType.COOLER));
+    }
+
+    // --- place: full shelf and nothing movable → DISCARD soonest-to-expire then PLACE
+    @Test
+    void shouldDiscardThenPlace_whenShelfFullAndNothingMovable() {
+        StorageService small = new StorageService(1, 1, 1);
+        Instant now = Instant.now();
+        small.place(order("h1", "Soup", Temperature.HOT, 60, now)).block();
+        small.place(order("h2", "Soup", Temperature.HOT, 60, now)).block(); // on SHELF, HEATER full
+
+        PlacementOutcome out = small.place(order("h3", "Soup", Temperature.HOT, 60, now)).block();
+
+        assertNotNull(out);
+        assertEquals(StorageType.SHELF, out.target());
+        assertEquals(List.of(new DiscardEvent(out.events().get(0).order(), StorageType.SHELF),
+                new PlaceEvent(out.order(), StorageType.SHELF)), out.events());
+        assertEquals("h2", out.events().get(0).order().id());
+    }
+
+    // --- place under concurrency: never fails and never overbooks
+    @Test
+    void shouldPlaceEveryOrder_underConcurrentPlacements() {
+        Instant now = Instant.now();
+        List<PlacementOutcome> outcomes = Flux.range(0, 500)
+                .flatMap(i -> svc.place(order("cp-" + i, "X", Temperature.values()[i % 3], 60, now)), 64)
+                .collectList()
+                .block();
+
+        assertEquals(500, outcomes.size());
+        assertTrue(svc.occupancy(StorageType.SHELF) <= svc.getMaxCapacity(StorageType.SHELF));
+        assertEquals(svc.occupancy(StorageType.HEATER) + svc.occupancy(StorageType.COOLER)
+                + svc.occupancy(StorageType.SHELF), svc.liveDecayEntries());
+    }
+
+    // --- move candidate: the order with the most shelf time left (biggest gain) moves, across HOT and COLD
+    @Test
+    void shouldMoveCandidateWithLargestFreshnessGain() {
+        Instant now = Instant.now();
+        assertTrue(svc.tryAddOrder(StorageType.SHELF, order("cold-short", "Ice", Temperature.COLD, 20, now)).block());
+        assertTrue(svc.tryAddOrder(StorageType.SHELF, order("hot-long", "Soup", Temperature.HOT, 300, now)).block());
+        assertTrue(svc.tryAddOrder(StorageType.SHELF, order("cold-long", "Ice", Temperature.COLD, 120, now)).block());
+        assertTrue(svc.tryAddOrder(StorageType.SHELF, order("room", "Bread", Temperature.ROOM, 900, now)).block());
+
+        StepVerifier.create(svc.tryMoveOneFromShelf())
+                .expectNextMatches(ev -> ev.order().id().equals("hot-long") && ev.to() == StorageType.HEATER)
+                .verifyComplete();
+        StepVerifier.create(svc.tryMoveOneFromShelf())
+                .expectNextMatches(ev -> ev.order().id().equals("cold-long") && ev.to() == StorageType.COOLER)
+                .verifyComplete();
+    }
+
+    // --- move candidate: only temperatures whose ideal storage has room are considered
+    @Test
+    void shouldMoveFromTemperatureWithRoom_whenOtherIdealIsFull() {
+        StorageService small = new StorageService(1, 1, 4);
+        Instant now = Instant.now();
+        assertTrue(small.tryAddOrder(StorageType.HEATER, order("h0", "Soup", Temperature.HOT, 60, now)).block());
+        assertTrue(small.tryAddOrder(StorageType.SHELF, order("hot", "Soup", Temperature.HOT, 600, now)).block());
+        assertTrue(small.tryAddOrder(StorageType.SHELF, order("cold", "Ice", Temperature.COLD, 30, now)).block());
+
+        StepVerifier.create(small.tryMoveOneFromShelf())
+                .expectNextMatches(ev -> ev.order().id().equals("cold"))
+                .verifyComplete();
+    }
+
+    // --- move candidate: an order that is already expired gains nothing and is not moved
+    @Test
+    void shouldNotMoveExpiredOrder() {
+        Instant now = Instant.now();
+        assertTrue(svc.tryAddOrder(StorageType.SHELF, order("dead", "Ice", Temperature.COLD, 1, now.minusSeconds(5))).block());
+
+        StepVerifier.create(svc.tryMoveOneFromShelf()).verifyComplete();
+    }
+
+    // --- expiry sweep: expired orders leave every storage and free their capacity, fresh ones stay
+    @Test
+    void shouldExpireDueOrders_onEveryStorage() {
+        Instant now = Instant.parse("2025-01-01T12:00:00Z");
+        VirtualKitchenClock clock = new VirtualKitchenClock(now);
+        StorageService svc = new StorageService(clock, 6, 6, 12);
+        svc.enableExpiryTracking(1_000, 64);
+        assertTrue(svc.tryAddOrder(StorageType.HEATER, order("h-dead", "Soup", Temperature.HOT, 1, now.minusSeconds(5))).block());
+        assertTrue(svc.tryAddOrder(StorageType.SHELF, order("s-dead", "Ice", Temperature.COLD, 2, now.minusSeconds(2))).block());
+        assertTrue(svc.tryAddOrder(StorageType.HEATER, order("h-ok", "Soup", Temperature.HOT, 600, now)).block());
+
+        // deadlines fire at most one wheel tick late
+        clock.advanceMicros(1_000);
+        List<DiscardEvent> events = svc.expireDue().block();
+
+        assertNotNull(events);
+        assertEquals(2, events.size());
+        assertTrue(events.stream().anyMatch(e -> e.order().id().equals("h-dead") && e.from() == StorageType.HEATER));
+        assertTrue(events.stream().anyMatch(e -> e.order().id().equals("s-dead") && e.from() == StorageType.SHELF));
+        assertEquals(1, svc.occupancy(StorageType.HEATER));
+        assertEquals(0, svc.occupancy(StorageType.SHELF));
+        assertEquals(1, svc.liveDecayEntries());
+        // the swept order is gone: pickup finds nothing
+        assertFalse(svc.removeByIdWithExpiry(StorageType.SHELF, "s-dead").block().removed());
+    }
+
+    // --- expiry sweep: picked up orders are cancelled in the wheel and never reported
+    @Test
+    void shouldNotExpirePickedUpOrder() {
+        svc.enableExpiryTracking(1_000, 64);
+        Instant now = Instant.now();
+        assertTrue(svc.tryAddOrder(StorageType.COOLER, order("c-dead", "Ice", Temperature.COLD, 1, now.minusSeconds(5))).block());
+        assertTrue(svc.removeByIdWithExpiry(StorageType.COOLER, "c-dead").block().removed());
+
+        StepVerifier.create(svc.expireDue())
+                .expectNextMatches(List::isEmpty)
+                .verifyComplete();
+    }
+
+    // --- expiry sweep: nothing is tracked unless enabled
+    @Test
+    void shouldNotExpire_whenTrackingDisabled() {
+        Instant now = Instant.now();
+        assertTrue(svc.tryAddOrder(StorageType.HEATER, order("h-dead", "Soup", Temperature.HOT, 1, now.minusSeconds(5))).block());
+
+        StepVerifier.create(svc.expireDue())
+                .expectNextMatches(List::isEmpty)
+                .verifyComplete();
+        assertEquals(1, svc.occupancy(StorageType.HEATER));
+    }
+
+    // --- virtual time: a 10-minute scenario runs instantly with the same decay math
+    @Test
+    void shouldDecayOnVirtualTime() {
+        Instant start = Instant.parse("2025-01-01T12:00:00Z");
+        VirtualKitchenClock clock = new VirtualKitchenClock(start);
+        StorageService v = new StorageService(clock, 6, 6, 12);
+        // COLD on SHELF decays 2x: 600s of budget last 300s; on COOLER the full 600s
+        assertTrue(v.tryAddOrder(StorageType.SHELF, order("s", "Ice", Temperature.COLD, 600, start)).block());
+        assertTrue(v.tryAddOrder(StorageType.COOLER, order("c", "Ice", Temperature.COLD, 600, start)).block());
+
+        clock.advance(Duration.ofSeconds(300).minusNanos(1_000));
+        assertFalse(v.removeByIdWithExpiry(StorageType.SHELF, "s").block().expired());
+
+        clock.advance(Duration.ofSeconds(300).plusNanos(1_000));
+        assertTrue(v.removeByIdWithExpiry(StorageType.COOLER, "c").block().expired());
+    }
+
+    // --- removal reports the share of freshness left; bound meters see occupancy and operations
+    @Test
+    void shouldReportFreshnessLeftAndExposeMeters() {
+        Instant start = Instant.parse("2025-01-01T12:00:00Z");
+        VirtualKitchenClock clock = new VirtualKitchenClock(start);
+        StorageService v = new StorageService(clock, 6, 6, 12);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        v.bindTo(registry);
+        // COLD on SHELF decays 2x: after 150s, half of the 600s budget is gone; on COOLER a quarter
+        assertTrue(v.tryAddOrder(StorageType.SHELF, order("s", "Ice", Temperature.COLD, 600, start)).block());
+        assertTrue(v.tryAddOrder(StorageType.COOLER, order("c", "Ice", Temperature.COLD, 600, start)).block());
+        assertEquals(1, registry.get("kitchen.storage.occupancy").tag("storage", "shelf").gauge().value());
+        assertEquals(12, registry.get("kitchen.storage.capacity").tag("storage", "shelf").gauge().value());
+        assertEquals(2, registry.get("kitchen.storage.live").gauge().value());
+
+        clock.advance(Duration.ofSeconds(150));
+        assertEquals(0.5, v.removeByIdWithExpiry("s").block().freshnessLeft(), 1e-6);
+        assertEquals(0.75, v.removeByIdWithExpiry("c").block().freshnessLeft(), 1e-6);
+        assertEquals(0, v.removeByIdWithExpiry("c").block().freshnessLeft());
+
+        assertEquals(0, registry.get("kitchen.storage.occupancy").tag("storage", "shelf").gauge().value());
+        assertEquals(2, registry.get("kitchen.storage.duration").tag("operation", "add").timer().count());
+        assertEquals(3, registry.get("kitchen.storage.duration").tag("operation", "remove").timer().count());
+    }
+
+    // --- virtual time: a move to ideal storage halves the decay rate and pushes the expiry deadline out
+    @Test
+    void shouldRescheduleExpiry_whenMoveChangesDecayRate() {
+        Instant start = Instant.parse("2025-01-01T12:00:00Z");
+        VirtualKitchenClock clock = new VirtualKitchenClock(start);
+        StorageService v = new StorageService(clock, 6, 6, 12);
+        v.enableExpiryTracking(1_000_000, 64);
+        assertTrue(v.tryAddOrder(StorageType.SHELF, order("m", "Ice", Temperature.COLD, 100, start)).block());
+
+        // 20s on SHELF burn 40s of budget; on COOLER the 60s left last 60s, not 30s
+        clock.advance(Duration.ofSeconds(20));
+        assertNotNull(v.tryMoveOneFromShelf().block());
+
+        clock.advance(Duration.ofSeconds(40));
+        assertTrue(v.expireDue().block().isEmpty());
+        clock.advance(Duration.ofSeconds(21));
+        List<DiscardEvent> events = v.expireDue().block();
+        assertEquals(1, events.size());
+        assertEquals(StorageType.COOLER, events.get(0).from());
+    }
+
+    // --- crash recovery: storages and decay budgets come back from the journal, downtime keeps decaying
+    @Test
+    void shouldRestoreStorageAndDecayFromJournal(@TempDir Path dir) throws IOException {
+        Instant start = Instant.parse("2025-01-01T12:00:00Z");
+        VirtualKitchenClock clock = new VirtualKitchenClock(start);
+        StorageService before = new StorageService(clock, 1, 1, 2);
+        try (MappedStorageJournal journal = MappedStorageJournal.open(dir, 4_096)) {
+            before.journalTo(journal);
+            assertTrue(before.tryAddOrder(StorageType.COOLER, order("c1", "Ice", Temperature.COLD, 600, start)).block());
+            assertTrue(before.tryAddOrder(StorageType.SHELF, order("s1", "Ice", Temperature.COLD, 100, start)).block());
+            // 20s on SHELF burn 40s of s1's budget, then it moves to the freed COOLER slot
+            clock.advance(Duration.ofSeconds(20));
+            assertTrue(before.removeByIdWithExpiry(StorageType.COOLER, "c1").block().removed());
+            assertNotNull(before.tryMoveOneFromShelf().block());
+            assertTrue(before.tryAddOrder(StorageType.SHELF, order("r1", "Bread", Temperature.ROOM, 300, clock.now())).block());
+        }
+
+        // 10s of downtime, then restart
+        clock.advance(Duration.ofSeconds(10));
+        StorageService after = new StorageService(clock, 1, 1, 2);
+        try (MappedStorageJournal journal = MappedStorageJournal.open(dir, 4_096)) {
+            assertEquals(2, after.restore(journal.drainRecovered()).block());
+        }
+        after.enableExpiryTracking(1_000_000, 64);
+
+        assertEquals(Optional.of(StorageType.COOLER), after.locate("s1"));
+        assertEquals(Optional.of(StorageType.SHELF), after.locate("r1"));
+        assertEquals(Optional.empty(), after.locate("c1"));
+        assertEquals(1, after.occupancy(StorageType.SHELF));
+        // s1 has 60s - 10s left on COOLER
+        clock.advance(Duration.ofSeconds(49));
+        assertTrue(after.expireDue().block().isEmpty());
+        clock.advance(Duration.ofSeconds(2));
+        assertEquals(List.of("s1"), after.expireDue().block().stream().map(e -> e.order().id()).toList());
+        // the shelf heap is rebuilt too
+        assertEquals("r1", after.discardMinFromShelf().block().order().id());
+    }
+
+    // --- journal: re-placing an id right after its removal journals the PLACE after the REMOVE,
+    // so replay keeps the new order
+    @Test
+    void shouldJournalRemoveBeforeReplaceOfSameId(@TempDir Path dir) throws Exception {
+        Instant start = Instant.parse("2025-01-01T12:00:00Z");
+        VirtualKitchenClock clock = new VirtualKitchenClock(start);
+        StorageService before = new StorageService(clock, 1, 1, 1);
+        try (MappedStorageJournal journal = MappedStorageJournal.open(dir, 4_096)) {
+            before.journalTo(journal);
+            assertTrue(before.tryAddOrder(StorageType.HEATER, order("o1", "Soup", Temperature.HOT, 600, start)).block());
+            for (int i = 0; i < 200; i++) {
+                // HEATER holds one order: the re-place succeeds as soon as the removal frees it
+                CompletableFuture<Void> replace = CompletableFuture.runAsync(() -> {
+                    while (!before.tryAddOrder(StorageType.HEATER, order("o1", "Soup", Temperature.HOT, 600, start)).block()) {
+                        Thread.onSpinWait();
+                    }
+                });
+                assertTrue(before.removeByIdWithExpiry("o1").block().removed());
+                replace.get(5, TimeUnit.SECONDS);
+            }
+        }
+
+        StorageService after = new StorageService(clock, 1, 1, 1);
+        try (MappedStorageJournal journal = MappedStorageJournal.open(dir, 4_096)) {
+            assertEquals(1, after.restore(journal.drainRecovered()).block());
+        }
+        assertEquals(Optional.of(StorageType.HEATER), after.locate("o1"));
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.kitchen.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CapacityCounterTest {
+
+    // --- reservations stop at capacity and released slots can be reserved again
+    @Test
+    void shouldRejectWhenFull_andAcceptAfterRelease() {
+        CapacityCounter counter = new CapacityCounter(2);
+        assertTrue(counter.tryReserve());
+        assertTrue(counter.tryReserve());
+        assertFalse(counter.tryReserve());
+        assertFalse(counter.hasRoom());
+
+        counter.release();
+        assertTrue(counter.tryReserve());
+        assertEquals(2, counter.used());
+    }
+
+    // --- releasing more than reserved is a bug in the caller
+    @Test
+    void shouldFail_whenReleasingUnreservedSlot() {
+        CapacityCounter counter = new CapacityCounter(1);
+        assertThrows(IllegalStateException.class, counter::release);
+        assertEquals(0, counter.used());
+    }
+
+    // --- concurrent reservations never exceed capacity
+    @Test
+    void shouldNeverOverbook_underConcurrentReservations() throws Exception {
+        CapacityCounter counter = new CapacityCounter(100);
+        AtomicInteger granted = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < 8; t++) {
+            pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < 1_000; i++) {
+                    if (counter.tryReserve()) granted.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(100, granted.get());
+        assertEquals(100, counter.used());
+    }
+}
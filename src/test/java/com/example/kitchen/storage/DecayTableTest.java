@@ -0,0 +1,40 @@
+package com.example.kitchen.storage;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecayTableTest {
+
+    // --- elapsed time is charged at the given rate and moves lastUpdate forward
+    @Test
+    void shouldDecreaseBudgetByElapsedTimesRate() {
+        DecayTable table = new DecayTable(2);
+        int h = table.allocate(10_000_000L, 1_000L);
+
+        table.applyElapsed(h, 2, 2_001_000L);
+
+        assertEquals(6_000_000L, table.remaining(h));
+        assertEquals(2_001_000L, table.lastUpdate(h));
+    }
+
+    // --- freed handles are reused and the live gauge follows allocations
+    @Test
+    void shouldReuseFreedHandles_andTrackLiveEntries() {
+        DecayTable table = new DecayTable(2);
+        int a = table.allocate(1, 0);
+        int b = table.allocate(1, 0);
+        assertEquals(2, table.live());
+        assertThrows(IllegalStateException.class, () -> table.allocate(1, 0));
+
+        table.free(a);
+        table.free(a); // double free is a no-op
+        assertEquals(1, table.live());
+
+        int c = table.allocate(5, 0);
+        assertEquals(a, c);
+        assertEquals(5, table.remaining(c));
+        assertNotEquals(b, c);
+        assertEquals(2, table.live());
+    }
+}
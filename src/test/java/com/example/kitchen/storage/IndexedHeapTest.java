@@ -0,0 +1,94 @@
+package com.example.kitchen.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedHeapTest {
+
+    // --- poll returns keys in ascending order
+    @Test
+    void shouldPollInKeyOrder() {
+        IndexedHeap<String> heap = new IndexedHeap<>(1);
+        heap.add("c", 30);
+        heap.add("a", 10);
+        heap.add("b", 20);
+
+        assertEquals("a", heap.peek().value());
+        assertEquals("a", heap.poll().value());
+        assertEquals("b", heap.poll().value());
+        assertEquals("c", heap.poll().value());
+        assertNull(heap.poll());
+    }
+
+    // --- remove-by-handle detaches the entry and a second remove is a no-op
+    @Test
+    void shouldRemoveByHandle() {
+        IndexedHeap<String> heap = new IndexedHeap<>(4);
+        heap.add("a", 10);
+        IndexedHeap.Handle<String> b = heap.add("b", 20);
+        heap.add("c", 30);
+
+        assertTrue(heap.remove(b));
+        assertFalse(b.queued());
+        assertFalse(heap.remove(b));
+        assertEquals(2, heap.size());
+        assertEquals("a", heap.poll().value());
+        assertEquals("c", heap.poll().value());
+    }
+
+    // --- update-key moves the entry both up and down
+    @Test
+    void shouldReorder_whenKeyUpdated() {
+        IndexedHeap<String> heap = new IndexedHeap<>(4);
+        IndexedHeap.Handle<String> a = heap.add("a", 10);
+        IndexedHeap.Handle<String> c = heap.add("c", 30);
+        heap.add("b", 20);
+
+        heap.updateKey(c, 5);
+        assertEquals("c", heap.peek().value());
+        heap.updateKey(c, 50);
+        heap.updateKey(a, 40);
+        assertEquals("b", heap.poll().value());
+        assertEquals("a", heap.poll().value());
+        assertEquals("c", heap.poll().value());
+    }
+
+    // --- randomized mix of add/remove/update/poll agrees with java.util.PriorityQueue
+    @Test
+    void shouldMatchReferenceQueue_underRandomOperations() {
+        Random rnd = new Random(7);
+        IndexedHeap<Integer> heap = new IndexedHeap<>(8);
+        List<IndexedHeap.Handle<Integer>> live = new ArrayList<>();
+        PriorityQueue<Long> reference = new PriorityQueue<>();
+
+        for (int i = 0; i < 20_000; i++) {
+            int op = rnd.nextInt(4);
+            if (op == 0 || live.isEmpty()) {
+                long key = rnd.nextInt(1_000);
+                live.add(heap.add(i, key));
+                reference.add(key);
+            } else if (op == 1) {
+                var h = live.remove(rnd.nextInt(live.size()));
+                reference.remove(h.key());
+                assertTrue(heap.remove(h));
+            } else if (op == 2) {
+                var h = live.get(rnd.nextInt(live.size()));
+                long key = rnd.nextInt(1_000);
+                reference.remove(h.key());
+                reference.add(key);
+                heap.updateKey(h, key);
+            } else {
+                var h = heap.poll();
+                assertEquals(reference.poll(), h.key());
+                live.remove(h);
+            }
+            assertEquals(reference.size(), heap.size());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.kitchen.storage;
+
+import com.example.kitchen.enums.StorageType;
+import com.example.kitchen.enums.Temperature;
+import com.example.kitchen.model.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedStorageJournalTest {
+
+    private static final int SEGMENT = 4_096;
+    private static final Instant PLACED = Instant.parse("2025-01-01T12:00:00.123456Z");
+
+    @TempDir
+    Path dir;
+
+    private static Order order(String id, String runId) {
+        return new Order(id, "Pizza " + id, Temperature.HOT, 300, PLACED, runId);
+    }
+
+    private Map<String, StoredOrder> reopen() throws IOException {
+        try (MappedStorageJournal j = MappedStorageJournal.open(dir, SEGMENT)) {
+            return j.drainRecovered().stream().collect(Collectors.toMap(o -> o.order().id(), o -> o));
+        }
+    }
+
+    private List<Path> files() throws IOException {
+        try (Stream<Path> s = Files.list(dir)) {
+            return s.sorted().toList();
+        }
+    }
+
+    // --- replay: the last move wins, removed orders are gone, every order field survives
+    @Test
+    void shouldRecoverLiveOrdersFromJournal() throws IOException {
+        try (MappedStorageJournal j = MappedStorageJournal.open(dir, SEGMENT)) {
+            j.placed(order("a", "run-1"), StorageType.SHELF, 300_000_000L, 10L);
+            j.placed(order("b", null), StorageType.HEATER, 200_000_000L, 11L);
+            j.placed(order("c", null), StorageType.SHELF, 100_000_000L, 12L);
+            j.moved("a", StorageType.HEATER, 250_000_000L, 20L);
+            j.removed("c");
+        }
+
+        Map<String, StoredOrder> live = reopen();
+
+        assertEquals(2, live.size());
+        assertEquals(new StoredOrder(order("a", "run-1"), StorageType.HEATER, 250_000_000L, 20L), live.get("a"));
+        assertEquals(new StoredOrder(order("b", null), StorageType.HEATER, 200_000_000L, 11L), live.get("b"));
+    }
+
+    // --- a full segment rolls over to the next one, replay reads them in order
+    @Test
+    void shouldRollOverFullSegments() throws IOException {
+        try (MappedStorageJournal j = MappedStorageJournal.open(dir, SEGMENT)) {
+            for (int i = 0; i < 200; i++) j.placed(order("o" + i, null), StorageType.SHELF, i, i);
+            for (int i = 0; i < 200; i += 2) j.removed("o" + i);
+        }
+
+        assertTrue(files().size() > 2);
+        Map<String, StoredOrder> live = reopen();
+        assertEquals(100, live.size());
+        assertEquals(199L, live.get("o199").remainingMicros());
+    }
+
+    // --- checkpoint: the tail is merged and deleted, later appends land in a new segment
+    @Test
+    void shouldMergeTailIntoCheckpoint() throws IOException {
+        try (MappedStorageJournal j = MappedStorageJournal.open(dir, SEGMENT)) {
+            j.placed(order("a", null), StorageType.COOLER, 1L, 1L);
+            j.placed(order("b", null), StorageType.SHELF, 2L, 2L);
+            assertTrue(j.checkpoint());
+            assertFalse(j.checkpoint(), "nothing recorded since");
+
+            j.removed("b");
+            j.placed(order("c", null), StorageType.HEATER, 3L, 3L);
+        }
+
+        assertEquals(List.of(MappedStorageJournal.CHECKPOINT, "journal-0000000000000002.seg"),
+                files().stream().map(p -> p.getFileName().toString()).toList());
+        assertEquals(Map.of("a", StorageType.COOLER, "c", StorageType.HEATER),
+                reopen().values().stream().collect(Collectors.toMap(o -> o.order().id(), StoredOrder::storage)));
+    }
+
+    // --- a torn record ends replay of its segment; the records before it are kept
+    @Test
+    void shouldStopAtTornRecord() throws IOException {
+        try (MappedStorageJournal j = MappedStorageJournal.open(dir, SEGMENT)) {
+            j.placed(order("a", null), StorageType.SHELF, 1L, 1L);
+            j.placed(order("b", null), StorageType.SHELF, 2L, 2L);
+        }
+        Path segment = files().get(0);
+        byte[] bytes = Files.readAllBytes(segment);
+        ByteBuffer b = ByteBuffer.wrap(bytes);
+        int second = 8 + b.getInt(0);
+        // half-written body: the checksum no longer matches
+        bytes[second + 8 + b.getInt(second) - 1] ^= 0x5A;
+        Files.write(segment, bytes);
+
+        assertEquals(List.of("a"), List.copyOf(reopen().keySet()));
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.kitchen.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    // --- a timeout fires once its deadline has passed, never before
+    @Test
+    void shouldFireOnlyAfterDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, 0);
+        wheel.schedule("a", 25);
+        List<String> fired = new ArrayList<>();
+
+        assertEquals(0, wheel.advance(24, fired::add));
+        assertEquals(0, wheel.advance(29, fired::add)); // deadline tick starts at 30
+        assertEquals(1, wheel.advance(30, fired::add));
+        assertEquals(List.of("a"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    // --- deadlines beyond one revolution sit in an upper level and cascade down in time
+    @Test
+    void shouldCascadeFarDeadlines() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 4, 0);
+        wheel.schedule("near", 20);
+        wheel.schedule("far", 20 + 3 * 40); // same bucket, three revolutions later
+        List<String> fired = new ArrayList<>();
+
+        wheel.advance(100, fired::add);
+        assertEquals(List.of("near"), fired);
+        wheel.advance(140, fired::add);
+        assertEquals(List.of("near", "far"), fired);
+    }
+
+    // --- cancel detaches in O(1); cancelled or fired timeouts cannot be cancelled again
+    @Test
+    void shouldCancelPendingTimeout() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, 0);
+        TimingWheel.Timeout<String> a = wheel.schedule("a", 50);
+        TimingWheel.Timeout<String> b = wheel.schedule("b", 50);
+
+        assertTrue(wheel.cancel(a));
+        assertFalse(a.pending());
+        assertFalse(wheel.cancel(a));
+        List<String> fired = new ArrayList<>();
+        wheel.advance(50, fired::add);
+        assertEquals(List.of("b"), fired);
+        assertFalse(wheel.cancel(b));
+    }
+
+    // --- past deadlines go to the next unprocessed tick
+    @Test
+    void shouldFirePastDeadlinesOnNextTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, 1_000);
+        wheel.advance(1_100, s -> { });
+        wheel.schedule("late", 500);
+        List<String> fired = new ArrayList<>();
+
+        wheel.advance(1_110, fired::add);
+        assertEquals(List.of("late"), fired);
+    }
+
+    // --- randomized: every timeout fires within one tick after its deadline
+    @Test
+    void shouldFireEveryTimeoutWithinOneTick() {
+        long tick = 7;
+        TimingWheel<Long> wheel = new TimingWheel<>(tick, 16, 0);
+        Random rnd = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            long deadline = rnd.nextInt(5_000);
+            wheel.schedule(deadline, deadline);
+        }
+
+        long[] now = {0};
+        int total = 0;
+        for (now[0] = 0; now[0] <= 5_000 + tick; now[0] += 3) {
+            total += wheel.advance(now[0], deadline -> {
+                assertTrue(deadline <= now[0], "fired early");
+                assertTrue(now[0] - deadline < tick + 3, "fired late");
+            });
+        }
+        assertEquals(10_000, total);
+        assertEquals(0, wheel.size());
+    }
+}
@@ -4,7 +4,8 @@ CREATE TABLE IF NOT EXISTS actions (
     ts TIMESTAMP NULL,
     order_id VARCHAR(128) NOT NULL,
     action VARCHAR(32) NOT NULL,
-    target VARCHAR(32) NOT NULL
+    target VARCHAR(32) NOT NULL,
+    run_id VARCHAR(64) NULL
     );
 
 -- orders